@@ -14,24 +14,62 @@
 package com.analysys.trino.connector.hbase.connection;
 
 import com.analysys.trino.connector.hbase.meta.HBaseConfig;
+import com.analysys.trino.connector.hbase.meta.HBaseMetaRegistry;
+import com.analysys.trino.connector.hbase.meta.HBaseRegionStats;
+import com.analysys.trino.connector.hbase.meta.HBaseSchemaInference;
 import com.analysys.trino.connector.hbase.meta.HBaseTable;
+import com.analysys.trino.connector.hbase.meta.TableMetaInfo;
+import com.analysys.trino.connector.hbase.utils.Utils;
+import com.google.common.collect.ImmutableList;
 
 
 
 import io.airlift.log.Logger;
+import io.trino.spi.NodeManager;
+import io.trino.spi.connector.ColumnMetadata;
+import io.trino.spi.type.TypeManager;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.RegionMetrics;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.Size;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Admin;
 import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.ConnectionFactory;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionLocator;
 import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.util.Bytes;
 
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import static com.analysys.trino.connector.hbase.utils.Constant.REGION_STATS_EXPIRE_MILLIS;
 import static com.analysys.trino.connector.hbase.utils.Constant.SYSTEMOUT_INTERVAL;
 
 /**
@@ -47,11 +85,203 @@ public class HBaseClientManager {
     private Connection connection;
     private HBaseConfig config;
 
+    /**
+     * Region stats of tables and the time they are read, keyed by 'schema:table'
+     */
+    private final Map<String, Map.Entry<Long, List<HBaseRegionStats>>> regionStats = new ConcurrentHashMap<>();
+    /**
+     * Tables whose region stats are being read in background
+     */
+    private final Set<String> refreshingRegionStats = ConcurrentHashMap.newKeySet();
+    private final ExecutorService regionStatsExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("hbase-region-stats-%d").setDaemon(true).build());
+    /**
+     * Threads handing the puts of page sinks to their BufferedMutators, which block while region servers are busy
+     */
+    private final ExecutorService writeExecutor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("hbase-writer-%d").setDaemon(true).build());
+    /**
+     * Tables read by getTable, keyed by 'schema:table'. Tables not found are not cached,
+     * so tables created out of presto are seen at once.
+     */
+    private final Cache<String, HBaseTable> tables;
+    /**
+     * Registry of table json in HBase, null if table json is read from metaDir only
+     */
+    private final HBaseMetaRegistry metaRegistry;
+    /**
+     * Meta inferred for tables without table json, keyed by 'schema:table'
+     */
+    private final Cache<String, Map.Entry<TableMetaInfo, ImmutableList<ColumnMetadata>>> inferredMetas;
+    private final ExecutorService metadataExecutor;
+    /**
+     * Only the coordinator infers meta, workers get the columns in handles
+     */
+    private final boolean coordinator;
+    /**
+     * Type manager of the server, types of columns are got from it
+     */
+    private final TypeManager typeManager;
+
+    public HBaseClientManager(HBaseConfig config, TypeManager typeManager) {
+        this(config, typeManager, true);
+    }
+
     @Inject
-    public HBaseClientManager(HBaseConfig config) {
+    public HBaseClientManager(HBaseConfig config, NodeManager nodeManager, TypeManager typeManager) {
+        this(config, typeManager, nodeManager.getCurrentNode().isCoordinator());
+    }
+
+    private HBaseClientManager(HBaseConfig config, TypeManager typeManager, boolean coordinator) {
         this.config = config;
-        this.config.init();
-        this.connection = createConnection();
+        this.typeManager = Objects.requireNonNull(typeManager, "typeManager is null");
+        this.coordinator = coordinator;
+        this.tables = newMetadataCache(config);
+        this.metaRegistry = config.isMetaRegistryEnabled()
+                ? new HBaseMetaRegistry(this::getConnection, config, typeManager) : null;
+        this.inferredMetas = newMetadataCache(config);
+        this.metadataExecutor = Executors.newFixedThreadPool(Math.max(1, config.getMetadataListingThreads()),
+                new ThreadFactoryBuilder().setNameFormat("hbase-metadata-%d").setDaemon(true).build());
+    }
+
+    /**
+     * The connection is opened in background when the connector starts, so loading the plugin doesn't wait for zookeeper
+     */
+    @PostConstruct
+    public void start() {
+        this.metadataExecutor.execute(this::warmUp);
+    }
+
+    /**
+     * Stop the threads of this catalog and close its connection, called when the connector is shut down
+     */
+    @PreDestroy
+    public void stop() {
+        metadataExecutor.shutdownNow();
+        regionStatsExecutor.shutdownNow();
+        writeExecutor.shutdownNow();
+        synchronized (this) {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (Exception ex) {
+                    log.error(ex, ex.getMessage());
+                }
+                connection = null;
+            }
+        }
+    }
+
+    public synchronized Connection getConnection() {
+        if (connection == null) {
+            connection = createConnection();
+        }
+        return connection;
+    }
+
+    /**
+     * Open the connection, and load the region locations, region stats and metadata of warm-up-tables,
+     * so the first queries of these tables don't wait for reading hbase:meta.
+     */
+    private void warmUp() {
+        if (getConnection() == null || config.getWarmUpTables() == null) {
+            return;
+        }
+        for (String name : config.getWarmUpTables().split(",")) {
+            if (name.trim().isEmpty()) {
+                continue;
+            }
+            long startTime = System.currentTimeMillis();
+            TableName hTableName = TableName.valueOf(name.trim());
+            String schema = hTableName.getNamespaceAsString();
+            String tableName = hTableName.getQualifierAsString();
+            try (RegionLocator locator = getConnection().getRegionLocator(hTableName)) {
+                int regions = locator.getAllRegionLocations().size();
+                getTable(schema, tableName);
+                getRegionStats(schema, tableName);
+                log.info("Warmed up table " + hTableName + " of " + regions + " regions, used "
+                        + (System.currentTimeMillis() - startTime) + " mill sec");
+            } catch (Exception ex) {
+                log.error(ex, "Warm up table " + hTableName + " failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return meta info of table from the registry or the json in metaDir, null if it can't be read
+     */
+    public TableMetaInfo getTableMetaInfo(String schema, String tableName) {
+        Optional<Map.Entry<TableMetaInfo, ImmutableList<ColumnMetadata>>> inferred = getInferredMeta(schema, tableName);
+        if (inferred.isPresent()) {
+            return inferred.get().getKey();
+        }
+        return metaRegistry != null ? metaRegistry.getTableMetaInfo(schema, tableName)
+                : Utils.getTableMetaInfoFromJson(schema, tableName, config.getMetaDir());
+    }
+
+    /**
+     * @return columns of table from the registry or the json in metaDir
+     */
+    public ImmutableList<ColumnMetadata> getColumnMeta(String schema, String tableName) {
+        Optional<Map.Entry<TableMetaInfo, ImmutableList<ColumnMetadata>>> inferred = getInferredMeta(schema, tableName);
+        if (inferred.isPresent()) {
+            return inferred.get().getValue();
+        }
+        return metaRegistry != null ? metaRegistry.getColumnMeta(schema, tableName)
+                : Utils.getColumnMetaFromJson(schema, tableName, config.getMetaDir(), typeManager);
+    }
+
+    /**
+     * Infer the meta of a table without table json when meta-inference-enabled, on the coordinator only.
+     * With meta-source hbase the json inferred is registered, so all nodes read the same meta and it's not inferred again,
+     * otherwise it's inferred again when it's older than metadata-cache-ttl-millis. Workers don't infer,
+     * the columns come in the handles and a table without json has no rowKey format to generate or filter keys by.
+     *
+     * @return meta info and columns inferred, empty if the table has table json or it can't be inferred
+     */
+    private Optional<Map.Entry<TableMetaInfo, ImmutableList<ColumnMetadata>>> getInferredMeta(String schema,
+                                                                                             String tableName) {
+        if (!config.isMetaInferenceEnabled() || !coordinator
+                || Utils.existsTableJson(schema, tableName, config.getMetaDir())
+                || (metaRegistry != null && metaRegistry.isRegistered(schema, tableName))) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(inferredMetas.get(schema + ":" + tableName, () -> {
+                String json = HBaseSchemaInference.infer(getConnection(), schema, tableName,
+                        config.getMetaInferenceSampleRegions(), config.getMetaInferenceSampleRows());
+                if (metaRegistry != null) {
+                    try {
+                        metaRegistry.register(schema, tableName, json);
+                    } catch (IOException ex) {
+                        log.warn(ex, "Register meta inferred of table " + schema + "." + tableName + " failed: "
+                                + ex.getMessage());
+                    }
+                }
+                return new AbstractMap.SimpleImmutableEntry<>(Utils.parseTableMetaInfo(schema, tableName, json),
+                        Utils.parseColumnMeta(schema, tableName, json, typeManager));
+            }));
+        } catch (Exception ex) {
+            log.error(ex, "Infer meta of table " + schema + "." + tableName + " failed: " + ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return registry of table json, empty if meta-source is not hbase
+     */
+    public Optional<HBaseMetaRegistry> getMetaRegistry() {
+        return Optional.ofNullable(metaRegistry);
+    }
+
+    /**
+     * @return a cache bounded by metadata-cache-ttl-millis and metadata-cache-max-size
+     */
+    public static <K, V> Cache<K, V> newMetadataCache(HBaseConfig config) {
+        return CacheBuilder.newBuilder()
+                .expireAfterWrite(config.getMetadataCacheTtlMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(config.getMetadataCacheMaxSize())
+                .build();
     }
 
     public Connection createConnection() {
@@ -90,10 +320,7 @@ public class HBaseClientManager {
 
     public Admin getAdmin() {
         try {
-            if (connection == null) {
-                connection = createConnection();
-            }
-            return connection.getAdmin();
+            return getConnection().getAdmin();
         } catch (Exception ex) {
             log.error(ex, ex.getMessage());
         }
@@ -103,6 +330,92 @@ public class HBaseClientManager {
     public HBaseTable getTable(String schema, String tableName) {
         Objects.requireNonNull(schema, "schema is null");
         Objects.requireNonNull(tableName, "tableName is null");
+        String key = schema + ":" + tableName;
+        HBaseTable table = tables.getIfPresent(key);
+        if (table == null) {
+            table = readTable(schema, tableName);
+        } else if (!table.isBuiltFrom(getColumnMeta(schema, tableName))) {
+            // columns are changed in json, the descriptor of HBase is still the same
+            table = new HBaseTable(table.getTableDescriptor(), getColumnMeta(schema, tableName));
+        } else {
+            return table;
+        }
+        if (table != null) {
+            tables.put(key, table);
+        }
+        return table;
+    }
+
+    /**
+     * Get many tables of a schema for listing columns. The descriptors not cached are read by one RPC,
+     * and the json of tables are read concurrently.
+     *
+     * @param schema     schema name
+     * @param tableNames table names
+     * @return tables found, keyed by table name
+     */
+    public Map<String, HBaseTable> getTables(String schema, Collection<String> tableNames) {
+        Map<String, HBaseTable> found = new ConcurrentHashMap<>();
+        List<TableName> missed = new ArrayList<>();
+        for (String tableName : tableNames) {
+            if (tables.getIfPresent(schema + ":" + tableName) == null) {
+                missed.add(TableName.valueOf(schema, tableName));
+            } else {
+                // cached, built again only if the json is modified
+                HBaseTable table = getTable(schema, tableName);
+                if (table != null) {
+                    found.put(tableName, table);
+                }
+            }
+        }
+
+        List<TableDescriptor> descriptors = Collections.emptyList();
+        if (!missed.isEmpty()) {
+            Admin admin = null;
+            try {
+                admin = this.getAdmin();
+                descriptors = admin.listTableDescriptors(missed);
+            } catch (Exception ex) {
+                log.error(ex, ex.getMessage());
+            } finally {
+                if (admin != null) {
+                    this.close(admin);
+                }
+            }
+        }
+
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        for (TableDescriptor descriptor : descriptors) {
+            String tableName = descriptor.getTableName().getQualifierAsString();
+            futures.put(tableName, CompletableFuture.runAsync(() -> {
+                HBaseTable table = new HBaseTable(descriptor, getColumnMeta(schema, tableName));
+                tables.put(schema + ":" + tableName, table);
+                found.put(tableName, table);
+            }, metadataExecutor));
+        }
+        // one broken table json doesn't fail listing the others
+        futures.forEach((tableName, future) -> {
+            try {
+                future.join();
+            } catch (CompletionException | CancellationException ex) {
+                log.error(ex, "Read table " + schema + "." + tableName + " failed, it's not listed: " + ex.getMessage());
+            }
+        });
+        return found;
+    }
+
+    /**
+     * Forget the cached metadata of a table, called when the table is changed by presto
+     *
+     * @param schema    schema name
+     * @param tableName table name
+     */
+    public void invalidateTable(String schema, String tableName) {
+        tables.invalidate(schema + ":" + tableName);
+        regionStats.remove(schema + ":" + tableName);
+    }
+
+    private HBaseTable readTable(String schema, String tableName) {
         TableName hTableName = TableName.valueOf(schema.getBytes(), tableName.getBytes());
         TableDescriptor hTableDescriptor = null;
 
@@ -121,7 +434,81 @@ public class HBaseClientManager {
         if (hTableDescriptor == null) {
             return null;
         } else {
-            return new HBaseTable(schema, hTableDescriptor, config);
+            return new HBaseTable(hTableDescriptor, getColumnMeta(schema, tableName));
+        }
+    }
+
+    /**
+     * Get the size of each region of a table by Admin.getRegionMetrics. They are read once for a table,
+     * then read again in background when they are older than REGION_STATS_EXPIRE_MILLIS,
+     * so planning doesn't wait for region servers.
+     *
+     * @param schema    schema name
+     * @param tableName table name
+     * @return region stats ordered by start key, empty if the metrics can't be read
+     */
+    public List<HBaseRegionStats> getRegionStats(String schema, String tableName) {
+        String key = schema + ":" + tableName;
+        Map.Entry<Long, List<HBaseRegionStats>> cached = regionStats.get(key);
+        if (cached == null) {
+            return refreshRegionStats(key, TableName.valueOf(schema, tableName));
+        }
+        if (System.currentTimeMillis() - cached.getKey() >= REGION_STATS_EXPIRE_MILLIS
+                && refreshingRegionStats.add(key)) {
+            regionStatsExecutor.execute(() -> {
+                try {
+                    refreshRegionStats(key, TableName.valueOf(schema, tableName));
+                } finally {
+                    refreshingRegionStats.remove(key);
+                }
+            });
+        }
+        return cached.getValue();
+    }
+
+    private List<HBaseRegionStats> refreshRegionStats(String key, TableName hTableName) {
+        List<HBaseRegionStats> stats = readRegionStats(hTableName);
+        if (!stats.isEmpty()) {
+            regionStats.put(key, new AbstractMap.SimpleImmutableEntry<>(System.currentTimeMillis(), stats));
+        }
+        return stats;
+    }
+
+    private List<HBaseRegionStats> readRegionStats(TableName hTableName) {
+        Admin admin = null;
+        try {
+            admin = this.getAdmin();
+            if (admin == null) {
+                return Collections.emptyList();
+            }
+            Map<byte[], RegionMetrics> metrics = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+            for (ServerName server : admin.getRegionServers()) {
+                for (RegionMetrics regionMetrics : admin.getRegionMetrics(server, hTableName)) {
+                    metrics.put(regionMetrics.getRegionName(), regionMetrics);
+                }
+            }
+            List<HBaseRegionStats> stats = new ArrayList<>();
+            for (RegionInfo region : admin.getRegions(hTableName)) {
+                RegionMetrics regionMetrics = metrics.get(region.getRegionName());
+                // regions in transition have no metrics yet
+                if (regionMetrics == null) {
+                    stats.add(new HBaseRegionStats(region.getStartKey(), region.getEndKey(), 0, 0, 0, 0));
+                    continue;
+                }
+                stats.add(new HBaseRegionStats(region.getStartKey(), region.getEndKey(),
+                        (long) regionMetrics.getStoreFileSize().get(Size.Unit.BYTE),
+                        (long) regionMetrics.getMemStoreSize().get(Size.Unit.BYTE),
+                        regionMetrics.getReadRequestCount(), regionMetrics.getCompactingCellCount()));
+            }
+            stats.sort((a, b) -> Bytes.compareTo(a.getStartKey(), b.getStartKey()));
+            return stats;
+        } catch (Exception ex) {
+            log.error(ex, "Read region metrics of " + hTableName + " failed: " + ex.getMessage());
+            return Collections.emptyList();
+        } finally {
+            if (admin != null) {
+                this.close(admin);
+            }
         }
     }
 
@@ -133,7 +520,15 @@ public class HBaseClientManager {
         }
     }
 
+    public ExecutorService getWriteExecutor() {
+        return writeExecutor;
+    }
+
     public HBaseConfig getConfig() {
         return config;
     }
+
+    public TypeManager getTypeManager() {
+        return typeManager;
+    }
 }
@@ -13,14 +13,27 @@
  */
 package com.analysys.trino.connector.hbase.frame;
 
+import com.analysys.trino.connector.hbase.meta.HBaseAnalyzeProperties;
 import com.analysys.trino.connector.hbase.meta.HBaseMetadata;
+import com.analysys.trino.connector.hbase.meta.HBaseRegisterTableProcedure;
+import com.analysys.trino.connector.hbase.meta.HBaseScanFunction;
+import com.analysys.trino.connector.hbase.meta.HBaseSessionProperties;
+import com.analysys.trino.connector.hbase.query.HBaseIndexProvider;
+import com.analysys.trino.connector.hbase.schedule.HBaseNodePartitioningProvider;
 import com.analysys.trino.connector.hbase.schedule.HBaseSplitManager;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import io.airlift.bootstrap.LifeCycleManager;
 import io.airlift.log.Logger;
 import io.trino.spi.connector.*;
+import io.trino.spi.function.table.ConnectorTableFunction;
+import io.trino.spi.procedure.Procedure;
+import io.trino.spi.session.PropertyMetadata;
 import io.trino.spi.transaction.IsolationLevel;
 
+import java.util.List;
+import java.util.Set;
+
 
 
 import static java.util.Objects.requireNonNull;
@@ -57,17 +70,59 @@ class HBaseConnector implements Connector {
      */
     private final ConnectorPageSourceProvider pageSourceProvider;
 
+    /**
+     * 会话属性
+     */
+    private final HBaseSessionProperties sessionProperties;
+
+    /**
+     * 索引，按 rowKey 关联
+     */
+    private final HBaseIndexProvider indexProvider;
+
+    /**
+     * 表函数 hbase.system.scan
+     */
+    private final HBaseScanFunction scanFunction;
+
+    /**
+     * ANALYZE 属性
+     */
+    private final HBaseAnalyzeProperties analyzeProperties;
+
+    /**
+     * 存储过程 hbase.system.register_table
+     */
+    private final HBaseRegisterTableProcedure registerTableProcedure;
+
+    /**
+     * INSERT 按 region 分区
+     */
+    private final HBaseNodePartitioningProvider nodePartitioningProvider;
+
     @Inject
     public HBaseConnector(LifeCycleManager lifeCycleManager,
                           HBaseMetadata metadata,
                           HBaseSplitManager splitManager,
                           ConnectorPageSinkProvider pageSinkProvider,
-                          ConnectorPageSourceProvider pageSourceProvider) {
+                          ConnectorPageSourceProvider pageSourceProvider,
+                          HBaseSessionProperties sessionProperties,
+                          HBaseIndexProvider indexProvider,
+                          HBaseScanFunction scanFunction,
+                          HBaseAnalyzeProperties analyzeProperties,
+                          HBaseRegisterTableProcedure registerTableProcedure,
+                          HBaseNodePartitioningProvider nodePartitioningProvider) {
         this.lifeCycleManager = requireNonNull(lifeCycleManager, "lifeCycleManager is null");
         this.metadata = requireNonNull(metadata, "metadata is null");
         this.splitManager = requireNonNull(splitManager, "splitManager is null");
         this.pageSinkProvider = requireNonNull(pageSinkProvider, "pageSinkProvider is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
+        this.sessionProperties = requireNonNull(sessionProperties, "sessionProperties is null");
+        this.indexProvider = requireNonNull(indexProvider, "indexProvider is null");
+        this.scanFunction = requireNonNull(scanFunction, "scanFunction is null");
+        this.analyzeProperties = requireNonNull(analyzeProperties, "analyzeProperties is null");
+        this.registerTableProcedure = requireNonNull(registerTableProcedure, "registerTableProcedure is null");
+        this.nodePartitioningProvider = requireNonNull(nodePartitioningProvider, "nodePartitioningProvider is null");
     }
 
     @Override
@@ -90,11 +145,41 @@ class HBaseConnector implements Connector {
         return pageSinkProvider;
     }
 
+    @Override
+    public ConnectorNodePartitioningProvider getNodePartitioningProvider() {
+        return nodePartitioningProvider;
+    }
+
     @Override
     public ConnectorPageSourceProvider getPageSourceProvider() {
         return pageSourceProvider;
     }
 
+    @Override
+    public ConnectorIndexProvider getIndexProvider() {
+        return indexProvider;
+    }
+
+    @Override
+    public Set<ConnectorTableFunction> getTableFunctions() {
+        return ImmutableSet.of(scanFunction);
+    }
+
+    @Override
+    public Set<Procedure> getProcedures() {
+        return ImmutableSet.of(registerTableProcedure.get());
+    }
+
+    @Override
+    public List<PropertyMetadata<?>> getSessionProperties() {
+        return sessionProperties.getSessionProperties();
+    }
+
+    @Override
+    public List<PropertyMetadata<?>> getAnalyzeProperties() {
+        return analyzeProperties.getAnalyzeProperties();
+    }
+
     @Override
     public void shutdown() {
         if (this.lifeCycleManager != null) {
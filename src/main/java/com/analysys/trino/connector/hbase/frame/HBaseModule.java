@@ -14,12 +14,18 @@
 package com.analysys.trino.connector.hbase.frame;
 
 import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.meta.HBaseAnalyzeProperties;
 import com.analysys.trino.connector.hbase.meta.HBaseConfig;
 import com.analysys.trino.connector.hbase.meta.HBaseMetadata;
+import com.analysys.trino.connector.hbase.meta.HBaseRegisterTableProcedure;
+import com.analysys.trino.connector.hbase.meta.HBaseScanFunction;
+import com.analysys.trino.connector.hbase.meta.HBaseSessionProperties;
 import com.analysys.trino.connector.hbase.meta.HBaseTables;
+import com.analysys.trino.connector.hbase.query.HBaseIndexProvider;
 import com.analysys.trino.connector.hbase.query.HBasePageSinkProvider;
 import com.analysys.trino.connector.hbase.query.HBasePageSourceProvider;
 import com.analysys.trino.connector.hbase.query.HBaseRecordSetProvider;
+import com.analysys.trino.connector.hbase.schedule.HBaseNodePartitioningProvider;
 import com.analysys.trino.connector.hbase.schedule.HBaseSplitManager;
 import com.google.inject.Binder;
 import com.google.inject.Module;
@@ -55,6 +61,12 @@ class HBaseModule implements Module {
         binder.bind(HBaseSplitManager.class).in(Scopes.SINGLETON);
         binder.bind(HBaseRecordSetProvider.class).in(Scopes.SINGLETON);
         binder.bind(HBaseTables.class).in(Scopes.SINGLETON);
+        binder.bind(HBaseSessionProperties.class).in(Scopes.SINGLETON);
+        binder.bind(HBaseIndexProvider.class).in(Scopes.SINGLETON);
+        binder.bind(HBaseScanFunction.class).in(Scopes.SINGLETON);
+        binder.bind(HBaseAnalyzeProperties.class).in(Scopes.SINGLETON);
+        binder.bind(HBaseRegisterTableProcedure.class).in(Scopes.SINGLETON);
+        binder.bind(HBaseNodePartitioningProvider.class).in(Scopes.SINGLETON);
         binder.bind(ConnectorPageSourceProvider.class).to(HBasePageSourceProvider.class).in(Scopes.SINGLETON);
         binder.bind(ConnectorPageSinkProvider.class).to(HBasePageSinkProvider.class).in(Scopes.SINGLETON);
         ConfigBinder.configBinder(binder).bindConfig(HBaseConfig.class);
@@ -30,6 +30,17 @@ public class ColumnMetaInfo {
     @JsonProperty("isRowKey")
     private boolean rowKey = false;
 
+    /**
+     * Read up to maxVersions versions of this column, the column will be ARRAY(ROW(ts, value)) if it's bigger than 1.
+     */
+    private int maxVersions = 1;
+
+    /**
+     * Qualifier prefix of MAP(varchar, T) column which is made of the qualifiers with this prefix,
+     * empty means all the qualifiers in the family.
+     */
+    private String qualifierPrefix = "";
+
     public String getFamily() {
         return family;
     }
@@ -70,6 +81,22 @@ public class ColumnMetaInfo {
         this.rowKey = rowKey;
     }
 
+    public int getMaxVersions() {
+        return maxVersions;
+    }
+
+    public void setMaxVersions(int maxVersions) {
+        this.maxVersions = maxVersions;
+    }
+
+    public String getQualifierPrefix() {
+        return qualifierPrefix;
+    }
+
+    public void setQualifierPrefix(String qualifierPrefix) {
+        this.qualifierPrefix = qualifierPrefix;
+    }
+
     @Override
     public String toString() {
         return "ColumnMetaInfo{" +
@@ -79,6 +106,8 @@ public class ColumnMetaInfo {
                 ", type='" + type + '\'' +
                 // ", ordinalPosition=" + ordinalPosition +
                 ", rowKey=" + rowKey +
+                ", maxVersions=" + maxVersions +
+                ", qualifierPrefix='" + qualifierPrefix + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.TrinoException;
+import io.trino.spi.session.PropertyMetadata;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.trino.spi.StandardErrorCode.INVALID_ANALYZE_PROPERTY;
+import static io.trino.spi.session.PropertyMetadata.doubleProperty;
+
+/**
+ * HBase analyze properties, set by: ANALYZE table WITH (property_name = value)
+ */
+public class HBaseAnalyzeProperties {
+
+    private static final String SAMPLE_RATIO = "sample_ratio";
+
+    private final List<PropertyMetadata<?>> analyzeProperties;
+
+    public HBaseAnalyzeProperties() {
+        analyzeProperties = ImmutableList.of(
+                doubleProperty(
+                        SAMPLE_RATIO,
+                        "Ratio of regions to read for column statistics, 1 means reading the whole table",
+                        0.1,
+                        false));
+    }
+
+    public List<PropertyMetadata<?>> getAnalyzeProperties() {
+        return analyzeProperties;
+    }
+
+    public static double getSampleRatio(Map<String, Object> properties) {
+        double sampleRatio = (Double) properties.get(SAMPLE_RATIO);
+        if (sampleRatio <= 0 || sampleRatio > 1) {
+            throw new TrinoException(INVALID_ANALYZE_PROPERTY, "sample_ratio must be in (0, 1]: " + sampleRatio);
+        }
+        return sampleRatio;
+    }
+}
@@ -13,14 +13,21 @@
  */
 package com.analysys.trino.connector.hbase.meta;
 
+import com.analysys.trino.connector.hbase.utils.Utils;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ColumnMetadata;
+import io.trino.spi.type.MapType;
 import io.trino.spi.type.Type;
 
+import java.util.List;
 import java.util.Objects;
 
+import static com.analysys.trino.connector.hbase.utils.Constant.CELL_TIMESTAMP_COLUMN_NAME;
+
 /**
  * HBase column handle
  *
@@ -40,19 +47,64 @@ public final class HBaseColumnHandle implements ColumnHandle {
      */
     private final int ordinalPosition;
 
+    /**
+     * How many versions of the cell to read, the column type is ARRAY(ROW(ts, value)) if it's bigger than 1
+     */
+    private final int maxVersions;
+
+    /**
+     * Qualifier prefix of dynamic-qualifier column, which is MAP(varchar, T) keyed by qualifier without this prefix.
+     * Empty prefix means all the qualifiers in the family.
+     */
+    private final String qualifierPrefix;
+
+    /**
+     * Map keys of dynamic-qualifier column queried, empty means the whole map
+     */
+    private final List<String> keys;
+
+    /**
+     * The table of a column joined by rowKey, like 'schema:table', empty if the column is in the table scanned
+     */
+    private final String joinedTable;
+
+    public HBaseColumnHandle(String connectorId, String family, String columnName,
+                             Type columnType, int ordinalPosition, boolean rowKey) {
+        this(connectorId, family, columnName, columnType, ordinalPosition, rowKey, 1);
+    }
+
+    public HBaseColumnHandle(String connectorId, String family, String columnName,
+                             Type columnType, int ordinalPosition, boolean rowKey, int maxVersions) {
+        this(connectorId, family, columnName, columnType, ordinalPosition, rowKey, maxVersions, "", ImmutableList.of());
+    }
+
+    public HBaseColumnHandle(String connectorId, String family, String columnName, Type columnType,
+                             int ordinalPosition, boolean rowKey, int maxVersions, String qualifierPrefix,
+                             List<String> keys) {
+        this(connectorId, family, columnName, columnType, ordinalPosition, rowKey, maxVersions, qualifierPrefix, keys, "");
+    }
+
     @JsonCreator
     public HBaseColumnHandle(@JsonProperty("connectorId") String connectorId,
                              @JsonProperty("family") String family,
                              @JsonProperty("columnName") String columnName,
                              @JsonProperty("columnType") Type columnType,
                              @JsonProperty("ordinalPosition") int ordinalPosition,
-                             @JsonProperty("rowKey") boolean rowKey) {
+                             @JsonProperty("rowKey") boolean rowKey,
+                             @JsonProperty("maxVersions") int maxVersions,
+                             @JsonProperty("qualifierPrefix") String qualifierPrefix,
+                             @JsonProperty("keys") List<String> keys,
+                             @JsonProperty("joinedTable") String joinedTable) {
         this.connectorId = Objects.requireNonNull(connectorId, "connectorId is null");
         this.family = Objects.requireNonNull(family, "family is null");
         this.columnName = Objects.requireNonNull(columnName, "columnName is null");
         this.columnType = Objects.requireNonNull(columnType, "columnType is null");
         this.ordinalPosition = ordinalPosition;
         this.rowKey = rowKey;
+        this.maxVersions = maxVersions;
+        this.qualifierPrefix = qualifierPrefix == null ? "" : qualifierPrefix;
+        this.keys = keys == null ? ImmutableList.of() : ImmutableList.copyOf(keys);
+        this.joinedTable = joinedTable == null ? "" : joinedTable;
     }
 
     @JsonProperty
@@ -85,9 +137,96 @@ public final class HBaseColumnHandle implements ColumnHandle {
         return rowKey;
     }
 
+    @JsonProperty
+    public int getMaxVersions() {
+        return maxVersions;
+    }
+
+    /**
+     * Whether this column reads multiple versions, the type of it is ARRAY(ROW(ts, value))
+     */
+    @JsonIgnore
+    public boolean isVersioned() {
+        return Utils.isVersionedType(columnType);
+    }
+
+    /**
+     * Copy of this handle that reads another count of versions, used by session property max_versions.
+     *
+     * @param maxVersions max versions
+     * @return column handle
+     */
+    public HBaseColumnHandle withMaxVersions(int maxVersions) {
+        return new HBaseColumnHandle(connectorId, family, columnName, columnType, ordinalPosition, rowKey,
+                maxVersions, qualifierPrefix, keys, joinedTable);
+    }
+
+    @JsonProperty
+    public String getQualifierPrefix() {
+        return qualifierPrefix;
+    }
+
+    @JsonProperty
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Whether this column is MAP(varchar, T) made of all the qualifiers with qualifierPrefix in the family
+     */
+    @JsonIgnore
+    public boolean isDynamic() {
+        return columnType instanceof MapType;
+    }
+
+    /**
+     * Copy of this handle that only reads the given map keys, used by projection push down.
+     *
+     * @param keys map keys
+     * @return column handle
+     */
+    public HBaseColumnHandle withKeys(List<String> keys) {
+        return new HBaseColumnHandle(connectorId, family, columnName, columnType, ordinalPosition, rowKey,
+                maxVersions, qualifierPrefix, keys, joinedTable);
+    }
+
+    @JsonProperty
+    public String getJoinedTable() {
+        return joinedTable;
+    }
+
+    /**
+     * Whether this column is read from the table joined by rowKey
+     */
+    @JsonIgnore
+    public boolean isJoined() {
+        return !joinedTable.isEmpty();
+    }
+
+    /**
+     * Copy of this handle read from the table joined by rowKey, used by join push down.
+     *
+     * @param joinedTable joined table like 'schema:table'
+     * @return column handle
+     */
+    public HBaseColumnHandle withJoinedTable(String joinedTable) {
+        return new HBaseColumnHandle(connectorId, family, columnName, columnType, ordinalPosition, rowKey,
+                maxVersions, qualifierPrefix, keys, joinedTable);
+    }
+
+    /**
+     * Whether this is the hidden column of cell timestamp, it has no family just like rowKey column.
+     *
+     * @return true if this column is _timestamp
+     */
+    @JsonIgnore
+    public boolean isCellTimestamp() {
+        return !rowKey && "".equals(family) && CELL_TIMESTAMP_COLUMN_NAME.equals(columnName);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(this.connectorId, this.family, this.columnName);
+        return Objects.hash(this.connectorId, this.family, this.columnName, this.joinedTable);
     }
 
     @Override
@@ -98,13 +237,17 @@ public final class HBaseColumnHandle implements ColumnHandle {
             HBaseColumnHandle other = (HBaseColumnHandle) obj;
             return Objects.equals(this.connectorId, other.connectorId)
                     && Objects.equals(this.family, other.family)
-                    && Objects.equals(this.columnName, other.columnName);
+                    && Objects.equals(this.columnName, other.columnName)
+                    && Objects.equals(this.joinedTable, other.joinedTable);
         } else {
             return false;
         }
     }
 
     ColumnMetadata toColumnMetadata() {
+        if (isCellTimestamp()) {
+            return HBaseMetadata.cellTimestampColumnMetadata();
+        }
         return new ColumnMetadata(columnName, columnType);
     }
 
@@ -117,6 +260,10 @@ public final class HBaseColumnHandle implements ColumnHandle {
                 ", columnType=" + columnType +
                 ", rowKey=" + rowKey +
                 ", ordinalPosition=" + ordinalPosition +
+                ", maxVersions=" + maxVersions +
+                ", qualifierPrefix='" + qualifierPrefix + '\'' +
+                ", keys=" + keys +
+                ", joinedTable='" + joinedTable + '\'' +
                 '}';
     }
 }
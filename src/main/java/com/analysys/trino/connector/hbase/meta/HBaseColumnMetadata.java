@@ -28,11 +28,24 @@ public class HBaseColumnMetadata extends ColumnMetadata {
 
     private boolean rowKey;
     private String family;
+    private int maxVersions;
+    private String qualifierPrefix;
 
     public HBaseColumnMetadata(String family, String name, Type type, boolean rowKey) {
+        this(family, name, type, rowKey, 1);
+    }
+
+    public HBaseColumnMetadata(String family, String name, Type type, boolean rowKey, int maxVersions) {
+        this(family, name, type, rowKey, maxVersions, "");
+    }
+
+    public HBaseColumnMetadata(String family, String name, Type type, boolean rowKey,
+                               int maxVersions, String qualifierPrefix) {
         super(name, type);
         this.family = family;
         this.rowKey = rowKey;
+        this.maxVersions = maxVersions;
+        this.qualifierPrefix = qualifierPrefix;
     }
 
     public String getFamily() {
@@ -51,6 +64,14 @@ public class HBaseColumnMetadata extends ColumnMetadata {
         this.rowKey = rowKey;
     }
 
+    public int getMaxVersions() {
+        return maxVersions;
+    }
+
+    public String getQualifierPrefix() {
+        return qualifierPrefix;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(family, getName(), getType(), getComment(), getExtraInfo(), isHidden());
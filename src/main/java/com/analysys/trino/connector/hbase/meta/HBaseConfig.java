@@ -19,7 +19,8 @@ import org.apache.commons.lang.StringUtils;
 
 import javax.validation.constraints.NotNull;
 import java.net.InetAddress;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * HBase config
@@ -30,6 +31,11 @@ import java.util.Arrays;
 public class HBaseConfig {
 
     private static final Logger log = Logger.get(HBaseConfig.class);
+    private static final long MIN_RESOLVE_BACKOFF_MILLIS = 1000L;
+    private static final long MAX_RESOLVE_BACKOFF_MILLIS = 5 * 60 * 1000L;
+
+    public static final String META_SOURCE_FILE = "file";
+    public static final String META_SOURCE_HBASE = "hbase";
 
     private String hbaseZookeeperQuorum;
     private String zookeeperClientPort;
@@ -37,6 +43,12 @@ public class HBaseConfig {
     private String prestoWorkersIp;
     private String prestoWorkersName;
     private int prestoServerPort;
+    private volatile boolean initialized;
+    /**
+     * Workers failed to resolve are not resolved again before this time, the wait doubles after each failure
+     */
+    private volatile long nextResolveMillis;
+    private long resolveBackoffMillis = MIN_RESOLVE_BACKOFF_MILLIS;
     private String zookeeperZnodeParent;
 
     /**
@@ -66,6 +78,12 @@ public class HBaseConfig {
      */
     private String clientSideQueryModeTableNames;
 
+    /**
+     * Scans reading more bytes than this use ClientSideRegionScanner when client side scan is enabled,
+     * estimated by the sizes of regions in the rowKey range. Set 0 to use it for listed tables only.
+     */
+    private long clientSideQueryModeMinSize = 100L * 1024 * 1024 * 1024;
+
     /**
      * create snapshot retry times
      */
@@ -78,6 +96,68 @@ public class HBaseConfig {
      */
     private boolean seperateSaltPart = false;
 
+    /**
+     * Scan the whole family instead of its columns one by one
+     * when the share of its columns queried is bigger than this ratio.
+     * Set 1 to always scan by columns.
+     */
+    private double familyProjectionRatio = 0.5;
+
+    /**
+     * Namespaces, tables of namespaces and table metadata are cached for this long after they are read.
+     * Set 0 to read them from HBase for each call.
+     */
+    private long metadataCacheTtlMillis = 60 * 1000L;
+
+    /**
+     * Max tables of each metadata cache
+     */
+    private long metadataCacheMaxSize = 10000;
+
+    /**
+     * Tables whose region locations, region stats and metadata are loaded in background when the connector starts,
+     * namespace_1:tableName_1,namespace_2:tableName_2
+     */
+    private String warmUpTables;
+
+    /**
+     * Threads reading the metadata of tables for listing columns, like information_schema.columns
+     */
+    private int metadataListingThreads = 8;
+
+    /**
+     * Where table json is read from: file, the json files in metaDir,
+     * or hbase, the registry table in HBase shared by all nodes, falling back to metaDir for tables not registered.
+     */
+    private String metaSource = META_SOURCE_FILE;
+
+    /**
+     * HBase table storing table json when metaSource is hbase, created by the first registration
+     */
+    private String metaRegistryTable = "trino_meta";
+
+    /**
+     * How often nodes read the version of registry to see the tables registered
+     */
+    private long metaRegistryCheckIntervalMillis = 5000;
+
+    /**
+     * Infer the columns of tables without table json by sampling rows of a few regions
+     */
+    private boolean metaInferenceEnabled = false;
+
+    /**
+     * Regions and rows of each region sampled by schema inference
+     */
+    private int metaInferenceSampleRegions = 3;
+    private int metaInferenceSampleRows = 1000;
+
+    /**
+     * Directory of the HFiles written by INSERT in bulk load mode, on the filesystem of HBase,
+     * like hdfs://nameservice/tmp/trino-hbase-bulkload. Bulk load is not available when it's not set.
+     */
+    private String bulkLoadStagingDir;
+
     @NotNull
     public String getMetaDir() {
         return metaDir;
@@ -106,23 +186,40 @@ public class HBaseConfig {
         this.randomScheduleRedundantSplit = randomScheduleRedundantSplit;
     }
 
-    public void init() {
+    /**
+     * Resolve the ip of workers, it's called by the first getPrestoWorkersIp
+     * instead of plugin loading, so DNS doesn't slow down the startup of nodes.
+     * It's done once all the workers are resolved, workers failed are resolved again by a call after the backoff,
+     * so hostnames never resolved don't make every split wait for DNS.
+     */
+    public synchronized void init() {
+        if (this.initialized || System.currentTimeMillis() < this.nextResolveMillis) {
+            return;
+        }
+        boolean resolved = true;
         // If we don't support to schedule a split to a specify worker,
         // then prestoWorkersName and prestoWorkersIp can be null
-        if (this.randomScheduleRedundantSplit) {
-            String[] workersIp = Arrays.stream(this.prestoWorkersName.split(",")).map(hostname -> {
-                InetAddress address;
+        if (this.randomScheduleRedundantSplit && this.prestoWorkersName != null) {
+            List<String> workersIp = new ArrayList<>();
+            for (String hostname : this.prestoWorkersName.split(",")) {
                 try {
-                    address = InetAddress.getByName(hostname);
-                    return address.getHostAddress();
+                    workersIp.add(InetAddress.getByName(hostname.trim()).getHostAddress());
                 } catch (Exception e) {
                     log.error(e.getMessage(), e);
-                    return "";
+                    resolved = false;
                 }
-            }).toArray(String[]::new);
-
-            this.prestoWorkersIp = StringUtils.join(workersIp, ",");
+            }
+            if (!workersIp.isEmpty()) {
+                this.prestoWorkersIp = StringUtils.join(workersIp, ",");
+            }
+        }
+        if (!resolved) {
+            log.warn("Workers not resolved are resolved again in " + this.resolveBackoffMillis + " ms");
+            this.nextResolveMillis = System.currentTimeMillis() + this.resolveBackoffMillis;
+            this.resolveBackoffMillis = Math.min(this.resolveBackoffMillis * 2, MAX_RESOLVE_BACKOFF_MILLIS);
         }
+        // prestoWorkersIp is written before the volatile flag, so it's seen by the threads seeing the flag
+        this.initialized = resolved;
     }
 
     @Config("zookeeper-quorum")
@@ -177,6 +274,9 @@ public class HBaseConfig {
     }
 
     public String getPrestoWorkersIp() {
+        if (!initialized && System.currentTimeMillis() >= nextResolveMillis) {
+            init();
+        }
         return prestoWorkersIp;
     }
 
@@ -212,6 +312,15 @@ public class HBaseConfig {
         this.clientSideQueryModeTableNames = clientSideQueryModeTableNames;
     }
 
+    public long getClientSideQueryModeMinSize() {
+        return clientSideQueryModeMinSize;
+    }
+
+    @Config("clientside-querymode-min-size")
+    public void setClientSideQueryModeMinSize(long clientSideQueryModeMinSize) {
+        this.clientSideQueryModeMinSize = clientSideQueryModeMinSize;
+    }
+
     public int getCreateSnapshotRetryTimes() {
         return createSnapshotRetryTimes;
     }
@@ -230,6 +339,118 @@ public class HBaseConfig {
         this.seperateSaltPart = seperateSaltPart;
     }
 
+    public double getFamilyProjectionRatio() {
+        return familyProjectionRatio;
+    }
+
+    @Config("family-projection-ratio")
+    public void setFamilyProjectionRatio(double familyProjectionRatio) {
+        this.familyProjectionRatio = familyProjectionRatio;
+    }
+
+    public long getMetadataCacheTtlMillis() {
+        return metadataCacheTtlMillis;
+    }
+
+    @Config("metadata-cache-ttl-millis")
+    public void setMetadataCacheTtlMillis(long metadataCacheTtlMillis) {
+        this.metadataCacheTtlMillis = metadataCacheTtlMillis;
+    }
+
+    public long getMetadataCacheMaxSize() {
+        return metadataCacheMaxSize;
+    }
+
+    @Config("metadata-cache-max-size")
+    public void setMetadataCacheMaxSize(long metadataCacheMaxSize) {
+        this.metadataCacheMaxSize = metadataCacheMaxSize;
+    }
+
+    public String getWarmUpTables() {
+        return warmUpTables;
+    }
+
+    @Config("warm-up-tables")
+    public void setWarmUpTables(String warmUpTables) {
+        this.warmUpTables = warmUpTables;
+    }
+
+    public int getMetadataListingThreads() {
+        return metadataListingThreads;
+    }
+
+    @Config("metadata-listing-threads")
+    public void setMetadataListingThreads(int metadataListingThreads) {
+        this.metadataListingThreads = metadataListingThreads;
+    }
+
+    public String getMetaSource() {
+        return metaSource;
+    }
+
+    @Config("meta-source")
+    public void setMetaSource(String metaSource) {
+        this.metaSource = metaSource;
+    }
+
+    public boolean isMetaRegistryEnabled() {
+        return META_SOURCE_HBASE.equalsIgnoreCase(metaSource);
+    }
+
+    public String getMetaRegistryTable() {
+        return metaRegistryTable;
+    }
+
+    @Config("meta-registry-table")
+    public void setMetaRegistryTable(String metaRegistryTable) {
+        this.metaRegistryTable = metaRegistryTable;
+    }
+
+    public long getMetaRegistryCheckIntervalMillis() {
+        return metaRegistryCheckIntervalMillis;
+    }
+
+    @Config("meta-registry-check-interval-millis")
+    public void setMetaRegistryCheckIntervalMillis(long metaRegistryCheckIntervalMillis) {
+        this.metaRegistryCheckIntervalMillis = metaRegistryCheckIntervalMillis;
+    }
+
+    public boolean isMetaInferenceEnabled() {
+        return metaInferenceEnabled;
+    }
+
+    @Config("meta-inference-enabled")
+    public void setMetaInferenceEnabled(boolean metaInferenceEnabled) {
+        this.metaInferenceEnabled = metaInferenceEnabled;
+    }
+
+    public int getMetaInferenceSampleRegions() {
+        return metaInferenceSampleRegions;
+    }
+
+    @Config("meta-inference-sample-regions")
+    public void setMetaInferenceSampleRegions(int metaInferenceSampleRegions) {
+        this.metaInferenceSampleRegions = metaInferenceSampleRegions;
+    }
+
+    public int getMetaInferenceSampleRows() {
+        return metaInferenceSampleRows;
+    }
+
+    @Config("meta-inference-sample-rows")
+    public void setMetaInferenceSampleRows(int metaInferenceSampleRows) {
+        this.metaInferenceSampleRows = metaInferenceSampleRows;
+    }
+
+    public String getBulkLoadStagingDir() {
+        return bulkLoadStagingDir;
+    }
+
+    @Config("bulk-load-staging-dir")
+    public void setBulkLoadStagingDir(String bulkLoadStagingDir) {
+        this.bulkLoadStagingDir = bulkLoadStagingDir;
+    }
+
     @Override
     public String toString() {
         return "HBaseConfig{" +
@@ -242,6 +463,14 @@ public class HBaseConfig {
                 ", randomScheduleRedundantSplit=" + randomScheduleRedundantSplit +
                 ", metaDir='" + metaDir + '\'' +
                 ", createSnapshotRetryTimes='" + createSnapshotRetryTimes + '\'' +
+                ", clientSideQueryModeMinSize=" + clientSideQueryModeMinSize +
+                ", familyProjectionRatio=" + familyProjectionRatio +
+                ", metadataCacheTtlMillis=" + metadataCacheTtlMillis +
+                ", metadataCacheMaxSize=" + metadataCacheMaxSize +
+                ", metaSource='" + metaSource + '\'' +
+                ", metaRegistryTable='" + metaRegistryTable + '\'' +
+                ", metaInferenceEnabled=" + metaInferenceEnabled +
+                ", bulkLoadStagingDir='" + bulkLoadStagingDir + '\'' +
                 '}';
     }
 
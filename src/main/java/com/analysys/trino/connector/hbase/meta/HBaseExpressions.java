@@ -0,0 +1,448 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.analysys.trino.connector.hbase.utils.Constant.CONDITION_OPER;
+import com.analysys.trino.connector.hbase.utils.Utils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.expression.Call;
+import io.trino.spi.expression.ConnectorExpression;
+import io.trino.spi.expression.Constant;
+import io.trino.spi.expression.FunctionName;
+import io.trino.spi.expression.Variable;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.predicate.ValueSet;
+import io.trino.spi.type.ArrayType;
+import io.trino.spi.type.MapType;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static com.analysys.trino.connector.hbase.utils.Constant.ARRAY_STRING_SPLITTER;
+
+import static io.trino.spi.expression.StandardFunctions.AND_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.ARRAY_CONSTRUCTOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.EQUAL_OPERATOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.GREATER_THAN_OPERATOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.GREATER_THAN_OR_EQUAL_OPERATOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.IN_PREDICATE_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.LESS_THAN_OPERATOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.LESS_THAN_OR_EQUAL_OPERATOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.LIKE_FUNCTION_NAME;
+
+/**
+ * Find what can be pushed down to HBase from the expressions presto gives to connector.
+ */
+final class HBaseExpressions {
+
+    private static final FunctionName ELEMENT_AT = new FunctionName("element_at");
+    private static final FunctionName REGEXP_LIKE = new FunctionName("regexp_like");
+    private static final FunctionName CONTAINS = new FunctionName("contains");
+    private static final FunctionName STARTS_WITH = new FunctionName("starts_with");
+    private static final FunctionName SUBSTR = new FunctionName("substr");
+    private static final FunctionName SUBSTRING = new FunctionName("substring");
+    private static final FunctionName SPLIT_PART = new FunctionName("split_part");
+
+    private HBaseExpressions() {
+    }
+
+    /**
+     * Find the map keys queried of dynamic-qualifier columns.
+     * Only columns used by element_at(column, 'key') alone are returned, other columns must read the whole map.
+     *
+     * @param projections projections
+     * @param assignments variable name -> column handle
+     * @return variable name -> map keys
+     */
+    static Map<String, Set<String>> findMapKeys(List<ConnectorExpression> projections,
+                                                Map<String, ColumnHandle> assignments) {
+        Map<String, Set<String>> mapKeys = new HashMap<>();
+        Set<String> wholeMaps = new HashSet<>();
+        projections.forEach(projection -> collectMapKeys(projection, mapKeys, wholeMaps));
+
+        ImmutableMap.Builder<String, Set<String>> result = ImmutableMap.builder();
+        mapKeys.forEach((variable, keys) -> {
+            ColumnHandle column = assignments.get(variable);
+            if (!wholeMaps.contains(variable) && column instanceof HBaseColumnHandle
+                    && ((HBaseColumnHandle) column).isDynamic()) {
+                result.put(variable, keys);
+            }
+        });
+        return result.build();
+    }
+
+    private static void collectMapKeys(ConnectorExpression expression,
+                                       Map<String, Set<String>> mapKeys, Set<String> wholeMaps) {
+        Optional<Variable> map = elementAtMap(expression);
+        if (map.isPresent()) {
+            mapKeys.computeIfAbsent(map.get().getName(), name -> new TreeSet<>()).add(elementAtKey(expression));
+        } else if (expression instanceof Variable) {
+            wholeMaps.add(((Variable) expression).getName());
+        } else {
+            expression.getChildren().forEach(child -> collectMapKeys(child, mapKeys, wholeMaps));
+        }
+    }
+
+    /**
+     * Turn comparisons like element_at(column, 'key') > 10 into domains of the qualifier of that key,
+     * so they are pushed down as single column value filter just like the other columns.
+     * Only the conjuncts comparing with a constant of the map value type are used.
+     *
+     * @param expression  filter expression
+     * @param assignments variable name -> column handle
+     * @return domains of qualifiers
+     */
+    static TupleDomain<ColumnHandle> findMapElementDomains(ConnectorExpression expression,
+                                                           Map<String, ColumnHandle> assignments) {
+        Map<ColumnHandle, Domain> domains = new HashMap<>();
+        for (ConnectorExpression conjunct : conjuncts(expression)) {
+            if (!(conjunct instanceof Call) || ((Call) conjunct).getArguments().size() != 2) {
+                continue;
+            }
+            Call call = (Call) conjunct;
+            ConnectorExpression left = call.getArguments().get(0);
+            ConnectorExpression right = call.getArguments().get(1);
+            FunctionName operator = call.getFunctionName();
+            if (left instanceof Constant) {
+                // 10 < element_at(column, 'key')
+                ConnectorExpression temp = left;
+                left = right;
+                right = temp;
+                operator = flip(operator);
+            }
+
+            Optional<Variable> map = elementAtMap(left);
+            if (!map.isPresent() || !(right instanceof Constant) || ((Constant) right).getValue() == null
+                    || !(assignments.get(map.get().getName()) instanceof HBaseColumnHandle)) {
+                continue;
+            }
+            HBaseColumnHandle column = (HBaseColumnHandle) assignments.get(map.get().getName());
+            if (!column.isDynamic() || !((MapType) column.getColumnType()).getValueType().equals(right.getType())) {
+                continue;
+            }
+            Type valueType = right.getType();
+            Optional<Domain> domain = toDomain(operator, valueType, ((Constant) right).getValue());
+            if (domain.isPresent()) {
+                HBaseColumnHandle qualifier = new HBaseColumnHandle(column.getConnectorId(), column.getFamily(),
+                        column.getQualifierPrefix() + elementAtKey(left), valueType, -1, false);
+                domains.merge(qualifier, domain.get(), Domain::intersect);
+            }
+        }
+        return TupleDomain.withColumnDomains(domains);
+    }
+
+    /**
+     * Turn text searches on varchar and array columns into conditions of pattern operators:
+     * <ul>
+     * <li>column LIKE 'x%': PREFIX</li>
+     * <li>column LIKE '%x%': SUBSTRING</li>
+     * <li>other LIKE patterns and regexp_like(column, 'x'): REGEX</li>
+     * <li>contains(array_column, 'x'): REGEX matching a whole element between ARRAY_STRING_SPLITTER</li>
+     * </ul>
+     * Presto checks the expression again after reading, so the conditions only need to keep all the matched rows.
+     *
+     * @param expression  filter expression
+     * @param assignments variable name -> column handle
+     * @return conditions
+     */
+    static List<ConditionInfo> findPatternConditions(ConnectorExpression expression,
+                                                     Map<String, ColumnHandle> assignments) {
+        List<ConditionInfo> conditions = new ArrayList<>();
+        for (ConnectorExpression conjunct : conjuncts(expression)) {
+            if (!(conjunct instanceof Call) || ((Call) conjunct).getArguments().size() != 2) {
+                continue;
+            }
+            Call call = (Call) conjunct;
+            ConnectorExpression left = call.getArguments().get(0);
+            ConnectorExpression right = call.getArguments().get(1);
+            if (!(left instanceof Variable) || !(right instanceof Constant)
+                    || !(((Constant) right).getValue() instanceof Slice)) {
+                continue;
+            }
+            ColumnHandle handle = assignments.get(((Variable) left).getName());
+            if (!(handle instanceof HBaseColumnHandle) || ((HBaseColumnHandle) handle).isRowKey()) {
+                continue;
+            }
+            HBaseColumnHandle column = (HBaseColumnHandle) handle;
+            String value = ((Slice) ((Constant) right).getValue()).toStringUtf8();
+            FunctionName function = call.getFunctionName();
+
+            if (column.getColumnType() instanceof VarcharType) {
+                if (function.equals(LIKE_FUNCTION_NAME)) {
+                    likeToCondition(column, value).ifPresent(conditions::add);
+                } else if (function.equals(REGEXP_LIKE) && isValidRegex(value)) {
+                    conditions.add(new ConditionInfo(column.getColumnName(), CONDITION_OPER.REGEX,
+                            value, column.getColumnType()));
+                }
+            } else if (column.getColumnType().equals(new ArrayType(VarcharType.VARCHAR)) && function.equals(CONTAINS)) {
+                String element = "(^|" + ARRAY_STRING_SPLITTER + ")" + Pattern.quote(value)
+                        + "(" + ARRAY_STRING_SPLITTER + "|$)";
+                conditions.add(new ConditionInfo(column.getColumnName(), CONDITION_OPER.REGEX,
+                        element, column.getColumnType()));
+            }
+        }
+        return conditions;
+    }
+
+    /**
+     * Find the text searches on rowKey from rowKey functions, they become row filters of the scan:
+     * <ul>
+     * <li>starts_with(rowKey, 'x') and substr(rowKey, 1, length('x')) = 'x': PREFIX, one for each value of IN</li>
+     * <li>substr(rowKey, n, length('x')) = 'x' and substr(rowKey, n) = 'x': REGEX skipping n - 1 characters</li>
+     * <li>split_part(rowKey, '|', 1) = 'x': PREFIX 'x' and REGEX of the whole first part</li>
+     * <li>split_part(rowKey, '|', n) = 'x': REGEX skipping n - 1 parts</li>
+     * </ul>
+     * PREFIX conditions are alternatives, the prefixes of conjuncts are merged by Utils.andRowKeyConditions.
+     * Presto checks the expression again after reading, so the conditions only need to keep all the matched rows.
+     *
+     * @param expression  filter expression
+     * @param assignments variable name -> column handle
+     * @return conditions on rowKey
+     */
+    static List<ConditionInfo> findRowKeyConditions(ConnectorExpression expression,
+                                                    Map<String, ColumnHandle> assignments) {
+        List<ConditionInfo> conditions = new ArrayList<>();
+        for (ConnectorExpression conjunct : conjuncts(expression)) {
+            if (!(conjunct instanceof Call) || ((Call) conjunct).getArguments().size() != 2) {
+                continue;
+            }
+            Call call = (Call) conjunct;
+            ConnectorExpression left = call.getArguments().get(0);
+            List<String> values = new ArrayList<>();
+            if (call.getFunctionName().equals(STARTS_WITH)) {
+                left = call;
+                values.add(toStringValue(call.getArguments().get(1)));
+            } else if (call.getFunctionName().equals(EQUAL_OPERATOR_FUNCTION_NAME)) {
+                values.add(toStringValue(call.getArguments().get(1)));
+            } else if (call.getFunctionName().equals(IN_PREDICATE_FUNCTION_NAME)
+                    && call.getArguments().get(1) instanceof Call
+                    && ((Call) call.getArguments().get(1)).getFunctionName().equals(ARRAY_CONSTRUCTOR_FUNCTION_NAME)) {
+                ((Call) call.getArguments().get(1)).getArguments().forEach(value -> values.add(toStringValue(value)));
+            } else {
+                continue;
+            }
+            if (values.isEmpty() || values.contains(null) || !(left instanceof Call)) {
+                continue;
+            }
+            Call function = (Call) left;
+            if (function.getArguments().isEmpty() || !(function.getArguments().get(0) instanceof Variable)) {
+                continue;
+            }
+            ColumnHandle handle = assignments.get(((Variable) function.getArguments().get(0)).getName());
+            if (!(handle instanceof HBaseColumnHandle) || !((HBaseColumnHandle) handle).isRowKey()) {
+                continue;
+            }
+            HBaseColumnHandle rowKey = (HBaseColumnHandle) handle;
+            Optional<List<ConditionInfo>> conjunctConditions = rowKeyFunctionToConditions(rowKey, function, values);
+            if (conjunctConditions.isPresent()) {
+                // conjuncts must all pass, the prefixes of IN are alternatives
+                conditions = Utils.andRowKeyConditions(conditions, conjunctConditions.get(), rowKey.getColumnName());
+            }
+        }
+        return conditions;
+    }
+
+    private static Optional<List<ConditionInfo>> rowKeyFunctionToConditions(HBaseColumnHandle rowKey, Call function,
+                                                                          List<String> values) {
+        List<ConnectorExpression> arguments = function.getArguments();
+        FunctionName name = function.getFunctionName();
+        List<ConditionInfo> conditions = new ArrayList<>();
+        if (name.equals(STARTS_WITH)) {
+            conditions.add(rowKeyCondition(rowKey, CONDITION_OPER.PREFIX, values.get(0)));
+        } else if ((name.equals(SUBSTR) || name.equals(SUBSTRING)) && (arguments.size() == 2 || arguments.size() == 3)) {
+            Long start = toLongValue(arguments.get(1));
+            Long length = arguments.size() == 3 ? toLongValue(arguments.get(2)) : null;
+            if (start == null || start < 1 || start > Integer.MAX_VALUE || (arguments.size() == 3 && length == null)) {
+                return Optional.empty();
+            }
+            for (String value : values) {
+                // substr returns fewer characters only at the end of rowKey
+                if (length != null && value.codePointCount(0, value.length()) > length) {
+                    continue;
+                }
+                boolean toEnd = length == null || value.codePointCount(0, value.length()) < length;
+                if (start == 1 && !toEnd) {
+                    conditions.add(rowKeyCondition(rowKey, CONDITION_OPER.PREFIX, value));
+                } else if (values.size() == 1) {
+                    conditions.add(rowKeyCondition(rowKey, CONDITION_OPER.REGEX,
+                            "^.{" + (start - 1) + "}" + Pattern.quote(value) + (toEnd ? "$" : "")));
+                } else {
+                    // several regexes must all pass, they can't be the alternatives of IN
+                    return Optional.empty();
+                }
+            }
+        } else if (name.equals(SPLIT_PART) && arguments.size() == 3 && values.size() == 1) {
+            String delimiter = toStringValue(arguments.get(1));
+            Long index = toLongValue(arguments.get(2));
+            if (delimiter == null || delimiter.isEmpty() || index == null || index < 1 || index > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            String value = values.get(0);
+            String quoted = Pattern.quote(delimiter);
+            String part = "(?:(?!" + quoted + ").)*";
+            if (index == 1) {
+                conditions.add(rowKeyCondition(rowKey, CONDITION_OPER.PREFIX, value));
+            }
+            conditions.add(rowKeyCondition(rowKey, CONDITION_OPER.REGEX, "^(?:" + part + quoted + "){" + (index - 1) + "}"
+                    + Pattern.quote(value) + "(?:" + quoted + "|$)"));
+        }
+        if (conditions.stream().anyMatch(cond -> cond.getOperator() == CONDITION_OPER.PREFIX
+                && String.valueOf(cond.getValue()).isEmpty())) {
+            // every rowKey starts with ''
+            return Optional.empty();
+        }
+        return conditions.isEmpty() ? Optional.empty() : Optional.of(conditions);
+    }
+
+    private static ConditionInfo rowKeyCondition(HBaseColumnHandle rowKey, CONDITION_OPER operator, String value) {
+        return new ConditionInfo(rowKey.getColumnName(), operator, value, rowKey.getColumnType());
+    }
+
+    private static String toStringValue(ConnectorExpression expression) {
+        if (expression instanceof Constant && ((Constant) expression).getValue() instanceof Slice) {
+            return ((Slice) ((Constant) expression).getValue()).toStringUtf8();
+        }
+        return null;
+    }
+
+    private static Long toLongValue(ConnectorExpression expression) {
+        if (expression instanceof Constant && ((Constant) expression).getValue() instanceof Long) {
+            return (Long) ((Constant) expression).getValue();
+        }
+        return null;
+    }
+
+    /**
+     * LIKE pattern without escape: % matches any characters, _ matches one character.
+     */
+    private static Optional<ConditionInfo> likeToCondition(HBaseColumnHandle column, String pattern) {
+        int firstWildcard = indexOfWildcard(pattern, 0);
+        // Equality has been pushed down by TupleDomain already, and only % matches every value
+        if (firstWildcard < 0 || pattern.chars().allMatch(c -> c == '%')) {
+            return Optional.empty();
+        }
+        String literal = pattern.substring(0, firstWildcard);
+        if (pattern.charAt(firstWildcard) == '%' && firstWildcard == pattern.length() - 1 && !literal.isEmpty()) {
+            return Optional.of(new ConditionInfo(column.getColumnName(), CONDITION_OPER.PREFIX,
+                    literal, column.getColumnType()));
+        }
+        if (pattern.length() > 2 && pattern.startsWith("%") && pattern.endsWith("%")
+                && indexOfWildcard(pattern.substring(1, pattern.length() - 1), 0) < 0) {
+            return Optional.of(new ConditionInfo(column.getColumnName(), CONDITION_OPER.SUBSTRING,
+                    pattern.substring(1, pattern.length() - 1), column.getColumnType()));
+        }
+
+        StringBuilder regex = new StringBuilder("^");
+        int start = 0;
+        for (int i = firstWildcard; i >= 0; i = indexOfWildcard(pattern, start)) {
+            if (i > start) {
+                regex.append(Pattern.quote(pattern.substring(start, i)));
+            }
+            regex.append(pattern.charAt(i) == '%' ? ".*" : ".");
+            start = i + 1;
+        }
+        if (start < pattern.length()) {
+            regex.append(Pattern.quote(pattern.substring(start)));
+        }
+        regex.append("$");
+        return Optional.of(new ConditionInfo(column.getColumnName(), CONDITION_OPER.REGEX,
+                regex.toString(), column.getColumnType()));
+    }
+
+    private static int indexOfWildcard(String pattern, int from) {
+        for (int i = from; i < pattern.length(); i++) {
+            if (pattern.charAt(i) == '%' || pattern.charAt(i) == '_') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isValidRegex(String regex) {
+        try {
+            Pattern.compile(regex);
+            return true;
+        } catch (PatternSyntaxException e) {
+            return false;
+        }
+    }
+
+    private static List<ConnectorExpression> conjuncts(ConnectorExpression expression) {
+        if (expression instanceof Call && ((Call) expression).getFunctionName().equals(AND_FUNCTION_NAME)) {
+            return ((Call) expression).getArguments();
+        }
+        return ImmutableList.of(expression);
+    }
+
+    private static Optional<Domain> toDomain(FunctionName operator, Type type, Object value) {
+        Range range;
+        if (operator.equals(EQUAL_OPERATOR_FUNCTION_NAME)) {
+            range = Range.equal(type, value);
+        } else if (operator.equals(GREATER_THAN_OPERATOR_FUNCTION_NAME)) {
+            range = Range.greaterThan(type, value);
+        } else if (operator.equals(GREATER_THAN_OR_EQUAL_OPERATOR_FUNCTION_NAME)) {
+            range = Range.greaterThanOrEqual(type, value);
+        } else if (operator.equals(LESS_THAN_OPERATOR_FUNCTION_NAME)) {
+            range = Range.lessThan(type, value);
+        } else if (operator.equals(LESS_THAN_OR_EQUAL_OPERATOR_FUNCTION_NAME)) {
+            range = Range.lessThanOrEqual(type, value);
+        } else {
+            return Optional.empty();
+        }
+        return Optional.of(Domain.create(ValueSet.ofRanges(range), false));
+    }
+
+    private static FunctionName flip(FunctionName operator) {
+        if (operator.equals(GREATER_THAN_OPERATOR_FUNCTION_NAME)) {
+            return LESS_THAN_OPERATOR_FUNCTION_NAME;
+        } else if (operator.equals(GREATER_THAN_OR_EQUAL_OPERATOR_FUNCTION_NAME)) {
+            return LESS_THAN_OR_EQUAL_OPERATOR_FUNCTION_NAME;
+        } else if (operator.equals(LESS_THAN_OPERATOR_FUNCTION_NAME)) {
+            return GREATER_THAN_OPERATOR_FUNCTION_NAME;
+        } else if (operator.equals(LESS_THAN_OR_EQUAL_OPERATOR_FUNCTION_NAME)) {
+            return GREATER_THAN_OR_EQUAL_OPERATOR_FUNCTION_NAME;
+        }
+        return operator;
+    }
+
+    /**
+     * @return the map variable if expression is element_at(variable, 'constant key')
+     */
+    private static Optional<Variable> elementAtMap(ConnectorExpression expression) {
+        if (!(expression instanceof Call)) {
+            return Optional.empty();
+        }
+        Call call = (Call) expression;
+        if (!call.getFunctionName().equals(ELEMENT_AT) || call.getArguments().size() != 2
+                || !(call.getArguments().get(0) instanceof Variable)
+                || !(call.getArguments().get(1) instanceof Constant)
+                || !(((Constant) call.getArguments().get(1)).getValue() instanceof Slice)) {
+            return Optional.empty();
+        }
+        return Optional.of((Variable) call.getArguments().get(0));
+    }
+
+    private static String elementAtKey(ConnectorExpression expression) {
+        return ((Slice) ((Constant) ((Call) expression).getArguments().get(1)).getValue()).toStringUtf8();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.trino.spi.connector.ConnectorIndexHandle;
+
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Index of HBase table by rowKey, presto looks up the rows of a batch of join keys by batch get
+ */
+public class HBaseIndexHandle implements ConnectorIndexHandle {
+
+    private final HBaseTableHandle tableHandle;
+    private final String rowKeyName;
+
+    @JsonCreator
+    public HBaseIndexHandle(@JsonProperty("tableHandle") HBaseTableHandle tableHandle,
+                            @JsonProperty("rowKeyName") String rowKeyName) {
+        this.tableHandle = requireNonNull(tableHandle, "tableHandle is null");
+        this.rowKeyName = requireNonNull(rowKeyName, "rowKeyName is null");
+    }
+
+    @JsonProperty
+    public HBaseTableHandle getTableHandle() {
+        return tableHandle;
+    }
+
+    @JsonProperty
+    public String getRowKeyName() {
+        return rowKeyName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HBaseIndexHandle that = (HBaseIndexHandle) o;
+        return Objects.equals(tableHandle, that.tableHandle) && Objects.equals(rowKeyName, that.rowKeyName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tableHandle, rowKeyName);
+    }
+
+    @Override
+    public String toString() {
+        return "HBaseIndexHandle{" +
+                "tableHandle=" + tableHandle +
+                ", rowKeyName='" + rowKeyName + '\'' +
+                '}';
+    }
+}
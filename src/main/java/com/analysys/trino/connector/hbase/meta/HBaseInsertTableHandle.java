@@ -40,6 +40,10 @@ public class HBaseInsertTableHandle implements ConnectorInsertTableHandle {
 
     private final int rowKeyColumnChannel;
     private final Map<String, String> colNameAndFamilyNameMap;
+    /**
+     * Directory of HFiles of bulk load, null when writing by puts
+     */
+    private final String bulkLoadDir;
 
     @JsonCreator
     public HBaseInsertTableHandle(
@@ -48,7 +52,8 @@ public class HBaseInsertTableHandle implements ConnectorInsertTableHandle {
             @JsonProperty("columnNames") List<String> columnNames,
             @JsonProperty("columnTypes") List<Type> columnTypes,
             @JsonProperty("rowKeyColumnChannel") int rowKeyColumnChannel,
-            @JsonProperty("colNameAndFamilyNameMap") Map<String, String> colNameAndFamilyNameMap) {
+            @JsonProperty("colNameAndFamilyNameMap") Map<String, String> colNameAndFamilyNameMap,
+            @JsonProperty("bulkLoadDir") String bulkLoadDir) {
         // super(connectorId, schemaTableName, columnNames, columnTypes);
         this.schemaTableName = requireNonNull(schemaTableName, "schemaTableName is null");
         requireNonNull(columnNames, "columnNames is null");
@@ -59,6 +64,7 @@ public class HBaseInsertTableHandle implements ConnectorInsertTableHandle {
         this.connectorId = requireNonNull(connectorId, "connectorId is null");
         this.rowKeyColumnChannel = rowKeyColumnChannel;
         this.colNameAndFamilyNameMap = colNameAndFamilyNameMap;
+        this.bulkLoadDir = bulkLoadDir;
 //        Log.info("connectorId-------->{"+connectorId+"}");
     }
 
@@ -92,4 +98,9 @@ public class HBaseInsertTableHandle implements ConnectorInsertTableHandle {
         return connectorId;
     }
 
+    @JsonProperty
+    public String getBulkLoadDir() {
+        return bulkLoadDir;
+    }
+
 }
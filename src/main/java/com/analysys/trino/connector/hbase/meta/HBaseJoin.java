@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.trino.spi.connector.JoinType;
+import io.trino.spi.connector.SchemaTableName;
+
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Another HBase table joined by rowKey. Workers scan the table as usual,
+ * and get the rows of the joined table by the rowKeys scanned in batches.
+ */
+public class HBaseJoin {
+
+    private final SchemaTableName joinedTable;
+    private final JoinType joinType;
+    private final HBaseColumnHandle rowKey;
+    private final HBaseColumnHandle joinedRowKey;
+
+    @JsonCreator
+    public HBaseJoin(@JsonProperty("joinedTable") SchemaTableName joinedTable,
+                     @JsonProperty("joinType") JoinType joinType,
+                     @JsonProperty("rowKey") HBaseColumnHandle rowKey,
+                     @JsonProperty("joinedRowKey") HBaseColumnHandle joinedRowKey) {
+        this.joinedTable = requireNonNull(joinedTable, "joinedTable is null");
+        this.joinType = requireNonNull(joinType, "joinType is null");
+        this.rowKey = requireNonNull(rowKey, "rowKey is null");
+        this.joinedRowKey = requireNonNull(joinedRowKey, "joinedRowKey is null");
+    }
+
+    @JsonProperty
+    public SchemaTableName getJoinedTable() {
+        return joinedTable;
+    }
+
+    @JsonProperty
+    public JoinType getJoinType() {
+        return joinType;
+    }
+
+    /**
+     * @return rowKey column of the table scanned
+     */
+    @JsonProperty
+    public HBaseColumnHandle getRowKey() {
+        return rowKey;
+    }
+
+    /**
+     * @return rowKey column of the joined table
+     */
+    @JsonProperty
+    public HBaseColumnHandle getJoinedRowKey() {
+        return joinedRowKey;
+    }
+
+    /**
+     * @return joined table like 'schema:table', which marks the column handles of the joined table
+     */
+    @JsonIgnore
+    public String getJoinedTableName() {
+        return joinedTable.getSchemaName() + ":" + joinedTable.getTableName();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HBaseJoin that = (HBaseJoin) o;
+        return Objects.equals(joinedTable, that.joinedTable) && joinType == that.joinType;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(joinedTable, joinType);
+    }
+
+    @Override
+    public String toString() {
+        return "HBaseJoin{" +
+                "joinedTable=" + joinedTable +
+                ", joinType=" + joinType +
+                '}';
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.analysys.trino.connector.hbase.utils.Constant;
+import com.analysys.trino.connector.hbase.utils.Utils;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.trino.spi.connector.ColumnMetadata;
+import io.trino.spi.type.TypeManager;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Table json registered in an HBase table, so all nodes read the same json instead of syncing files of metaDir.
+ * Json parsed is cached on each node until the version of registry is increased by a registration,
+ * nodes read the version at most once every meta-registry-check-interval-millis.
+ * Tables not registered are read from metaDir, and so are all tables while the registry table doesn't exist.
+ */
+public class HBaseMetaRegistry {
+
+    private static final Logger log = Logger.get(HBaseMetaRegistry.class);
+
+    private static final byte[] FAMILY = Bytes.toBytes(Constant.META_REGISTRY_FAMILY);
+    private static final byte[] JSON = Bytes.toBytes(Constant.META_REGISTRY_JSON);
+    private static final byte[] VERSION = Bytes.toBytes(Constant.META_REGISTRY_VERSION);
+    private static final byte[] VERSION_ROW = Bytes.toBytes(Constant.META_REGISTRY_VERSION_ROW);
+
+    private final Supplier<Connection> connection;
+    private final HBaseConfig config;
+    private final TypeManager typeManager;
+    private final TableName registryTable;
+
+    /**
+     * Cached by 'schema:table' with the version of registry they are read at, empty if the table is not registered
+     */
+    private final Map<String, Versioned<TableMetaInfo>> tableMetaInfos = new ConcurrentHashMap<>();
+    private final Map<String, Versioned<ImmutableList<ColumnMetadata>>> columnMetas = new ConcurrentHashMap<>();
+
+    private volatile long version = -1;
+    private volatile long versionCheckedTime;
+    /**
+     * False if the registry table is not found by the last version check, nothing is registered then
+     */
+    private volatile boolean registryExists = true;
+
+    public HBaseMetaRegistry(Supplier<Connection> connection, HBaseConfig config, TypeManager typeManager) {
+        this.connection = connection;
+        this.config = config;
+        this.typeManager = typeManager;
+        this.registryTable = TableName.valueOf(config.getMetaRegistryTable());
+    }
+
+    /**
+     * @return table meta info registered, or read from metaDir if the table is not registered
+     */
+    public TableMetaInfo getTableMetaInfo(String schemaName, String tableName) {
+        Optional<TableMetaInfo> tableMetaInfo = getRegisteredTableMetaInfo(schemaName, tableName);
+        return tableMetaInfo != null && tableMetaInfo.isPresent() ? tableMetaInfo.get()
+                : Utils.getTableMetaInfoFromJson(schemaName, tableName, config.getMetaDir());
+    }
+
+    /**
+     * @return whether the json of table is registered
+     */
+    public boolean isRegistered(String schemaName, String tableName) {
+        Optional<TableMetaInfo> tableMetaInfo = getRegisteredTableMetaInfo(schemaName, tableName);
+        return tableMetaInfo != null && tableMetaInfo.isPresent();
+    }
+
+    private Optional<TableMetaInfo> getRegisteredTableMetaInfo(String schemaName, String tableName) {
+        return getCached(tableMetaInfos, schemaName, tableName,
+                json -> Utils.parseTableMetaInfo(schemaName, tableName, json));
+    }
+
+    /**
+     * @return columns registered, or read from metaDir if the table is not registered
+     */
+    public ImmutableList<ColumnMetadata> getColumnMeta(String schemaName, String tableName) {
+        Optional<ImmutableList<ColumnMetadata>> columns = getCached(columnMetas, schemaName, tableName,
+                json -> Utils.parseColumnMeta(schemaName, tableName, json, typeManager));
+        return columns != null && columns.isPresent() ? columns.get()
+                : Utils.getColumnMetaFromJson(schemaName, tableName, config.getMetaDir(), typeManager);
+    }
+
+    /**
+     * Values cached at an old version are read again, as a registration may happen while reading the json
+     * and the version is changed after the cache is cleared.
+     *
+     * @return value parsed from the json registered, empty if the table is not registered,
+     * null if the registry can't be read, which is not cached
+     */
+    private <T> Optional<T> getCached(Map<String, Versioned<T>> cache, String schemaName, String tableName,
+                                      Function<String, T> parser) {
+        checkVersion();
+        // the json read is at least as new as the version read before it, as json is written before the version
+        long current = version;
+        String key = getKey(schemaName, tableName);
+        Versioned<T> cached = cache.get(key);
+        if (cached != null && cached.version == current) {
+            return cached.value;
+        }
+        Optional<String> json = registryExists ? readJson(schemaName, tableName) : Optional.empty();
+        if (json == null) {
+            return null;
+        }
+        Optional<T> value = json.map(parser);
+        cache.put(key, new Versioned<>(current, value));
+        return value;
+    }
+
+    /**
+     * Write the json of a table and increase the version of registry, the registry table is created if not exists.
+     * The json is written before the version, so nodes seeing the new version always read the new json.
+     *
+     * @return version of registry the json is written at
+     */
+    public long register(String schemaName, String tableName, String json) throws IOException {
+        createRegistryTableIfNotExists();
+        try (Table table = connection.get().getTable(registryTable)) {
+            long current = readVersion(table);
+            table.put(new Put(Bytes.toBytes(getKey(schemaName, tableName)))
+                    .addColumn(FAMILY, JSON, Bytes.toBytes(json))
+                    .addColumn(FAMILY, VERSION, Bytes.toBytes(current + 1)));
+            long registered = Bytes.toLong(table.increment(new Increment(VERSION_ROW).addColumn(FAMILY, VERSION, 1))
+                    .getValue(FAMILY, VERSION));
+            log.info("Registered meta of table " + schemaName + "." + tableName + " at version " + registered);
+            synchronized (this) {
+                registryExists = true;
+                version = registered;
+                invalidate();
+            }
+            return registered;
+        }
+    }
+
+    /**
+     * Forget the json cached when the version of registry is changed by a registration
+     */
+    void checkVersion() {
+        long now = System.currentTimeMillis();
+        if (now - versionCheckedTime < config.getMetaRegistryCheckIntervalMillis()) {
+            return;
+        }
+        synchronized (this) {
+            if (now - versionCheckedTime < config.getMetaRegistryCheckIntervalMillis()) {
+                return;
+            }
+            long current = readVersion();
+            if (current != version) {
+                invalidate();
+                version = current;
+            }
+            versionCheckedTime = now;
+        }
+    }
+
+    private void invalidate() {
+        tableMetaInfos.clear();
+        columnMetas.clear();
+    }
+
+    /**
+     * @return version of registry, 0 if nothing is registered, the last version read if it can't be read
+     */
+    long readVersion() {
+        try (Table table = connection.get().getTable(registryTable)) {
+            long current = readVersion(table);
+            registryExists = true;
+            return current;
+        } catch (TableNotFoundException e) {
+            // nothing is registered, tables are not read from the registry until the next check
+            registryExists = false;
+            return 0;
+        } catch (Exception e) {
+            log.error(e, "Read version of meta registry " + registryTable + " failed: " + e.getMessage());
+            return version;
+        }
+    }
+
+    private static long readVersion(Table table) throws IOException {
+        byte[] value = table.get(new Get(VERSION_ROW).addColumn(FAMILY, VERSION)).getValue(FAMILY, VERSION);
+        return value == null ? 0 : Bytes.toLong(value);
+    }
+
+    /**
+     * @return json of table registered, empty if the table is not registered, null if the registry can't be read
+     */
+    Optional<String> readJson(String schemaName, String tableName) {
+        try (Table table = connection.get().getTable(registryTable)) {
+            Result result = table.get(new Get(Bytes.toBytes(getKey(schemaName, tableName))).addColumn(FAMILY, JSON));
+            return Optional.ofNullable(result.getValue(FAMILY, JSON)).map(Bytes::toString);
+        } catch (TableNotFoundException e) {
+            registryExists = false;
+            return Optional.empty();
+        } catch (Exception e) {
+            log.error(e, "Read meta of table " + schemaName + "." + tableName + " from registry failed: "
+                    + e.getMessage());
+            return null;
+        }
+    }
+
+    private void createRegistryTableIfNotExists() throws IOException {
+        try (Admin admin = connection.get().getAdmin()) {
+            if (!admin.tableExists(registryTable)) {
+                admin.createTable(TableDescriptorBuilder.newBuilder(registryTable)
+                        .setColumnFamily(ColumnFamilyDescriptorBuilder.newBuilder(FAMILY)
+                                .setMaxVersions(Constant.META_REGISTRY_MAX_VERSIONS).build())
+                        .build());
+                log.info("Created meta registry table " + registryTable);
+            }
+        }
+    }
+
+    /**
+     * Value cached with the version of registry it is read at
+     */
+    private static class Versioned<T> {
+        private final long version;
+        private final Optional<T> value;
+
+        Versioned(long version, Optional<T> value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
+    private static String getKey(String schemaName, String tableName) {
+        return (schemaName == null || schemaName.isEmpty() ? Constant.DEFAULT_HBASE_NAMESPACE_NAME : schemaName)
+                + ":" + tableName;
+    }
+}
@@ -15,30 +15,65 @@ package com.analysys.trino.connector.hbase.meta;
 
 import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
 import com.analysys.trino.connector.hbase.frame.HBaseConnectorId;
+import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.analysys.trino.connector.hbase.schedule.HBaseAccessPlanner;
+import com.analysys.trino.connector.hbase.schedule.HBasePartitioningHandle;
 import com.analysys.trino.connector.hbase.utils.Constant;
 import com.analysys.trino.connector.hbase.utils.Utils;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
 import io.trino.spi.connector.*;
+import io.trino.spi.expression.ConnectorExpression;
+import io.trino.spi.expression.Variable;
+import io.trino.spi.function.table.ConnectorTableFunctionHandle;
 import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.block.Block;
+import io.trino.spi.statistics.ColumnStatisticMetadata;
+import io.trino.spi.statistics.ColumnStatisticType;
+import io.trino.spi.statistics.ColumnStatistics;
 import io.trino.spi.statistics.ComputedStatistics;
+import io.trino.spi.statistics.DoubleRange;
+import io.trino.spi.statistics.Estimate;
+import io.trino.spi.statistics.TableStatisticType;
+import io.trino.spi.statistics.TableStatistics;
+import io.trino.spi.statistics.TableStatisticsMetadata;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.BooleanType;
+import io.trino.spi.type.DecimalType;
+import io.trino.spi.type.RealType;
 import io.trino.spi.type.Type;
 import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.RegionLocator;
 import org.apache.hadoop.hbase.client.SnapshotDescription;
 import org.apache.hadoop.hbase.client.SnapshotType;
+import org.apache.hadoop.hbase.tool.BulkLoadHFiles;
+import org.apache.hadoop.hbase.util.Bytes;
 
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.stream.Collectors;
 
+import static com.analysys.trino.connector.hbase.utils.Constant.CELL_TIMESTAMP_COLUMN_NAME;
 import static com.analysys.trino.connector.hbase.utils.Constant.CONNECTOR_NAME;
 import static com.analysys.trino.connector.hbase.utils.Types.checkType;
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static io.trino.spi.StandardErrorCode.INVALID_SESSION_PROPERTY;
+import static io.trino.spi.StandardErrorCode.NOT_SUPPORTED;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -53,12 +88,14 @@ public class HBaseMetadata implements ConnectorMetadata {
     private final HBaseConnectorId connectorId;
     private final HBaseTables hbaseTables;
     private final HBaseClientManager hbaseClientManager;
+    private final HBaseAccessPlanner accessPlanner;
 
     @Inject
     public HBaseMetadata(HBaseConnectorId connectorId, HBaseTables hbaseTables, HBaseClientManager hbaseClientManager) {
         this.connectorId = connectorId;
         this.hbaseTables = requireNonNull(hbaseTables, "hbaseTables is null");
         this.hbaseClientManager = hbaseClientManager;
+        this.accessPlanner = new HBaseAccessPlanner(hbaseClientManager);
     }
 
     @Override
@@ -69,18 +106,7 @@ public class HBaseMetadata implements ConnectorMetadata {
     @Override
     public ConnectorTableHandle getTableHandle(ConnectorSession connectorSession, SchemaTableName schemaTableName) {
         requireNonNull(schemaTableName, "schemaTableName is null");
-        Admin admin = null;
-        ConnectorTableHandle connectorTableHandle;
-        try {
-            admin = hbaseClientManager.getAdmin();
-            connectorTableHandle = hbaseTables.getTables(
-                    admin, schemaTableName.getSchemaName()).get(schemaTableName);
-        } finally {
-            if (admin != null) {
-                hbaseClientManager.close(admin);
-            }
-        }
-        return connectorTableHandle;
+        return hbaseTables.getTable(schemaTableName);
     }
 
     @Override
@@ -97,8 +123,45 @@ public class HBaseMetadata implements ConnectorMetadata {
             return null;
         } else {
             HBaseTable table = hbaseClientManager.getTable(tableName.getSchemaName(), tableName.getTableName());
-            return table == null ? null : new ConnectorTableMetadata(tableName, table.getColumnsMetadata());
+            if (table == null) {
+                return null;
+            }
+            return new ConnectorTableMetadata(tableName, getColumnsMetadata(table));
+        }
+    }
+
+    static List<ColumnMetadata> getColumnsMetadata(HBaseTable table) {
+        ImmutableList.Builder<ColumnMetadata> columns = ImmutableList.<ColumnMetadata>builder()
+                .addAll(table.getColumnsMetadata());
+        if (!hasColumnNamedCellTimestamp(table)) {
+            columns.add(cellTimestampColumnMetadata());
         }
+        return columns.build();
+    }
+
+    /**
+     * A column of table json named _timestamp takes the place of the hidden column
+     *
+     * @param table table
+     * @return true if the table has a column named _timestamp
+     */
+    private static boolean hasColumnNamedCellTimestamp(HBaseTable table) {
+        return table.getColumnsMetadata().stream()
+                .anyMatch(column -> CELL_TIMESTAMP_COLUMN_NAME.equals(column.getName()));
+    }
+
+    /**
+     * The hidden column _timestamp, it will not show up in select *
+     *
+     * @return column metadata of _timestamp
+     */
+    static ColumnMetadata cellTimestampColumnMetadata() {
+        return ColumnMetadata.builder()
+                .setName(CELL_TIMESTAMP_COLUMN_NAME)
+                .setType(BigintType.BIGINT)
+                .setComment(Optional.of("The latest write timestamp of the cells read, in mill seconds"))
+                .setHidden(true)
+                .build();
     }
 
     private List<String> listSchemaNames() {
@@ -107,16 +170,7 @@ public class HBaseMetadata implements ConnectorMetadata {
 
     @Override
     public List<SchemaTableName> listTables(ConnectorSession connectorSession, Optional<String> schemaName) {
-        Admin admin = hbaseClientManager.getAdmin();
-        List<SchemaTableName> schemaTableNames;
-        try {
-            schemaTableNames = new ArrayList<>(hbaseTables.getTables(admin, schemaName.orElse("")).keySet());
-        } finally {
-            if (admin != null) {
-                hbaseClientManager.close(admin);
-            }
-        }
-        return schemaTableNames;
+        return new ArrayList<>(hbaseTables.getTables(schemaName.orElse("")).keySet());
     }
 
     @Override
@@ -135,7 +189,13 @@ public class HBaseMetadata implements ConnectorMetadata {
                 columnHandles.put(column.getName(),
                         new HBaseColumnHandle(
                                 connectorId.getId(), column.getFamily(), column.getName(),
-                                column.getType(), index, column.isRowKey()));
+                                column.getType(), index, column.isRowKey(), column.getMaxVersions(),
+                                column.getQualifierPrefix(), ImmutableList.of()));
+            }
+            if (!hasColumnNamedCellTimestamp(table)) {
+                columnHandles.put(CELL_TIMESTAMP_COLUMN_NAME,
+                        new HBaseColumnHandle(connectorId.getId(), "", CELL_TIMESTAMP_COLUMN_NAME,
+                                BigintType.BIGINT, index, false));
             }
             return columnHandles.build();
         }
@@ -154,22 +214,25 @@ public class HBaseMetadata implements ConnectorMetadata {
                                                                        SchemaTablePrefix schemaTablePrefix) {
         Objects.requireNonNull(schemaTablePrefix, "prefix is null");
         ImmutableMap.Builder<SchemaTableName, List<ColumnMetadata>> columns = ImmutableMap.builder();
-        List<SchemaTableName> tables = this.listTables(connectorSession, schemaTablePrefix);
-        for (SchemaTableName tableName : tables) {
-            ConnectorTableMetadata tableMetadata = this.getTableMetadata(tableName);
-            if (tableMetadata != null) {
-                columns.put(tableName, tableMetadata.getColumns());
+        List<String> schemaNames = schemaTablePrefix.getSchema().map(ImmutableList::of)
+                .orElseGet(() -> ImmutableList.copyOf(listSchemaNames()));
+        for (String schemaName : schemaNames) {
+            Map<SchemaTableName, HBaseTableHandle> tables = hbaseTables.getTables(schemaName);
+            if (tables == null) {
+                continue;
             }
+            // tables of a schema are read together, see HBaseClientManager.getTables
+            List<String> tableNames = tables.keySet().stream().filter(schemaTablePrefix::matches)
+                    .map(SchemaTableName::getTableName).collect(Collectors.toList());
+            hbaseClientManager.getTables(schemaName, tableNames).forEach((tableName, table) -> {
+                if (table.getColumnsMetadata() != null) {
+                    columns.put(new SchemaTableName(schemaName, tableName), getColumnsMetadata(table));
+                }
+            });
         }
         return columns.build();
     }
 
-    private List<SchemaTableName> listTables(ConnectorSession session, SchemaTablePrefix prefix) {
-        return (prefix.getSchema().isPresent() ?
-                this.listTables(session, prefix.getSchema()) :
-                ImmutableList.of(new SchemaTableName("", prefix.getTable().orElse(""))));
-    }
-
     @Override
     public void dropTable(ConnectorSession session, ConnectorTableHandle tableHandle) {
         HBaseTableHandle handle = (HBaseTableHandle) tableHandle;
@@ -206,8 +269,53 @@ public class HBaseMetadata implements ConnectorMetadata {
     }
 
     // ----------------------------------- start insert -----------------------------------
+    /**
+     * Partition the rows of INSERT by the regions of table, so each writer sends large batches to a few region
+     * servers instead of small batches to every region server.
+     */
+    @Override
+    public Optional<ConnectorTableLayout> getInsertLayout(ConnectorSession session,
+                                                          ConnectorTableHandle connectorTableHandle) {
+        HBaseTableHandle tableHandle = fromConnectorTableHandle(connectorTableHandle);
+        SchemaTableName schemaTableName = tableHandle.getSchemaTableName();
+        TableMetaInfo tableMetaInfo = this.hbaseClientManager.getTableMetaInfo(
+                schemaTableName.getSchemaName(), schemaTableName.getTableName());
+        if (tableMetaInfo == null) {
+            return Optional.empty();
+        }
+        Optional<ColumnMetaInfo> rowKey = tableMetaInfo.getColumns().stream().filter(ColumnMetaInfo::isRowKey).findFirst();
+        Optional<HBaseRowKeyGenerator> rowKeyGenerator = HBaseRowKeyGenerator.create(tableMetaInfo);
+        if (!rowKey.isPresent() || (!tableMetaInfo.isRowKeyGenerated()
+                && !VarcharType.VARCHAR.equals(Utils.matchType(rowKey.get().getType(),
+                        rowKey.get().getMaxVersions(), hbaseClientManager.getTypeManager())))) {
+            return Optional.empty();
+        }
+        // generated rowKey is partitioned by the columns it's made of
+        List<String> partitionColumns = rowKeyGenerator.map(HBaseRowKeyGenerator::getInputColumns)
+                .orElse(ImmutableList.of(rowKey.get().getColumnName()));
+
+        TableName hTableName = TableName.valueOf(schemaTableName.getSchemaName(), schemaTableName.getTableName());
+        try (RegionLocator locator = this.hbaseClientManager.getConnection().getRegionLocator(hTableName)) {
+            byte[][] startKeys = locator.getStartKeys();
+            if (startKeys.length <= 1) {
+                return Optional.empty();
+            }
+            List<String> regionStartKeys = Arrays.stream(startKeys).map(Bytes::toStringBinary)
+                    .collect(Collectors.toList());
+            return Optional.of(new ConnectorTableLayout(new HBasePartitioningHandle(schemaTableName, regionStartKeys),
+                    partitionColumns, true));
+        } catch (IOException e) {
+            log.error(e, "Failed to read regions of " + hTableName + ", INSERT is not partitioned by region");
+            return Optional.empty();
+        }
+    }
+
     @Override
     public ConnectorInsertTableHandle beginInsert(ConnectorSession session, ConnectorTableHandle connectorTableHandle, List<ColumnHandle> columns, RetryMode retryMode) {
+        // rows written by a failed attempt can't be taken back
+        if (retryMode != RetryMode.NO_RETRIES) {
+            throw new TrinoException(NOT_SUPPORTED, "INSERT into HBase doesn't support query retries");
+        }
 
         HBaseTableHandle tableHandle = fromConnectorTableHandle(connectorTableHandle);
 
@@ -215,9 +323,18 @@ public class HBaseMetadata implements ConnectorMetadata {
 
         String tableName = tableHandle.getSchemaTableName().getTableName();
 
+        String bulkLoadDir = null;
+        if (HBaseSessionProperties.isBulkLoad(session)) {
+            String stagingDir = this.hbaseClientManager.getConfig().getBulkLoadStagingDir();
+            if (Strings.isNullOrEmpty(stagingDir)) {
+                throw new TrinoException(INVALID_SESSION_PROPERTY,
+                        "Bulk load is not available, bulk-load-staging-dir is not set in the catalog");
+            }
+            bulkLoadDir = stagingDir + "/" + session.getQueryId() + "_" + schemaName + "_" + tableName;
+        }
+
         try {
-            TableMetaInfo tableMetaInfo = Utils.getTableMetaInfoFromJson(schemaName, tableName,
-                    this.hbaseClientManager.getConfig().getMetaDir());
+            TableMetaInfo tableMetaInfo = this.hbaseClientManager.getTableMetaInfo(schemaName, tableName);
 //            log.info("tableMetaInfo--------------->{"+tableMetaInfo.toString()+"}");
             requireNonNull(tableMetaInfo,
                     String.format("The metadata of table %s.%s is null", schemaName, tableName));
@@ -233,7 +350,7 @@ public class HBaseMetadata implements ConnectorMetadata {
             for (ColumnMetaInfo col : cols) {
                 columnNames.add(col.getColumnName());
 //                log.info("col.getType()----------->{"+col.getType().toString()+"}");
-                columnTypes.add(Utils.matchType(col.getType()));
+                columnTypes.add(Utils.matchType(col.getType(), col.getMaxVersions(), hbaseClientManager.getTypeManager()));
                 colNameAndFamilyNameMap.put(col.getColumnName(), col.getFamily());
             }
             int rowKeyColumnChannel = this.findRowKeyChannel(tableMetaInfo.getColumns());
@@ -248,7 +365,8 @@ public class HBaseMetadata implements ConnectorMetadata {
                     columnNames,
                     columnTypes,
                     rowKeyColumnChannel,
-                    colNameAndFamilyNameMap);
+                    colNameAndFamilyNameMap,
+                    bulkLoadDir);
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
         }
@@ -271,10 +389,75 @@ public class HBaseMetadata implements ConnectorMetadata {
                                                           ConnectorInsertTableHandle insertHandle,
                                                           Collection<Slice> fragments,
                                                           Collection<ComputedStatistics> computedStatistics) {
+        HBaseInsertTableHandle handle = (HBaseInsertTableHandle) insertHandle;
+        if (handle.getBulkLoadDir() != null) {
+            bulkLoad(handle.getSchemaTableName(), new Path(handle.getBulkLoadDir()), fragments);
+        }
         log.info("插入完成");
         return Optional.empty();
     }
 
+    /**
+     * Load the HFiles written by the page sinks, each region loads its files atomically.
+     * Only the files in fragments are loaded, the files of failed page sinks are left out.
+     * Files are moved into HBase, then the staging directory is deleted even if loading fails.
+     */
+    private void bulkLoad(SchemaTableName schemaTableName, Path dir, Collection<Slice> fragments) {
+        long start = System.currentTimeMillis();
+        TableName hTableName = TableName.valueOf(schemaTableName.getSchemaName(), schemaTableName.getTableName());
+        Configuration conf = new Configuration(this.hbaseClientManager.getConnection().getConfiguration());
+        // every writer writes its own files of a region
+        conf.setInt(BulkLoadHFiles.MAX_FILES_PER_REGION_PER_FAMILY, Integer.MAX_VALUE);
+        // files are at bulkLoadDir/family/
+        Map<byte[], List<Path>> familyFiles = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        for (Slice fragment : fragments) {
+            Path file = new Path(fragment.toStringUtf8());
+            familyFiles.computeIfAbsent(Bytes.toBytes(file.getParent().getName()), family -> new ArrayList<>())
+                    .add(file);
+        }
+        try {
+            if (!familyFiles.isEmpty()) {
+                BulkLoadHFiles.create(conf).bulkLoad(hTableName, familyFiles);
+            }
+        } catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Failed to bulk load " + dir + " to " + hTableName, e);
+        } finally {
+            deleteStagingDir(dir, conf);
+        }
+        this.hbaseClientManager.invalidateTable(schemaTableName.getSchemaName(), schemaTableName.getTableName());
+        log.info("bulkLoad: loaded " + fragments.size() + " files of " + dir + " to " + hTableName
+                + " used " + (System.currentTimeMillis() - start) + " mill seconds.");
+    }
+
+    private static void deleteStagingDir(Path dir, Configuration conf) {
+        try {
+            dir.getFileSystem(conf).delete(dir, true);
+        } catch (IOException e) {
+            log.error(e, "Failed to delete bulk load staging dir " + dir);
+        }
+    }
+
+    /**
+     * The staging directories of INSERTs in bulk load mode are left if the query fails before finishInsert
+     */
+    @Override
+    public void cleanupQuery(ConnectorSession session) {
+        String stagingDir = this.hbaseClientManager.getConfig().getBulkLoadStagingDir();
+        if (!HBaseSessionProperties.isBulkLoad(session) || Strings.isNullOrEmpty(stagingDir)) {
+            return;
+        }
+        Configuration conf = this.hbaseClientManager.getConnection().getConfiguration();
+        Path queryDirs = new Path(stagingDir, session.getQueryId() + "_*");
+        try {
+            FileStatus[] dirs = queryDirs.getFileSystem(conf).globStatus(queryDirs);
+            if (dirs != null) {
+                Arrays.stream(dirs).forEach(dir -> deleteStagingDir(dir.getPath(), conf));
+            }
+        } catch (IOException e) {
+            log.error(e, "Failed to clean up bulk load staging dirs " + queryDirs);
+        }
+    }
+
     private HBaseTableHandle fromConnectorTableHandle(ConnectorTableHandle tableHandle) {
         return checkType(tableHandle, HBaseTableHandle.class, "tableHandle");
     }
@@ -287,8 +470,7 @@ public class HBaseMetadata implements ConnectorMetadata {
         String schemaName = hth.getSchemaTableName().getSchemaName();
         String tableName = hth.getSchemaTableName().getTableName();
 
-        TableMetaInfo tableMetaInfo = Utils.getTableMetaInfoFromJson(schemaName, tableName,
-                this.hbaseClientManager.getConfig().getMetaDir());
+        TableMetaInfo tableMetaInfo = this.hbaseClientManager.getTableMetaInfo(schemaName, tableName);
         requireNonNull(tableMetaInfo, String.format("Table %s.%s has no metadata, please check .json file under %s",
                 schemaName, tableName, hbaseClientManager.getConfig().getMetaDir() + "/" + schemaName));
 
@@ -337,14 +519,404 @@ public class HBaseMetadata implements ConnectorMetadata {
                                                                                    ConnectorTableHandle handle,
                                                                                    Constraint constraint) {
         HBaseTableHandle tableHandle = (HBaseTableHandle) handle;
+        // Columns of the table joined by rowKey are left to presto
+        TupleDomain<ColumnHandle> summary = constraint.getSummary()
+                .filter((column, domain) -> !((HBaseColumnHandle) column).isJoined());
+        Map<String, ColumnHandle> assignments = new HashMap<>(constraint.getAssignments());
+        assignments.values().removeIf(column -> ((HBaseColumnHandle) column).isJoined());
+
         TupleDomain<ColumnHandle> oldDomain = tableHandle.getConstraint();
-        TupleDomain<ColumnHandle> newDomain = oldDomain.intersect(constraint.getSummary());
-        if (oldDomain.equals(newDomain)) {
+        TupleDomain<ColumnHandle> newDomain = oldDomain.intersect(summary)
+                .intersect(HBaseExpressions.findMapElementDomains(constraint.getExpression(), assignments));
+        Set<ConditionInfo> patternConditions = new LinkedHashSet<>(tableHandle.getExpressionConditions());
+        patternConditions.addAll(HBaseExpressions.findPatternConditions(constraint.getExpression(), assignments));
+        List<ConditionInfo> newConditions = new ArrayList<>(patternConditions);
+        // rowKey functions of salted tables are on rowKeys without salt, they can't filter the rowKeys stored
+        List<ConditionInfo> rowKeyConditions = isRowKeySalted(tableHandle.getSchemaTableName()) ? ImmutableList.of()
+                : HBaseExpressions.findRowKeyConditions(constraint.getExpression(), assignments);
+        if (!rowKeyConditions.isEmpty()) {
+            // filters pushed down before must pass too, the prefixes are merged
+            newConditions = Utils.andRowKeyConditions(newConditions, rowKeyConditions,
+                    rowKeyConditions.get(0).getColName());
+        }
+        if (oldDomain.equals(newDomain) && newConditions.equals(tableHandle.getExpressionConditions())) {
             return Optional.empty();
         }
-        tableHandle = new HBaseTableHandle(tableHandle.getSchemaTableName(), newDomain);
+        tableHandle = tableHandle.withConstraint(newDomain, ImmutableList.copyOf(newConditions));
+        // Shown in the plan, by EXPLAIN
+        tableHandle = tableHandle.withAccessPlan(accessPlanner.plan(tableHandle));
         return Optional.of(new ConstraintApplicationResult<>(tableHandle, constraint.getSummary(), true));
     }
-}
 
+    private boolean isRowKeySalted(SchemaTableName schemaTableName) {
+        TableMetaInfo tableMetaInfo = hbaseClientManager.getTableMetaInfo(schemaTableName.getSchemaName(),
+                schemaTableName.getTableName());
+        return tableMetaInfo != null && tableMetaInfo.getRowKeySaltBuckets() > 0;
+    }
+
+    /**
+     * Row count and data size estimated from the metrics of the regions in the rowKey range pushed down,
+     * so presto can order joins and choose between broadcast and partitioned joins.
+     * Rows are the cells of regions divided by the columns of table, or the rowKeys of batch get.
+     * For analyzed tables, rows and column statistics of ANALYZE are shrunk by the share of bytes in the range.
+     */
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle handle) {
+        HBaseTableHandle tableHandle = (HBaseTableHandle) handle;
+        SchemaTableName schemaTableName = tableHandle.getSchemaTableName();
+        List<HBaseRegionStats> regions = hbaseClientManager.getRegionStats(
+                schemaTableName.getSchemaName(), schemaTableName.getTableName());
+        if (regions.isEmpty()) {
+            return TableStatistics.empty();
+        }
+        byte[][] span = HBaseAccessPlanner.getRowKeySpan(tableHandle.getConstraint());
+        if (tableHandle.getRawScan() != null) {
+            span = new byte[][]{Bytes.toBytes(Strings.nullToEmpty(tableHandle.getRawScan().getStartRow())),
+                    Bytes.toBytes(Strings.nullToEmpty(tableHandle.getRawScan().getStopRow()))};
+        }
+        List<HBaseColumnHandle> columns = getColumnHandles(session, tableHandle).values().stream()
+                .map(column -> (HBaseColumnHandle) column).collect(Collectors.toList());
+        int valueColumns = (int) columns.stream().filter(column -> !column.isRowKey() && !column.isCellTimestamp())
+                .count();
+        double sampleRatio = tableHandle.getSampleType() == null ? 1 : tableHandle.getSampleRatio();
+        int rowKeys = HBaseAccessPlanner.getRowKeys(tableHandle.getConstraint()).size();
+        double[] estimate = estimateRowsAndBytes(regions, span[0], span[1], valueColumns, rowKeys);
+
+        Optional<HBaseTableStats> analyzed = HBaseTableStats.read(hbaseClientManager.getConfig().getMetaDir(),
+                schemaTableName.getSchemaName(), schemaTableName.getTableName());
+        if (analyzed.isPresent() && analyzed.get().getRowCount() > 0) {
+            double tableBytes = HBaseAccessPlanner.estimateScanBytes(regions, HConstants.EMPTY_START_ROW,
+                    HConstants.EMPTY_END_ROW);
+            double share = tableBytes > 0 ? Math.min(1, estimate[1] / tableBytes) : 1;
+            double rows = rowKeys > 0 ? Math.min(rowKeys, analyzed.get().getRowCount())
+                    : analyzed.get().getRowCount() * share;
+            return toTableStatistics(analyzed.get(), columns, rows * sampleRatio);
+        }
+
+        TableStatistics.Builder statistics = TableStatistics.builder();
+        if (!Double.isNaN(estimate[0])) {
+            statistics.setRowCount(Estimate.of(estimate[0] * sampleRatio));
+        }
+        // Sizes of columns are unknown, the bytes are shared by them equally
+        Estimate columnSize = Estimate.of(estimate[1] * sampleRatio / Math.max(1, columns.size()));
+        columns.stream().filter(column -> column.getColumnType() instanceof VarcharType)
+                .forEach(column -> statistics.setColumnStatistics(column,
+                        ColumnStatistics.builder().setDataSize(columnSize).build()));
+        return statistics.build();
+    }
 
+    /**
+     * @param analyzed statistics of the whole table collected by ANALYZE
+     * @param columns  columns of table
+     * @param rows     rows to read
+     * @return statistics of the rows to read
+     */
+    static TableStatistics toTableStatistics(HBaseTableStats analyzed, List<HBaseColumnHandle> columns, double rows) {
+        double share = rows / analyzed.getRowCount();
+        TableStatistics.Builder statistics = TableStatistics.builder().setRowCount(Estimate.of(rows));
+        for (HBaseColumnHandle column : columns) {
+            HBaseTableStats.ColumnStats stats = analyzed.getColumns().get(column.getColumnName());
+            if (stats == null) {
+                continue;
+            }
+            ColumnStatistics.Builder columnStatistics = ColumnStatistics.builder();
+            if (stats.getDistinctValuesCount() != null) {
+                columnStatistics.setDistinctValuesCount(Estimate.of(Math.min(stats.getDistinctValuesCount(), rows)));
+            }
+            if (stats.getNullsFraction() != null) {
+                columnStatistics.setNullsFraction(Estimate.of(stats.getNullsFraction()));
+            }
+            if (stats.getMin() != null && stats.getMax() != null) {
+                columnStatistics.setRange(new DoubleRange(stats.getMin(), stats.getMax()));
+            }
+            if (stats.getDataSize() != null) {
+                columnStatistics.setDataSize(Estimate.of(stats.getDataSize() * share));
+            }
+            statistics.setColumnStatistics(column, columnStatistics.build());
+        }
+        return statistics.build();
+    }
+
+    /**
+     * ANALYZE reads a sample of regions, sample_ratio of them and ANALYZE_MIN_REGIONS at least.
+     * The ratio is rounded up to whole regions, which the split manager reads exactly,
+     * so the statistics are scaled by the share of regions actually read.
+     * NDV, null fraction and min / max are collected for the columns of single values,
+     * min / max only for numbers and times, which presto estimates filters by.
+     */
+    @Override
+    public ConnectorAnalyzeMetadata getStatisticsCollectionMetadata(ConnectorSession session,
+                                                                   ConnectorTableHandle tableHandle,
+                                                                   Map<String, Object> analyzeProperties) {
+        HBaseTableHandle table = (HBaseTableHandle) tableHandle;
+        double sampleRatio = HBaseAnalyzeProperties.getSampleRatio(analyzeProperties);
+        int regions = hbaseClientManager.getRegionStats(table.getSchemaTableName().getSchemaName(),
+                table.getSchemaTableName().getTableName()).size();
+        if (regions > 0) {
+            int sampled = (int) Math.min(regions,
+                    Math.max(Constant.ANALYZE_MIN_REGIONS, Math.ceil(sampleRatio * regions)));
+            sampleRatio = (double) sampled / regions;
+        }
+
+        Set<ColumnStatisticMetadata> columnStatistics = new LinkedHashSet<>();
+        for (ColumnHandle handle : getColumnHandles(session, table).values()) {
+            HBaseColumnHandle column = (HBaseColumnHandle) handle;
+            if (column.isCellTimestamp() || column.isVersioned() || column.isDynamic()) {
+                continue;
+            }
+            String name = column.getColumnName();
+            columnStatistics.add(new ColumnStatisticMetadata(name, ColumnStatisticType.NUMBER_OF_DISTINCT_VALUES));
+            columnStatistics.add(new ColumnStatisticMetadata(name, ColumnStatisticType.NUMBER_OF_NON_NULL_VALUES));
+            if (isRangeType(column.getColumnType())) {
+                columnStatistics.add(new ColumnStatisticMetadata(name, ColumnStatisticType.MIN_VALUE));
+                columnStatistics.add(new ColumnStatisticMetadata(name, ColumnStatisticType.MAX_VALUE));
+            }
+            if (column.getColumnType() instanceof VarcharType) {
+                columnStatistics.add(new ColumnStatisticMetadata(name, ColumnStatisticType.TOTAL_SIZE_IN_BYTES));
+            }
+        }
+        TableStatisticsMetadata metadata = new TableStatisticsMetadata(columnStatistics,
+                ImmutableSet.of(TableStatisticType.ROW_COUNT), ImmutableList.of());
+        log.info("Analyze " + table.getSchemaTableName() + " by reading " + sampleRatio + " of " + regions + " regions");
+        return new ConnectorAnalyzeMetadata(
+                table.withConstraint(TupleDomain.all(), ImmutableList.of()).withSample(SampleType.SYSTEM, sampleRatio),
+                metadata);
+    }
+
+    @Override
+    public ConnectorTableHandle beginStatisticsCollection(ConnectorSession session, ConnectorTableHandle tableHandle) {
+        return tableHandle;
+    }
+
+    /**
+     * Scale the statistics of sampled regions to the whole table and save them beside the table json.
+     * Distinct values are scaled only for the columns almost unique in sample, like ids,
+     * the others are supposed to have the same values in the other regions.
+     */
+    @Override
+    public void finishStatisticsCollection(ConnectorSession session, ConnectorTableHandle tableHandle,
+                                           Collection<ComputedStatistics> computedStatistics) {
+        HBaseTableHandle table = (HBaseTableHandle) tableHandle;
+        double sampleRatio = table.getSampleType() == null ? 1 : table.getSampleRatio();
+        ComputedStatistics computed = computedStatistics.iterator().next();
+        long sampleRows = BigintType.BIGINT.getLong(computed.getTableStatistics().get(TableStatisticType.ROW_COUNT), 0);
+        if (sampleRows == 0) {
+            log.warn("No rows in the regions sampled by ANALYZE " + table.getSchemaTableName()
+                    + ", statistics are not changed");
+            return;
+        }
+
+        Map<String, Type> columnTypes = new HashMap<>();
+        getColumnHandles(session, table).values().forEach(column ->
+                columnTypes.put(((HBaseColumnHandle) column).getColumnName(), ((HBaseColumnHandle) column).getColumnType()));
+        Map<String, Map<ColumnStatisticType, Block>> blocks = new HashMap<>();
+        computed.getColumnStatistics().forEach((metadata, block) -> blocks
+                .computeIfAbsent(metadata.getColumnName(), name -> new HashMap<>())
+                .put(metadata.getStatisticType(), block));
+
+        Map<String, HBaseTableStats.ColumnStats> columns = new LinkedHashMap<>();
+        blocks.forEach((name, statistics) -> {
+            Type type = columnTypes.get(name);
+            long nonNulls = getCount(statistics.get(ColumnStatisticType.NUMBER_OF_NON_NULL_VALUES));
+            long distinct = getCount(statistics.get(ColumnStatisticType.NUMBER_OF_DISTINCT_VALUES));
+            double distinctValues = nonNulls > 0 && distinct >= nonNulls * 0.9 ? distinct / sampleRatio : distinct;
+            Block totalSize = statistics.get(ColumnStatisticType.TOTAL_SIZE_IN_BYTES);
+            columns.put(name, new HBaseTableStats.ColumnStats(
+                    distinctValues,
+                    1 - (double) nonNulls / sampleRows,
+                    toDouble(type, statistics.get(ColumnStatisticType.MIN_VALUE)),
+                    toDouble(type, statistics.get(ColumnStatisticType.MAX_VALUE)),
+                    totalSize == null || totalSize.isNull(0) ? null : getCount(totalSize) / sampleRatio));
+        });
+        HBaseTableStats stats = new HBaseTableStats(sampleRows / sampleRatio, columns);
+        stats.write(hbaseClientManager.getConfig().getMetaDir(), table.getSchemaTableName().getSchemaName(),
+                table.getSchemaTableName().getTableName());
+        log.info("Analyzed " + table.getSchemaTableName() + ", " + sampleRows + " rows sampled");
+    }
+
+    private static long getCount(Block block) {
+        return block == null || block.isNull(0) ? 0 : BigintType.BIGINT.getLong(block, 0);
+    }
+
+    /**
+     * @return whether presto estimates filters on this type by the range of values
+     */
+    private static boolean isRangeType(Type type) {
+        Class<?> javaType = type.getJavaType();
+        return type.isOrderable() && type != BooleanType.BOOLEAN && (javaType == long.class || javaType == double.class);
+    }
+
+    /**
+     * @return min or max value as double like presto does for ranges, null if unknown
+     */
+    static Double toDouble(Type type, Block block) {
+        if (type == null || block == null || block.isNull(0)) {
+            return null;
+        }
+        if (type.getJavaType() == double.class) {
+            return type.getDouble(block, 0);
+        }
+        long value = type.getLong(block, 0);
+        if (type instanceof DecimalType) {
+            return BigDecimal.valueOf(value, ((DecimalType) type).getScale()).doubleValue();
+        }
+        if (type == RealType.REAL) {
+            return (double) Float.intBitsToFloat((int) value);
+        }
+        return (double) value;
+    }
+
+    /**
+     * @param regions      region stats of table
+     * @param start        start row of scan, empty for the start of table
+     * @param stop         stop row of scan, empty for the end of table
+     * @param valueColumns columns except rowKey and _timestamp
+     * @param rowKeys      rowKeys of batch get, 0 for scans
+     * @return rows, NaN if unknown, and bytes read
+     */
+    static double[] estimateRowsAndBytes(List<HBaseRegionStats> regions, byte[] start, byte[] stop,
+                                         int valueColumns, int rowKeys) {
+        List<HBaseRegionStats> scanned = regions.stream().filter(region -> region.overlaps(start, stop))
+                .collect(Collectors.toList());
+        double bytes = scanned.stream().mapToLong(HBaseRegionStats::getSize).sum();
+        long cells = scanned.stream().mapToLong(HBaseRegionStats::getCellCount).sum();
+        // cells are counted by compactions, they are unknown for regions never compacted
+        double rows = cells > 0 ? (double) cells / Math.max(1, valueColumns) : Double.NaN;
+        if (rowKeys > 0) {
+            double ratio = Double.isNaN(rows) || rows == 0 ? 1 : Math.min(1, rowKeys / rows);
+            return new double[]{Double.isNaN(rows) ? rowKeys : Math.min(rows, rowKeys), bytes * ratio};
+        }
+        return new double[]{rows, bytes};
+    }
+
+    /**
+     * Index joins on rowKey look up the rows of each batch of join keys by batch get, instead of scanning the table.
+     * Conditions are left to presto, and sampled tables are scanned.
+     */
+    @Override
+    public Optional<ConnectorResolvedIndex> resolveIndex(ConnectorSession session,
+                                                         ConnectorTableHandle tableHandle,
+                                                         Set<ColumnHandle> indexableColumns,
+                                                         Set<ColumnHandle> outputColumns,
+                                                         TupleDomain<ColumnHandle> tupleDomain) {
+        HBaseTableHandle table = (HBaseTableHandle) tableHandle;
+        // lookup keys are read as the string of rowKey
+        if (table.getSampleType() != null || table.getJoin() != null || table.getRawScan() != null
+                || indexableColumns.size() != 1 || !isVarcharRowKey(indexableColumns.iterator().next())) {
+            return Optional.empty();
+        }
+        HBaseColumnHandle rowKey = (HBaseColumnHandle) indexableColumns.iterator().next();
+        return Optional.of(new ConnectorResolvedIndex(
+                new HBaseIndexHandle(table, rowKey.getColumnName()), tupleDomain));
+    }
+
+    /**
+     * hbase.system.scan reads the table like a normal one, its filter and rowKey range are kept in the table handle
+     */
+    @Override
+    public Optional<TableFunctionApplicationResult<ConnectorTableHandle>> applyTableFunction(
+            ConnectorSession session, ConnectorTableFunctionHandle handle) {
+        if (!(handle instanceof HBaseScanFunctionHandle)) {
+            return Optional.empty();
+        }
+        HBaseScanFunctionHandle scanHandle = (HBaseScanFunctionHandle) handle;
+        return Optional.of(new TableFunctionApplicationResult<>(scanHandle.getTableHandle(),
+                ImmutableList.copyOf(scanHandle.getColumns())));
+    }
+
+    /**
+     * Equi-joins on rowKey between two HBase tables of this catalog, like profile and profile_stats.
+     * Workers scan the left table and get the rows of the right table by the rowKeys scanned in batches,
+     * so presto doesn't need to shuffle both tables and build a hash table of the right one.
+     * The right table must not be filtered or sampled, the left table can be.
+     */
+    @Override
+    public Optional<JoinApplicationResult<ConnectorTableHandle>> applyJoin(ConnectorSession session,
+                                                                          JoinType joinType,
+                                                                          ConnectorTableHandle left,
+                                                                          ConnectorTableHandle right,
+                                                                          List<JoinCondition> joinConditions,
+                                                                          Map<String, ColumnHandle> leftAssignments,
+                                                                          Map<String, ColumnHandle> rightAssignments,
+                                                                          JoinStatistics statistics) {
+        HBaseTableHandle leftTable = (HBaseTableHandle) left;
+        HBaseTableHandle rightTable = (HBaseTableHandle) right;
+        if ((joinType != JoinType.INNER && joinType != JoinType.LEFT_OUTER) || joinConditions.size() != 1
+                || leftTable.getJoin() != null || rightTable.getJoin() != null || rightTable.getSampleType() != null || rightTable.getRawScan() != null
+                || !rightTable.getConstraint().isAll() || !rightTable.getExpressionConditions().isEmpty()) {
+            return Optional.empty();
+        }
+        JoinCondition condition = joinConditions.get(0);
+        if (condition.getOperator() != JoinCondition.Operator.EQUAL
+                || !(condition.getLeftExpression() instanceof Variable)
+                || !(condition.getRightExpression() instanceof Variable)) {
+            return Optional.empty();
+        }
+        ColumnHandle leftColumn = leftAssignments.get(((Variable) condition.getLeftExpression()).getName());
+        ColumnHandle rightColumn = rightAssignments.get(((Variable) condition.getRightExpression()).getName());
+        if (!isVarcharRowKey(leftColumn) || !isVarcharRowKey(rightColumn)) {
+            return Optional.empty();
+        }
+
+        HBaseJoin join = new HBaseJoin(rightTable.getSchemaTableName(), joinType,
+                (HBaseColumnHandle) leftColumn, (HBaseColumnHandle) rightColumn);
+        Map<ColumnHandle, ColumnHandle> leftColumns = new HashMap<>();
+        leftAssignments.values().forEach(column -> leftColumns.put(column, column));
+        Map<ColumnHandle, ColumnHandle> rightColumns = new HashMap<>();
+        rightAssignments.values().forEach(column -> rightColumns.put(column,
+                ((HBaseColumnHandle) column).withJoinedTable(join.getJoinedTableName())));
+        log.info("Push down join of " + leftTable.getSchemaTableName() + " and " + rightTable.getSchemaTableName()
+                + " by rowKey, join type is " + joinType);
+        return Optional.of(new JoinApplicationResult<>(leftTable.withJoin(join), leftColumns, rightColumns, false));
+    }
+
+    /**
+     * Joined rows are matched by the string of rowKey
+     */
+    private static boolean isVarcharRowKey(ColumnHandle column) {
+        return column instanceof HBaseColumnHandle && ((HBaseColumnHandle) column).isRowKey()
+                && ((HBaseColumnHandle) column).getColumnType() instanceof VarcharType;
+    }
+
+    /**
+     * TABLESAMPLE SYSTEM reads a random subset of regions, TABLESAMPLE BERNOULLI samples rows by region servers,
+     * so only the sampled data is read from HBase. Nested samples are left to presto.
+     */
+    @Override
+    public Optional<SampleApplicationResult<ConnectorTableHandle>> applySample(ConnectorSession session,
+                                                                               ConnectorTableHandle handle,
+                                                                               SampleType sampleType,
+                                                                               double sampleRatio) {
+        HBaseTableHandle tableHandle = (HBaseTableHandle) handle;
+        if (tableHandle.getSampleType() != null || tableHandle.getJoin() != null) {
+            return Optional.empty();
+        }
+        return Optional.of(new SampleApplicationResult<>(tableHandle.withSample(sampleType, sampleRatio), false));
+    }
+
+    /**
+     * Dynamic-qualifier columns used only by element_at(column, 'key') read the qualifiers of those keys only.
+     * Projections are not changed, the column handles in assignments are replaced by the ones knowing the keys.
+     */
+    @Override
+    public Optional<ProjectionApplicationResult<ConnectorTableHandle>> applyProjection(
+            ConnectorSession session, ConnectorTableHandle handle,
+            List<ConnectorExpression> projections, Map<String, ColumnHandle> assignments) {
+        Map<String, Set<String>> mapKeys = HBaseExpressions.findMapKeys(projections, assignments);
+        boolean changed = false;
+        List<Assignment> newAssignments = new ArrayList<>();
+        for (Map.Entry<String, ColumnHandle> entry : assignments.entrySet()) {
+            HBaseColumnHandle column = (HBaseColumnHandle) entry.getValue();
+            Set<String> keys = mapKeys.get(entry.getKey());
+            if (keys != null && !column.getKeys().equals(ImmutableList.copyOf(keys))) {
+                column = column.withKeys(ImmutableList.copyOf(keys));
+                changed = true;
+            }
+            newAssignments.add(new Assignment(entry.getKey(), column, column.getColumnType()));
+        }
+        if (!changed) {
+            return Optional.empty();
+        }
+        return Optional.of(new ProjectionApplicationResult<>(handle, projections, newAssignments, false));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+/**
+ * Scan given by the hbase.system.scan table function. The filter is in HBase filter language,
+ * it's parsed by ParseFilter and sent to region servers as it is.
+ */
+public class HBaseRawScan {
+
+    private final String filter;
+    private final String startRow;
+    private final String stopRow;
+
+    /**
+     * @param filter   filter string like "PrefixFilter('2026') AND ValueFilter(=, 'binary:1')", null for no filter
+     * @param startRow start rowKey included, null for the start of table
+     * @param stopRow  stop rowKey excluded, null for the end of table
+     */
+    @JsonCreator
+    public HBaseRawScan(@JsonProperty("filter") String filter,
+                        @JsonProperty("startRow") String startRow,
+                        @JsonProperty("stopRow") String stopRow) {
+        this.filter = filter;
+        this.startRow = startRow;
+        this.stopRow = stopRow;
+    }
+
+    @JsonProperty
+    public String getFilter() {
+        return filter;
+    }
+
+    @JsonProperty
+    public String getStartRow() {
+        return startRow;
+    }
+
+    @JsonProperty
+    public String getStopRow() {
+        return stopRow;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HBaseRawScan that = (HBaseRawScan) o;
+        return Objects.equals(filter, that.filter) && Objects.equals(startRow, that.startRow)
+                && Objects.equals(stopRow, that.stopRow);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(filter, startRow, stopRow);
+    }
+
+    @Override
+    public String toString() {
+        return "HBaseRawScan{" +
+                "filter='" + filter + '\'' +
+                ", startRow='" + startRow + '\'' +
+                ", stopRow='" + stopRow + '\'' +
+                '}';
+    }
+}
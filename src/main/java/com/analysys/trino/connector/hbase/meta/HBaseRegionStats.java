@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Size of one region from the metrics reported by its region server
+ */
+public class HBaseRegionStats {
+
+    private final byte[] startKey;
+    private final byte[] endKey;
+    private final long storeFileSize;
+    private final long memStoreSize;
+    private final long readRequestCount;
+    private final long cellCount;
+
+    /**
+     * @param startKey         start key of region, empty for the first region
+     * @param endKey           end key of region, empty for the last region
+     * @param storeFileSize    bytes of HFiles
+     * @param memStoreSize     bytes in memStore
+     * @param readRequestCount read requests since the region is opened
+     * @param cellCount        cells of the last compaction, 0 if the region is never compacted
+     */
+    public HBaseRegionStats(byte[] startKey, byte[] endKey, long storeFileSize, long memStoreSize,
+                            long readRequestCount, long cellCount) {
+        this.startKey = startKey;
+        this.endKey = endKey;
+        this.storeFileSize = storeFileSize;
+        this.memStoreSize = memStoreSize;
+        this.readRequestCount = readRequestCount;
+        this.cellCount = cellCount;
+    }
+
+    public byte[] getStartKey() {
+        return startKey;
+    }
+
+    public byte[] getEndKey() {
+        return endKey;
+    }
+
+    public long getStoreFileSize() {
+        return storeFileSize;
+    }
+
+    public long getMemStoreSize() {
+        return memStoreSize;
+    }
+
+    public long getReadRequestCount() {
+        return readRequestCount;
+    }
+
+    public long getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * @return bytes to read when scanning the whole region
+     */
+    public long getSize() {
+        return storeFileSize + memStoreSize;
+    }
+
+    /**
+     * @param start start row included, empty for the start of table
+     * @param stop  stop row excluded, empty for the end of table
+     * @return whether a scan from start to stop reads this region
+     */
+    public boolean overlaps(byte[] start, byte[] stop) {
+        boolean beforeStop = stop.length == 0 || Bytes.compareTo(startKey, stop) < 0;
+        boolean afterStart = endKey.length == 0 || Bytes.compareTo(endKey, start) > 0;
+        return beforeStop && afterStart;
+    }
+
+    @Override
+    public String toString() {
+        return "HBaseRegionStats{" +
+                "startKey=" + Bytes.toStringBinary(startKey) +
+                ", endKey=" + Bytes.toStringBinary(endKey) +
+                ", size=" + getSize() +
+                ", readRequestCount=" + readRequestCount +
+                '}';
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.utils.Utils;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import io.trino.spi.TrinoException;
+import io.trino.spi.procedure.Procedure;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static io.trino.spi.StandardErrorCode.INVALID_PROCEDURE_ARGUMENT;
+import static io.trino.spi.StandardErrorCode.NOT_SUPPORTED;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Procedure registering the json of a table in the meta registry, the json file in metaDir is registered
+ * when the json is not given:
+ * <pre>
+ * call hbase.system.register_table('db', 't_event', '{"tableName": "t_event", ...}')
+ * </pre>
+ */
+public class HBaseRegisterTableProcedure implements Provider<Procedure> {
+
+    private static final String SCHEMA_NAME = "system";
+    private static final String PROCEDURE_NAME = "register_table";
+    private static final MethodHandle REGISTER_TABLE;
+
+    static {
+        try {
+            REGISTER_TABLE = MethodHandles.lookup().findVirtual(HBaseRegisterTableProcedure.class, "registerTable",
+                    MethodType.methodType(void.class, String.class, String.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private final HBaseClientManager clientManager;
+
+    @Inject
+    public HBaseRegisterTableProcedure(HBaseClientManager clientManager) {
+        this.clientManager = requireNonNull(clientManager, "clientManager is null");
+    }
+
+    @Override
+    public Procedure get() {
+        return new Procedure(SCHEMA_NAME, PROCEDURE_NAME, ImmutableList.of(
+                new Procedure.Argument("SCHEMA_NAME", VARCHAR),
+                new Procedure.Argument("TABLE_NAME", VARCHAR),
+                new Procedure.Argument("META", VARCHAR, false, null)),
+                REGISTER_TABLE.bindTo(this));
+    }
+
+    public void registerTable(String schemaName, String tableName, String meta) {
+        HBaseMetaRegistry registry = clientManager.getMetaRegistry().orElseThrow(() -> new TrinoException(NOT_SUPPORTED,
+                "Tables can be registered only when meta-source is " + HBaseConfig.META_SOURCE_HBASE));
+        if (schemaName == null || tableName == null) {
+            throw new TrinoException(INVALID_PROCEDURE_ARGUMENT, "schema_name and table_name can't be null");
+        }
+        String json = meta != null ? meta
+                : Utils.readTableJson(schemaName, tableName, clientManager.getConfig().getMetaDir());
+        TableMetaInfo tableMetaInfo = json.isEmpty() ? null : Utils.parseTableMetaInfo(schemaName, tableName, json);
+        if (tableMetaInfo == null || tableMetaInfo.getColumns() == null
+                || tableMetaInfo.getColumns().stream().noneMatch(ColumnMetaInfo::isRowKey)) {
+            throw new TrinoException(INVALID_PROCEDURE_ARGUMENT, String.format(
+                    "Meta of table %s.%s is not a valid table json with a ROW_KEY column", schemaName, tableName));
+        }
+        try {
+            registry.register(schemaName, tableName, json);
+        } catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR,
+                    "Register meta of table " + schemaName + "." + tableName + " failed", e);
+        }
+    }
+}
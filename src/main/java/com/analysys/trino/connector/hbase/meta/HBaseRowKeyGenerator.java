@@ -0,0 +1,265 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.analysys.trino.connector.hbase.utils.Constant;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.trino.spi.Page;
+import io.trino.spi.TrinoException;
+import io.trino.spi.block.Block;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.IntegerType;
+import io.trino.spi.type.SmallintType;
+import io.trino.spi.type.TimestampType;
+import io.trino.spi.type.TinyintType;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.analysys.trino.connector.hbase.utils.Utils.isEmpty;
+import static com.google.common.base.Preconditions.checkState;
+import static io.trino.spi.StandardErrorCode.CONSTRAINT_VIOLATION;
+
+/**
+ * Make rowKey of the rows written by INSERT by the rules in table json:
+ * rowKeyGenerated joins the fixed-width columns of rowKeyFormat, rowKeyReversedFields are written as
+ * Long.MAX_VALUE - value, and rowKeySaltBuckets puts a salt made from the hash of the key before it.
+ * Page sinks and the bucket function of INSERT make the same rowKey of a row,
+ * and the split manager and fuzzy filters of queries encode condition values the same way.
+ * Queries see the rowKeys of salted tables without salt, cursors remove it when reading and add it to the rowKeys got.
+ */
+public class HBaseRowKeyGenerator {
+
+    private static final int REVERSED_WIDTH = String.valueOf(Long.MAX_VALUE).length();
+
+    private final int saltBuckets;
+    private final boolean generated;
+    private final String separator;
+    private final List<String> inputColumns;
+    private final List<Integer> widths;
+    private final boolean[] reversed;
+
+    private HBaseRowKeyGenerator(TableMetaInfo tableMetaInfo) {
+        this.saltBuckets = tableMetaInfo.getRowKeySaltBuckets();
+        this.generated = tableMetaInfo.isRowKeyGenerated();
+        this.separator = tableMetaInfo.getRowKeySeparator();
+        checkState(saltBuckets <= Character.MAX_RADIX, "rowKeySaltBuckets of %s.%s is more than %s",
+                tableMetaInfo.getSchemaName(), tableMetaInfo.getTableName(), Character.MAX_RADIX);
+        if (generated) {
+            this.inputColumns = ImmutableList.copyOf(tableMetaInfo.getRowKeyFields());
+            this.widths = tableMetaInfo.getRowKeyFieldWidths();
+            checkState(!inputColumns.isEmpty() && widths.size() == inputColumns.size(),
+                    "Every column of rowKeyFormat of %s.%s must declare its width to generate rowKey",
+                    tableMetaInfo.getSchemaName(), tableMetaInfo.getTableName());
+        } else {
+            this.inputColumns = ImmutableList.of(tableMetaInfo.getRowKeyColName());
+            this.widths = ImmutableList.of();
+        }
+        Set<String> reversedFields = isEmpty(tableMetaInfo.getRowKeyReversedFields()) ? ImmutableSet.of()
+                : Arrays.stream(tableMetaInfo.getRowKeyReversedFields().split(Constant.COMMA)).map(String::trim)
+                .collect(ImmutableSet.toImmutableSet());
+        this.reversed = new boolean[inputColumns.size()];
+        for (int i = 0; i < inputColumns.size(); i++) {
+            reversed[i] = generated && reversedFields.contains(inputColumns.get(i));
+            checkState(!reversed[i] || widths.get(i) == REVERSED_WIDTH,
+                    "Reversed column %s of rowKeyFormat must have width %s", inputColumns.get(i), REVERSED_WIDTH);
+        }
+    }
+
+    /**
+     * @param tableMetaInfo table meta
+     * @return generator, or empty if rowKey is written as given by INSERT
+     */
+    public static Optional<HBaseRowKeyGenerator> create(TableMetaInfo tableMetaInfo) {
+        if (tableMetaInfo == null || (tableMetaInfo.getRowKeySaltBuckets() <= 0 && !tableMetaInfo.isRowKeyGenerated())) {
+            return Optional.empty();
+        }
+        return Optional.of(new HBaseRowKeyGenerator(tableMetaInfo));
+    }
+
+    /**
+     * @return columns rowKey is made of, the columns of rowKeyFormat or the rowKey column
+     */
+    public List<String> getInputColumns() {
+        return inputColumns;
+    }
+
+    /**
+     * @param page     page
+     * @param position position
+     * @param channels channel of each input column in page
+     * @param types    type of each input column
+     * @return rowKey
+     */
+    public byte[] generate(Page page, int position, int[] channels, List<Type> types) {
+        String rowKey;
+        if (generated) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < inputColumns.size(); i++) {
+                if (i > 0) {
+                    builder.append(separator);
+                }
+                builder.append(getField(i, types.get(i), page.getBlock(channels[i]), position));
+            }
+            rowKey = builder.toString();
+        } else {
+            Block block = page.getBlock(channels[0]);
+            if (block.isNull(position)) {
+                throw new TrinoException(CONSTRAINT_VIOLATION, "rowKey column " + inputColumns.get(0) + " is null");
+            }
+            rowKey = types.get(0).getSlice(block, position).toStringUtf8();
+        }
+        return Bytes.toBytes(addSalt(rowKey));
+    }
+
+    /**
+     * @return whether rowKey starts with a one-char salt and the separator
+     */
+    public boolean isSalted() {
+        return saltBuckets > 0;
+    }
+
+    /**
+     * @return whether rowKey is made of the columns of rowKeyFormat
+     */
+    public boolean isGenerated() {
+        return generated;
+    }
+
+    public String getSeparator() {
+        return separator;
+    }
+
+    /**
+     * @param rowKey rowKey without salt
+     * @return rowKey with its salt, or rowKey itself if the table is not salted
+     */
+    public String addSalt(String rowKey) {
+        return saltBuckets > 0 ? getSalt(rowKey, saltBuckets) + separator + rowKey : rowKey;
+    }
+
+    /**
+     * Queries see rowKeys of salted tables without salt, as they are given by INSERT
+     *
+     * @param rowKey rowKey read from HBase
+     * @return rowKey without its salt, or rowKey itself if the table is not salted or rowKey has no salt
+     */
+    public String removeSalt(String rowKey) {
+        if (saltBuckets <= 0 || rowKey.length() <= 1 || !rowKey.startsWith(separator, 1)) {
+            return rowKey;
+        }
+        return rowKey.substring(1 + separator.length());
+    }
+
+    /**
+     * @param prefix prefix of rowKeys without salt
+     * @return prefix with every salt, as the salt of a prefix can't be known
+     */
+    public List<String> addAllSalts(String prefix) {
+        if (saltBuckets <= 0) {
+            return ImmutableList.of(prefix);
+        }
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < saltBuckets; i++) {
+            prefixes.add(Character.forDigit(i, Character.MAX_RADIX) + separator + prefix);
+        }
+        return prefixes;
+    }
+
+    /**
+     * Encode the value of an EQ condition on a column of rowKeyFormat as it is in the generated rowKey,
+     * padded and reversed like {@link #generate}.
+     *
+     * @param condition condition
+     * @return the column in rowKey, or empty if rowKey is not generated, or no rowKey can have the value
+     */
+    public Optional<String> encodeField(ConditionInfo condition) {
+        int field = inputColumns.indexOf(condition.getColName());
+        if (!generated || field < 0) {
+            return Optional.empty();
+        }
+        Type type = condition.getType();
+        String value;
+        if (type instanceof VarcharType && !reversed[field]) {
+            value = Bytes.toString(condition.valueToBytes());
+        } else if (isInteger(type)) {
+            long number = toKeyNumber(field, type, condition.valueToLong());
+            if (number < 0) {
+                return Optional.empty();
+            }
+            value = String.format("%0" + widths.get(field) + "d", number);
+        } else {
+            return Optional.empty();
+        }
+        return Bytes.toBytes(value).length == widths.get(field) ? Optional.of(value) : Optional.empty();
+    }
+
+    private String getField(int field, Type type, Block block, int position) {
+        String column = inputColumns.get(field);
+        if (block.isNull(position)) {
+            throw new TrinoException(CONSTRAINT_VIOLATION, "Column " + column + " of rowKey is null");
+        }
+        int width = widths.get(field);
+        String value;
+        if (type instanceof VarcharType && !reversed[field]) {
+            value = type.getSlice(block, position).toStringUtf8();
+        } else if (isInteger(type)) {
+            long number = toKeyNumber(field, type, type.getLong(block, position));
+            if (number < 0) {
+                throw new TrinoException(CONSTRAINT_VIOLATION,
+                        "Column " + column + " of rowKey is negative: " + number);
+            }
+            value = String.format("%0" + width + "d", number);
+        } else {
+            throw new TrinoException(CONSTRAINT_VIOLATION, "Column " + column + " of rowKey has unsupported type "
+                    + type + (reversed[field] ? " to be reversed" : ""));
+        }
+        if (Bytes.toBytes(value).length != width) {
+            throw new TrinoException(CONSTRAINT_VIOLATION,
+                    "Column " + column + " of rowKey must have width " + width + ": " + value);
+        }
+        return value;
+    }
+
+    private long toKeyNumber(int field, Type type, long number) {
+        if (type instanceof TimestampType) {
+            // epoch micros
+            number = Math.floorDiv(number, 1000);
+        }
+        return reversed[field] ? Long.MAX_VALUE - number : number;
+    }
+
+    private static boolean isInteger(Type type) {
+        return type instanceof BigintType || type instanceof IntegerType || type instanceof SmallintType
+                || type instanceof TinyintType || (type instanceof TimestampType && ((TimestampType) type).isShort());
+    }
+
+    /**
+     * @param rowKey      rowKey without salt
+     * @param saltBuckets salt buckets
+     * @return salt, one char of 0~9 and a~z
+     */
+    static char getSalt(String rowKey, int saltBuckets) {
+        int hash = Bytes.hashCode(Bytes.toBytes(rowKey)) & Integer.MAX_VALUE;
+        return Character.forDigit(hash % saltBuckets, Character.MAX_RADIX);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import io.airlift.slice.Slice;
+import io.trino.spi.QueryId;
+import io.trino.spi.TrinoException;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorAccessControl;
+import io.trino.spi.connector.ConnectorSecurityContext;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.ConnectorTransactionHandle;
+import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.connector.TableNotFoundException;
+import io.trino.spi.function.table.AbstractConnectorTableFunction;
+import io.trino.spi.function.table.Argument;
+import io.trino.spi.function.table.Descriptor;
+import io.trino.spi.function.table.ScalarArgument;
+import io.trino.spi.function.table.ScalarArgumentSpecification;
+import io.trino.spi.function.table.TableFunctionAnalysis;
+import org.apache.hadoop.hbase.filter.ParseFilter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+import static io.trino.spi.function.table.ReturnTypeSpecification.GenericTable.GENERIC_TABLE;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Table function scanning a table with a filter in HBase filter language, for the filters sql can't express:
+ * <pre>
+ * select * from table(hbase.system.scan(
+ *     table => 'db.t_event', filter => 'PrefixFilter(''2026'') AND SingleColumnValueFilter(''f'', ''c'', =, ''binary:x'')',
+ *     start_row => '2026', stop_row => '2027', columns => 'rowkey,c'))
+ * </pre>
+ */
+public class HBaseScanFunction extends AbstractConnectorTableFunction {
+
+    private static final String SCHEMA_NAME = "system";
+    private static final String FUNCTION_NAME = "scan";
+    private static final String TABLE_ARGUMENT = "TABLE";
+    private static final String FILTER_ARGUMENT = "FILTER";
+    private static final String START_ROW_ARGUMENT = "START_ROW";
+    private static final String STOP_ROW_ARGUMENT = "STOP_ROW";
+    private static final String COLUMNS_ARGUMENT = "COLUMNS";
+
+    private final HBaseMetadata metadata;
+
+    @Inject
+    public HBaseScanFunction(HBaseMetadata metadata) {
+        super(SCHEMA_NAME, FUNCTION_NAME, ImmutableList.of(
+                ScalarArgumentSpecification.builder().name(TABLE_ARGUMENT).type(VARCHAR).build(),
+                ScalarArgumentSpecification.builder().name(FILTER_ARGUMENT).type(VARCHAR).defaultValue(null).build(),
+                ScalarArgumentSpecification.builder().name(START_ROW_ARGUMENT).type(VARCHAR).defaultValue(null).build(),
+                ScalarArgumentSpecification.builder().name(STOP_ROW_ARGUMENT).type(VARCHAR).defaultValue(null).build(),
+                ScalarArgumentSpecification.builder().name(COLUMNS_ARGUMENT).type(VARCHAR).defaultValue(null).build()),
+                GENERIC_TABLE);
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    @Override
+    public TableFunctionAnalysis analyze(ConnectorSession session, ConnectorTransactionHandle transaction,
+                                         Map<String, Argument> arguments, ConnectorAccessControl accessControl) {
+        SchemaTableName schemaTableName = toSchemaTableName(getArgument(arguments, TABLE_ARGUMENT));
+        HBaseTableHandle tableHandle = (HBaseTableHandle) metadata.getTableHandle(session, schemaTableName);
+        if (tableHandle == null) {
+            throw new TableNotFoundException(schemaTableName);
+        }
+
+        String filter = getArgument(arguments, FILTER_ARGUMENT);
+        if (filter != null) {
+            // Fail at analysis rather than on workers
+            try {
+                new ParseFilter().parseFilterString(filter);
+            } catch (Exception e) {
+                throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "Invalid HBase filter: " + filter, e);
+            }
+        }
+
+        Map<String, ColumnHandle> columnHandles = metadata.getColumnHandles(session, tableHandle);
+        String columnNames = getArgument(arguments, COLUMNS_ARGUMENT);
+        List<HBaseColumnHandle> columns;
+        if (columnNames == null) {
+            columns = columnHandles.values().stream().map(ch -> (HBaseColumnHandle) ch).collect(Collectors.toList());
+        } else {
+            columns = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(columnNames).stream()
+                    .map(name -> {
+                        ColumnHandle column = columnHandles.get(name);
+                        if (column == null) {
+                            throw new TrinoException(INVALID_FUNCTION_ARGUMENT,
+                                    "Column " + name + " doesn't exist in table " + schemaTableName);
+                        }
+                        return (HBaseColumnHandle) column;
+                    })
+                    .collect(Collectors.toList());
+        }
+        if (columns.isEmpty()) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "No columns to scan");
+        }
+        // The engine checks the access of tables in the query only, not the one scanned by the function
+        accessControl.checkCanSelectFromColumns(
+                new ConnectorSecurityContext(transaction, session.getIdentity(), QueryId.valueOf(session.getQueryId())),
+                schemaTableName,
+                columns.stream().map(HBaseColumnHandle::getColumnName).collect(Collectors.toSet()));
+
+        HBaseRawScan rawScan = new HBaseRawScan(filter, getArgument(arguments, START_ROW_ARGUMENT),
+                getArgument(arguments, STOP_ROW_ARGUMENT));
+        Descriptor returnedType = new Descriptor(columns.stream()
+                .map(column -> new Descriptor.Field(column.getColumnName(), Optional.of(column.getColumnType())))
+                .collect(Collectors.toList()));
+        return TableFunctionAnalysis.builder()
+                .returnedType(returnedType)
+                .handle(new HBaseScanFunctionHandle(tableHandle.withRawScan(rawScan), columns))
+                .build();
+    }
+
+    /**
+     * @param table 'schema.table' or 'schema:table', tables in default namespace can be given without schema
+     */
+    private static SchemaTableName toSchemaTableName(String table) {
+        if (table == null || table.isEmpty()) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "Table name is required");
+        }
+        List<String> parts = Splitter.onPattern("[.:]").splitToList(table);
+        if (parts.size() == 1) {
+            return new SchemaTableName("default", parts.get(0));
+        } else if (parts.size() == 2) {
+            return new SchemaTableName(parts.get(0), parts.get(1));
+        }
+        throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "Invalid table name: " + table);
+    }
+
+    private static String getArgument(Map<String, Argument> arguments, String name) {
+        Object value = ((ScalarArgument) arguments.get(name)).getValue();
+        return value == null ? null : ((Slice) value).toStringUtf8();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.function.table.ConnectorTableFunctionHandle;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Handle of hbase.system.scan, it's replaced by the table handle in HBaseMetadata.applyTableFunction
+ */
+public class HBaseScanFunctionHandle implements ConnectorTableFunctionHandle {
+
+    private final HBaseTableHandle tableHandle;
+    private final List<HBaseColumnHandle> columns;
+
+    @JsonCreator
+    public HBaseScanFunctionHandle(@JsonProperty("tableHandle") HBaseTableHandle tableHandle,
+                                   @JsonProperty("columns") List<HBaseColumnHandle> columns) {
+        this.tableHandle = requireNonNull(tableHandle, "tableHandle is null");
+        this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+    }
+
+    @JsonProperty
+    public HBaseTableHandle getTableHandle() {
+        return tableHandle;
+    }
+
+    @JsonProperty
+    public List<HBaseColumnHandle> getColumns() {
+        return columns;
+    }
+}
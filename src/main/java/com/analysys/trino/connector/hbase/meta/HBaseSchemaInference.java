@@ -0,0 +1,212 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.analysys.trino.connector.hbase.utils.Constant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.airlift.log.Logger;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Infer the table json of a table without one, by sampling the first rows of a few regions.
+ * The qualifiers found are the columns, their types are guessed from the encodings of values:
+ * 4 bytes of Bytes.toBytes(int), 8 bytes of Bytes.toBytes(long) or Bytes.toBytes(double), or UTF-8 text.
+ * Numbers written as text are varchar, as they are read as text.
+ */
+public class HBaseSchemaInference {
+
+    private static final Logger log = Logger.get(HBaseSchemaInference.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static final String ROW_KEY_COLUMN = "rowkey";
+    static final String INT = "int";
+    static final String BIGINT = "bigint";
+    static final String DOUBLE = "double";
+    static final String STRING = "string";
+
+    private HBaseSchemaInference() {
+    }
+
+    /**
+     * @param connection    connection
+     * @param schemaName    schema name
+     * @param tableName     table name
+     * @param regions       regions sampled, spread over the table
+     * @param rowsPerRegion first rows of each region sampled
+     * @return table json inferred
+     */
+    public static String infer(Connection connection, String schemaName, String tableName, int regions,
+                               int rowsPerRegion) throws IOException {
+        long startTime = System.currentTimeMillis();
+        TableName hTableName = TableName.valueOf(schemaName, tableName);
+        // family -> qualifier -> values
+        Map<String, Map<String, List<byte[]>>> samples = new TreeMap<>();
+        int columns = 0;
+        try (RegionLocator locator = connection.getRegionLocator(hTableName);
+             Table table = connection.getTable(hTableName)) {
+            byte[][] startKeys = locator.getStartKeys();
+            int sampled = Math.max(1, Math.min(regions, startKeys.length));
+            for (int i = 0; i < sampled; i++) {
+                Scan scan = new Scan().withStartRow(startKeys[i * startKeys.length / sampled])
+                        .setLimit(rowsPerRegion).setCaching(Math.min(rowsPerRegion, 1000));
+                try (ResultScanner scanner = table.getScanner(scan)) {
+                    for (Result result : scanner) {
+                        for (Cell cell : result.rawCells()) {
+                            Map<String, List<byte[]>> qualifiers = samples.computeIfAbsent(
+                                    Bytes.toString(CellUtil.cloneFamily(cell)), family -> new TreeMap<>());
+                            String qualifier = Bytes.toString(CellUtil.cloneQualifier(cell));
+                            List<byte[]> values = qualifiers.get(qualifier);
+                            if (values == null) {
+                                if (columns >= Constant.INFER_MAX_COLUMNS) {
+                                    continue;
+                                }
+                                columns++;
+                                values = new ArrayList<>();
+                                qualifiers.put(qualifier, values);
+                            }
+                            if (values.size() < Constant.INFER_MAX_VALUES_PER_QUALIFIER) {
+                                values.add(CellUtil.cloneValue(cell));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        String json = toTableJson(schemaName, tableName, samples);
+        log.info(String.format("Inferred meta of TABLE %s.%s from %d columns sampled, used %d ms: %s",
+                schemaName, tableName, columns, System.currentTimeMillis() - startTime, json));
+        return json;
+    }
+
+    /**
+     * @param samples family -> qualifier -> values
+     * @return table json with the rowKey column and a column for each qualifier
+     */
+    static String toTableJson(String schemaName, String tableName, Map<String, Map<String, List<byte[]>>> samples) {
+        ObjectNode table = MAPPER.createObjectNode()
+                .put("tableName", tableName)
+                .put("schemaName", schemaName)
+                .put("describe", "Inferred by sampling rows");
+        ArrayNode columns = table.putArray(Constant.JSON_TABLEMETA_COLUMNES);
+        columns.addObject()
+                .put(Constant.JSON_TABLEMETA_FAMILY, "")
+                .put(Constant.JSON_TABLEMETA_COLUMNNAME, ROW_KEY_COLUMN)
+                .put(Constant.JSON_TABLEMETA_TYPE, STRING)
+                .put(Constant.JSON_TABLEMETA_ISROWKEY, true);
+        Map<String, String> columnFamilies = new LinkedHashMap<>();
+        samples.forEach((family, qualifiers) -> qualifiers.forEach((qualifier, values) -> {
+            // presto column names are lower case, and a qualifier is a column of only one family
+            if (!qualifier.equals(qualifier.toLowerCase()) || qualifier.equals(ROW_KEY_COLUMN)
+                    || columnFamilies.containsKey(qualifier)) {
+                log.warn("Qualifier " + family + ":" + qualifier + " of " + schemaName + "." + tableName
+                        + " can't be a column");
+                return;
+            }
+            columnFamilies.put(qualifier, family);
+            columns.addObject()
+                    .put(Constant.JSON_TABLEMETA_FAMILY, family)
+                    .put(Constant.JSON_TABLEMETA_COLUMNNAME, qualifier)
+                    .put(Constant.JSON_TABLEMETA_TYPE, inferType(values))
+                    .put(Constant.JSON_TABLEMETA_ISROWKEY, false);
+        }));
+        return table.toString();
+    }
+
+    /**
+     * @param values values of a qualifier
+     * @return type of the table json for the values
+     */
+    static String inferType(List<byte[]> values) {
+        boolean allText = true;
+        boolean allInts = true;
+        boolean allLongs = true;
+        boolean allDoubles = true;
+        for (byte[] value : values) {
+            if (value.length == 0) {
+                continue;
+            }
+            allText &= isText(value);
+            allInts &= value.length == Bytes.SIZEOF_INT;
+            allLongs &= value.length == Bytes.SIZEOF_LONG && isLikelyLong(Bytes.toLong(value));
+            allDoubles &= value.length == Bytes.SIZEOF_DOUBLE && isLikelyDouble(Bytes.toLong(value));
+        }
+        if (allText) {
+            return STRING;
+        } else if (allInts) {
+            return INT;
+        } else if (allLongs) {
+            return BIGINT;
+        } else if (allDoubles) {
+            return DOUBLE;
+        }
+        return STRING;
+    }
+
+    /**
+     * Longs like ids, counts and timestamps are far smaller than 2^52, their high 12 bits are all 0 or 1
+     */
+    private static boolean isLikelyLong(long value) {
+        long high = value >> 52;
+        return high == 0 || high == -1;
+    }
+
+    /**
+     * Doubles like amounts and ratios are between 2^-64 and 2^64
+     */
+    private static boolean isLikelyDouble(long bits) {
+        if ((bits & Long.MAX_VALUE) == 0) {
+            return true;
+        }
+        int exponent = (int) ((bits >>> 52) & 0x7FF) - 1023;
+        return exponent > -64 && exponent < 64;
+    }
+
+    /**
+     * @return whether the value is UTF-8 text without control characters
+     */
+    private static boolean isText(byte[] value) {
+        String text;
+        try {
+            text = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(value)).toString();
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+        return text.chars().noneMatch(c -> c < 0x20 && c != '\t' && c != '\n' && c != '\r' || c == 0x7F);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.TrinoException;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.session.PropertyMetadata;
+import org.apache.hadoop.hbase.client.Durability;
+
+import java.util.List;
+
+import static io.trino.spi.StandardErrorCode.INVALID_SESSION_PROPERTY;
+import static io.trino.spi.session.PropertyMetadata.booleanProperty;
+import static io.trino.spi.session.PropertyMetadata.enumProperty;
+import static io.trino.spi.session.PropertyMetadata.integerProperty;
+import static io.trino.spi.session.PropertyMetadata.longProperty;
+
+/**
+ * HBase session properties, set by: SET SESSION hbase.property_name = value
+ */
+public class HBaseSessionProperties {
+
+    private static final String MAX_VERSIONS = "max_versions";
+    private static final String WRITE_BUFFER_SIZE = "write_buffer_size";
+    private static final String WRITE_DURABILITY = "write_durability";
+    private static final String BULK_LOAD = "bulk_load";
+    private static final String BULK_LOAD_BUFFER_SIZE = "bulk_load_buffer_size";
+    private static final String CELL_TIME_RANGE_PUSHDOWN = "cell_time_range_pushdown";
+
+    private final List<PropertyMetadata<?>> sessionProperties;
+
+    public HBaseSessionProperties() {
+        sessionProperties = ImmutableList.of(
+                integerProperty(
+                        MAX_VERSIONS,
+                        "Max versions to read of multi-version columns, 0 means using maxVersions in table json",
+                        0,
+                        false),
+                longProperty(
+                        WRITE_BUFFER_SIZE,
+                        "Bytes of puts buffered by each writer of INSERT, writing is blocked while twice of it is not sent",
+                        8L * 1024 * 1024,
+                        value -> checkPositive(WRITE_BUFFER_SIZE, value),
+                        false),
+                enumProperty(
+                        WRITE_DURABILITY,
+                        "Durability of puts written by INSERT: USE_DEFAULT, SKIP_WAL, ASYNC_WAL, SYNC_WAL or FSYNC_WAL",
+                        Durability.class,
+                        Durability.USE_DEFAULT,
+                        false),
+                booleanProperty(
+                        BULK_LOAD,
+                        "INSERT by writing HFiles to bulk-load-staging-dir and bulk loading them when the query finishes",
+                        false,
+                        false),
+                longProperty(
+                        BULK_LOAD_BUFFER_SIZE,
+                        "Bytes of cells sorted in memory by each writer of bulk load before writing them to HFiles",
+                        128L * 1024 * 1024,
+                        value -> checkPositive(BULK_LOAD_BUFFER_SIZE, value),
+                        false),
+                booleanProperty(
+                        CELL_TIME_RANGE_PUSHDOWN,
+                        "Read only the cells written in the range of the conditions on _timestamp, older cells of a row are not read",
+                        false,
+                        false));
+    }
+
+    private static void checkPositive(String property, long value) {
+        if (value <= 0) {
+            throw new TrinoException(INVALID_SESSION_PROPERTY, property + " must be positive: " + value);
+        }
+    }
+
+    public List<PropertyMetadata<?>> getSessionProperties() {
+        return sessionProperties;
+    }
+
+    public static int getMaxVersions(ConnectorSession session) {
+        return session.getProperty(MAX_VERSIONS, Integer.class);
+    }
+
+    public static long getWriteBufferSize(ConnectorSession session) {
+        return session.getProperty(WRITE_BUFFER_SIZE, Long.class);
+    }
+
+    public static Durability getWriteDurability(ConnectorSession session) {
+        return session.getProperty(WRITE_DURABILITY, Durability.class);
+    }
+
+    public static boolean isBulkLoad(ConnectorSession session) {
+        return session.getProperty(BULK_LOAD, Boolean.class);
+    }
+
+    public static long getBulkLoadBufferSize(ConnectorSession session) {
+        return session.getProperty(BULK_LOAD_BUFFER_SIZE, Long.class);
+    }
+
+    public static boolean isCellTimeRangePushdown(ConnectorSession session) {
+        return session.getProperty(CELL_TIME_RANGE_PUSHDOWN, Boolean.class);
+    }
+}
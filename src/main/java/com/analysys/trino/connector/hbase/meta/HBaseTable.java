@@ -13,7 +13,6 @@
  */
 package com.analysys.trino.connector.hbase.meta;
 
-import com.analysys.trino.connector.hbase.utils.Utils;
 import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.trino.spi.connector.ColumnMetadata;
@@ -35,19 +34,14 @@ public class HBaseTable {
     private final TableDescriptor hTableDescriptor;
     private final List<ColumnMetadata> columnsMetadata;
 
-    public HBaseTable(String schemaName, TableDescriptor tabDesc, HBaseConfig config) {
+    /**
+     * @param tabDesc   descriptor of HBase table
+     * @param tableMeta columns of the table json
+     */
+    public HBaseTable(TableDescriptor tabDesc, ImmutableList<ColumnMetadata> tableMeta) {
         this.hTableDescriptor = Objects.requireNonNull(tabDesc, "tabDesc is null");
-        Objects.requireNonNull(schemaName, "schemaName is null");
-        ImmutableList<ColumnMetadata> tableMeta = null;
         try {
             String tableNameAsString = tabDesc.getTableName().getNameAsString();
-            String tableName = tableNameAsString != null && tableNameAsString.contains(":") ?
-                    tableNameAsString.split(":")[1] : tableNameAsString;
-
-            tableMeta = Utils.getColumnMetaFromJson(schemaName, tableName, config.getMetaDir());
-
-
-
             if (tableMeta == null || tableMeta.size() <= 0) {
                 logger.error("OOPS! Table meta info cannot be NULL, table name=" + tableNameAsString);
                 throw new Exception("Cannot find meta info of table " + tableNameAsString + ".");
@@ -66,4 +60,18 @@ public class HBaseTable {
         return this.columnsMetadata;
     }
 
+    public TableDescriptor getTableDescriptor() {
+        return this.hTableDescriptor;
+    }
+
+    /**
+     * The json of table is cached until it's modified, so a modified json is parsed to another list of columns.
+     *
+     * @param tableMeta columns of the table json
+     * @return whether this table is built from these columns
+     */
+    public boolean isBuiltFrom(List<ColumnMetadata> tableMeta) {
+        return this.columnsMetadata == tableMeta;
+    }
+
 }
@@ -13,13 +13,19 @@
  */
 package com.analysys.trino.connector.hbase.meta;
 
+import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.analysys.trino.connector.hbase.schedule.HBaseAccessPlan;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.spi.connector.SampleType;
 import io.trino.spi.connector.SchemaTableName;
 import io.trino.spi.predicate.TupleDomain;
 
+import java.util.List;
 import java.util.Objects;
 
 import static java.util.Objects.requireNonNull;
@@ -34,13 +40,74 @@ public class HBaseTableHandle implements ConnectorTableHandle {
 
     private final SchemaTableName schemaTableName;
     private final TupleDomain<ColumnHandle> constraint;
+    /**
+     * Conditions from the sql expressions that TupleDomain cannot hold, such as LIKE
+     */
+    private final List<ConditionInfo> expressionConditions;
+    /**
+     * TABLESAMPLE pushed down, null if the table is not sampled
+     */
+    private final SampleType sampleType;
+    private final double sampleRatio;
+    /**
+     * Table joined by rowKey, null if there is no join pushed down
+     */
+    private final HBaseJoin join;
+    /**
+     * Filter and rowKey range of the hbase.system.scan table function, null for normal queries
+     */
+    private final HBaseRawScan rawScan;
+    /**
+     * How to read the table, chosen when the filter is pushed down. Null if there is no filter,
+     * then it's chosen by the split manager.
+     */
+    private final HBaseAccessPlan accessPlan;
+
+    public HBaseTableHandle(SchemaTableName schemaTableName, TupleDomain<ColumnHandle> constraint) {
+        this(schemaTableName, constraint, ImmutableList.of());
+    }
+
+    public HBaseTableHandle(SchemaTableName schemaTableName, TupleDomain<ColumnHandle> constraint,
+                            List<ConditionInfo> expressionConditions) {
+        this(schemaTableName, constraint, expressionConditions, null, 1, null, null, null);
+    }
 
     @JsonCreator
     public HBaseTableHandle(
             @JsonProperty("schemaTableName") SchemaTableName schemaTableName,
-            @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint) {
+            @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint,
+            @JsonProperty("expressionConditions") List<ConditionInfo> expressionConditions,
+            @JsonProperty("sampleType") SampleType sampleType,
+            @JsonProperty("sampleRatio") double sampleRatio,
+            @JsonProperty("join") HBaseJoin join,
+            @JsonProperty("rawScan") HBaseRawScan rawScan,
+            @JsonProperty("accessPlan") HBaseAccessPlan accessPlan) {
         this.schemaTableName = requireNonNull(schemaTableName, "schemaTableName is null");
         this.constraint = requireNonNull(constraint, "constraint is null");
+        this.expressionConditions = expressionConditions == null
+                ? ImmutableList.of() : ImmutableList.copyOf(expressionConditions);
+        this.sampleType = sampleType;
+        this.sampleRatio = sampleRatio;
+        this.join = join;
+        this.rawScan = rawScan;
+        this.accessPlan = accessPlan;
+    }
+
+    /**
+     * @return a copy of this handle with new constraint, the sample is kept
+     */
+    public HBaseTableHandle withConstraint(TupleDomain<ColumnHandle> constraint,
+                                           List<ConditionInfo> expressionConditions) {
+        return new HBaseTableHandle(schemaTableName, constraint, expressionConditions, sampleType, sampleRatio, join,
+                rawScan, accessPlan);
+    }
+
+    /**
+     * @return a copy of this handle reading only a sample of the table
+     */
+    public HBaseTableHandle withSample(SampleType sampleType, double sampleRatio) {
+        return new HBaseTableHandle(schemaTableName, constraint, expressionConditions, sampleType, sampleRatio, join,
+                rawScan, accessPlan);
     }
 
     @JsonProperty
@@ -53,6 +120,76 @@ public class HBaseTableHandle implements ConnectorTableHandle {
         return constraint;
     }
 
+    @JsonProperty
+    public List<ConditionInfo> getExpressionConditions() {
+        return expressionConditions;
+    }
+
+    /**
+     * @return a copy of this handle joining another table by rowKey
+     */
+    public HBaseTableHandle withJoin(HBaseJoin join) {
+        return new HBaseTableHandle(schemaTableName, constraint, expressionConditions, sampleType, sampleRatio, join,
+                rawScan, accessPlan);
+    }
+
+    @JsonProperty
+    public HBaseJoin getJoin() {
+        return join;
+    }
+
+    /**
+     * @return a copy of this handle scanning with the filter and rowKey range given by user
+     */
+    public HBaseTableHandle withRawScan(HBaseRawScan rawScan) {
+        return new HBaseTableHandle(schemaTableName, constraint, expressionConditions, sampleType, sampleRatio, join,
+                rawScan, accessPlan);
+    }
+
+    @JsonProperty
+    public HBaseRawScan getRawScan() {
+        return rawScan;
+    }
+
+    /**
+     * @return a copy of this handle read in the way planned
+     */
+    public HBaseTableHandle withAccessPlan(HBaseAccessPlan accessPlan) {
+        return new HBaseTableHandle(schemaTableName, constraint, expressionConditions, sampleType, sampleRatio, join,
+                rawScan, accessPlan);
+    }
+
+    @JsonProperty
+    public HBaseAccessPlan getAccessPlan() {
+        return accessPlan;
+    }
+
+    @JsonProperty
+    public SampleType getSampleType() {
+        return sampleType;
+    }
+
+    @JsonProperty
+    public double getSampleRatio() {
+        return sampleRatio;
+    }
+
+    /**
+     * @return ratio of rows read by region servers, 1 if rows are not sampled one by one
+     */
+    @JsonIgnore
+    public double getRowSampleRatio() {
+        return sampleType == SampleType.BERNOULLI ? sampleRatio : 1;
+    }
+
+    /**
+     * @return ratio of splits to read, 1 if splits are not sampled
+     */
+    @JsonIgnore
+    public double getSplitSampleRatio() {
+        return sampleType == SampleType.SYSTEM ? sampleRatio : 1;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -62,18 +199,31 @@ public class HBaseTableHandle implements ConnectorTableHandle {
             return false;
         }
         HBaseTableHandle that = (HBaseTableHandle) o;
-        return Objects.equals(schemaTableName, that.schemaTableName);
+        return Objects.equals(schemaTableName, that.schemaTableName)
+                && Objects.equals(constraint, that.constraint)
+                && Objects.equals(expressionConditions, that.expressionConditions)
+                && sampleType == that.sampleType
+                && Double.compare(sampleRatio, that.sampleRatio) == 0
+                && Objects.equals(join, that.join)
+                && Objects.equals(rawScan, that.rawScan)
+                && Objects.equals(accessPlan, that.accessPlan);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(schemaTableName);
+        return Objects.hash(schemaTableName, constraint, expressionConditions, sampleType, sampleRatio, join, rawScan,
+                accessPlan);
     }
 
     @Override
     public String toString() {
         return "HBaseTableHandle{" +
                 "schemaTableName=" + schemaTableName +
+                ", expressionConditions=" + expressionConditions +
+                (sampleType == null ? "" : ", sampleType=" + sampleType + ", sampleRatio=" + sampleRatio) +
+                (join == null ? "" : ", join=" + join) +
+                (rawScan == null ? "" : ", rawScan=" + rawScan) +
+                (accessPlan == null ? "" : ", accessPlan=" + accessPlan) +
                 '}';
     }
 
@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.meta;
+
+import com.analysys.trino.connector.hbase.utils.Constant;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.log.Logger;
+
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statistics of a table collected by ANALYZE, saved as {meta-dir}/{schema}/{table}.stats beside the table json.
+ * They are read again only when the file is changed.
+ */
+public class HBaseTableStats {
+
+    private static final Logger log = Logger.get(HBaseTableStats.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /**
+     * Stats read and the last modified time of their files, keyed by file path
+     */
+    private static final Map<String, Map.Entry<Long, HBaseTableStats>> CACHE = new ConcurrentHashMap<>();
+
+    private final double rowCount;
+    private final Map<String, ColumnStats> columns;
+
+    @JsonCreator
+    public HBaseTableStats(@JsonProperty("rowCount") double rowCount,
+                           @JsonProperty("columns") Map<String, ColumnStats> columns) {
+        this.rowCount = rowCount;
+        this.columns = columns == null ? ImmutableMap.of() : ImmutableMap.copyOf(columns);
+    }
+
+    @JsonProperty
+    public double getRowCount() {
+        return rowCount;
+    }
+
+    @JsonProperty
+    public Map<String, ColumnStats> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return stats of table, empty if the table is never analyzed
+     */
+    public static Optional<HBaseTableStats> read(String metaDir, String schemaName, String tableName) {
+        File file = getFile(metaDir, schemaName, tableName);
+        long lastModified = file.lastModified();
+        // 0 means the file doesn't exist
+        if (lastModified == 0) {
+            return Optional.empty();
+        }
+        Map.Entry<Long, HBaseTableStats> cached = CACHE.get(file.getPath());
+        if (cached != null && cached.getKey() == lastModified) {
+            return Optional.of(cached.getValue());
+        }
+        try {
+            HBaseTableStats stats = MAPPER.readValue(file, HBaseTableStats.class);
+            CACHE.put(file.getPath(), new AbstractMap.SimpleImmutableEntry<>(lastModified, stats));
+            return Optional.of(stats);
+        } catch (Exception e) {
+            log.error(e, "Read statistics of " + schemaName + "." + tableName + " failed: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void write(String metaDir, String schemaName, String tableName) {
+        File file = getFile(metaDir, schemaName, tableName);
+        try {
+            // Write a temp file and rename it, so coordinators never read a half written file
+            File temp = new File(file.getPath() + ".tmp");
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(temp, this);
+            if (!temp.renameTo(file)) {
+                throw new IllegalStateException("Rename " + temp + " to " + file + " failed");
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Write statistics of " + schemaName + "." + tableName + " failed", e);
+        }
+    }
+
+    private static File getFile(String metaDir, String schemaName, String tableName) {
+        return new File(metaDir + File.separator
+                + (schemaName == null || schemaName.isEmpty() ? Constant.DEFAULT_HBASE_NAMESPACE_NAME : schemaName)
+                + File.separator + tableName + Constant.TABLE_STATS_FILE_TAIL);
+    }
+
+    /**
+     * Statistics of one column, null for the ones unknown
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ColumnStats {
+
+        private final Double distinctValuesCount;
+        private final Double nullsFraction;
+        private final Double min;
+        private final Double max;
+        private final Double dataSize;
+
+        @JsonCreator
+        public ColumnStats(@JsonProperty("distinctValuesCount") Double distinctValuesCount,
+                           @JsonProperty("nullsFraction") Double nullsFraction,
+                           @JsonProperty("min") Double min,
+                           @JsonProperty("max") Double max,
+                           @JsonProperty("dataSize") Double dataSize) {
+            this.distinctValuesCount = distinctValuesCount;
+            this.nullsFraction = nullsFraction;
+            this.min = min;
+            this.max = max;
+            this.dataSize = dataSize;
+        }
+
+        @JsonProperty
+        public Double getDistinctValuesCount() {
+            return distinctValuesCount;
+        }
+
+        @JsonProperty
+        public Double getNullsFraction() {
+            return nullsFraction;
+        }
+
+        @JsonProperty
+        public Double getMin() {
+            return min;
+        }
+
+        @JsonProperty
+        public Double getMax() {
+            return max;
+        }
+
+        /**
+         * @return bytes of all values in the table
+         */
+        @JsonProperty
+        public Double getDataSize() {
+            return dataSize;
+        }
+    }
+}
@@ -14,6 +14,7 @@
 package com.analysys.trino.connector.hbase.meta;
 
 import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableMap;
 
 import io.airlift.log.Logger;
@@ -38,14 +39,81 @@ public class HBaseTables {
 
     public static final Logger logger = Logger.get(HBaseTables.class);
 
+    private static final String SCHEMA_NAMES_KEY = "";
+
     private HBaseClientManager hbaseClientManager;
 
+    /**
+     * Tables of each namespace, so planning doesn't list the namespace for each table handle
+     */
+    private final Cache<String, Map<SchemaTableName, HBaseTableHandle>> tables;
+
+    private final Cache<String, Set<String>> schemaNames;
+
     @Inject
     public HBaseTables(HBaseClientManager hbaseClientManager) {
         this.hbaseClientManager = hbaseClientManager;
+        this.tables = HBaseClientManager.newMetadataCache(hbaseClientManager.getConfig());
+        this.schemaNames = HBaseClientManager.newMetadataCache(hbaseClientManager.getConfig());
     }
 
-    Map<SchemaTableName, HBaseTableHandle> getTables(Admin admin, String schema) {
+    /**
+     * @param schema namespace
+     * @return tables of the namespace, null if they can't be listed
+     */
+    Map<SchemaTableName, HBaseTableHandle> getTables(String schema) {
+        Map<SchemaTableName, HBaseTableHandle> schemaTables = tables.getIfPresent(schema);
+        if (schemaTables != null) {
+            return schemaTables;
+        }
+        Admin admin = null;
+        try {
+            admin = hbaseClientManager.getAdmin();
+            schemaTables = getTables(admin, schema);
+        } finally {
+            if (admin != null) {
+                hbaseClientManager.close(admin);
+            }
+        }
+        if (schemaTables != null) {
+            tables.put(schema, schemaTables);
+        }
+        return schemaTables;
+    }
+
+    /**
+     * Tables created since the namespace was listed, by other nodes or by hbase shell, are not in the cached tables,
+     * so a table missing from them is looked up in HBase, and the namespace is listed again next time if it exists.
+     *
+     * @param schemaTableName table
+     * @return handle of the table, null if it doesn't exist
+     */
+    HBaseTableHandle getTable(SchemaTableName schemaTableName) {
+        Map<SchemaTableName, HBaseTableHandle> schemaTables = getTables(schemaTableName.getSchemaName());
+        HBaseTableHandle handle = schemaTables == null ? null : schemaTables.get(schemaTableName);
+        if (handle != null) {
+            return handle;
+        }
+        Admin admin = null;
+        try {
+            admin = hbaseClientManager.getAdmin();
+            if (!admin.tableExists(TableName.valueOf(schemaTableName.getSchemaName(),
+                    schemaTableName.getTableName()))) {
+                return null;
+            }
+        } catch (Exception e) {
+            logger.error(e, e.getMessage());
+            return null;
+        } finally {
+            if (admin != null) {
+                hbaseClientManager.close(admin);
+            }
+        }
+        tables.invalidate(schemaTableName.getSchemaName());
+        return new HBaseTableHandle(schemaTableName, TupleDomain.all());
+    }
+
+    private Map<SchemaTableName, HBaseTableHandle> getTables(Admin admin, String schema) {
         Map<SchemaTableName, HBaseTableHandle> tables;
         try {
 //            logger.info("进入getTables 方法 admin参数 {"+admin.toString()+"}schema参数"+schema.toString()+"");
@@ -80,11 +148,17 @@ public class HBaseTables {
     }
 
     Set<String> getSchemaNames() {
+        Set<String> names = schemaNames.getIfPresent(SCHEMA_NAMES_KEY);
+        if (names != null) {
+            return names;
+        }
         NamespaceDescriptor[] namespaceDescriptors = new NamespaceDescriptor[0];
+        boolean listed = false;
         Admin admin = null;
         try {
             admin = hbaseClientManager.getAdmin();
             namespaceDescriptors = admin.listNamespaceDescriptors();
+            listed = true;
         } catch (IOException e) {
             logger.error(e, e.getMessage());
         } finally {
@@ -102,6 +176,9 @@ public class HBaseTables {
             set.add(namespaceDescriptor.getName());
         }
 
+        if (listed) {
+            schemaNames.put(SCHEMA_NAMES_KEY, set);
+        }
         return set;
     }
 
@@ -117,7 +194,19 @@ public class HBaseTables {
             if (admin != null) {
                 hbaseClientManager.close(admin);
             }
+            invalidate(schema, tableName);
         }
     }
 
+    /**
+     * Forget the cached tables of the namespace and the metadata of the table
+     *
+     * @param schema    namespace
+     * @param tableName table name
+     */
+    void invalidate(String schema, String tableName) {
+        tables.invalidate(schema);
+        hbaseClientManager.invalidateTable(schema, tableName);
+    }
+
 }
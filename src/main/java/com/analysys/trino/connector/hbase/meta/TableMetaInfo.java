@@ -17,8 +17,12 @@ import com.analysys.trino.connector.hbase.utils.Constant;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.base.Preconditions;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import static com.analysys.trino.connector.hbase.utils.Constant.ROWKEY_FIELD_WIDTH_SPLITER;
 import static com.analysys.trino.connector.hbase.utils.Utils.isEmpty;
 
 /**
@@ -32,7 +36,8 @@ public class TableMetaInfo {
     private String schemaName = null;
     private String rowKeyColName = null;
     /**
-     * Define which columns rowKey consist of, columns are separated by ','
+     * Define which columns rowKey consist of, columns are separated by ','.
+     * A column can declare its width in bytes like 'date:8' if it always has the same width in rowKey
      */
     private String rowKeyFormat = null;
     private String rowKeySaltUpperAndLower = null;
@@ -49,6 +54,24 @@ public class TableMetaInfo {
      */
     private String rowKeyFirstCharRange;
 
+    /**
+     * Rows written by INSERT get a salt of one char, 0~9 and a~z, made from the hash of rowKey,
+     * like 3|20260101|u001 with 10 buckets. 0 means no salt, at most 36 buckets.
+     */
+    private int rowKeySaltBuckets = 0;
+
+    /**
+     * Rows written by INSERT get rowKey made of the columns in rowKeyFormat joined by rowKeySeparator,
+     * each column must declare its width, numbers are padded with '0'
+     */
+    private boolean rowKeyGenerated = false;
+
+    /**
+     * Columns of rowKeyFormat written as Long.MAX_VALUE - value with width 19, separated by ',',
+     * so the latest rows of bigint or timestamp columns come first
+     */
+    private String rowKeyReversedFields;
+
     public String getTableName() {
         return tableName;
     }
@@ -107,6 +130,44 @@ public class TableMetaInfo {
         this.rowKeyFormat = rowKeyFormat;
     }
 
+    /**
+     * @return names of the columns rowKey consist of, without widths
+     */
+    @JsonIgnore
+    public List<String> getRowKeyFields() {
+        if (isEmpty(rowKeyFormat)) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(rowKeyFormat.split(Constant.COMMA))
+                .map(field -> field.split(ROWKEY_FIELD_WIDTH_SPLITER)[0].trim())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Widths of the columns rowKey consist of, only when every column declares its width
+     *
+     * @return widths in bytes, or empty if rowKey is not made of fixed-width columns
+     */
+    @JsonIgnore
+    public List<Integer> getRowKeyFieldWidths() {
+        List<Integer> widths = new ArrayList<>();
+        if (isEmpty(rowKeyFormat)) {
+            return widths;
+        }
+        for (String field : rowKeyFormat.split(Constant.COMMA)) {
+            String[] nameAndWidth = field.split(ROWKEY_FIELD_WIDTH_SPLITER);
+            if (nameAndWidth.length != 2) {
+                return new ArrayList<>();
+            }
+            try {
+                widths.add(Integer.parseInt(nameAndWidth[1].trim()));
+            } catch (NumberFormatException e) {
+                return new ArrayList<>();
+            }
+        }
+        return widths;
+    }
+
     @JsonIgnore
     public String getRowKeyColName() {
         if (isEmpty(rowKeyColName)) {
@@ -130,7 +191,20 @@ public class TableMetaInfo {
         this.rowKeySeparator = rowKeySeparator;
     }
 
+    /**
+     * @param seperateSaltPart has-seperate-salt-part of the catalog
+     * @return whether rowKey starts with a one-char salt and the separator
+     */
+    public boolean hasSaltPart(boolean seperateSaltPart) {
+        return seperateSaltPart || rowKeySaltBuckets > 0;
+    }
+
     public String getRowKeyFirstCharRange() {
+        if (isEmpty(rowKeyFirstCharRange) && rowKeySaltBuckets > 0) {
+            // salts made by INSERT
+            char last = Character.forDigit(rowKeySaltBuckets - 1, Character.MAX_RADIX);
+            return rowKeySaltBuckets <= 10 ? "0~" + last : "0~9,a~" + last;
+        }
         return rowKeyFirstCharRange;
     }
 
@@ -138,6 +212,30 @@ public class TableMetaInfo {
         this.rowKeyFirstCharRange = rowKeyFirstCharRange;
     }
 
+    public int getRowKeySaltBuckets() {
+        return rowKeySaltBuckets;
+    }
+
+    public void setRowKeySaltBuckets(int rowKeySaltBuckets) {
+        this.rowKeySaltBuckets = rowKeySaltBuckets;
+    }
+
+    public boolean isRowKeyGenerated() {
+        return rowKeyGenerated;
+    }
+
+    public void setRowKeyGenerated(boolean rowKeyGenerated) {
+        this.rowKeyGenerated = rowKeyGenerated;
+    }
+
+    public String getRowKeyReversedFields() {
+        return rowKeyReversedFields;
+    }
+
+    public void setRowKeyReversedFields(String rowKeyReversedFields) {
+        this.rowKeyReversedFields = rowKeyReversedFields;
+    }
+
     @Override
     public String toString() {
         return "TableMetaInfo{" +
@@ -149,6 +247,9 @@ public class TableMetaInfo {
                 ", describe='" + describe + '\'' +
                 ", columns=" + columns +
                 ", rowKeySeparator='" + rowKeySeparator + '\'' +
+                ", rowKeySaltBuckets=" + rowKeySaltBuckets +
+                ", rowKeyGenerated=" + rowKeyGenerated +
+                ", rowKeyReversedFields='" + rowKeyReversedFields + '\'' +
                 '}';
     }
 }
\ No newline at end of file
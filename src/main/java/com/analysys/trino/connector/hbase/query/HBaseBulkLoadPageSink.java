@@ -0,0 +1,263 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.meta.HBaseInsertTableHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
+import com.analysys.trino.connector.hbase.schedule.HBaseBucketFunction;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.trino.spi.Page;
+import io.trino.spi.TrinoException;
+import io.trino.spi.connector.ConnectorPageSink;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptor;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.StoreFileWriter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Write data to HFiles for bulk load.
+ * Cells are sorted in memory and written every bufferSize bytes, to a file for each family and region
+ * at bulkLoadDir/family/, with the compression, encoding, block size and bloom filter of the family.
+ * The paths of the files are the fragments of this writer, HBaseMetadata.finishInsert loads them when the query
+ * finishes, so region servers don't take the rows of INSERT in their memstores.
+ */
+public class HBaseBulkLoadPageSink implements ConnectorPageSink {
+
+    private static final Logger log = Logger.get(HBaseBulkLoadPageSink.class);
+
+    private final String schemaName;
+    private final String tableName;
+    private final HBasePutBuilder putBuilder;
+    private final byte[][] startKeys;
+    private final TableDescriptor tableDescriptor;
+    private final Configuration conf;
+    private final FileSystem fs;
+    private final Path dir;
+    private final long bufferSize;
+    /**
+     * Timestamp of cells, the time this writer starts plus the number of flushes,
+     * so the rows of a later flush win over the same rows written before by this writer
+     */
+    private long timestamp = System.currentTimeMillis();
+    /**
+     * Files of this writer are named by prefix_sequence, so writers don't overwrite each other
+     */
+    private final String filePrefix = UUID.randomUUID().toString().replace("-", "");
+    private final List<Path> files = new ArrayList<>();
+
+    private final Map<byte[], List<Cell>> familyCells = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    private long bufferedBytes;
+    private long rows;
+
+    public HBaseBulkLoadPageSink(HBaseClientManager clientManager,
+                                 HBaseInsertTableHandle insertTableHandle,
+                                 long bufferSize) {
+        this(insertTableHandle, HBasePutBuilder.getRowKeyGenerator(clientManager, insertTableHandle),
+                getStartKeys(requireNonNull(clientManager, "clientManager is null").getConnection(), insertTableHandle),
+                getTableDescriptor(clientManager.getConnection(), insertTableHandle),
+                clientManager.getConnection().getConfiguration(), bufferSize);
+    }
+
+    HBaseBulkLoadPageSink(HBaseInsertTableHandle insertTableHandle,
+                          Optional<HBaseRowKeyGenerator> rowKeyGenerator,
+                          byte[][] startKeys,
+                          TableDescriptor tableDescriptor,
+                          Configuration conf,
+                          long bufferSize) {
+        this.schemaName = insertTableHandle.getSchemaTableName().getSchemaName();
+        this.tableName = insertTableHandle.getSchemaTableName().getTableName();
+        this.putBuilder = new HBasePutBuilder(insertTableHandle, rowKeyGenerator);
+        this.startKeys = requireNonNull(startKeys, "startKeys is null");
+        this.tableDescriptor = requireNonNull(tableDescriptor, "tableDescriptor is null");
+        this.conf = requireNonNull(conf, "conf is null");
+        this.dir = new Path(requireNonNull(insertTableHandle.getBulkLoadDir(), "bulkLoadDir is null"));
+        this.bufferSize = bufferSize;
+        try {
+            this.fs = dir.getFileSystem(conf);
+        } catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Failed to open the filesystem of " + dir, e);
+        }
+    }
+
+    private static byte[][] getStartKeys(Connection connection, HBaseInsertTableHandle insertTableHandle) {
+        TableName hTableName = TableName.valueOf(insertTableHandle.getSchemaTableName().getSchemaName(),
+                insertTableHandle.getSchemaTableName().getTableName());
+        try (RegionLocator locator = connection.getRegionLocator(hTableName)) {
+            return locator.getStartKeys();
+        } catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Failed to read regions of HBase table " + hTableName, e);
+        }
+    }
+
+    private static TableDescriptor getTableDescriptor(Connection connection, HBaseInsertTableHandle insertTableHandle) {
+        TableName hTableName = TableName.valueOf(insertTableHandle.getSchemaTableName().getSchemaName(),
+                insertTableHandle.getSchemaTableName().getTableName());
+        try (Table table = connection.getTable(hTableName)) {
+            return table.getDescriptor();
+        } catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Failed to read the descriptor of HBase table " + hTableName, e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<?> appendPage(Page page) {
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            Put put = putBuilder.build(page, position, timestamp);
+            if (put.isEmpty()) {
+                continue;
+            }
+            for (Map.Entry<byte[], List<Cell>> entry : put.getFamilyCellMap().entrySet()) {
+                familyCells.computeIfAbsent(entry.getKey(), family -> new ArrayList<>()).addAll(entry.getValue());
+            }
+            bufferedBytes += put.heapSize();
+            rows++;
+        }
+        if (bufferedBytes >= bufferSize) {
+            flush();
+        }
+        return NOT_BLOCKED;
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        return bufferedBytes;
+    }
+
+    /**
+     * Write the buffered cells of each family to HFiles, a file for each region.
+     * Cells of a row and column given more than once have the same timestamp, only the last given is written,
+     * as a put of the same row would do.
+     */
+    private void flush() {
+        try {
+            for (Map.Entry<byte[], List<Cell>> entry : familyCells.entrySet()) {
+                List<Cell> cells = entry.getValue();
+                // the sort is stable, of equal cells the last one given is the last one
+                cells.sort(CellComparator.getInstance());
+                Path familyDir = new Path(dir, Bytes.toString(entry.getKey()));
+                ColumnFamilyDescriptor family = tableDescriptor.getColumnFamily(entry.getKey());
+                if (family == null) {
+                    family = ColumnFamilyDescriptorBuilder.of(entry.getKey());
+                }
+                StoreFileWriter writer = null;
+                int region = -1;
+                try {
+                    for (int i = 0; i < cells.size(); i++) {
+                        Cell cell = cells.get(i);
+                        if (i + 1 < cells.size() && CellComparator.getInstance().compare(cell, cells.get(i + 1)) == 0) {
+                            continue;
+                        }
+                        // cells are sorted, a new file when the row is in the next regions
+                        if (writer == null || (region + 1 < startKeys.length && Bytes.compareTo(cell.getRowArray(),
+                                cell.getRowOffset(), cell.getRowLength(), startKeys[region + 1], 0,
+                                startKeys[region + 1].length) >= 0)) {
+                            close(writer);
+                            region = HBaseBucketFunction.getRegion(startKeys, CellUtil.cloneRow(cell));
+                            writer = createWriter(familyDir, family);
+                        }
+                        writer.append(cell);
+                    }
+                } finally {
+                    close(writer);
+                }
+            }
+        } catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR,
+                    "Failed to write HFiles of HBase table " + schemaName + ":" + tableName + " to " + dir, e);
+        }
+        familyCells.clear();
+        bufferedBytes = 0;
+        timestamp++;
+    }
+
+    /**
+     * Writer of an HFile like HFileOutputFormat2 makes, by the settings of the family
+     */
+    private StoreFileWriter createWriter(Path familyDir, ColumnFamilyDescriptor family) throws IOException {
+        Path path = new Path(familyDir, filePrefix + "_" + files.size());
+        files.add(path);
+        HFileContext fileContext = new HFileContextBuilder()
+                .withCompression(family.getCompressionType())
+                .withDataBlockEncoding(family.getDataBlockEncoding())
+                .withBlockSize(family.getBlocksize())
+                .withChecksumType(HStore.getChecksumType(conf))
+                .withBytesPerCheckSum(HStore.getBytesPerChecksum(conf))
+                .build();
+        return new StoreFileWriter.Builder(conf, fs)
+                .withFilePath(path)
+                .withBloomType(family.getBloomFilterType())
+                .withComparator(CellComparator.getInstance())
+                .withFileContext(fileContext)
+                .build();
+    }
+
+    private static void close(StoreFileWriter writer) throws IOException {
+        if (writer != null) {
+            writer.appendTrackedTimestampsToMetadata();
+            writer.close();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Collection<Slice>> finish() {
+        long startTime = System.currentTimeMillis();
+        flush();
+        log.info("INSERT " + rows + " rows to " + files.size() + " HFiles of " + schemaName + ":" + tableName
+                + ", finishing used " + (System.currentTimeMillis() - startTime) + " million seconds");
+        // files are loaded by HBaseMetadata.finishInsert
+        return completedFuture(files.stream()
+                .map(file -> Slices.utf8Slice(file.toString()))
+                .collect(ImmutableList.toImmutableList()));
+    }
+
+    @Override
+    public void abort() {
+        familyCells.clear();
+        bufferedBytes = 0;
+        for (Path file : files) {
+            try {
+                fs.delete(file, false);
+            } catch (IOException e) {
+                log.error(e, "Failed to delete " + file);
+            }
+        }
+    }
+}
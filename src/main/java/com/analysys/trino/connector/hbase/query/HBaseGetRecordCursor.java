@@ -14,10 +14,12 @@
 package com.analysys.trino.connector.hbase.query;
 
 import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
 import com.analysys.trino.connector.hbase.schedule.HBaseSplit;
 import com.analysys.trino.connector.hbase.utils.Utils;
 import com.google.common.base.Preconditions;
 import io.airlift.log.Logger;
+import io.trino.spi.TrinoException;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.type.Type;
 import org.apache.hadoop.hbase.Cell;
@@ -26,16 +28,21 @@ import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.io.TimeRange;
 import org.apache.hadoop.hbase.util.Bytes;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import static com.analysys.trino.connector.hbase.utils.Constant.SYSTEMOUT_INTERVAL;
 import static com.analysys.trino.connector.hbase.utils.Utils.arrayCopy;
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -48,14 +55,18 @@ public class HBaseGetRecordCursor extends HBaseRecordCursor {
 
     private static final Logger log = Logger.get(HBaseGetRecordCursor.class);
 
-    private Connection connection;
-
     private int currentRecordIndex = 0;
 
     private Result[] results = null;
 
+    private final TimeRange timeRange;
+
+    private final int readVersions;
+
     HBaseGetRecordCursor(List<HBaseColumnHandle> columnHandles, HBaseSplit hBaseSplit,
-                         Map<Integer, HBaseColumnHandle> fieldIndexMap, Connection connection) {
+                         Map<Integer, HBaseColumnHandle> fieldIndexMap, Connection connection,
+                         TimeRange timeRange, int readVersions, double sampleRatio,
+                         Optional<HBaseRowKeyGenerator> rowKeySalt) {
 //        log.info("----------------->进入HBaseGetRecordCursor（）方法");
 //        log.info("hBaseSplit 参数------------->{"+hBaseSplit.toString()+"}");
 
@@ -67,33 +78,54 @@ public class HBaseGetRecordCursor extends HBaseRecordCursor {
                 "RowKeyName cannot be null if you want to query by RowKey");
 
         this.split = hBaseSplit;
-        this.connection = connection;
+        this.rowKeySalt = rowKeySalt;
+        this.timeRange = timeRange;
+        this.readVersions = readVersions;
         try (Table table = connection.getTable(
                 TableName.valueOf(hBaseSplit.getSchemaName() + ":" + hBaseSplit.getTableName()))) {
 
 
+            // TABLESAMPLE BERNOULLI gets each rowKey with the probability of sample ratio
             List<String> rowKeys = hBaseSplit.getConstraint().stream()
-                    .map(cond -> (String) cond.getValue()).collect(Collectors.toList());
+                    .map(cond -> (String) cond.getValue())
+                    .filter(rowKey -> sampleRatio >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRatio)
+                    .collect(Collectors.toList());
             log.info("rowKeys-----{"+rowKeys.toString()+"}");
             rowKeys.forEach(key->{
                 log.info("rowKey-----{"+key+"}");
             });
             this.results = getResults(rowKeys, table);
-        } catch (Exception e) {
-            log.error(e, e.getMessage());
+        } catch (IOException e) {
+            // an empty result would be taken for rowKeys not found, e.g. by the rows of a join
             this.close();
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Failed to get rows of table "
+                    + hBaseSplit.getSchemaName() + ":" + hBaseSplit.getTableName() + ": " + e.getMessage(), e);
         }
         this.totalBytes = 0L;
     }
 
-    private Result[] getResults(List<String> rowKeys, Table table) {
+    private Result[] getResults(List<String> rowKeys, Table table) throws IOException {
 //        log.info("进入 getResults方法------");
         List<Get> gets = rowKeys.stream().map(rowKey -> {
 //            log.info("解码前------》{"+rowKey+"}");
              rowKey = Utils.base(rowKey);
+             // rowKeys in conditions are given without salt, as INSERT takes them
+             if (rowKeySalt.isPresent()) {
+                 rowKey = rowKeySalt.get().addSalt(rowKey);
+             }
 //            log.info("解码后------》{"+rowKey+"}");
 
                     Get get = new Get(Bytes.toBytes(rowKey));
+                    try {
+                        if (!timeRange.isAllTime()) {
+                            get.setTimeRange(timeRange.getMin(), timeRange.getMax());
+                        }
+                        if (readVersions > 1) {
+                            get.readVersions(readVersions);
+                        }
+                    } catch (IOException e) {
+                        throw new TrinoException(GENERIC_INTERNAL_ERROR, e.getMessage(), e);
+                    }
                     for (ColumnHandle ch : columnHandles) {
                         HBaseColumnHandle hch = (HBaseColumnHandle) ch;
                         // RowKey column has no column family, so we don't need to do get.addColumn() here.
@@ -101,24 +133,34 @@ public class HBaseGetRecordCursor extends HBaseRecordCursor {
                                 && this.split.getRowKeyName().equals(hch.getColumnName())) {
                             continue;
                         }
-                        get.addColumn(Bytes.toBytes(hch.getFamily()), Bytes.toBytes(hch.getColumnName()));
+                        if (hch.isCellTimestamp()) {
+                            continue;
+                        }
+                        // Qualifiers of the whole map are unknown until reading
+                        if (hch.isDynamic() && hch.getKeys().isEmpty()) {
+                            get.addFamily(Bytes.toBytes(hch.getFamily()));
+                            continue;
+                        }
+                        for (String qualifier : HBaseRecordSet.getQualifiers(hch)) {
+                            get.addColumn(Bytes.toBytes(hch.getFamily()), Bytes.toBytes(qualifier));
+                        }
                     }
                     return get;
                 }
         ).collect(Collectors.toList());
 
-        try {
-            return table.get(gets);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            return null;
-        }
+        return table.get(gets);
     }
 
     @Override
     public boolean advanceNextPosition() {
         String colName = null;
         try {
+            // rowKeys not found get empty results
+            while (results != null && this.currentRecordIndex < this.results.length
+                    && this.results[this.currentRecordIndex].isEmpty()) {
+                this.currentRecordIndex++;
+            }
             // if we got error when reading data, return false to end this reading.
             if (results == null) {
                 return false;
@@ -144,19 +186,16 @@ public class HBaseGetRecordCursor extends HBaseRecordCursor {
                 for (Cell cell : record.rawCells()) {
                     colName = Bytes.toString(
                             arrayCopy(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength()));
-                    HBaseColumnHandle hch = fieldIndexMap.get(colName.hashCode());
+                    HBaseColumnHandle hch = getColumnHandle(cell, colName);
                     if (hch == null) {
                         continue;
                     }
-                    Object value = matchValue(hch.getColumnType(),
-                            arrayCopy(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength()));
-                    fields[fieldIndex] = value;
-                    ordinalPositionAndFieldsIndexMap.put(hch.getOrdinalPosition(), fieldIndex);
-                    fieldIndex++;
+                    fieldIndex = setCellValue2FieldsAry(cell, hch, fieldIndex);
                 }
 
-                // Handle the value of rowKey column
-                setRowKeyValue2FieldsAry(record, fieldIndex);
+                // Handle the value of rowKey column and _timestamp column
+                fieldIndex = setRowKeyValue2FieldsAry(record, fieldIndex);
+                setCellTimestampValue2FieldsAry(record, fieldIndex);
 
                 this.currentRecordIndex++;
                 return true;
@@ -168,19 +207,15 @@ public class HBaseGetRecordCursor extends HBaseRecordCursor {
             fieldIndexMap.forEach((cName, columnHandle) ->
                     log.error("fieldIndexMap: key=" + cName + ", hch.toString=" + columnHandle.toString())
             );
-            return false;
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Failed to read column " + colName + " of table "
+                    + split.getSchemaName() + ":" + split.getTableName() + ": " + ex.getMessage(), ex);
         }
     }
 
     @Override
     public void close() {
-        if (this.connection != null) {
-            try {
-                this.connection.close();
-            } catch (Exception e) {
-                log.error(e.getMessage(), e);
-            }
-        }
+        // Rows are got at once by the constructor, and the connection is shared by the catalog
+        this.results = null;
     }
 
     @Override
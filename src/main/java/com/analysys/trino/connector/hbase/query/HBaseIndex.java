@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseIndexHandle;
+import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.analysys.trino.connector.hbase.schedule.HBaseSplit;
+import com.analysys.trino.connector.hbase.utils.Constant;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorIndex;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.InMemoryRecordSet;
+import io.trino.spi.connector.RecordCursor;
+import io.trino.spi.connector.RecordPageSource;
+import io.trino.spi.connector.RecordSet;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Look up the rows of join keys by batch get.
+ * The lookup schema is rowKey only, see HBaseMetadata.resolveIndex
+ */
+public class HBaseIndex implements ConnectorIndex {
+
+    private static final Logger log = Logger.get(HBaseIndex.class);
+
+    private final String connectorId;
+    private final HBaseIndexHandle indexHandle;
+    private final List<ColumnHandle> outputSchema;
+    private final List<Type> outputTypes;
+    private final int maxVersions;
+    private final HBaseClientManager clientManager;
+
+    HBaseIndex(String connectorId, HBaseIndexHandle indexHandle, List<ColumnHandle> outputSchema,
+               int maxVersions, HBaseClientManager clientManager) {
+        this.connectorId = Objects.requireNonNull(connectorId, "connectorId is null");
+        this.indexHandle = Objects.requireNonNull(indexHandle, "indexHandle is null");
+        this.outputSchema = ImmutableList.copyOf(Objects.requireNonNull(outputSchema, "outputSchema is null"));
+        this.outputTypes = outputSchema.stream().map(ch -> ((HBaseColumnHandle) ch).getColumnType())
+                .collect(Collectors.toList());
+        this.maxVersions = maxVersions;
+        this.clientManager = Objects.requireNonNull(clientManager, "clientManager is null");
+    }
+
+    @Override
+    public ConnectorPageSource lookup(RecordSet rawInputRecordSet) {
+        // Presto may give the same key more than once, each row must be returned once only
+        Set<String> rowKeys = new LinkedHashSet<>();
+        RecordCursor cursor = rawInputRecordSet.cursor();
+        while (cursor.advanceNextPosition()) {
+            if (!cursor.isNull(0)) {
+                rowKeys.add(cursor.getSlice(0).toStringUtf8());
+            }
+        }
+        cursor.close();
+        if (rowKeys.isEmpty()) {
+            return new RecordPageSource(new InMemoryRecordSet(outputTypes, ImmutableList.of()));
+        }
+
+        // Values of rowKey conditions are base64 strings as the ones sent to workers by splits
+        String rowKeyName = indexHandle.getRowKeyName();
+        List<ConditionInfo> conditions = rowKeys.stream()
+                .map(rowKey -> new ConditionInfo(rowKeyName, Constant.CONDITION_OPER.EQ,
+                        Base64.getEncoder().encodeToString(rowKey.getBytes(StandardCharsets.UTF_8)),
+                        VarcharType.VARCHAR))
+                .collect(Collectors.toList());
+        HBaseSplit split = new HBaseSplit(connectorId,
+                indexHandle.getTableHandle().getSchemaTableName().getSchemaName(),
+                indexHandle.getTableHandle().getSchemaTableName().getTableName(),
+                rowKeyName, ImmutableList.of(), null, null, conditions, false, -1, null, null);
+        log.info("Index lookup of " + rowKeys.size() + " rowKeys, table is " + indexHandle.getTableHandle());
+        // Lookups are made for every batch of probe rows, record sets get with the connection shared by the catalog
+        return new RecordPageSource(new HBaseRecordSet(split, indexHandle.getTableHandle(), outputSchema,
+                maxVersions, clientManager));
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.frame.HBaseConnectorId;
+import com.analysys.trino.connector.hbase.meta.HBaseIndexHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseSessionProperties;
+import com.google.inject.Inject;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorIndex;
+import io.trino.spi.connector.ConnectorIndexHandle;
+import io.trino.spi.connector.ConnectorIndexProvider;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.ConnectorTransactionHandle;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * HBase index provider, index joins on rowKey look up HBase by batch get
+ */
+public class HBaseIndexProvider implements ConnectorIndexProvider {
+
+    private final String connectorId;
+    private final HBaseClientManager clientManager;
+
+    @Inject
+    public HBaseIndexProvider(HBaseConnectorId connectorId, HBaseClientManager clientManager) {
+        this.connectorId = (Objects.requireNonNull(connectorId, "connectorId is null")).toString();
+        this.clientManager = Objects.requireNonNull(clientManager, "clientManager is null");
+    }
+
+    @Override
+    public ConnectorIndex getIndex(ConnectorTransactionHandle transaction,
+                                   ConnectorSession session,
+                                   ConnectorIndexHandle indexHandle,
+                                   List<ColumnHandle> lookupSchema,
+                                   List<ColumnHandle> outputSchema) {
+        return new HBaseIndex(connectorId, (HBaseIndexHandle) indexHandle, outputSchema,
+                HBaseSessionProperties.getMaxVersions(session), clientManager);
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseJoin;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
+import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.analysys.trino.connector.hbase.schedule.HBaseSplit;
+import com.analysys.trino.connector.hbase.utils.Constant;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.slice.Slice;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.JoinType;
+import io.trino.spi.connector.RecordCursor;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.io.TimeRange;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Scan the table and get the rows of the joined table by the rowKeys scanned, JOIN_BATCH_SIZE rows a time.
+ * Rows of both tables are kept in arrays of the values returned by the getters of their cursors.
+ */
+public class HBaseJoinRecordCursor implements RecordCursor {
+
+    private static final Logger log = Logger.get(HBaseJoinRecordCursor.class);
+
+    private final HBaseSplit split;
+    private final HBaseJoin join;
+    private final List<HBaseColumnHandle> columnHandles;
+    private final RecordCursor leftCursor;
+    private final int leftColumnCount;
+    private final int leftRowKeyIndex;
+    private final List<HBaseColumnHandle> rightColumns;
+    private final Map<Integer, HBaseColumnHandle> rightFieldIndexMap = new HashMap<>();
+    private final int rightRowKeyIndex;
+    private final int rightReadVersions;
+    /**
+     * Salt of the joined table, rowKeys read from the scanned table have no salt
+     */
+    private final Optional<HBaseRowKeyGenerator> rightRowKeySalt;
+    private final HBaseClientManager clientManager;
+
+    /**
+     * Index of each output column in the left row if it's not negative, else in the right row by ~index
+     */
+    private final int[] fieldIndexes;
+
+    private final List<Object[]> leftRows = new ArrayList<>();
+    private final Map<String, Object[]> rightRows = new HashMap<>();
+    private int leftRowIndex = 0;
+    private boolean leftFinished;
+    private Object[] leftRow;
+    private Object[] rightRow;
+
+    HBaseJoinRecordCursor(HBaseSplit split, HBaseJoin join, List<HBaseColumnHandle> columnHandles,
+                          List<ColumnHandle> leftColumns, RecordCursor leftCursor, int maxVersions,
+                          HBaseClientManager clientManager) {
+        this.split = split;
+        this.join = join;
+        this.columnHandles = columnHandles;
+        this.leftCursor = leftCursor;
+        this.leftFinished = leftCursor == null;
+        this.leftColumnCount = leftColumns.size();
+        this.leftRowKeyIndex = leftColumns.indexOf(join.getRowKey());
+        this.clientManager = clientManager;
+
+        this.fieldIndexes = new int[columnHandles.size()];
+        List<HBaseColumnHandle> rightColumns = new ArrayList<>();
+        for (int i = 0; i < columnHandles.size(); i++) {
+            HBaseColumnHandle hch = columnHandles.get(i);
+            if (!hch.isJoined()) {
+                fieldIndexes[i] = leftColumns.indexOf(hch);
+                continue;
+            }
+            fieldIndexes[i] = ~rightColumns.size();
+            rightColumns.add(hch.isVersioned() && maxVersions > 0 ? hch.withMaxVersions(maxVersions) : hch);
+        }
+        HBaseColumnHandle rightRowKey = join.getJoinedRowKey().withJoinedTable(join.getJoinedTableName());
+        if (!rightColumns.contains(rightRowKey)) {
+            rightColumns.add(rightRowKey);
+        }
+        this.rightColumns = rightColumns;
+        this.rightRowKeyIndex = rightColumns.indexOf(rightRowKey);
+        rightColumns.forEach(hch -> rightFieldIndexMap.put(hch.getColumnName().hashCode(), hch));
+        this.rightReadVersions = rightColumns.stream().filter(HBaseColumnHandle::isVersioned)
+                .mapToInt(HBaseColumnHandle::getMaxVersions).max().orElse(1);
+        this.rightRowKeySalt = HBaseRowKeyGenerator.create(clientManager.getTableMetaInfo(
+                join.getJoinedTable().getSchemaName(), join.getJoinedTable().getTableName()))
+                .filter(HBaseRowKeyGenerator::isSalted);
+    }
+
+    @Override
+    public boolean advanceNextPosition() {
+        while (true) {
+            if (leftRowIndex >= leftRows.size() && !nextBatch()) {
+                return false;
+            }
+            leftRow = leftRows.get(leftRowIndex++);
+            Object rowKey = leftRow[leftRowKeyIndex];
+            rightRow = rowKey == null ? null : rightRows.get(((Slice) rowKey).toStringUtf8());
+            if (rightRow != null || join.getJoinType() == JoinType.LEFT_OUTER) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Read the next batch of the scanned table and get the rows of the joined table by their rowKeys
+     *
+     * @return false if there's no more rows to scan
+     */
+    private boolean nextBatch() {
+        leftRows.clear();
+        rightRows.clear();
+        leftRowIndex = 0;
+        Set<String> rowKeys = new LinkedHashSet<>();
+        while (!leftFinished && leftRows.size() < Constant.JOIN_BATCH_SIZE) {
+            if (!leftCursor.advanceNextPosition()) {
+                leftFinished = true;
+                break;
+            }
+            Object[] row = readRow(leftCursor, leftColumnCount);
+            leftRows.add(row);
+            if (row[leftRowKeyIndex] != null) {
+                rowKeys.add(((Slice) row[leftRowKeyIndex]).toStringUtf8());
+            }
+        }
+        if (leftRows.isEmpty()) {
+            return false;
+        }
+        if (!rowKeys.isEmpty()) {
+            getRightRows(rowKeys);
+        }
+        return true;
+    }
+
+    private void getRightRows(Set<String> rowKeys) {
+        // Values of rowKey conditions are base64 strings as the ones sent to workers by splits
+        List<ConditionInfo> conditions = rowKeys.stream()
+                .map(rowKey -> new ConditionInfo(join.getJoinedRowKey().getColumnName(), Constant.CONDITION_OPER.EQ,
+                        Base64.getEncoder().encodeToString(rowKey.getBytes(StandardCharsets.UTF_8)),
+                        VarcharType.VARCHAR))
+                .collect(Collectors.toList());
+        HBaseSplit rightSplit = new HBaseSplit(split.getConnectorId(), join.getJoinedTable().getSchemaName(),
+                join.getJoinedTable().getTableName(), join.getJoinedRowKey().getColumnName(), ImmutableList.of(),
+                null, null, conditions, false, -1, null, null);
+        HBaseGetRecordCursor rightCursor = new HBaseGetRecordCursor(rightColumns, rightSplit, rightFieldIndexMap,
+                clientManager.getConnection(), TimeRange.allTime(), rightReadVersions, 1.0, rightRowKeySalt);
+        while (rightCursor.advanceNextPosition()) {
+            Object[] row = readRow(rightCursor, rightColumns.size());
+            if (row[rightRowKeyIndex] != null) {
+                rightRows.put(((Slice) row[rightRowKeyIndex]).toStringUtf8(), row);
+            }
+        }
+        log.debug("Joined " + rightRows.size() + " of " + rowKeys.size() + " rowKeys, table is "
+                + join.getJoinedTable());
+    }
+
+    private static Object[] readRow(RecordCursor cursor, int size) {
+        Object[] row = new Object[size];
+        for (int field = 0; field < size; field++) {
+            row[field] = readValue(cursor, field, cursor.getType(field));
+        }
+        return row;
+    }
+
+    static Object readValue(RecordCursor cursor, int field, Type type) {
+        if (cursor.isNull(field)) {
+            return null;
+        }
+        Class<?> javaType = type.getJavaType();
+        if (javaType == boolean.class) {
+            return cursor.getBoolean(field);
+        } else if (javaType == long.class) {
+            return cursor.getLong(field);
+        } else if (javaType == double.class) {
+            return cursor.getDouble(field);
+        } else if (javaType == Slice.class) {
+            return cursor.getSlice(field);
+        }
+        return cursor.getObject(field);
+    }
+
+    private Object getFieldValue(int field) {
+        Preconditions.checkArgument(field < columnHandles.size(), "Invalid field index");
+        int index = fieldIndexes[field];
+        if (index >= 0) {
+            return leftRow[index];
+        }
+        return rightRow == null ? null : rightRow[~index];
+    }
+
+    @Override
+    public long getCompletedBytes() {
+        return leftCursor == null ? 0L : leftCursor.getCompletedBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos() {
+        return leftCursor == null ? 0L : leftCursor.getReadTimeNanos();
+    }
+
+    @Override
+    public Type getType(int field) {
+        Preconditions.checkArgument(field < columnHandles.size(), "Invalid field index");
+        return columnHandles.get(field).getColumnType();
+    }
+
+    @Override
+    public boolean getBoolean(int field) {
+        return (boolean) getFieldValue(field);
+    }
+
+    @Override
+    public long getLong(int field) {
+        return (long) getFieldValue(field);
+    }
+
+    @Override
+    public double getDouble(int field) {
+        return (double) getFieldValue(field);
+    }
+
+    @Override
+    public Slice getSlice(int field) {
+        return (Slice) getFieldValue(field);
+    }
+
+    @Override
+    public Object getObject(int field) {
+        return getFieldValue(field);
+    }
+
+    @Override
+    public boolean isNull(int field) {
+        return getFieldValue(field) == null;
+    }
+
+    @Override
+    public void close() {
+        if (leftCursor != null) {
+            leftCursor.close();
+        }
+    }
+}
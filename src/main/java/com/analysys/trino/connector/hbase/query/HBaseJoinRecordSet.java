@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseJoin;
+import com.analysys.trino.connector.hbase.meta.HBaseTableHandle;
+import com.analysys.trino.connector.hbase.schedule.HBaseSplit;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.RecordCursor;
+import io.trino.spi.connector.RecordSet;
+import io.trino.spi.type.Type;
+import org.apache.hadoop.hbase.io.TimeRange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Record set of two HBase tables joined by rowKey, see HBaseMetadata.applyJoin
+ */
+public class HBaseJoinRecordSet implements RecordSet {
+
+    private final HBaseSplit split;
+    private final HBaseTableHandle tableHandle;
+    private final List<HBaseColumnHandle> columnHandles;
+    private final List<Type> columnTypes;
+    private final int maxVersions;
+    /**
+     * Time range of the cells of the scanned table, the joined rows are got in all time
+     */
+    private final TimeRange cellTimeRange;
+    private final HBaseClientManager clientManager;
+
+    HBaseJoinRecordSet(HBaseSplit split, HBaseTableHandle tableHandle, List<ColumnHandle> columnHandles,
+                       int maxVersions, TimeRange cellTimeRange, HBaseClientManager clientManager) {
+        this.split = Objects.requireNonNull(split, "split is null");
+        this.tableHandle = Objects.requireNonNull(tableHandle, "tableHandle is null");
+        Objects.requireNonNull(tableHandle.getJoin(), "join is null");
+        this.columnHandles = Objects.requireNonNull(columnHandles, "column handles is null").stream()
+                .map(ch -> (HBaseColumnHandle) ch).collect(Collectors.toList());
+        this.columnTypes = this.columnHandles.stream().map(HBaseColumnHandle::getColumnType)
+                .collect(Collectors.toList());
+        this.maxVersions = maxVersions;
+        this.cellTimeRange = Objects.requireNonNull(cellTimeRange, "cellTimeRange is null");
+        this.clientManager = Objects.requireNonNull(clientManager, "clientManager is null");
+    }
+
+    @Override
+    public List<Type> getColumnTypes() {
+        return columnTypes;
+    }
+
+    @Override
+    public RecordCursor cursor() {
+        HBaseJoin join = tableHandle.getJoin();
+        // rowKey of the scanned table is always read, it's the key to get the joined rows
+        List<ColumnHandle> leftColumns = columnHandles.stream().filter(hch -> !hch.isJoined())
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (!leftColumns.contains(join.getRowKey())) {
+            leftColumns.add(join.getRowKey());
+        }
+        RecordCursor leftCursor = new HBaseRecordSet(split, tableHandle, leftColumns, maxVersions, cellTimeRange,
+                clientManager)
+                .cursor();
+        return new HBaseJoinRecordCursor(split, join, columnHandles, leftColumns, leftCursor, maxVersions,
+                clientManager);
+    }
+}
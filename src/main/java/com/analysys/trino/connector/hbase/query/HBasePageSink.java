@@ -15,40 +15,39 @@ package com.analysys.trino.connector.hbase.query;
 
 import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
 import com.analysys.trino.connector.hbase.meta.HBaseInsertTableHandle;
-import com.analysys.trino.connector.hbase.utils.Utils;
-import com.google.common.base.Preconditions;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
 import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 import io.trino.spi.Page;
-import io.trino.spi.block.Block;
-import io.trino.spi.block.DictionaryBlock;
-import io.trino.spi.block.VariableWidthBlock;
+import io.trino.spi.TrinoException;
 import io.trino.spi.connector.ConnectorPageSink;
-import io.trino.spi.type.*;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.TableName;
-import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.BufferedMutatorParams;
+import org.apache.hadoop.hbase.client.Durability;
 import org.apache.hadoop.hbase.client.Put;
-import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.util.Bytes;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicInteger;
-
-import static com.analysys.trino.connector.hbase.utils.Constant.ARRAY_STRING_SPLITTER;
-import static com.analysys.trino.connector.hbase.utils.Constant.SYSTEMOUT_INTERVAL;
-import static io.trino.spi.type.BigintType.BIGINT;
-import static io.trino.spi.type.BooleanType.BOOLEAN;
-import static io.trino.spi.type.DoubleType.DOUBLE;
-import static io.trino.spi.type.IntegerType.INTEGER;
-import static io.trino.spi.type.TimestampType.TIMESTAMP_MILLIS;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 
 /**
- * write data to HBase
+ * write data to HBase.
+ * Puts of each page are handed to a writer thread which adds them to the BufferedMutator of this sink,
+ * the mutator sends them to region servers every writeBufferSize bytes. appendPage returns a blocked future
+ * while more than writeBufferSize bytes are waiting for the mutator, so INSERT is throttled by region servers
+ * instead of piling pages up in memory.
  *
  * @author wupeng
  * @date 2018/4/25.
@@ -57,189 +56,167 @@ public class HBasePageSink implements ConnectorPageSink {
 
     private static final Logger log = Logger.get(HBasePageSink.class);
 
-    private final List<Type> columnTypes;
-    private final static int MAX_RETRY = 3;
-    private final List<String> columnNames;
-    private String schemaName = null;
-    private String tableName = null;
-    private HBaseClientManager clientManager;
-    private final int rowKeyColumnChannel;
-    private final Map<String, String> colNameAndFamilyNameMap;
+    private final String schemaName;
+    private final String tableName;
+    private final HBasePutBuilder putBuilder;
 
-    private  static volatile AtomicInteger  count = new AtomicInteger(0);
-    public HBasePageSink(HBaseClientManager clientManager,
-                         HBaseInsertTableHandle insertTableHandle) {
-        requireNonNull(clientManager, "clientManager is null");
+    private final BufferedMutator mutator;
+    private final long writeBufferSize;
+    private final Durability durability;
+    private final Executor writeExecutor;
+    /**
+     * Puts are added to the mutator in the order of pages, failures are kept in this future
+     */
+    private CompletableFuture<?> writing = completedFuture(null);
+    /**
+     * Bytes of puts not yet added to the mutator
+     */
+    private final AtomicLong pendingBytes = new AtomicLong();
+    /**
+     * Puts of an aborted writer not yet added to the mutator are dropped
+     */
+    private volatile boolean aborted;
+    private long rows;
 
-        this.columnTypes = insertTableHandle.getColumnTypes();
-        this.columnNames = insertTableHandle.getColumnNames();
+    public HBasePageSink(HBaseClientManager clientManager,
+                         HBaseInsertTableHandle insertTableHandle,
+                         long writeBufferSize,
+                         Durability durability) {
+        this(insertTableHandle, HBasePutBuilder.getRowKeyGenerator(clientManager, insertTableHandle),
+                createMutator(requireNonNull(clientManager, "clientManager is null"), insertTableHandle, writeBufferSize),
+                writeBufferSize, durability, clientManager.getWriteExecutor());
+    }
 
-        this.clientManager = clientManager;
-        this.rowKeyColumnChannel = insertTableHandle.getRowKeyColumnChannel();
-        this.colNameAndFamilyNameMap = insertTableHandle.getColNameAndFamilyNameMap();
+    HBasePageSink(HBaseInsertTableHandle insertTableHandle,
+                  Optional<HBaseRowKeyGenerator> rowKeyGenerator,
+                  BufferedMutator mutator,
+                  long writeBufferSize,
+                  Durability durability,
+                  Executor writeExecutor) {
+        this.schemaName = insertTableHandle.getSchemaTableName().getSchemaName();
+        this.tableName = insertTableHandle.getSchemaTableName().getTableName();
+        this.putBuilder = new HBasePutBuilder(insertTableHandle, rowKeyGenerator);
+        this.mutator = requireNonNull(mutator, "mutator is null");
+        this.writeBufferSize = writeBufferSize;
+        this.durability = requireNonNull(durability, "durability is null");
+        this.writeExecutor = requireNonNull(writeExecutor, "writeExecutor is null");
+    }
 
+    private static BufferedMutator createMutator(HBaseClientManager clientManager,
+                                                 HBaseInsertTableHandle insertTableHandle,
+                                                 long writeBufferSize) {
+        TableName hTableName = TableName.valueOf(insertTableHandle.getSchemaTableName().getSchemaName(),
+                insertTableHandle.getSchemaTableName().getTableName());
         try {
-            this.tableName = insertTableHandle.getSchemaTableName().getTableName();
-            this.schemaName = insertTableHandle.getSchemaTableName().getSchemaName();
-        } catch (Exception ex) {
-            log.error(ex.getMessage(), ex);
+            // no periodic flush, so abort can drop the write buffer by not closing the mutator
+            return clientManager.getConnection().getBufferedMutator(new BufferedMutatorParams(hTableName)
+                    .writeBufferSize(writeBufferSize)
+                    .setWriteBufferPeriodicFlushTimeoutMs(0));
+        } catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Failed to open HBase table " + hTableName, e);
         }
     }
 
     @Override
     public CompletableFuture<?> appendPage(Page page) {
-        int retry = 0;
-        while(true) {
-//        StringBuffer keyBuffer= new StringBuffer();
-            long startTime = System.currentTimeMillis();
-            List<Put> puts = new ArrayList<>(10000);
-            String rowKey = null;
-            try (Connection connection = this.clientManager.createConnection();
-                 Table table = connection.getTable(TableName.valueOf(schemaName + ":" + tableName))) {
-                for (int position = 0; position < page.getPositionCount(); position++) {
-                    count.incrementAndGet();
-                    rowKey = getRowKeyByChannel(page, this.rowKeyColumnChannel, position);
-
-//                keyBuffer.append(rowKey).append(",");
-                    Put put = new Put(Bytes.toBytes(rowKey));
-                    for (int channel = 0; channel < page.getChannelCount(); channel++) {
-                        // The value of rowKey has been planted in object Put already,
-                        // so we don't need to append it here.
-                        if (channel == rowKeyColumnChannel) {
-                            continue;
-                        }
-                        appendColumnValue(put, page, position, channel, channel);
-                    }
-                    puts.add(put);
-
-//                Thread.sleep(1000);
-
-                    if (puts.size() >= 10000) {
-
-                        table.put(puts);
-                        puts.clear();
-                    }
-                }
-
-                table.put(puts);
-
-                if (System.currentTimeMillis() % SYSTEMOUT_INTERVAL == 0)
-                    log.info("INSERT DATA. StartTime=" + new Date(startTime).toString()
-                            + ", used " + (System.currentTimeMillis() - startTime)
-                            + " million seconds, pageCount=" + page.getPositionCount() + ", rowKey=" + rowKey
-                            + ", table=" + schemaName + ":" + tableName);
-                break;
-            } catch (Exception e) {
-                retry++;
-                log.error(e.getMessage()+ " with retry " + retry, e);
-                if(retry > MAX_RETRY) {
-                    throw new RuntimeException("已达到当前重试最大次数");
-                }
-                try {
-                    Thread.sleep(3000);
-                } catch (InterruptedException exception){
-                    log.error(exception.getMessage(), exception);
-                }
-
-//            throw new RuntimeException(e);
-//            return CompletableFuture.completedFuture(e);
+        checkWriting();
+        List<Put> puts = new ArrayList<>(page.getPositionCount());
+        long bytes = 0;
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            Put put = putBuilder.build(page, position, HConstants.LATEST_TIMESTAMP);
+            put.setDurability(durability);
+            if (!put.isEmpty()) {
+                puts.add(put);
+                bytes += put.heapSize();
             }
         }
-//        log.info("allKeys:"+keyBuffer.toString());
-        return NOT_BLOCKED;
+        rows += puts.size();
+        if (puts.isEmpty()) {
+            return NOT_BLOCKED;
+        }
+        // Pages of INSERT are partitioned by region, sorted puts make sequential batches of each region
+        puts.sort(Comparator.comparing(Put::getRow, Bytes.BYTES_COMPARATOR));
+
+        long putBytes = bytes;
+        pendingBytes.addAndGet(putBytes);
+        writing = writing.thenRunAsync(() -> {
+            if (aborted) {
+                pendingBytes.addAndGet(-putBytes);
+                return;
+            }
+            try {
+                // Blocks while the region servers are busy with the previous flushes of this mutator
+                mutator.mutate(puts);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                pendingBytes.addAndGet(-putBytes);
+            }
+        }, writeExecutor);
+        if (pendingBytes.get() <= writeBufferSize) {
+            return NOT_BLOCKED;
+        }
+        // Failures are thrown by the next appendPage or finish
+        return writing.handle((result, e) -> null);
     }
 
     /**
-     * Find the value of RowKey column by channel.
-     *
-     * @param page     page
-     * @param channel  rowKey channel
-     * @param position position
-     * @return rowKey
+     * Puts waiting for the mutator, and the write buffer of the mutator
      */
-    private String getRowKeyByChannel(Page page, int channel, int position) {
-        Preconditions.checkState(channel >= 0,
-                "You must specify ROW_KEY column for Table %s.%s in your .json file.",
-                schemaName, tableName);
-        Block block = page.getBlock(channel);
-        return columnTypes.get(channel).getSlice(block, position).toStringUtf8();
+    @Override
+    public long getMemoryUsage() {
+        return pendingBytes.get() + writeBufferSize;
     }
 
-    private void appendColumnValue(Put put, Page page, int position, int channel, int destChannel) {
-        Block block = page.getBlock(channel);
-        Type type = columnTypes.get(destChannel);
-        String columnName = columnNames.get(destChannel);
-
-        String columnFamilyName = this.colNameAndFamilyNameMap.get(columnNames.get(destChannel));
-
-        // get value, add to Put
-        if (block.isNull(position)) {
-            // row.setNull(destChannel);
-            return;
-        } else if (TIMESTAMP_MILLIS.equals(type)) {
-            put.addColumn(Bytes.toBytes(columnFamilyName), Bytes.toBytes(columnName),
-                    Bytes.toBytes(type.getLong(block, position)));
-        } else if (BIGINT.equals(type)) {
-            put.addColumn(Bytes.toBytes(columnFamilyName), Bytes.toBytes(columnName),
-                    Bytes.toBytes(type.getLong(block, position)));
-        } else if (INTEGER.equals(type)) {
-            int intValue = ((Long) type.getLong(block, position)).intValue();
-            put.addColumn(Bytes.toBytes(columnFamilyName), Bytes.toBytes(columnName),
-                    Bytes.toBytes(intValue));
-        } else if (BOOLEAN.equals(type)) {
-            int intValue = ((Long) type.getLong(block, position)).intValue();
-            put.addColumn(Bytes.toBytes(columnFamilyName), Bytes.toBytes(columnName),
-                    Bytes.toBytes(intValue));
-        } else if (DOUBLE.equals(type)) {
-            put.addColumn(Bytes.toBytes(columnFamilyName), Bytes.toBytes(columnName),
-                    Bytes.toBytes(type.getDouble(block, position)));
-        } else if (type.getClass().getSuperclass().equals(DecimalType.class)) {
-            BigDecimal value = ((SqlDecimal) type.getObjectValue(null, block, position))
-                    .toBigDecimal();
-
-            put.addColumn(Bytes.toBytes(columnFamilyName), Bytes.toBytes(columnName),
-                    Bytes.toBytes(value));
-        } else if (type.equals(VarcharType.VARCHAR)) {
-            put.addColumn(Bytes.toBytes(columnFamilyName), Bytes.toBytes(columnName),
-                    Bytes.toBytes(type.getSlice(block, position).toStringUtf8()));
-        }
-        // We only support Array<String>
-        else if (type.getTypeSignature().getBase().equals(StandardTypes.ARRAY)) {
-            Object obj = type.getObject(block, position);
-            Block vBlock;
-            if (obj instanceof VariableWidthBlock)
-                vBlock = (VariableWidthBlock) obj;
-            else
-                vBlock = (DictionaryBlock) obj;
-            StringBuilder buff = new StringBuilder();
-            for (int i = 0; i < vBlock.getPositionCount(); i++) {
-                Slice slice = vBlock.getSlice(i, 0, vBlock.getSliceLength(i));
-                String value = slice.toStringUtf8();
-                if (i > 0)
-                    buff.append(ARRAY_STRING_SPLITTER);
-                buff.append(Utils.removeExtraSpaceInArrayString(value));
+    private void checkWriting() {
+        if (writing.isCompletedExceptionally()) {
+            try {
+                writing.join();
+            } catch (CompletionException e) {
+                throw writeFailure(e);
             }
-            put.addColumn(Bytes.toBytes(columnFamilyName), Bytes.toBytes(columnName),
-                    Bytes.toBytes(buff.toString()));
-        } else {
-            throw new UnsupportedOperationException("Type is not supported: " + type);
         }
     }
 
+    private TrinoException writeFailure(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return new TrinoException(GENERIC_INTERNAL_ERROR,
+                "Failed to write to HBase table " + schemaName + ":" + tableName, cause);
+    }
+
     @Override
     public CompletableFuture<Collection<Slice>> finish() {
-        closeSession();
-        // the committer does not need any additional info.
-        return completedFuture(ImmutableList.of());
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<Collection<Slice>> finish = writing.thenApplyAsync(result -> {
+            try {
+                // flush the puts left in the write buffer
+                mutator.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            log.info("INSERT " + rows + " rows to " + schemaName + ":" + tableName
+                    + ", finishing used " + (System.currentTimeMillis() - startTime) + " million seconds");
+            // the committer does not need any additional info.
+            return ImmutableList.of();
+        }, writeExecutor);
+        return finish.exceptionally(e -> {
+            abort();
+            throw writeFailure(e);
+        });
     }
 
+    /**
+     * Drop the puts not written yet. The mutator is not closed, as close() flushes its write buffer
+     * and would race the mutate in flight, the unsent puts are dropped with it.
+     */
     @Override
     public void abort() {
-        closeSession();
-    }
-
-    private void closeSession() {
-        log.error("------------- closeSession");
+        aborted = true;
+        log.info("INSERT to " + schemaName + ":" + tableName + " aborted, the puts not sent are dropped");
     }
 
 }
@@ -15,6 +15,7 @@ package com.analysys.trino.connector.hbase.query;
 
 import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
 import com.analysys.trino.connector.hbase.meta.HBaseInsertTableHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseSessionProperties;
 import com.google.inject.Inject;
 import io.trino.spi.TrinoException;
 import io.trino.spi.connector.*;
@@ -87,7 +88,11 @@ public class HBasePageSinkProvider implements ConnectorPageSinkProvider {
         Log.info("insertTableHandle ---->{"+insertTableHandle.toString()+"}");
         Log.info("pageSinkId ---->{"+pageSinkId.toString()+"}");
 
-        return new HBasePageSink(clientManager, handle);
+        if (handle.getBulkLoadDir() != null) {
+            return new HBaseBulkLoadPageSink(clientManager, handle, HBaseSessionProperties.getBulkLoadBufferSize(session));
+        }
+        return new HBasePageSink(clientManager, handle,
+                HBaseSessionProperties.getWriteBufferSize(session), HBaseSessionProperties.getWriteDurability(session));
     }
 }
 
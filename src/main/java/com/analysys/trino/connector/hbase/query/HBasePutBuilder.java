@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.meta.HBaseInsertTableHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
+import com.analysys.trino.connector.hbase.utils.Utils;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.ColumnarRow;
+import io.trino.spi.block.DictionaryBlock;
+import io.trino.spi.block.VariableWidthBlock;
+import io.trino.spi.type.*;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.analysys.trino.connector.hbase.utils.Constant.ARRAY_STRING_SPLITTER;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.BooleanType.BOOLEAN;
+import static io.trino.spi.type.DoubleType.DOUBLE;
+import static io.trino.spi.type.IntegerType.INTEGER;
+import static io.trino.spi.type.TimestampType.TIMESTAMP_MILLIS;
+
+/**
+ * Make the Put of each row of INSERT, shared by the page sinks writing by BufferedMutator and by bulk load
+ */
+class HBasePutBuilder {
+
+    private final List<Type> columnTypes;
+    private final String schemaName;
+    private final String tableName;
+    private final int rowKeyColumnChannel;
+    /**
+     * Family and qualifier of each channel, encoded once instead of for every cell
+     */
+    private final byte[][] families;
+    private final byte[][] qualifiers;
+    /**
+     * Salted or generated rowKey, and the channels and types of the columns it's made of
+     */
+    private final Optional<HBaseRowKeyGenerator> rowKeyGenerator;
+    private final int[] rowKeyInputChannels;
+    private final List<Type> rowKeyInputTypes;
+
+    HBasePutBuilder(HBaseInsertTableHandle insertTableHandle, Optional<HBaseRowKeyGenerator> rowKeyGenerator) {
+        List<String> columnNames = insertTableHandle.getColumnNames();
+        Map<String, String> colNameAndFamilyNameMap = insertTableHandle.getColNameAndFamilyNameMap();
+        this.columnTypes = insertTableHandle.getColumnTypes();
+        this.schemaName = insertTableHandle.getSchemaTableName().getSchemaName();
+        this.tableName = insertTableHandle.getSchemaTableName().getTableName();
+        this.rowKeyColumnChannel = insertTableHandle.getRowKeyColumnChannel();
+
+        this.families = new byte[columnNames.size()][];
+        this.qualifiers = new byte[columnNames.size()][];
+        for (int channel = 0; channel < columnNames.size(); channel++) {
+            if (channel != rowKeyColumnChannel) {
+                families[channel] = Bytes.toBytes(colNameAndFamilyNameMap.get(columnNames.get(channel)));
+                qualifiers[channel] = Bytes.toBytes(columnNames.get(channel));
+            }
+        }
+
+        this.rowKeyGenerator = rowKeyGenerator;
+        List<String> inputColumns = rowKeyGenerator.map(HBaseRowKeyGenerator::getInputColumns).orElse(ImmutableList.of());
+        this.rowKeyInputChannels = new int[inputColumns.size()];
+        ImmutableList.Builder<Type> inputTypes = ImmutableList.builder();
+        for (int i = 0; i < inputColumns.size(); i++) {
+            rowKeyInputChannels[i] = columnNames.indexOf(inputColumns.get(i));
+            Preconditions.checkState(rowKeyInputChannels[i] >= 0, "Column %s of rowKey is not in Table %s.%s",
+                    inputColumns.get(i), schemaName, tableName);
+            inputTypes.add(columnTypes.get(rowKeyInputChannels[i]));
+        }
+        this.rowKeyInputTypes = inputTypes.build();
+    }
+
+    static Optional<HBaseRowKeyGenerator> getRowKeyGenerator(HBaseClientManager clientManager,
+                                                             HBaseInsertTableHandle insertTableHandle) {
+        return HBaseRowKeyGenerator.create(clientManager.getTableMetaInfo(
+                insertTableHandle.getSchemaTableName().getSchemaName(),
+                insertTableHandle.getSchemaTableName().getTableName()));
+    }
+
+    /**
+     * Put of the row at position, empty if all columns are null
+     *
+     * @param page      page
+     * @param position  position
+     * @param timestamp timestamp of cells, HConstants.LATEST_TIMESTAMP to be set by region servers
+     * @return put
+     */
+    Put build(Page page, int position, long timestamp) {
+        byte[] rowKey = rowKeyGenerator.isPresent()
+                ? rowKeyGenerator.get().generate(page, position, rowKeyInputChannels, rowKeyInputTypes)
+                : Bytes.toBytes(getRowKeyByChannel(page, this.rowKeyColumnChannel, position));
+        Put put = new Put(rowKey, timestamp);
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            // The value of rowKey has been planted in object Put already,
+            // so we don't need to append it here.
+            if (channel == rowKeyColumnChannel) {
+                continue;
+            }
+            appendColumnValue(put, page, position, channel, channel);
+        }
+        return put;
+    }
+
+    /**
+     * Find the value of RowKey column by channel.
+     *
+     * @param page     page
+     * @param channel  rowKey channel
+     * @param position position
+     * @return rowKey
+     */
+    private String getRowKeyByChannel(Page page, int channel, int position) {
+        Preconditions.checkState(channel >= 0,
+                "You must specify ROW_KEY column for Table %s.%s in your .json file.",
+                schemaName, tableName);
+        Block block = page.getBlock(channel);
+        return columnTypes.get(channel).getSlice(block, position).toStringUtf8();
+    }
+
+    private void appendColumnValue(Put put, Page page, int position, int channel, int destChannel) {
+        Block block = page.getBlock(channel);
+        Type type = columnTypes.get(destChannel);
+        byte[] family = families[destChannel];
+        byte[] qualifier = qualifiers[destChannel];
+
+        // get value, add to Put
+        if (block.isNull(position)) {
+            // row.setNull(destChannel);
+            return;
+        }
+        // Multi-version column: ARRAY(ROW(ts, value)), every element is written as a version of the cell
+        if (Utils.isVersionedType(type)) {
+            RowType rowType = (RowType) ((ArrayType) type).getElementType();
+            Type valueType = rowType.getFields().get(1).getType();
+            ColumnarRow versions = ColumnarRow.toColumnarRow((Block) type.getObject(block, position));
+            Block timestamps = versions.getField(0);
+            Block values = versions.getField(1);
+            for (int i = 0; i < versions.getPositionCount(); i++) {
+                if (versions.isNull(i) || timestamps.isNull(i) || values.isNull(i)) {
+                    continue;
+                }
+                put.addColumn(family, qualifier,
+                        BIGINT.getLong(timestamps, i), getValueBytes(valueType, values, i));
+            }
+            return;
+        }
+        put.addColumn(family, qualifier,
+                getValueBytes(type, block, position));
+    }
+
+    /**
+     * We store the column value in HBase like Bytes.toBytes(value) rather than Bytes.toBytes(value.toString)
+     *
+     * @param type     type
+     * @param block    block
+     * @param position position
+     * @return bytes of the value
+     */
+    private byte[] getValueBytes(Type type, Block block, int position) {
+        if (TIMESTAMP_MILLIS.equals(type)) {
+            return Bytes.toBytes(type.getLong(block, position));
+        } else if (BIGINT.equals(type)) {
+            return Bytes.toBytes(type.getLong(block, position));
+        } else if (INTEGER.equals(type)) {
+            int intValue = ((Long) type.getLong(block, position)).intValue();
+            return Bytes.toBytes(intValue);
+        } else if (BOOLEAN.equals(type)) {
+            // 0: false, 1: true
+            return Bytes.toBytes(type.getBoolean(block, position) ? 1 : 0);
+        } else if (DOUBLE.equals(type)) {
+            return Bytes.toBytes(type.getDouble(block, position));
+        } else if (type.getClass().getSuperclass().equals(DecimalType.class)) {
+            BigDecimal value = ((SqlDecimal) type.getObjectValue(null, block, position))
+                    .toBigDecimal();
+            return Bytes.toBytes(value);
+        } else if (type.equals(VarcharType.VARCHAR)) {
+            return Bytes.toBytes(type.getSlice(block, position).toStringUtf8());
+        }
+        // We only support Array<String>
+        else if (type.getTypeSignature().getBase().equals(StandardTypes.ARRAY)) {
+            Object obj = type.getObject(block, position);
+            Block vBlock;
+            if (obj instanceof VariableWidthBlock)
+                vBlock = (VariableWidthBlock) obj;
+            else
+                vBlock = (DictionaryBlock) obj;
+            StringBuilder buff = new StringBuilder();
+            for (int i = 0; i < vBlock.getPositionCount(); i++) {
+                Slice slice = vBlock.getSlice(i, 0, vBlock.getSliceLength(i));
+                String value = slice.toStringUtf8();
+                if (i > 0)
+                    buff.append(ARRAY_STRING_SPLITTER);
+                buff.append(Utils.removeExtraSpaceInArrayString(value));
+            }
+            return Bytes.toBytes(buff.toString());
+        } else {
+            throw new UnsupportedOperationException("Type is not supported: " + type);
+        }
+    }
+}
@@ -14,31 +14,44 @@
 package com.analysys.trino.connector.hbase.query;
 
 import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
 import com.analysys.trino.connector.hbase.schedule.HBaseSplit;
 import com.analysys.trino.connector.hbase.utils.Constant;
 import com.analysys.trino.connector.hbase.utils.Types;
+import com.analysys.trino.connector.hbase.utils.Utils;
 import com.google.common.base.Preconditions;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
+import io.trino.spi.block.Block;
 import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.block.MapBlockBuilder;
 import io.trino.spi.block.PageBuilderStatus;
+import io.trino.spi.block.RowBlockBuilder;
 import io.trino.spi.connector.RecordCursor;
 import io.trino.spi.type.*;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.util.Bytes;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static com.analysys.trino.connector.hbase.utils.Constant.*;
 import static com.analysys.trino.connector.hbase.utils.Utils.arrayCopy;
+import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.DoubleType.DOUBLE;
 import static io.trino.spi.type.IntegerType.INTEGER;
 import static io.trino.spi.type.TimestampType.TIMESTAMP_MILLIS;
+import static io.trino.spi.type.VarcharType.VARCHAR;
 
 /**
  * HBase record cursor fetch record in split
@@ -65,6 +78,18 @@ public class HBaseRecordCursor implements RecordCursor {
 
     String rowKeyColName = null;
 
+    /**
+     * Salt of the rowKeys of tables with rowKeySaltBuckets, empty for other tables
+     */
+    Optional<HBaseRowKeyGenerator> rowKeySalt = Optional.empty();
+
+    /**
+     * Map columns made of dynamic qualifiers, and the bytes of their families
+     */
+    private Map<String, HBaseColumnHandle> cellColumns = null;
+    private List<HBaseColumnHandle> dynamicColumns = null;
+    private byte[][] dynamicColumnFamilies = null;
+
     HBaseRecordCursor() {
     }
 
@@ -213,7 +238,11 @@ public class HBaseRecordCursor implements RecordCursor {
             return this.getType(field).createBlockBuilder(pageBuilderStatus.createBlockBuilderStatus(), 0).build();
         }
 
-        if (type.getTypeSignature().getBase().equals(StandardTypes.ARRAY)) {
+        if (type instanceof MapType) {
+            return mapToBlock((MapType) type, (Map<String, Object>) fieldValue);
+        } else if (Utils.isVersionedType(type)) {
+            return versionsToBlock((RowType) ((ArrayType) type).getElementType(), (List<CellVersion>) fieldValue);
+        } else if (type.getTypeSignature().getBase().equals(StandardTypes.ARRAY)) {
             String[] values = ((String) fieldValue).split(Constant.ARRAY_STRING_SPLITTER);
             Type elementType = type.getTypeParameters().get(0);
             BlockBuilder builder = elementType.createBlockBuilder(null, values.length);
@@ -228,6 +257,70 @@ public class HBaseRecordCursor implements RecordCursor {
         }
     }
 
+    /**
+     * Build the block of ARRAY(ROW(ts, value)) from versions of one cell
+     *
+     * @param rowType  ROW(ts, value)
+     * @param versions versions in the order of ts desc
+     * @return block
+     */
+    private Block versionsToBlock(RowType rowType, List<CellVersion> versions) {
+        Type valueType = rowType.getFields().get(1).getType();
+        RowBlockBuilder builder = rowType.createBlockBuilder(null, versions.size());
+        for (CellVersion version : versions) {
+            builder.buildEntry(fieldBuilders -> {
+                BIGINT.writeLong(fieldBuilders.get(0), version.timestamp);
+                TypeUtils.writeNativeValue(valueType, fieldBuilders.get(1), toNativeValue(valueType, version.value));
+            });
+        }
+        return builder.build();
+    }
+
+    /**
+     * Build the block of MAP(varchar, T) from the values of dynamic qualifiers
+     *
+     * @param mapType MAP(varchar, T)
+     * @param values  map key -> value
+     * @return block
+     */
+    private Block mapToBlock(MapType mapType, Map<String, Object> values) {
+        Type valueType = mapType.getValueType();
+        MapBlockBuilder builder = mapType.createBlockBuilder(null, 1);
+        builder.buildEntry((keyBuilder, valueBuilder) -> values.forEach((key, value) -> {
+            VARCHAR.writeSlice(keyBuilder, Slices.utf8Slice(key));
+            TypeUtils.writeNativeValue(valueType, valueBuilder, toNativeValue(valueType, value));
+        }));
+        return mapType.getObject(builder.build(), 0);
+    }
+
+    /**
+     * Convert the value returned by matchValue to the java type presto uses for this type
+     *
+     * @param type  type
+     * @param value value returned by matchValue
+     * @return native value
+     */
+    private Object toNativeValue(Type type, Object value) {
+        if (value == null) {
+            return null;
+        }
+        Class typeClass = type.getClass();
+        if (typeClass.equals(VARCHAR_CLASS)) {
+            return Slices.utf8Slice((String) value);
+        } else if (typeClass.equals(INTEGER_CLASS)) {
+            return ((Integer) value).longValue();
+        } else if (typeClass.equals(BOOLEAN_CLASS)) {
+            // 0: false, 1: true
+            return (Integer) value == 1;
+        } else if (type instanceof DecimalType) {
+            DecimalType dType = (DecimalType) type;
+            BigDecimal dec = ((BigDecimal) value).setScale(dType.getScale(), RoundingMode.HALF_UP);
+            return dType.isShort() ? dec.unscaledValue().longValue() : Decimals.encodeScaledValue(dec, dType.getScale());
+        } else {
+            return value;
+        }
+    }
+
     /**
      * Define what kind of value will be shown as NULL
      *
@@ -247,7 +340,110 @@ public class HBaseRecordCursor implements RecordCursor {
                 expected, actual);
     }
 
-    void setRowKeyValue2FieldsAry(Result record, int fieldIndex) {
+    /**
+     * Set the value of one cell. Cells of the same column come together in the order of timestamp desc,
+     * only the latest one is kept for single-version columns.
+     *
+     * @param cell       cell
+     * @param hch        column handle of this cell
+     * @param fieldIndex the index of fields array to put the value
+     * @return the next index of fields array
+     */
+    @SuppressWarnings("unchecked")
+    int setCellValue2FieldsAry(Cell cell, HBaseColumnHandle hch, int fieldIndex) {
+        Integer index = ordinalPositionAndFieldsIndexMap.get(hch.getOrdinalPosition());
+        if (hch.isDynamic()) {
+            return setMapValue2FieldsAry(cell, hch, index, fieldIndex);
+        }
+        if (index != null && !hch.isVersioned()) {
+            return fieldIndex;
+        }
+        byte[] value = arrayCopy(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+        if (!hch.isVersioned()) {
+            fields[fieldIndex] = matchValue(hch.getColumnType(), value);
+        } else {
+            Type valueType = ((RowType) ((ArrayType) hch.getColumnType()).getElementType()).getFields().get(1).getType();
+            CellVersion version = new CellVersion(cell.getTimestamp(), matchValue(valueType, value));
+            if (index != null) {
+                List<CellVersion> versions = (List<CellVersion>) fields[index];
+                if (versions.size() < hch.getMaxVersions()) {
+                    versions.add(version);
+                }
+                return fieldIndex;
+            }
+            List<CellVersion> versions = new ArrayList<>();
+            versions.add(version);
+            fields[fieldIndex] = versions;
+        }
+        ordinalPositionAndFieldsIndexMap.put(hch.getOrdinalPosition(), fieldIndex);
+        return fieldIndex + 1;
+    }
+
+    /**
+     * Put the value of one dynamic qualifier into the map, keyed by the qualifier without prefix
+     */
+    @SuppressWarnings("unchecked")
+    private int setMapValue2FieldsAry(Cell cell, HBaseColumnHandle hch, Integer index, int fieldIndex) {
+        String qualifier = Bytes.toString(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength());
+        String key = qualifier.substring(hch.getQualifierPrefix().length());
+        if (!hch.getKeys().isEmpty() && !hch.getKeys().contains(key)) {
+            return fieldIndex;
+        }
+        Object value = matchValue(((MapType) hch.getColumnType()).getValueType(),
+                arrayCopy(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength()));
+        if (index != null) {
+            // Older versions of the same qualifier come after the latest one
+            ((Map<String, Object>) fields[index]).putIfAbsent(key, value);
+            return fieldIndex;
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put(key, value);
+        fields[fieldIndex] = values;
+        ordinalPositionAndFieldsIndexMap.put(hch.getOrdinalPosition(), fieldIndex);
+        return fieldIndex + 1;
+    }
+
+    /**
+     * Find the column handle of a cell, by family and qualifier for normal columns,
+     * by family and qualifier prefix for map columns made of dynamic qualifiers.
+     *
+     * @param cell      cell
+     * @param qualifier qualifier of the cell
+     * @return column handle, null if the cell is not queried
+     */
+    HBaseColumnHandle getColumnHandle(Cell cell, String qualifier) {
+        if (cellColumns == null) {
+            cellColumns = new HashMap<>();
+            columnHandles.stream().filter(col -> !col.isRowKey() && !col.isCellTimestamp() && !col.isDynamic())
+                    .forEach(col -> cellColumns.put(col.getFamily() + ":" + col.getColumnName(), col));
+        }
+        HBaseColumnHandle hch = cellColumns.get(Bytes.toString(cell.getFamilyArray(), cell.getFamilyOffset(),
+                cell.getFamilyLength()) + ":" + qualifier);
+        if (hch != null) {
+            return hch;
+        }
+        if (dynamicColumns == null) {
+            dynamicColumns = columnHandles.stream().filter(HBaseColumnHandle::isDynamic).collect(Collectors.toList());
+            dynamicColumnFamilies = dynamicColumns.stream().map(col -> Bytes.toBytes(col.getFamily()))
+                    .toArray(byte[][]::new);
+        }
+        for (int i = 0; i < dynamicColumns.size(); i++) {
+            if (qualifier.startsWith(dynamicColumns.get(i).getQualifierPrefix())
+                    && CellUtil.matchingFamily(cell, dynamicColumnFamilies[i])) {
+                return dynamicColumns.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Set the value of rowKey column
+     *
+     * @param record     record
+     * @param fieldIndex the index of fields array to put the value
+     * @return the next index of fields array
+     */
+    int setRowKeyValue2FieldsAry(Result record, int fieldIndex) {
         // Handle the value of rowKey
         // Check out whether columns to be queried contain rowKey field
         if (fieldIndexMap.containsKey(this.rowKeyColName.hashCode())) {
@@ -256,10 +452,48 @@ public class HBaseRecordCursor implements RecordCursor {
                 HBaseColumnHandle rowKeyHandle = fieldIndexMap.get(rowKeyColName.hashCode());
                 String rowKeyValue = Bytes.toString(
                         arrayCopy(cell.getRowArray(), cell.getRowOffset(), cell.getRowLength()));
+                if (rowKeySalt.isPresent()) {
+                    rowKeyValue = rowKeySalt.get().removeSalt(rowKeyValue);
+                }
                 fields[fieldIndex] = rowKeyValue;
                 ordinalPositionAndFieldsIndexMap.put(rowKeyHandle.getOrdinalPosition(), fieldIndex);
+                return fieldIndex + 1;
             }
         }
+        return fieldIndex;
+    }
+
+    /**
+     * Set the value of _timestamp column, it's the latest timestamp of the cells we read in this row.
+     *
+     * @param record     record
+     * @param fieldIndex the index of fields array to put the value
+     */
+    void setCellTimestampValue2FieldsAry(Result record, int fieldIndex) {
+        HBaseColumnHandle timestampHandle = fieldIndexMap.get(CELL_TIMESTAMP_COLUMN_NAME.hashCode());
+        if (timestampHandle == null || !timestampHandle.isCellTimestamp()
+                || record.rawCells() == null || record.rawCells().length == 0) {
+            return;
+        }
+        long timestamp = 0L;
+        for (Cell cell : record.rawCells()) {
+            timestamp = Math.max(timestamp, cell.getTimestamp());
+        }
+        fields[fieldIndex] = timestamp;
+        ordinalPositionAndFieldsIndexMap.put(timestampHandle.getOrdinalPosition(), fieldIndex);
+    }
+
+    /**
+     * One version of a cell in multi-version columns
+     */
+    static class CellVersion {
+        final long timestamp;
+        final Object value;
+
+        CellVersion(long timestamp, Object value) {
+            this.timestamp = timestamp;
+            this.value = value;
+        }
     }
 
     @Override
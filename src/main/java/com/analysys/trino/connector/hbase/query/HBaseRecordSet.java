@@ -14,12 +14,19 @@
 package com.analysys.trino.connector.hbase.query;
 
 import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.meta.ColumnMetaInfo;
 import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
 import com.analysys.trino.connector.hbase.meta.HBaseConfig;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
+import com.analysys.trino.connector.hbase.meta.HBaseTableHandle;
+import com.analysys.trino.connector.hbase.meta.TableMetaInfo;
 import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
 import com.analysys.trino.connector.hbase.schedule.HBaseSplit;
+import com.analysys.trino.connector.hbase.utils.Constant;
 import com.analysys.trino.connector.hbase.utils.Utils;
+import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
+import io.trino.spi.TrinoException;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.RecordCursor;
 import io.trino.spi.connector.RecordSet;
@@ -30,15 +37,21 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.filter.*;
+import org.apache.hadoop.hbase.io.TimeRange;
 import org.apache.hadoop.hbase.shaded.protobuf.generated.SnapshotProtos;
 import org.apache.hadoop.hbase.snapshot.SnapshotDescriptionUtils;
 import org.apache.hadoop.hbase.snapshot.SnapshotManifest;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hdfs.protocol.AlreadyBeingCreatedException;
 
-import java.math.BigInteger;
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
 
 /**
  * HBase record set
@@ -49,34 +62,84 @@ import java.util.stream.Collectors;
 public class HBaseRecordSet implements RecordSet {
 
     private static final Logger log = Logger.get(HBaseRecordSet.class);
+    private static final String UNKNOWN_FAMILY = "unknown_family";
 
     private final List<HBaseColumnHandle> columnHandles;
     private final List<Type> columnTypes;
     private final HBaseSplit hBaseSplit;
+    /**
+     * Conditions of the split, copied as the ones on rowKey are taken out for row filters and the split is not changed
+     */
+    private final List<ConditionInfo> constraint;
     private ResultScanner resultScanner;
     private Connection connection;
     private Map<Integer, HBaseColumnHandle> fieldIndexMap = new HashMap<>();
     private HBaseConfig config;
 
-    HBaseRecordSet(HBaseSplit split, List<ColumnHandle> columnHandles, HBaseClientManager clientManager) {
-
-
-
-
+    private final HBaseClientManager clientManager;
+    /**
+     * Columns in constraint, the qualifiers of map keys compared in sql are there too
+     */
+    private final List<HBaseColumnHandle> constraintColumns;
+    /**
+     * Versions to read of the row, it's bigger than 1 only if multi-version columns are queried
+     */
+    private final int readVersions;
+    private TableMetaInfo tableMetaInfo;
+    /**
+     * Ratio of rows to read by TABLESAMPLE BERNOULLI
+     */
+    private final double rowSampleRatio;
+
+    /**
+     * Filter in HBase filter language given by hbase.system.scan, null for normal queries
+     */
+    private final String rawFilter;
+
+    /**
+     * Time range of the cells to read, all time unless conditions on _timestamp are pushed down by session
+     */
+    private final TimeRange cellTimeRange;
+
+    HBaseRecordSet(HBaseSplit split, HBaseTableHandle tableHandle, List<ColumnHandle> columnHandles,
+                   int maxVersions, HBaseClientManager clientManager) {
+        this(split, tableHandle, columnHandles, maxVersions, TimeRange.allTime(), clientManager);
+    }
 
+    /**
+     * @param maxVersions   max versions of multi-version columns set by session, 0 means using the table json
+     * @param cellTimeRange time range of the cells to read, region servers skip the HFiles out of it
+     */
+    HBaseRecordSet(HBaseSplit split, HBaseTableHandle tableHandle, List<ColumnHandle> columnHandles,
+                   int maxVersions, TimeRange cellTimeRange, HBaseClientManager clientManager) {
         this.hBaseSplit = Objects.requireNonNull(split, "split is null");
+        this.constraint = new ArrayList<>(split.getConstraint());
+        Objects.requireNonNull(tableHandle, "tableHandle is null");
+        this.rowSampleRatio = tableHandle.getRowSampleRatio();
+        this.cellTimeRange = Objects.requireNonNull(cellTimeRange, "cellTimeRange is null");
+        this.rawFilter = tableHandle.getRawScan() == null ? null : tableHandle.getRawScan().getFilter();
+        this.constraintColumns = tableHandle.getConstraint().getDomains()
+                .map(domains -> domains.keySet().stream().map(ch -> (HBaseColumnHandle) ch)
+                        .collect(Collectors.toList()))
+                .orElse(Collections.emptyList());
         log.info("this.hBaseSplit---"+this.hBaseSplit.getConstraint());
         Objects.requireNonNull(clientManager, "clientManager is null");
         this.config = clientManager.getConfig();
+        this.clientManager = clientManager;
 
         Objects.requireNonNull(columnHandles, "column handles is null");
-        this.columnHandles = columnHandles.stream().map(ch -> (HBaseColumnHandle) ch).collect(Collectors.toList());
+        this.columnHandles = columnHandles.stream().map(ch -> (HBaseColumnHandle) ch)
+                .map(hch -> hch.isVersioned() && maxVersions > 0 ? hch.withMaxVersions(maxVersions) : hch)
+                .collect(Collectors.toList());
         this.initFieldIndexMap(this.columnHandles);
+        this.readVersions = this.columnHandles.stream().filter(HBaseColumnHandle::isVersioned)
+                .mapToInt(HBaseColumnHandle::getMaxVersions).max().orElse(1);
 
         this.columnTypes = columnHandles.stream().map(ch -> ((HBaseColumnHandle) ch).getColumnType())
                 .collect(Collectors.toList());
 
-        this.connection = clientManager.createConnection();
+        // Cursors read with the connection shared by the catalog, its region locations are warmed up and kept
+        this.connection = clientManager.getConnection();
     }
 
     @Override
@@ -99,7 +162,8 @@ public class HBaseRecordSet implements RecordSet {
             if (Utils.isBatchGet(this.hBaseSplit.getConstraint(), hBaseSplit.getRowKeyName())) {
 
                 return new HBaseGetRecordCursor(this.columnHandles,
-                        this.hBaseSplit, this.fieldIndexMap, this.connection);
+                        this.hBaseSplit, this.fieldIndexMap, this.connection, this.cellTimeRange,
+                        this.readVersions, this.rowSampleRatio, getRowKeySalt());
             }
 
             // client side region scanner
@@ -135,7 +199,7 @@ public class HBaseRecordSet implements RecordSet {
                 log.info("Get regionInfo by regionIndex{ " + hBaseSplit.getRegionIndex()
                         + " }, used " + (System.currentTimeMillis() - startTime) + " mill seconds.");
                 return new HBaseScanRecordCursorClientSide(this.columnHandles,
-                        this.hBaseSplit, scanner, this.fieldIndexMap, connection);
+                        this.hBaseSplit, scanner, this.fieldIndexMap, getRowKeySalt());
             }
             // Normal scan
             else {
@@ -149,28 +213,13 @@ public class HBaseRecordSet implements RecordSet {
                 }
 
                 return new HBaseScanRecordCursor(this.columnHandles, this.hBaseSplit,
-                        this.resultScanner, this.fieldIndexMap, this.connection);
+                        this.resultScanner, this.fieldIndexMap, getRowKeySalt());
             }
         } catch (Exception ex) {
             log.error(ex, ex.getMessage());
             log.info("错误信息------》{"+ex.getMessage()+"}");
-            if (connection != null) {
-                try {
-                    connection.close();
-                } catch (Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-            }
             return null;
-        } /*if we close the connection here, table object will be unusable
-        finally {
-            if (connection != null)
-                try {
-                    connection.close();
-                } catch (Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-        }*/
+        }
     }
 
     private ClientSideRegionScanner createClientSideRegionScannerWithExceptionHandle(
@@ -184,61 +233,18 @@ public class HBaseRecordSet implements RecordSet {
         }
     }
 
+    /**
+     * Create the filter of one condition, the value is compared in the order of its type
+     * so range conditions on numeric columns can be checked by region servers.
+     *
+     * @param condition condition
+     * @return filter
+     */
     private Filter getFilter(ConditionInfo condition) {
-
-        CompareFilter.CompareOp operator;
-        String value = String.valueOf(condition.getValue());
-        /**
-         * 根据类型进行一个转换
-         */
-        String string = condition.getType().toString();
-
-        switch (string) {
-            case "integer":
-                condition.setValue(Integer.valueOf(value));
-                break;
-            case "bigint":
-                condition.setValue(BigInteger.valueOf(Long.valueOf(value)));
-                break;
-            case "double":
-                condition.setValue(Double.valueOf(value));
-                break;
-            default:
-                condition.setValue(value);
-                break;
-        }
-
-
-        switch (condition.getOperator()) {
-            case GT:
-                operator = CompareFilter.CompareOp.GREATER;
-                break;
-            case GE:
-                operator = CompareFilter.CompareOp.GREATER_OR_EQUAL;
-                break;
-            case LT:
-                operator = CompareFilter.CompareOp.LESS;
-                break;
-            case LE:
-                operator = CompareFilter.CompareOp.LESS_OR_EQUAL;
-                break;
-            default:
-                operator = CompareFilter.CompareOp.EQUAL;
-                break;
-        }
-
-
-
-        SingleColumnValueFilter f = new SingleColumnValueFilter(
+        return HBaseValueFilters.create(
                 Bytes.toBytes(getFamilyByColumnName(condition.getColName(), columnHandles)),
                 Bytes.toBytes(condition.getColName()),
-                operator,
-                condition.valueToBytes());
-        f.setFilterIfMissing(true);
-
-        return f;
-
-
+                condition);
     }
 
     private List<String>getRowkey(List<HBaseColumnHandle> hBaseColumnHandles){
@@ -255,20 +261,26 @@ public class HBaseRecordSet implements RecordSet {
 
     private String getFamilyByColumnName(String columnName, List<HBaseColumnHandle> columns) {
         Objects.requireNonNull(columnName, "column name is null");
-        HBaseColumnHandle column = columns.stream()
+        HBaseColumnHandle column = Stream.concat(columns.stream(), constraintColumns.stream())
                 .filter(col -> columnName.equals(col.getColumnName())).findAny().orElse(null);
         if (column != null) {
             return column.getFamily();
         } else {
-            return "unknown_family";
+            return UNKNOWN_FAMILY;
         }
     }
 
-    private Scan getScanFromPrestoConstraint() {
+    Scan getScanFromPrestoConstraint() {
 
         List<String> rowkey = this.getRowkey(columnHandles.stream().map(ch -> (HBaseColumnHandle) ch).collect(Collectors.toList()));
 
-        Iterator<ConditionInfo> iterator = this.hBaseSplit.getConstraint().iterator();
+        // Text searches on rowKey, from rowKey functions like substr(rowKey, 1, 8) = 'xxx', become row filters
+        List<ConditionInfo> rowKeyPatterns = this.constraint.stream()
+                .filter(cond -> cond.isPattern() && cond.getColName().equals(hBaseSplit.getRowKeyName()))
+                .collect(Collectors.toList());
+        this.constraint.removeAll(rowKeyPatterns);
+
+        Iterator<ConditionInfo> iterator = this.constraint.iterator();
         while (iterator.hasNext()) {
             ConditionInfo next = iterator.next();
             if(rowkey.contains(next.getColName())){
@@ -284,26 +296,46 @@ public class HBaseRecordSet implements RecordSet {
 //                this.hBaseSplit.getConstraint().remove(conditionInfo);
 //            }
 //        }
-            log.info("this.hBaseSplit.getConstraint()--"+this.hBaseSplit.getConstraint().toString());
+            log.info("this.hBaseSplit.getConstraint()--"+this.constraint.toString());
 
         Scan scan = new Scan().setCaching(10000);
         scan.setLoadColumnFamiliesOnDemand(true);
         scan.setCacheBlocks(true);
 
         // Filter the exactly columns we want
-        // for (HBaseColumnHandle hch : this.columnHandles) {
-        this.columnHandles.forEach(hch -> {
-            if (this.hBaseSplit.getRowKeyName() == null) {
-                scan.addColumn(
-                        Bytes.toBytes(hch.getFamily()), Bytes.toBytes(hch.getColumnName()));
-            } else {
-                if (!this.hBaseSplit.getRowKeyName().equals(hch.getColumnName())) {
-                    scan.addColumn(
-                            Bytes.toBytes(hch.getFamily()), Bytes.toBytes(hch.getColumnName()));
-                }
+        Set<String> wholeFamilies = addColumnsToScan(scan);
+
+        // Columns in conditions are read even if they are not queried, so their families are essential
+        // and region servers only load the other families for rows passing the filters (loadColumnFamiliesOnDemand)
+        this.constraint.forEach(cond -> {
+            String family = getFamilyByColumnName(cond.getColName(), columnHandles);
+            if (!UNKNOWN_FAMILY.equals(family) && !wholeFamilies.contains(family)) {
+                scan.addColumn(Bytes.toBytes(family), Bytes.toBytes(cond.getColName()));
             }
         });
 
+        // Filters on the whole row, region servers seek by the ones on rowKey
+        List<Filter> rowFilters = new ArrayList<>();
+        // TABLESAMPLE BERNOULLI
+        if (rowSampleRatio < 1) {
+            rowFilters.add(new RandomRowFilter((float) rowSampleRatio));
+        }
+        if (rawFilter != null) {
+            try {
+                rowFilters.add(new ParseFilter().parseFilterString(rawFilter));
+            } catch (CharacterCodingException e) {
+                throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "Invalid HBase filter: " + rawFilter, e);
+            }
+        }
+        if (!rowKeyPatterns.isEmpty()) {
+            rowFilters.add(HBaseValueFilters.createRowKeyFilter(rowKeyPatterns));
+        }
+        TableMetaInfo tableMetaInfo = getTableMetaInfo();
+        if (tableMetaInfo != null) {
+            HBaseValueFilters.createFuzzyRowFilter(tableMetaInfo, tableMetaInfo.hasSaltPart(config.isSeperateSaltPart()),
+                    constraint).ifPresent(rowFilters::add);
+        }
+
         FilterList allFilters = new FilterList(FilterList.Operator.MUST_PASS_ALL);
 //        log.info("allFilters------->{"+allFilters.toString()+"}");
         // ---------- Constraint push down ----------
@@ -313,46 +345,228 @@ public class HBaseRecordSet implements RecordSet {
         if (this.columnHandles.size() == 1
                 && this.columnHandles.get(0).getColumnName().equals(this.hBaseSplit.getRowKeyName())) {
             allFilters.addFilter(new FirstKeyOnlyFilter());
+            rowFilters.forEach(allFilters::addFilter);
             scan.setFilter(allFilters);
         } else {
-            Map<String, List<ConditionInfo>> conditions = hBaseSplit.getConstraint().stream()
+            Map<String, List<ConditionInfo>> conditions = constraint.stream()
+                    .filter(cond -> !cond.isPattern())
                     .collect(Collectors.groupingBy(ConditionInfo::getColName));
+            // Text searches must all pass, even on the same column
+            constraint.stream().filter(ConditionInfo::isPattern)
+                    .forEach(cond -> allFilters.addFilter(getFilter(cond)));
+            rowFilters.forEach(allFilters::addFilter);
 
 
 
             // Here is what kind of condition presto can give to us:
             // 1.There can only be an 'and' relationship between different columns
-            // 2.The same column can only be an 'or' relationship
+            // 2.The same column can only be an 'or' relationship between ranges,
+            //   the low and high bound of one range are both required
             for (Map.Entry<String, List<ConditionInfo>> entry : conditions.entrySet()) {
+                List<Filter> rangeFilters = groupByRange(entry.getValue()).stream()
+                        .map(range -> range.size() > 1
+                                ? new FilterList(FilterList.Operator.MUST_PASS_ALL,
+                                        range.stream().map(this::getFilter).collect(Collectors.toList()))
+                                : getFilter(range.get(0)))
+                        .collect(Collectors.toList());
                 // Same column
-                if (entry.getValue().size() > 1) {
-                    List<Filter> columnFilterList = entry.getValue().stream().map(this::getFilter)
-                            .collect(Collectors.toList());
-
-                    FilterList columnFilter = new FilterList(FilterList.Operator.MUST_PASS_ONE, columnFilterList);
-
-                    allFilters.addFilter(columnFilter);
+                if (rangeFilters.size() > 1) {
+                    allFilters.addFilter(new FilterList(FilterList.Operator.MUST_PASS_ONE, rangeFilters));
                 }
                 // different columns
                 else {
-                    allFilters.addFilter(getFilter(entry.getValue().get(0)));
-
+                    allFilters.addFilter(rangeFilters.get(0));
                 }
             }
 
-            if (hBaseSplit.getConstraint().size() >= 1) {
+            if (!allFilters.getFilters().isEmpty()) {
                 scan.setFilter(allFilters);
+            } else {
+                getQualifierPrefixFilter().ifPresent(scan::setFilter);
             }
         }
         // ---------- Constraint push down finished ----------
 
+        // Cursors only take the latest version of single-version columns
+        if (readVersions > 1) {
+            scan.readVersions(readVersions);
+        }
+
+        // Region servers skip the HFiles whose time range metadata is out of this range
+        if (!cellTimeRange.isAllTime()) {
+            try {
+                scan.setTimeRange(cellTimeRange.getMin(), cellTimeRange.getMax());
+            } catch (IOException e) {
+                throw new TrinoException(GENERIC_INTERNAL_ERROR, e.getMessage(), e);
+            }
+        }
+
         if (hBaseSplit.getStartRow() != null && hBaseSplit.getEndRow() != null) {
             scan.withStopRow(Bytes.toBytes(hBaseSplit.getEndRow()));
             scan.withStartRow(Bytes.toBytes(hBaseSplit.getStartRow()));
+        } else {
+            narrowToRowKeyPrefixes(scan, rowKeyPatterns);
         }
         return scan;
     }
 
+    /**
+     * Group the conditions of one column by the range of its domain they come from.
+     * HBaseSplitManager gives the ranges in order and the low bound of a range right before its high bound,
+     * a low bound followed by a high bound is a range, others are ranges by themselves.
+     *
+     * @param conditions conditions of one column
+     * @return conditions of each range, all of them must pass
+     */
+    static List<List<ConditionInfo>> groupByRange(List<ConditionInfo> conditions) {
+        List<List<ConditionInfo>> ranges = new ArrayList<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            ConditionInfo condition = conditions.get(i);
+            if (i + 1 < conditions.size() && isLowBound(condition) && isHighBound(conditions.get(i + 1))) {
+                ranges.add(ImmutableList.of(condition, conditions.get(++i)));
+            } else {
+                ranges.add(ImmutableList.of(condition));
+            }
+        }
+        return ranges;
+    }
+
+    private static boolean isLowBound(ConditionInfo condition) {
+        return condition.getOperator() == Constant.CONDITION_OPER.GT
+                || condition.getOperator() == Constant.CONDITION_OPER.GE;
+    }
+
+    private static boolean isHighBound(ConditionInfo condition) {
+        return condition.getOperator() == Constant.CONDITION_OPER.LT
+                || condition.getOperator() == Constant.CONDITION_OPER.LE;
+    }
+
+    /**
+     * Scan only from the smallest to the largest rowKey prefix instead of the whole table,
+     * the MultiRowRangeFilter skips the gaps between the prefixes.
+     *
+     * @param scan           scan of the whole table
+     * @param rowKeyPatterns text searches on rowKey
+     */
+    private static void narrowToRowKeyPrefixes(Scan scan, List<ConditionInfo> rowKeyPatterns) {
+        List<MultiRowRangeFilter.RowRange> ranges = rowKeyPatterns.stream()
+                .filter(cond -> cond.getOperator() == Constant.CONDITION_OPER.PREFIX)
+                .map(cond -> HBaseValueFilters.prefixRange(String.valueOf(cond.getValue())))
+                .sorted()
+                .collect(Collectors.toList());
+        if (ranges.isEmpty()) {
+            return;
+        }
+        scan.withStartRow(ranges.get(0).getStartRow());
+        // the next of a prefix made of 0xFF bytes is empty, which is the end of the table
+        boolean toEnd = ranges.stream().anyMatch(range -> range.getStopRow().length == 0);
+        if (!toEnd) {
+            scan.withStopRow(ranges.stream().map(MultiRowRangeFilter.RowRange::getStopRow)
+                    .max(Bytes.BYTES_COMPARATOR).get());
+        }
+    }
+
+    /**
+     * Add queried columns to scan. The whole family is requested when most of its columns are queried,
+     * it's cheaper for region servers than matching a long list of qualifiers for every cell,
+     * and cursors discard the qualifiers not queried.
+     *
+     * @param scan scan
+     * @return families added as whole
+     */
+    private Set<String> addColumnsToScan(Scan scan) {
+        Map<String, List<HBaseColumnHandle>> familyColumns = this.columnHandles.stream()
+                .filter(hch -> !hch.isCellTimestamp() && !hch.getColumnName().equals(hBaseSplit.getRowKeyName()))
+                .collect(Collectors.groupingBy(HBaseColumnHandle::getFamily));
+        Map<String, Long> familySizes = config.getFamilyProjectionRatio() < 1
+                ? getFamilySizes() : Collections.emptyMap();
+
+        Set<String> wholeFamilies = new HashSet<>();
+        familyColumns.forEach((family, columns) -> {
+            Long familySize = familySizes.get(family);
+            // Qualifiers of the whole map are unknown until reading
+            boolean hasWholeMap = columns.stream().anyMatch(hch -> hch.isDynamic() && hch.getKeys().isEmpty());
+            if (hasWholeMap
+                    || (familySize != null && columns.size() > familySize * config.getFamilyProjectionRatio())) {
+                scan.addFamily(Bytes.toBytes(family));
+                wholeFamilies.add(family);
+            } else {
+                columns.forEach(hch -> getQualifiers(hch).forEach(qualifier -> scan.addColumn(
+                        Bytes.toBytes(hch.getFamily()), Bytes.toBytes(qualifier))));
+            }
+        });
+        return wholeFamilies;
+    }
+
+    /**
+     * Qualifiers to read of the column, map columns read the qualifiers of keys queried
+     *
+     * @param hch column handle
+     * @return qualifiers
+     */
+    static List<String> getQualifiers(HBaseColumnHandle hch) {
+        if (!hch.isDynamic()) {
+            return Collections.singletonList(hch.getColumnName());
+        }
+        return hch.getKeys().stream().map(key -> hch.getQualifierPrefix() + key).collect(Collectors.toList());
+    }
+
+    /**
+     * When map columns with qualifier prefix are the only columns to read, and no value filters are set,
+     * only the qualifiers with those prefixes are returned by region servers.
+     * The filter is applied to all the cells, so it can't be used together with other columns or filters.
+     *
+     * @return qualifier filter
+     */
+    private Optional<Filter> getQualifierPrefixFilter() {
+        List<HBaseColumnHandle> columns = this.columnHandles.stream()
+                .filter(hch -> !hch.isCellTimestamp() && !hch.getColumnName().equals(hBaseSplit.getRowKeyName()))
+                .collect(Collectors.toList());
+        if (columns.isEmpty() || !constraint.isEmpty()
+                || !columns.stream().allMatch(hch -> hch.isDynamic() && hch.getKeys().isEmpty()
+                && !hch.getQualifierPrefix().isEmpty())) {
+            return Optional.empty();
+        }
+        byte[][] prefixes = columns.stream().map(hch -> Bytes.toBytes(hch.getQualifierPrefix())).toArray(byte[][]::new);
+        if (prefixes.length == 1) {
+            return Optional.of(new ColumnPrefixFilter(prefixes[0]));
+        }
+        return Optional.of(new MultipleColumnPrefixFilter(prefixes));
+    }
+
+    /**
+     * Column count of every family in table json
+     *
+     * @return family -> column count, empty if the table json cannot be read
+     */
+    private Map<String, Long> getFamilySizes() {
+        TableMetaInfo tableMetaInfo = getTableMetaInfo();
+        if (tableMetaInfo == null || tableMetaInfo.getColumns() == null) {
+            return Collections.emptyMap();
+        }
+        return tableMetaInfo.getColumns().stream().filter(col -> !col.isRowKey())
+                .collect(Collectors.groupingBy(ColumnMetaInfo::getFamily, Collectors.counting()));
+    }
+
+    /**
+     * Table meta info of the table json, read once for this split
+     *
+     * @return table meta info, null if the json can't be read
+     */
+    /**
+     * @return salt of the rowKeys if the table has rowKeySaltBuckets
+     */
+    private Optional<HBaseRowKeyGenerator> getRowKeySalt() {
+        return HBaseRowKeyGenerator.create(getTableMetaInfo()).filter(HBaseRowKeyGenerator::isSalted);
+    }
+
+    private TableMetaInfo getTableMetaInfo() {
+        if (tableMetaInfo == null) {
+            tableMetaInfo = clientManager.getTableMetaInfo(hBaseSplit.getSchemaName(), hBaseSplit.getTableName());
+        }
+        return tableMetaInfo;
+    }
+
     private void initFieldIndexMap(List<HBaseColumnHandle> columnHandles) {
         columnHandles.forEach(hch -> fieldIndexMap.put(hch.getColumnName().hashCode(), hch));
     }
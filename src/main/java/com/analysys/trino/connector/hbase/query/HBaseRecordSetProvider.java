@@ -16,12 +16,16 @@ package com.analysys.trino.connector.hbase.query;
 import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
 import com.analysys.trino.connector.hbase.frame.HBaseConnectorId;
 import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseSessionProperties;
+import com.analysys.trino.connector.hbase.meta.HBaseTableHandle;
 import com.analysys.trino.connector.hbase.schedule.HBaseSplit;
+import com.analysys.trino.connector.hbase.utils.Utils;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 import com.google.inject.Inject;
 import io.trino.spi.connector.*;
+import org.apache.hadoop.hbase.io.TimeRange;
 
 
 import java.util.List;
@@ -59,6 +63,14 @@ public class HBaseRecordSetProvider implements ConnectorRecordSetProvider {
             HBaseColumnHandle hch = (HBaseColumnHandle) obj;
             handles.add(hch);
         }
-        return new HBaseRecordSet(hBaseSplit, handles.build(), this.clientManager);
+        // Conditions on _timestamp are checked by presto anyway, pushing them down drops the older cells of rows
+        TimeRange cellTimeRange = HBaseSessionProperties.isCellTimeRangePushdown(session)
+                ? Utils.getCellTimeRange(((HBaseTableHandle) table).getConstraint()) : TimeRange.allTime();
+        if (((HBaseTableHandle) table).getJoin() != null) {
+            return new HBaseJoinRecordSet(hBaseSplit, (HBaseTableHandle) table, handles.build(),
+                    HBaseSessionProperties.getMaxVersions(session), cellTimeRange, this.clientManager);
+        }
+        return new HBaseRecordSet(hBaseSplit, (HBaseTableHandle) table, handles.build(),
+                HBaseSessionProperties.getMaxVersions(session), cellTimeRange, this.clientManager);
     }
 }
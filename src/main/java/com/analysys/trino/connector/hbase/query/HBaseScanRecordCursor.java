@@ -14,12 +14,12 @@
 package com.analysys.trino.connector.hbase.query;
 
 import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
 import com.analysys.trino.connector.hbase.schedule.HBaseSplit;
 import com.analysys.trino.connector.hbase.utils.Constant;
 import com.analysys.trino.connector.hbase.utils.Utils;
 import io.airlift.log.Logger;
 import org.apache.hadoop.hbase.Cell;
-import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.util.Bytes;
@@ -29,6 +29,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
@@ -45,10 +46,9 @@ public class HBaseScanRecordCursor extends HBaseRecordCursor {
     private ResultScanner resultScanner;
     private Iterator iterator;
 
-    private Connection connection = null;
-
     HBaseScanRecordCursor(List<HBaseColumnHandle> columnHandles, HBaseSplit hBaseSplit,
-                          ResultScanner scanner, Map<Integer, HBaseColumnHandle> fieldIndexMap, Connection connection) {
+                          ResultScanner scanner, Map<Integer, HBaseColumnHandle> fieldIndexMap,
+                          Optional<HBaseRowKeyGenerator> rowKeySalt) {
         this.startTime = System.currentTimeMillis();
         this.columnHandles = columnHandles;
         this.fieldIndexMap = fieldIndexMap;
@@ -57,13 +57,12 @@ public class HBaseScanRecordCursor extends HBaseRecordCursor {
                 "RowKeyName cannot be null if you want to query by RowKey");
 
         this.split = hBaseSplit;
+        this.rowKeySalt = rowKeySalt;
         try {
             this.resultScanner = scanner;
             if (resultScanner != null) {
                 this.iterator = resultScanner.iterator();
             }
-
-            this.connection = connection;
         } catch (Exception ex) {
             log.error(ex, ex.getMessage());
             this.close();
@@ -98,21 +97,18 @@ public class HBaseScanRecordCursor extends HBaseRecordCursor {
                 int fieldIndex = 0;
                 for (Cell cell : record.rawCells()) {
                     // Fetch the index and type of column by column name
-                    HBaseColumnHandle hch = fieldIndexMap.get(Bytes.toString(
-                            Utils.arrayCopy(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength())).hashCode());
+                    HBaseColumnHandle hch = getColumnHandle(cell, Bytes.toString(
+                            Utils.arrayCopy(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength())));
                     if (hch == null) {
                         continue;
                     }
 
                     // Set value to fields array
-                    fields[fieldIndex] = matchValue(hch.getColumnType(),
-                            Utils.arrayCopy(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength()));
-                    // Store values in an array for queries
-                    ordinalPositionAndFieldsIndexMap.put(hch.getOrdinalPosition(), fieldIndex);
-                    fieldIndex++;
+                    fieldIndex = setCellValue2FieldsAry(cell, hch, fieldIndex);
                 }
-                // Handle the value of rowKey column
-                setRowKeyValue2FieldsAry(record, fieldIndex);
+                // Handle the value of rowKey column and _timestamp column
+                fieldIndex = setRowKeyValue2FieldsAry(record, fieldIndex);
+                setCellTimestampValue2FieldsAry(record, fieldIndex);
                 return true;
             }
         } catch (Exception ex) {
@@ -146,14 +142,6 @@ public class HBaseScanRecordCursor extends HBaseRecordCursor {
                 log.warn(e.getMessage(), e);
             }
         }
-
-        if (this.connection != null) {
-            try {
-                this.connection.close();
-            } catch (Exception e) {
-                log.error(e.getMessage(), e);
-            }
-        }
     }
 
     @Override
@@ -14,13 +14,13 @@
 package com.analysys.trino.connector.hbase.query;
 
 import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
 import com.analysys.trino.connector.hbase.schedule.HBaseSplit;
 import com.analysys.trino.connector.hbase.utils.Constant;
 import com.analysys.trino.connector.hbase.utils.Utils;
 import io.airlift.log.Logger;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.client.ClientSideRegionScanner;
-import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.util.Bytes;
 
@@ -29,6 +29,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
@@ -43,10 +44,11 @@ class HBaseScanRecordCursorClientSide extends HBaseRecordCursor {
 
     private Iterator iterator;
 
-    private Connection connection = null;
+    private ClientSideRegionScanner scanner;
 
     HBaseScanRecordCursorClientSide(List<HBaseColumnHandle> columnHandles, HBaseSplit hBaseSplit,
-                                    ClientSideRegionScanner scanner, Map<Integer, HBaseColumnHandle> fieldIndexMap, Connection connection) {
+                                    ClientSideRegionScanner scanner, Map<Integer, HBaseColumnHandle> fieldIndexMap,
+                                    Optional<HBaseRowKeyGenerator> rowKeySalt) {
         this.startTime = System.currentTimeMillis();
         this.columnHandles = columnHandles;
         this.fieldIndexMap = fieldIndexMap;
@@ -54,10 +56,11 @@ class HBaseScanRecordCursorClientSide extends HBaseRecordCursor {
                 "RowKeyName cannot be null if you want to query by RowKey");
 
         this.split = hBaseSplit;
+        this.rowKeySalt = rowKeySalt;
         try {
+            this.scanner = scanner;
             if (scanner != null)
                 this.iterator = scanner.iterator();
-            this.connection = connection;
         } catch (Exception ex) {
             log.error(ex, ex.getMessage());
             this.close();
@@ -90,21 +93,18 @@ class HBaseScanRecordCursorClientSide extends HBaseRecordCursor {
                 int fieldIndex = 0;
                 for (Cell cell : record.rawCells()) {
                     // Fetch the index and type of column by column name
-                    HBaseColumnHandle hch = fieldIndexMap.get(Bytes.toString(
-                            Utils.arrayCopy(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength())).hashCode());
+                    HBaseColumnHandle hch = getColumnHandle(cell, Bytes.toString(
+                            Utils.arrayCopy(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength())));
                     if (hch == null) {
                         continue;
                     }
 
                     // Set value to fields array
-                    fields[fieldIndex] = matchValue(hch.getColumnType(),
-                            Utils.arrayCopy(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength()));
-                    // Store values in an array for queries
-                    ordinalPositionAndFieldsIndexMap.put(hch.getOrdinalPosition(), fieldIndex);
-                    fieldIndex++;
+                    fieldIndex = setCellValue2FieldsAry(cell, hch, fieldIndex);
                 }
-                // Handle the value of rowKey column
-                setRowKeyValue2FieldsAry(record, fieldIndex);
+                // Handle the value of rowKey column and _timestamp column
+                fieldIndex = setRowKeyValue2FieldsAry(record, fieldIndex);
+                setCellTimestampValue2FieldsAry(record, fieldIndex);
                 return true;
             }
         } catch (Exception ex) {
@@ -130,9 +130,9 @@ class HBaseScanRecordCursorClientSide extends HBaseRecordCursor {
     }
 
     public void close() {
-        if (this.connection != null)
+        if (this.scanner != null)
             try {
-                this.connection.close();
+                this.scanner.close();
             } catch (Exception e) {
                 log.error(e.getMessage(), e);
             }
@@ -0,0 +1,405 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
+import com.analysys.trino.connector.hbase.meta.TableMetaInfo;
+import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.analysys.trino.connector.hbase.utils.Constant;
+import com.analysys.trino.connector.hbase.utils.Constant.CONDITION_OPER;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.type.DecimalType;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.CompareOperator;
+import org.apache.hadoop.hbase.client.ClientUtil;
+import org.apache.hadoop.hbase.filter.BigDecimalComparator;
+import org.apache.hadoop.hbase.filter.BinaryComparator;
+import org.apache.hadoop.hbase.filter.BinaryPrefixComparator;
+import org.apache.hadoop.hbase.filter.ByteArrayComparable;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FuzzyRowFilter;
+import org.apache.hadoop.hbase.filter.LongComparator;
+import org.apache.hadoop.hbase.filter.MultiRowRangeFilter;
+import org.apache.hadoop.hbase.filter.RegexStringComparator;
+import org.apache.hadoop.hbase.filter.RowFilter;
+import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
+import org.apache.hadoop.hbase.filter.SubstringComparator;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.analysys.trino.connector.hbase.utils.Constant.BIGINT_CLASS;
+import static com.analysys.trino.connector.hbase.utils.Constant.DOUBLE_CLASS;
+import static com.analysys.trino.connector.hbase.utils.Constant.INTEGER_CLASS;
+import static com.analysys.trino.connector.hbase.utils.Constant.TIMESTAMP_CLASS;
+
+/**
+ * Build column value filters that compare in the numeric order of the value encoding.
+ * <p>
+ * Columns are written by Bytes.toBytes(value), the lexicographic order of those bytes
+ * is not the numeric order for negative numbers and doubles:
+ * <ul>
+ * <li>bigint / timestamp: compared by LongComparator on the region server</li>
+ * <li>decimal: compared by BigDecimalComparator on the region server</li>
+ * <li>int / double: HBase has no comparator for them, so the range is split at the sign bit
+ * into lexicographic ranges which only need BinaryComparator</li>
+ * </ul>
+ * Text searches (LIKE, regexp_like, contains) use prefix, substring and regex comparators.
+ */
+final class HBaseValueFilters {
+
+    private static final byte[] INT_POSITIVE_MAX = Bytes.toBytes(Integer.MAX_VALUE);
+    private static final byte[] INT_NEGATIVE_MIN = Bytes.toBytes(Integer.MIN_VALUE);
+    /**
+     * Raw bits of doubles: 0x00.. ~ 0x7F.. are positive, 0x80.. ~ 0xFF.. are negative
+     */
+    private static final byte[] DOUBLE_POSITIVE_MAX = Bytes.toBytes(Long.MAX_VALUE);
+    private static final byte[] DOUBLE_NEGATIVE_ZERO = Bytes.toBytes(-0.0d);
+    private static final byte[] DOUBLE_POSITIVE_ZERO = Bytes.toBytes(0.0d);
+
+    private HBaseValueFilters() {
+    }
+
+    /**
+     * Create the filter of one condition.
+     *
+     * @param family    column family
+     * @param qualifier column qualifier
+     * @param condition condition
+     * @return filter
+     */
+    static Filter create(byte[] family, byte[] qualifier, ConditionInfo condition) {
+        if (condition.isPattern()) {
+            return patternFilter(family, qualifier, condition);
+        }
+        Type type = condition.getType();
+        CompareOperator operator = toCompareOperator(condition);
+        Class typeClass = type.getClass();
+
+        if (typeClass.equals(BIGINT_CLASS) || typeClass.equals(TIMESTAMP_CLASS)) {
+            return columnFilter(family, qualifier, operator, new LongComparator(condition.valueToLong()));
+        } else if (type instanceof DecimalType) {
+            return columnFilter(family, qualifier, operator, new BigDecimalComparator(condition.valueToBigDecimal()));
+        } else if (typeClass.equals(INTEGER_CLASS)) {
+            return intFilter(family, qualifier, operator, (int) condition.valueToLong());
+        } else if (typeClass.equals(DOUBLE_CLASS)) {
+            return doubleFilter(family, qualifier, operator, condition.valueToDouble());
+        } else {
+            return columnFilter(family, qualifier, operator, new BinaryComparator(condition.valueToBytes()));
+        }
+    }
+
+    /**
+     * Text searches are done by comparators on the raw bytes of the string.
+     * SubstringComparator ignores case, it may keep more rows than LIKE, presto checks them again.
+     */
+    private static Filter patternFilter(byte[] family, byte[] qualifier, ConditionInfo condition) {
+        return columnFilter(family, qualifier, CompareOperator.EQUAL, patternComparator(condition));
+    }
+
+    /**
+     * Filter on rowKey by text searches. PREFIX conditions on rowKey are alternatives, they are merged into
+     * one MultiRowRangeFilter so region servers seek from one prefix to the next, other conditions must all pass.
+     * Prefixes which must all pass are merged into alternatives before, by Utils.andRowKeyConditions.
+     *
+     * @param conditions text search conditions on rowKey
+     * @return filter
+     */
+    static Filter createRowKeyFilter(List<ConditionInfo> conditions) {
+        FilterList filters = new FilterList(FilterList.Operator.MUST_PASS_ALL);
+        List<MultiRowRangeFilter.RowRange> ranges = conditions.stream()
+                .filter(cond -> cond.getOperator() == CONDITION_OPER.PREFIX)
+                .map(cond -> prefixRange(String.valueOf(cond.getValue())))
+                .collect(Collectors.toList());
+        if (!ranges.isEmpty()) {
+            filters.addFilter(new MultiRowRangeFilter(ranges));
+        }
+        conditions.stream().filter(cond -> cond.getOperator() != CONDITION_OPER.PREFIX)
+                .forEach(cond -> filters.addFilter(new RowFilter(CompareOperator.EQUAL, patternComparator(cond))));
+        return filters;
+    }
+
+    /**
+     * FuzzyRowFilter for rowKeys made of fixed-width columns, like salt|date|userId with rowKeyFormat 'date:8,userId:10'.
+     * Columns in EQ / IN conditions are fixed bytes of the fuzzy keys and the others are any bytes,
+     * so region servers seek to the next possible rowKey instead of reading every row,
+     * even if the leading columns are not in conditions and we can't make a startKey.
+     *
+     * @param tableMetaInfo table meta info
+     * @param saltPart      whether rowKey starts with a one-char salt and the separator
+     * @param conditions    conditions of the split
+     * @return filter, empty if rowKey is not made of fixed-width columns, or none or all of them are in conditions
+     */
+    static Optional<Filter> createFuzzyRowFilter(TableMetaInfo tableMetaInfo, boolean saltPart,
+                                                 List<ConditionInfo> conditions) {
+        List<Pair<byte[], byte[]>> fuzzyKeys = getFuzzyKeys(tableMetaInfo, saltPart, conditions);
+        return fuzzyKeys.isEmpty() ? Optional.empty() : Optional.of(new FuzzyRowFilter(fuzzyKeys));
+    }
+
+    /**
+     * @return pairs of fuzzy key and mask, mask byte 0 means fixed and 1 means any byte
+     */
+    static List<Pair<byte[], byte[]>> getFuzzyKeys(TableMetaInfo tableMetaInfo, boolean saltPart,
+                                                   List<ConditionInfo> conditions) {
+        List<String> fields = tableMetaInfo.getRowKeyFields();
+        List<Integer> widths = tableMetaInfo.getRowKeyFieldWidths();
+        if (widths.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // generated rowKeys have padded and reversed columns
+        Optional<HBaseRowKeyGenerator> generator = tableMetaInfo.isRowKeyGenerated()
+                ? HBaseRowKeyGenerator.create(tableMetaInfo) : Optional.empty();
+        // values of each column, null means any bytes
+        List<List<byte[]>> fieldValues = new ArrayList<>();
+        int keyCount = 1;
+        for (int i = 0; i < fields.size(); i++) {
+            int width = widths.get(i);
+            String field = fields.get(i);
+            // values not as wide as the column can't be in rowKey
+            List<byte[]> values = conditions.stream()
+                    .filter(cond -> cond.getColName().equals(field) && cond.getOperator() == CONDITION_OPER.EQ)
+                    .map(cond -> generator.isPresent()
+                            ? generator.get().encodeField(cond).map(Bytes::toBytes).orElse(new byte[0])
+                            : rowKeyFieldBytes(cond))
+                    .filter(bytes -> bytes.length == width)
+                    .collect(Collectors.toList());
+            if (values.isEmpty() || keyCount * values.size() > Constant.FUZZY_ROW_KEY_MAX_COUNT) {
+                fieldValues.add(null);
+            } else {
+                keyCount *= values.size();
+                fieldValues.add(values);
+            }
+        }
+        // startKeys have been made by the split manager if all columns are in conditions
+        if (fieldValues.stream().allMatch(Objects::isNull) || fieldValues.stream().noneMatch(Objects::isNull)) {
+            return new ArrayList<>();
+        }
+
+        byte[] separator = Bytes.toBytes(tableMetaInfo.getRowKeySeparator());
+        List<Pair<byte[], byte[]>> fuzzyKeys = new ArrayList<>();
+        fuzzyKeys.add(new Pair<>(new byte[0], new byte[0]));
+        if (saltPart) {
+            fuzzyKeys = appendFuzzyPart(fuzzyKeys, null, 1);
+            fuzzyKeys = appendFuzzyPart(fuzzyKeys, ImmutableList.of(separator), separator.length);
+        }
+        int lastFixed = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                fuzzyKeys = appendFuzzyPart(fuzzyKeys, ImmutableList.of(separator), separator.length);
+            }
+            fuzzyKeys = appendFuzzyPart(fuzzyKeys, fieldValues.get(i), widths.get(i));
+            if (fieldValues.get(i) != null) {
+                lastFixed = fuzzyKeys.get(0).getFirst().length;
+            }
+        }
+        // the any bytes at the tail are useless
+        int length = lastFixed;
+        return fuzzyKeys.stream()
+                .map(key -> new Pair<>(Arrays.copyOf(key.getFirst(), length), Arrays.copyOf(key.getSecond(), length)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Append a part to every fuzzy key
+     */
+    private static List<Pair<byte[], byte[]>> appendFuzzyPart(List<Pair<byte[], byte[]>> fuzzyKeys,
+                                                              List<byte[]> values, int width) {
+        List<Pair<byte[], byte[]>> result = new ArrayList<>();
+        for (Pair<byte[], byte[]> key : fuzzyKeys) {
+            if (values == null) {
+                byte[] anyMask = new byte[width];
+                Arrays.fill(anyMask, (byte) 1);
+                result.add(new Pair<>(Bytes.add(key.getFirst(), new byte[width]), Bytes.add(key.getSecond(), anyMask)));
+            } else {
+                values.forEach(value ->
+                        result.add(new Pair<>(Bytes.add(key.getFirst(), value), Bytes.add(key.getSecond(), new byte[width]))));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Bytes of a column in rowKey, which is made of the string values of columns
+     */
+    private static byte[] rowKeyFieldBytes(ConditionInfo condition) {
+        if (condition.getType() instanceof VarcharType) {
+            return condition.valueToBytes();
+        }
+        return Bytes.toBytes(String.valueOf(condition.getValue()));
+    }
+
+    /**
+     * Row range of all the rowKeys starting with prefix
+     *
+     * @param prefix prefix
+     * @return [prefix, the next of prefix)
+     */
+    static MultiRowRangeFilter.RowRange prefixRange(String prefix) {
+        byte[] start = Bytes.toBytes(prefix);
+        byte[] stop = ClientUtil.calculateTheClosestNextRowKeyForPrefix(start);
+        return new MultiRowRangeFilter.RowRange(start, true, stop, false);
+    }
+
+    private static ByteArrayComparable patternComparator(ConditionInfo condition) {
+        String value = String.valueOf(condition.getValue());
+        switch (condition.getOperator()) {
+            case PREFIX:
+                return new BinaryPrefixComparator(Bytes.toBytes(value));
+            case SUBSTRING:
+                return new SubstringComparator(value);
+            default:
+                RegexStringComparator regex = new RegexStringComparator(value, Pattern.DOTALL);
+                regex.setCharset(StandardCharsets.UTF_8);
+                return regex;
+        }
+    }
+
+    private static CompareOperator toCompareOperator(ConditionInfo condition) {
+        switch (condition.getOperator()) {
+            case GT:
+                return CompareOperator.GREATER;
+            case GE:
+                return CompareOperator.GREATER_OR_EQUAL;
+            case LT:
+                return CompareOperator.LESS;
+            case LE:
+                return CompareOperator.LESS_OR_EQUAL;
+            default:
+                return CompareOperator.EQUAL;
+        }
+    }
+
+    /**
+     * Signed int in two's complement: negative values sort after positive values,
+     * the order inside each half is kept.
+     */
+    private static Filter intFilter(byte[] family, byte[] qualifier, CompareOperator operator, int value) {
+        byte[] bytes = Bytes.toBytes(value);
+        switch (operator) {
+            case GREATER:
+            case GREATER_OR_EQUAL:
+                if (value >= 0) {
+                    return and(binaryFilter(family, qualifier, operator, bytes),
+                            binaryFilter(family, qualifier, CompareOperator.LESS_OR_EQUAL, INT_POSITIVE_MAX));
+                }
+                return or(binaryFilter(family, qualifier, operator, bytes),
+                        binaryFilter(family, qualifier, CompareOperator.LESS_OR_EQUAL, INT_POSITIVE_MAX));
+            case LESS:
+            case LESS_OR_EQUAL:
+                if (value >= 0) {
+                    return or(binaryFilter(family, qualifier, operator, bytes),
+                            binaryFilter(family, qualifier, CompareOperator.GREATER_OR_EQUAL, INT_NEGATIVE_MIN));
+                }
+                return and(binaryFilter(family, qualifier, operator, bytes),
+                        binaryFilter(family, qualifier, CompareOperator.GREATER_OR_EQUAL, INT_NEGATIVE_MIN));
+            default:
+                return binaryFilter(family, qualifier, operator, bytes);
+        }
+    }
+
+    /**
+     * IEEE 754 double in sign-magnitude: raw bits of positive values sort like the values,
+     * raw bits of negative values sort in reverse order and after all positive values.
+     */
+    private static Filter doubleFilter(byte[] family, byte[] qualifier, CompareOperator operator, double value) {
+        if (value == 0.0d) {
+            return doubleZeroFilter(family, qualifier, operator);
+        }
+        byte[] bytes = Bytes.toBytes(value);
+        switch (operator) {
+            case GREATER:
+            case GREATER_OR_EQUAL:
+                if (value > 0) {
+                    return and(binaryFilter(family, qualifier, operator, bytes),
+                            binaryFilter(family, qualifier, CompareOperator.LESS_OR_EQUAL, DOUBLE_POSITIVE_MAX));
+                }
+                // bigger negative values have smaller raw bits, all positive values are smaller than them
+                return binaryFilter(family, qualifier, reverse(operator), bytes);
+            case LESS:
+            case LESS_OR_EQUAL:
+                if (value > 0) {
+                    return or(binaryFilter(family, qualifier, operator, bytes),
+                            binaryFilter(family, qualifier, CompareOperator.GREATER_OR_EQUAL, DOUBLE_NEGATIVE_ZERO));
+                }
+                return binaryFilter(family, qualifier, reverse(operator), bytes);
+            default:
+                return binaryFilter(family, qualifier, operator, bytes);
+        }
+    }
+
+    /**
+     * 0.0 and -0.0 are equal as numbers but have different raw bits.
+     */
+    private static Filter doubleZeroFilter(byte[] family, byte[] qualifier, CompareOperator operator) {
+        switch (operator) {
+            case GREATER:
+                return and(binaryFilter(family, qualifier, CompareOperator.GREATER, DOUBLE_POSITIVE_ZERO),
+                        binaryFilter(family, qualifier, CompareOperator.LESS_OR_EQUAL, DOUBLE_POSITIVE_MAX));
+            case GREATER_OR_EQUAL:
+                return binaryFilter(family, qualifier, CompareOperator.LESS_OR_EQUAL, DOUBLE_NEGATIVE_ZERO);
+            case LESS:
+                return binaryFilter(family, qualifier, CompareOperator.GREATER, DOUBLE_NEGATIVE_ZERO);
+            case LESS_OR_EQUAL:
+                return or(binaryFilter(family, qualifier, CompareOperator.GREATER_OR_EQUAL, DOUBLE_NEGATIVE_ZERO),
+                        binaryFilter(family, qualifier, CompareOperator.EQUAL, DOUBLE_POSITIVE_ZERO));
+            default:
+                return or(binaryFilter(family, qualifier, CompareOperator.EQUAL, DOUBLE_NEGATIVE_ZERO),
+                        binaryFilter(family, qualifier, CompareOperator.EQUAL, DOUBLE_POSITIVE_ZERO));
+        }
+    }
+
+    private static CompareOperator reverse(CompareOperator operator) {
+        switch (operator) {
+            case GREATER:
+                return CompareOperator.LESS;
+            case GREATER_OR_EQUAL:
+                return CompareOperator.LESS_OR_EQUAL;
+            case LESS:
+                return CompareOperator.GREATER;
+            case LESS_OR_EQUAL:
+                return CompareOperator.GREATER_OR_EQUAL;
+            default:
+                return operator;
+        }
+    }
+
+    private static Filter and(Filter left, Filter right) {
+        return new FilterList(FilterList.Operator.MUST_PASS_ALL, left, right);
+    }
+
+    private static Filter or(Filter left, Filter right) {
+        return new FilterList(FilterList.Operator.MUST_PASS_ONE, left, right);
+    }
+
+    private static Filter binaryFilter(byte[] family, byte[] qualifier, CompareOperator operator, byte[] value) {
+        return columnFilter(family, qualifier, operator, new BinaryComparator(value));
+    }
+
+    private static Filter columnFilter(byte[] family, byte[] qualifier,
+                                       CompareOperator operator, ByteArrayComparable comparator) {
+        SingleColumnValueFilter f = new SingleColumnValueFilter(family, qualifier, operator, comparator);
+        f.setFilterIfMissing(true);
+        return f;
+    }
+}
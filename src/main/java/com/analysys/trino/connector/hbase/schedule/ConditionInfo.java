@@ -14,7 +14,9 @@
 package com.analysys.trino.connector.hbase.schedule;
 
 import com.analysys.trino.connector.hbase.utils.Constant;
+import com.analysys.trino.connector.hbase.utils.Utils;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
@@ -69,6 +71,19 @@ public class ConditionInfo {
         return type;
     }
 
+    /**
+     * Whether this is a text search rather than a comparison.
+     * Text searches on the same column must all pass while comparisons on the same column are alternatives.
+     *
+     * @return true for PREFIX, SUBSTRING, REGEX
+     */
+    @JsonIgnore
+    public boolean isPattern() {
+        return operator == Constant.CONDITION_OPER.PREFIX
+                || operator == Constant.CONDITION_OPER.SUBSTRING
+                || operator == Constant.CONDITION_OPER.REGEX;
+    }
+
     public byte[] valueToBytes() {
         if (type.getClass().equals(BigintType.BIGINT.getClass())) {
             if (value.getClass().equals(Integer.class)) {
@@ -83,25 +98,57 @@ public class ConditionInfo {
         } else if (type.getClass().equals(DoubleType.DOUBLE.getClass())) {
             return Bytes.toBytes((Double) value);
         } else if (type.getClass().equals(VarcharType.VARCHAR.getClass())) {
-            return Bytes.toBytes(String.valueOf(value));
+            // Slice is sent to workers as a base64 string
+            if (value instanceof Slice) {
+                return ((Slice) value).getBytes();
+            }
+            return Bytes.toBytes(Utils.base(String.valueOf(value)));
         }
         // Boolean is stored as int value like 0:false 1:true.
         // So we have to convert it to int here.
         else if (type.getClass().equals(BooleanType.BOOLEAN.getClass())) {
+            if (value instanceof Boolean) {
+                return Bytes.toBytes((Boolean) value ? 1 : 0);
+            }
             return Bytes.toBytes((Integer) value);
         } else if (type.getClass().getSuperclass().equals(DecimalType.class)) {
-            if (value.getClass().equals(Integer.class)) {
-                return Bytes.toBytes(new BigDecimal(String.valueOf((Integer) value / 1000.0))
-                        .setScale(3, BigDecimal.ROUND_HALF_UP));
-            } else {
-                return Bytes.toBytes(new BigDecimal(String.valueOf((Long) value / 1000.0))
-                        .setScale(3, BigDecimal.ROUND_HALF_UP));
-            }
+            return Bytes.toBytes(valueToBigDecimal());
+        } else if (type.getClass().equals(TimestampType.TIMESTAMP_MILLIS.getClass())) {
+            return Bytes.toBytes(valueToLong());
         } else {
             return Bytes.toBytes(String.valueOf(value));
         }
     }
 
+    /**
+     * The value of a bigint / int / timestamp condition as long.
+     * Jackson deserializes small numbers as Integer after the split has been sent to the worker.
+     *
+     * @return long value
+     */
+    public long valueToLong() {
+        return ((Number) value).longValue();
+    }
+
+    /**
+     * The value of a double condition.
+     *
+     * @return double value
+     */
+    public double valueToDouble() {
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * The value of a short decimal condition, presto gives us the unscaled value here.
+     * Conditions on long decimals are not pushed down, see HBaseSplitManager.canPushDown.
+     *
+     * @return decimal value with the scale of the column type
+     */
+    public BigDecimal valueToBigDecimal() {
+        return BigDecimal.valueOf(valueToLong(), ((DecimalType) type).getScale());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.schedule;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The way to read a table chosen by HBaseAccessPlanner, and why
+ */
+public class HBaseAccessPlan {
+
+    public enum Path {
+        // get rows by rowKeys
+        BATCH_GET,
+        // scan from the smallest to the largest rowKey, seeking by MultiRowRangeFilter
+        RANGE_SCAN,
+        // scan by region servers
+        SCAN,
+        // scan the HFiles of a snapshot by ClientSideRegionScanner
+        SNAPSHOT_SCAN
+    }
+
+    private final Path path;
+    private final String reason;
+
+    @JsonCreator
+    public HBaseAccessPlan(@JsonProperty("path") Path path, @JsonProperty("reason") String reason) {
+        this.path = requireNonNull(path, "path is null");
+        this.reason = requireNonNull(reason, "reason is null");
+    }
+
+    @JsonProperty
+    public Path getPath() {
+        return path;
+    }
+
+    @JsonProperty
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HBaseAccessPlan that = (HBaseAccessPlan) o;
+        return path == that.path && Objects.equals(reason, that.reason);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, reason);
+    }
+
+    @Override
+    public String toString() {
+        return path + "(" + reason + ")";
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.schedule;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseConfig;
+import com.analysys.trino.connector.hbase.meta.HBaseRegionStats;
+import com.analysys.trino.connector.hbase.meta.HBaseTableHandle;
+import io.airlift.log.Logger;
+import io.airlift.slice.Slice;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static com.analysys.trino.connector.hbase.utils.Constant.BATCHGET_COST_BYTES;
+
+/**
+ * Choose the way to read a table by the estimated bytes to read, from the rowKeys in conditions and region sizes:
+ * <ul>
+ * <li>rowKey = 'x' or rowKey in (...) are got one by one, each get reads a block randomly.
+ * When there are so many rowKeys that scanning the regions between the smallest and largest ones reads less,
+ * they are scanned as a range with MultiRowRangeFilter seeking to each rowKey.</li>
+ * <li>Other queries scan the regions in rowKey range by region servers. Scans reading more than
+ * clientside-querymode-min-size read HFiles of a snapshot directly if client side scan is enabled,
+ * so do the tables in clientside-querymode-tablenames.</li>
+ * </ul>
+ */
+public class HBaseAccessPlanner {
+
+    private static final Logger log = Logger.get(HBaseAccessPlanner.class);
+
+    private final HBaseClientManager clientManager;
+    private final HBaseConfig config;
+
+    public HBaseAccessPlanner(HBaseClientManager clientManager) {
+        this.clientManager = clientManager;
+        this.config = clientManager.getConfig();
+    }
+
+    /**
+     * @param tableHandle table handle with the conditions pushed down
+     * @return access plan
+     */
+    public HBaseAccessPlan plan(HBaseTableHandle tableHandle) {
+        String schemaName = tableHandle.getSchemaTableName().getSchemaName();
+        String tableName = tableHandle.getSchemaTableName().getTableName();
+        List<String> rowKeys = getRowKeys(tableHandle.getConstraint());
+        if (rowKeys.isEmpty() && isClientSideRegionScanTable(schemaName, tableName)) {
+            return new HBaseAccessPlan(HBaseAccessPlan.Path.SNAPSHOT_SCAN,
+                    "listed in clientside-querymode-tablenames");
+        }
+        // Region sizes only make a difference to rowKeys and to client side scan
+        if (rowKeys.isEmpty() && !config.isEnableClientSideScan()) {
+            return new HBaseAccessPlan(HBaseAccessPlan.Path.SCAN, "no rowKeys");
+        }
+        List<HBaseRegionStats> regions = clientManager.getRegionStats(schemaName, tableName);
+        byte[][] span = getRowKeySpan(tableHandle.getConstraint());
+        HBaseAccessPlan plan = choose(rowKeys, regions, span[0], span[1], config.isEnableClientSideScan(),
+                config.getClientSideQueryModeMinSize());
+        log.info("Access plan of " + tableHandle.getSchemaTableName() + " is " + plan);
+        return plan;
+    }
+
+    /**
+     * @param rowKeys         rowKeys in EQ conditions
+     * @param regions         region stats of table, empty if unknown
+     * @param start           start row of scan, empty for the start of table
+     * @param stop            stop row of scan, empty for the end of table
+     * @param snapshotEnabled whether client side scan is enabled
+     * @param snapshotMinSize scans reading more bytes than this use client side scan
+     * @return access plan
+     */
+    static HBaseAccessPlan choose(List<String> rowKeys, List<HBaseRegionStats> regions, byte[] start, byte[] stop,
+                                  boolean snapshotEnabled, long snapshotMinSize) {
+        if (!rowKeys.isEmpty()) {
+            long getBytes = rowKeys.size() * BATCHGET_COST_BYTES;
+            if (regions.isEmpty()) {
+                return new HBaseAccessPlan(HBaseAccessPlan.Path.BATCH_GET,
+                        rowKeys.size() + " rowKeys, region sizes unknown");
+            }
+            List<String> sorted = rowKeys.stream().sorted().collect(Collectors.toList());
+            byte[] first = Bytes.toBytes(sorted.get(0));
+            byte[] afterLast = Bytes.add(Bytes.toBytes(sorted.get(sorted.size() - 1)), new byte[]{0});
+            long scanBytes = estimateScanBytes(regions, first, afterLast);
+            if (scanBytes < getBytes) {
+                return new HBaseAccessPlan(HBaseAccessPlan.Path.RANGE_SCAN, String.format(
+                        "%d rowKeys, scan %d bytes < get %d bytes", rowKeys.size(), scanBytes, getBytes));
+            }
+            return new HBaseAccessPlan(HBaseAccessPlan.Path.BATCH_GET, String.format(
+                    "%d rowKeys, get %d bytes <= scan %d bytes", rowKeys.size(), getBytes, scanBytes));
+        }
+        if (regions.isEmpty()) {
+            return new HBaseAccessPlan(HBaseAccessPlan.Path.SCAN, "region sizes unknown");
+        }
+        long scanBytes = estimateScanBytes(regions, start, stop);
+        if (snapshotEnabled && snapshotMinSize > 0 && scanBytes >= snapshotMinSize) {
+            return new HBaseAccessPlan(HBaseAccessPlan.Path.SNAPSHOT_SCAN, String.format(
+                    "scan %d bytes >= clientside-querymode-min-size %d bytes", scanBytes, snapshotMinSize));
+        }
+        return new HBaseAccessPlan(HBaseAccessPlan.Path.SCAN, String.format("scan %d bytes", scanBytes));
+    }
+
+    /**
+     * @param regions region stats
+     * @param start   start row, empty for the start of table
+     * @param stop    stop row, empty for the end of table
+     * @return bytes of the regions read by the scan from start to stop
+     */
+    public static long estimateScanBytes(List<HBaseRegionStats> regions, byte[] start, byte[] stop) {
+        return regions.stream().filter(region -> region.overlaps(start, stop))
+                .mapToLong(HBaseRegionStats::getSize).sum();
+    }
+
+    /**
+     * @param constraint constraint of table handle
+     * @return values of rowKey in EQ conditions, like rowKey = 'x' or rowKey in (...)
+     */
+    public static List<String> getRowKeys(TupleDomain<ColumnHandle> constraint) {
+        return getRowKeyDomain(constraint)
+                .map(domain -> domain.getValues().getRanges().getOrderedRanges().stream()
+                        .filter(Range::isSingleValue)
+                        .map(range -> ((Slice) range.getSingleValue()).toStringUtf8())
+                        .collect(Collectors.toList()))
+                .orElse(Collections.emptyList());
+    }
+
+    /**
+     * @param constraint constraint of table handle
+     * @return start row included and stop row excluded of the rowKey range in conditions, empty if unbounded
+     */
+    public static byte[][] getRowKeySpan(TupleDomain<ColumnHandle> constraint) {
+        byte[][] span = {HConstants.EMPTY_START_ROW, HConstants.EMPTY_END_ROW};
+        Optional<Domain> domain = getRowKeyDomain(constraint);
+        if (!domain.isPresent() || domain.get().isNone() || domain.get().getValues().isAll()) {
+            return span;
+        }
+        Range range = domain.get().getValues().getRanges().getSpan();
+        if (!range.isLowUnbounded()) {
+            span[0] = Bytes.toBytes(((Slice) range.getLowBoundedValue()).toStringUtf8());
+        }
+        if (!range.isHighUnbounded()) {
+            // the next row of the high bound, so the high bound is in the range even if it's inclusive
+            span[1] = Bytes.add(Bytes.toBytes(((Slice) range.getHighBoundedValue()).toStringUtf8()), new byte[]{0});
+        }
+        return span;
+    }
+
+    private static Optional<Domain> getRowKeyDomain(TupleDomain<ColumnHandle> constraint) {
+        return constraint.getDomains().flatMap(domains -> domains.entrySet().stream()
+                .filter(entry -> ((HBaseColumnHandle) entry.getKey()).isRowKey()
+                        && entry.getValue().getType().getJavaType() == Slice.class)
+                .map(Map.Entry::getValue)
+                .findFirst());
+    }
+
+    /**
+     * check if current table is listed to use ClientSideRegionScanner
+     *
+     * @param schemaName schema name
+     * @param tableName  table name
+     * @return true or false
+     */
+    private boolean isClientSideRegionScanTable(String schemaName, String tableName) {
+        // if we didn't open client side scan, return false
+        if (!config.isEnableClientSideScan() || config.getClientSideQueryModeTableNames() == null) {
+            return false;
+        }
+        List<String> clientSideTables = Arrays.asList(config.getClientSideQueryModeTableNames().split(","));
+        String schemaAndTableName = schemaName + ":" + tableName;
+        return "*".equals(clientSideTables.get(0)) || clientSideTables.contains(schemaAndTableName);
+    }
+}
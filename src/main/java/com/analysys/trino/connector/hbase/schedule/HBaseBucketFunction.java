@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.schedule;
+
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+import io.trino.spi.connector.BucketFunction;
+import io.trino.spi.type.Type;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static io.trino.spi.type.VarcharType.VARCHAR;
+
+/**
+ * Bucket of a row is the region its rowKey falls in, neighbouring regions share a bucket
+ * when there are fewer buckets than regions.
+ * RowKeys of salted tables start with the salt, so rows of a salt go to the regions of that salt.
+ * Salts made by INSERT are computed here too, so a row goes to the bucket of the region it's written to.
+ */
+public class HBaseBucketFunction implements BucketFunction {
+
+    private final byte[][] startKeys;
+    private final int bucketCount;
+    /**
+     * Salted or generated rowKey is made from the partition columns the same way as page sinks
+     */
+    private final Optional<HBaseRowKeyGenerator> rowKeyGenerator;
+    private final List<Type> types;
+    private final int[] channels;
+
+    public HBaseBucketFunction(List<String> regionStartKeys, int bucketCount) {
+        this(regionStartKeys, bucketCount, Optional.empty(), ImmutableList.of(VARCHAR));
+    }
+
+    public HBaseBucketFunction(List<String> regionStartKeys, int bucketCount,
+                               Optional<HBaseRowKeyGenerator> rowKeyGenerator, List<Type> types) {
+        this.startKeys = new byte[regionStartKeys.size()][];
+        for (int i = 0; i < startKeys.length; i++) {
+            startKeys[i] = Bytes.toBytesBinary(regionStartKeys.get(i));
+        }
+        this.bucketCount = bucketCount;
+        this.rowKeyGenerator = rowKeyGenerator;
+        this.types = ImmutableList.copyOf(types);
+        this.channels = IntStream.range(0, types.size()).toArray();
+    }
+
+    /**
+     * @param page     page of the partition columns, the rowKey or the columns it's made of
+     * @param position position
+     * @return bucket
+     */
+    @Override
+    public int getBucket(Page page, int position) {
+        byte[] rowKey;
+        if (rowKeyGenerator.isPresent()) {
+            rowKey = rowKeyGenerator.get().generate(page, position, channels, types);
+        } else {
+            Block block = page.getBlock(0);
+            if (block.isNull(position)) {
+                return 0;
+            }
+            rowKey = VARCHAR.getSlice(block, position).getBytes();
+        }
+        return (int) ((long) getRegion(rowKey) * bucketCount / startKeys.length);
+    }
+
+    int getRegion(byte[] rowKey) {
+        return getRegion(startKeys, rowKey);
+    }
+
+    /**
+     * Index of the last region whose start key is not greater than rowKey
+     *
+     * @param startKeys start keys of regions in order, the first one is empty
+     * @param rowKey    rowKey
+     * @return index of region
+     */
+    public static int getRegion(byte[][] startKeys, byte[] rowKey) {
+        int low = 0;
+        int high = startKeys.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (Bytes.compareTo(startKeys[middle], rowKey) <= 0) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.schedule;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
+import com.google.inject.Inject;
+import io.trino.spi.connector.BucketFunction;
+import io.trino.spi.connector.ConnectorBucketNodeMap;
+import io.trino.spi.connector.ConnectorNodePartitioningProvider;
+import io.trino.spi.connector.ConnectorPartitioningHandle;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.ConnectorTransactionHandle;
+import io.trino.spi.type.Type;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.trino.spi.connector.ConnectorBucketNodeMap.createBucketNodeMap;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Partitions the rows of INSERT by region, so each writer sends large batches to a few region servers.
+ * A bucket for each region, presto assigns the buckets to workers.
+ */
+public class HBaseNodePartitioningProvider implements ConnectorNodePartitioningProvider {
+
+    private final HBaseClientManager clientManager;
+
+    @Inject
+    public HBaseNodePartitioningProvider(HBaseClientManager clientManager) {
+        this.clientManager = requireNonNull(clientManager, "clientManager is null");
+    }
+
+    @Override
+    public Optional<ConnectorBucketNodeMap> getBucketNodeMapping(ConnectorTransactionHandle transactionHandle,
+                                                                 ConnectorSession session,
+                                                                 ConnectorPartitioningHandle partitioningHandle) {
+        HBasePartitioningHandle handle = (HBasePartitioningHandle) partitioningHandle;
+        return Optional.of(createBucketNodeMap(handle.getRegionStartKeys().size()));
+    }
+
+    @Override
+    public BucketFunction getBucketFunction(ConnectorTransactionHandle transactionHandle,
+                                            ConnectorSession session,
+                                            ConnectorPartitioningHandle partitioningHandle,
+                                            List<Type> partitionChannelTypes,
+                                            int bucketCount) {
+        HBasePartitioningHandle handle = (HBasePartitioningHandle) partitioningHandle;
+        Optional<HBaseRowKeyGenerator> rowKeyGenerator = HBaseRowKeyGenerator.create(clientManager.getTableMetaInfo(
+                handle.getSchemaTableName().getSchemaName(), handle.getSchemaTableName().getTableName()));
+        if (rowKeyGenerator.isPresent()) {
+            checkArgument(partitionChannelTypes.size() == rowKeyGenerator.get().getInputColumns().size(),
+                    "INSERT is partitioned by %s, but got %s", rowKeyGenerator.get().getInputColumns(),
+                    partitionChannelTypes);
+        } else {
+            checkArgument(partitionChannelTypes.size() == 1 && VARCHAR.equals(partitionChannelTypes.get(0)),
+                    "INSERT is partitioned by the varchar rowKey, but got %s", partitionChannelTypes);
+        }
+        return new HBaseBucketFunction(handle.getRegionStartKeys(), bucketCount, rowKeyGenerator,
+                partitionChannelTypes);
+    }
+}
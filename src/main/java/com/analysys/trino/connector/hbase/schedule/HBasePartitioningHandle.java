@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.analysys.trino.connector.hbase.schedule;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.connector.ConnectorPartitioningHandle;
+import io.trino.spi.connector.SchemaTableName;
+
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Partitioning of INSERT by the regions of table, rows of each region are sent to the same writers.
+ * Start keys are kept as Bytes.toStringBinary, the first one is empty.
+ */
+public class HBasePartitioningHandle implements ConnectorPartitioningHandle {
+
+    private final SchemaTableName schemaTableName;
+    private final List<String> regionStartKeys;
+
+    @JsonCreator
+    public HBasePartitioningHandle(@JsonProperty("schemaTableName") SchemaTableName schemaTableName,
+                                   @JsonProperty("regionStartKeys") List<String> regionStartKeys) {
+        this.schemaTableName = requireNonNull(schemaTableName, "schemaTableName is null");
+        this.regionStartKeys = ImmutableList.copyOf(requireNonNull(regionStartKeys, "regionStartKeys is null"));
+    }
+
+    @JsonProperty
+    public SchemaTableName getSchemaTableName() {
+        return schemaTableName;
+    }
+
+    @JsonProperty
+    public List<String> getRegionStartKeys() {
+        return regionStartKeys;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HBasePartitioningHandle that = (HBasePartitioningHandle) o;
+        return Objects.equals(schemaTableName, that.schemaTableName)
+                && Objects.equals(regionStartKeys, that.regionStartKeys);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(schemaTableName, regionStartKeys);
+    }
+
+    @Override
+    public String toString() {
+        return "HBasePartitioningHandle{" +
+                "schemaTableName=" + schemaTableName +
+                ", regions=" + regionStartKeys.size() +
+                '}';
+    }
+}
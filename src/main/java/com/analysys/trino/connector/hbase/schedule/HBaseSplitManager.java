@@ -20,6 +20,7 @@ import com.analysys.trino.connector.hbase.utils.Constant;
 import com.analysys.trino.connector.hbase.utils.TimeTicker;
 import com.analysys.trino.connector.hbase.utils.Utils;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
@@ -29,12 +30,20 @@ import io.trino.spi.connector.*;
 import io.trino.spi.predicate.Domain;
 import io.trino.spi.predicate.Range;
 import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.type.DecimalType;
+import io.trino.spi.type.DoubleType;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import static com.analysys.trino.connector.hbase.utils.Constant.*;
@@ -56,11 +65,14 @@ public class HBaseSplitManager implements ConnectorSplitManager {
 
     private final HBaseConfig config;
 
+    private final HBaseAccessPlanner accessPlanner;
+
     @Inject
     public HBaseSplitManager(HBaseConnectorId connectorId, HBaseClientManager clientManager, HBaseConfig config) {
         this.connectorId = (Objects.requireNonNull(connectorId, "connectorId is null")).toString();
         this.clientManager = Objects.requireNonNull(clientManager, "client is null");
         this.config = Objects.requireNonNull(config, "config is null");
+        this.accessPlanner = new HBaseAccessPlanner(clientManager);
         log.info("\nPresto HBase Connector Config：" + this.config.toString());
     }
 
@@ -80,31 +92,58 @@ public class HBaseSplitManager implements ConnectorSplitManager {
         Preconditions.checkState(table != null, "Table %s.%s no longer exists", schemaName, tableName);
 
         TupleDomain<ColumnHandle> constraint = tableHandle.getConstraint();
-        TableMetaInfo tableMetaInfo = Utils.getTableMetaInfoFromJson(schemaName, tableName, config.getMetaDir());
+        TableMetaInfo tableMetaInfo = clientManager.getTableMetaInfo(schemaName, tableName);
         Preconditions.checkState(tableMetaInfo != null,
                 String.format("The meta info of table %s.%s doesn't exists! Table meta dir is %s.",
                         schemaName, tableName, config.getMetaDir()));
 
         List<HBaseSplit> splits;
         List<ConditionInfo> conditions = findConditionFromConstraint(constraint);
+        conditions.addAll(tableHandle.getExpressionConditions());
 
 
-        // batch get
-        if (Utils.isBatchGet(conditions, tableMetaInfo.getRowKeyColName())) {
-
-
-            splits = getSplitsForBatchGet(conditions, tableMetaInfo, tableHandle);
-            Collections.shuffle(splits);
-            return new FixedSplitSource(splits);
+        // hbase.system.scan, one split for each region in the rowKey range given by user
+        if (tableHandle.getRawScan() != null) {
+            HBaseRawScan rawScan = tableHandle.getRawScan();
+            splits = getSplitsByRegions(createHBaseSplit(schemaName, tableName, tableMetaInfo.getRowKeyColName(), 0,
+                    Strings.nullToEmpty(rawScan.getStartRow()), Strings.nullToEmpty(rawScan.getStopRow()),
+                    conditions, -1, null, null));
         }
-        // client side scan
-        else if (isClientSideRegionScanTable(schemaName, tableName, config.getClientSideQueryModeTableNames())) {
-
-            splits = getSplitsForClientSide(schemaName, tableName, conditions, tableMetaInfo.getRowKeyColName());
-        }
-        // normal scan
         else {
-            splits = getSplitsForScan(conditions, tableMetaInfo);
+            // planned when the filter was pushed down, or now for tables without filter
+            HBaseAccessPlan plan = tableHandle.getAccessPlan() != null
+                    ? tableHandle.getAccessPlan() : accessPlanner.plan(tableHandle);
+            // batch get
+            if (plan.getPath() == HBaseAccessPlan.Path.BATCH_GET
+                    && Utils.isBatchGet(conditions, tableMetaInfo.getRowKeyColName())) {
+                splits = getSplitsForBatchGet(conditions, tableMetaInfo, tableHandle);
+                if (tableHandle.getSplitSampleRatio() < 1) {
+                    splits = sampleSplits(splits, tableHandle.getSplitSampleRatio());
+                }
+                Collections.shuffle(splits);
+                return new FixedSplitSource(splits);
+            }
+            // scan the rowKeys as a range
+            else if (plan.getPath() == HBaseAccessPlan.Path.RANGE_SCAN) {
+                splits = getSplitsForRangeScan(conditions, tableMetaInfo);
+            }
+            // client side scan
+            else if (plan.getPath() == HBaseAccessPlan.Path.SNAPSHOT_SCAN) {
+                splits = getSplitsForClientSide(schemaName, tableName, conditions, tableMetaInfo.getRowKeyColName());
+            }
+            // normal scan
+            else {
+                splits = getSplitsForScan(conditions, tableMetaInfo);
+            }
+        }
+
+        // TABLESAMPLE SYSTEM
+        if (tableHandle.getSplitSampleRatio() < 1) {
+            // one split scanning the whole table is divided by regions, so that there is something to choose
+            if (splits.size() == 1 && splits.get(0).getStartRow() == null && splits.get(0).getRegionInfo() == null) {
+                splits = getSplitsByRegions(splits.get(0));
+            }
+            splits = sampleSplits(splits, tableHandle.getSplitSampleRatio());
         }
 
         log.info("The final split count is " + splits.size() + ".");
@@ -114,6 +153,70 @@ public class HBaseSplitManager implements ConnectorSplitManager {
         return new FixedSplitSource(splits);
     }
 
+    /**
+     * Choose sample ratio of the splits at random, so rows read can be scaled by the ratio exactly.
+     * The fraction of a split left is chosen with its probability, so small ratios still read something sometimes.
+     *
+     * @param splits      splits
+     * @param sampleRatio sample ratio
+     * @return chosen splits
+     */
+    static List<HBaseSplit> sampleSplits(List<HBaseSplit> splits, double sampleRatio) {
+        double expected = splits.size() * sampleRatio;
+        int count = (int) expected;
+        if (ThreadLocalRandom.current().nextDouble() < expected - count) {
+            count++;
+        }
+        List<HBaseSplit> sampled = new ArrayList<>(splits);
+        Collections.shuffle(sampled);
+        sampled = new ArrayList<>(sampled.subList(0, Math.min(count, sampled.size())));
+        log.info("Sample " + sampled.size() + " of " + splits.size() + " splits by ratio " + sampleRatio + ".");
+        return sampled;
+    }
+
+    /**
+     * Divide a split into one split for each region in its rowKey range, a split without range scans the whole table.
+     * Region boundaries which can't be a String without change are skipped, the regions beside them are merged.
+     *
+     * @param split split scanning the whole table or a rowKey range
+     * @return splits
+     */
+    private List<HBaseSplit> getSplitsByRegions(HBaseSplit split) {
+        List<RegionInfo> regions;
+        Admin admin = clientManager.getAdmin();
+        try {
+            regions = admin.getRegions(TableName.valueOf(split.getSchemaName() + ":" + split.getTableName()));
+        } catch (Exception e) {
+            log.error(e, e.getMessage());
+            return ImmutableList.of(split);
+        } finally {
+            if (admin != null) {
+                clientManager.close(admin);
+            }
+        }
+
+        List<String> boundaries = regions.stream().map(RegionInfo::getStartKey)
+                .filter(key -> key.length > 0 && Arrays.equals(Bytes.toBytes(Bytes.toString(key)), key))
+                .map(Bytes::toString).sorted().collect(Collectors.toList());
+        String start = Strings.nullToEmpty(split.getStartRow());
+        // empty stopRow means the end of table
+        String stop = Strings.nullToEmpty(split.getEndRow());
+        boundaries.removeIf(boundary -> boundary.compareTo(start) <= 0
+                || (!stop.isEmpty() && boundary.compareTo(stop) >= 0));
+        List<HBaseSplit> splits = new ArrayList<>();
+        int hostIndex = 0;
+        String regionStart = start;
+        for (String end : boundaries) {
+            splits.add(createHBaseSplit(split.getSchemaName(), split.getTableName(), split.getRowKeyName(), hostIndex,
+                    regionStart, end, split.getConstraint(), -1, null, null));
+            regionStart = end;
+            hostIndex++;
+        }
+        splits.add(createHBaseSplit(split.getSchemaName(), split.getTableName(), split.getRowKeyName(), hostIndex,
+                regionStart, stop, split.getConstraint(), -1, null, null));
+        return splits;
+    }
+
     /**
      * get splits for client side query mode
      *
@@ -188,34 +291,41 @@ public class HBaseSplitManager implements ConnectorSplitManager {
     }
 
     /**
-     * check if current table using ClientSideRegionScanner to query
+     * Scan from the smallest to the largest rowKey instead of getting them one by one, one split for each region.
+     * rowKeys become PREFIX conditions, so workers don't batch get them and seek to them by MultiRowRangeFilter,
+     * the rows whose rowKeys only start with them are filtered by presto.
+     * rowKeys of salted tables are given without salt, they are salted as INSERT writes them.
      *
-     * @param schemaName                    schema name
-     * @param tableName                     table name
-     * @param clientSideQueryModeTableNames clientSideQueryModeTableNames
-     * @return true or false
+     * @param conditions    conditions
+     * @param tableMetaInfo tableMetaInfo
+     * @return splits
      */
-    private boolean isClientSideRegionScanTable(String schemaName, String tableName,
-                                                String clientSideQueryModeTableNames) {
-        // if we didn't open client side scan, return false
-        if (!config.isEnableClientSideScan()) {
-            return false;
-        }
-
-        List<String> clientSideTables = getClientSideTables(clientSideQueryModeTableNames);
-
-        Preconditions.checkState(clientSideTables != null && !clientSideTables.isEmpty(),
-                "Parameter 'clientside-querymode-tablenames' cannot be NULL when 'enable-clientSide-scan' is true!" +
-                        "\nSet this to * if all the table are using ClientSide query mode.");
-        String schemaAndTableName = schemaName + ":" + tableName;
-        return "*".equals(clientSideTables.get(0)) || clientSideTables.contains(schemaAndTableName);
-    }
-
-    private List<String> getClientSideTables(String clientSideQueryModeTableNames) {
-        if (clientSideQueryModeTableNames == null) {
-            return null;
-        }
-        return Arrays.asList(clientSideQueryModeTableNames.split(","));
+    private List<HBaseSplit> getSplitsForRangeScan(List<ConditionInfo> conditions, TableMetaInfo tableMetaInfo) {
+        String rowKeyName = tableMetaInfo.getRowKeyColName();
+        Optional<HBaseRowKeyGenerator> salt = HBaseRowKeyGenerator.create(tableMetaInfo)
+                .filter(HBaseRowKeyGenerator::isSalted);
+        List<ConditionInfo> rowKeyPrefixes = conditions.stream()
+                .filter(cond -> rowKeyName.equals(cond.getColName()) && cond.getOperator() == CONDITION_OPER.EQ)
+                .map(cond -> ((Slice) cond.getValue()).toStringUtf8())
+                .map(rowKey -> new ConditionInfo(rowKeyName, CONDITION_OPER.PREFIX,
+                        salt.map(generator -> generator.addSalt(rowKey)).orElse(rowKey), VarcharType.VARCHAR))
+                .collect(Collectors.toList());
+        // rowKeys must also start with the prefixes of rowKey functions
+        List<ConditionInfo> rangeConditions = Utils.andRowKeyConditions(conditions.stream()
+                .filter(cond -> !rowKeyName.equals(cond.getColName()) || cond.getOperator() != CONDITION_OPER.EQ)
+                .collect(Collectors.toList()), rowKeyPrefixes, rowKeyName);
+        List<String> rowKeys = rangeConditions.stream()
+                .filter(cond -> rowKeyName.equals(cond.getColName()) && cond.getOperator() == CONDITION_OPER.PREFIX)
+                .map(cond -> (String) cond.getValue())
+                .sorted()
+                .collect(Collectors.toList());
+        String start = rowKeys.get(0);
+        // the next row of the largest rowKey
+        String stop = rowKeys.get(rowKeys.size() - 1) + "\0";
+        log.info("Range scan of " + rowKeys.size() + " rowKeys from " + start + ", table="
+                + tableMetaInfo.getSchemaName() + ":" + tableMetaInfo.getTableName());
+        return getSplitsByRegions(createHBaseSplit(tableMetaInfo.getSchemaName(), tableMetaInfo.getTableName(),
+                rowKeyName, 0, start, stop, rangeConditions, -1, null, null));
     }
 
     /**
@@ -236,10 +346,24 @@ public class HBaseSplitManager implements ConnectorSplitManager {
         List<String> notSaltyPartStartKeyList;
         List<StartAndEnd> saltyPartStartKeyList;
 
+        // rowKeys made by INSERT with salt or from the columns of rowKeyFormat,
+        // startKeys must be encoded the same way or rows will be lost
+        Optional<HBaseRowKeyGenerator> generator = HBaseRowKeyGenerator.create(tableMetaInfo);
+        if (generator.isPresent()) {
+            for (Pair<String, String> range : getGeneratedKeyRanges(conditions, generator.get())) {
+                splits.add(createHBaseSplit(schemaName, tableName, tableMetaInfo.getRowKeyColName(), hostIndex,
+                        range.getFirst(), range.getSecond(), conditions, -1, null, null));
+                hostIndex += 1;
+            }
+            if (!splits.isEmpty()) {
+                return splits;
+            }
+        }
 
         // make startKey by rowKey format and constraint.
-        if (!conditions.isEmpty() && !isEmpty(tableMetaInfo.getRowKeyFormat())) {
-            notSaltyPartStartKeyList = getScanStartKey(conditions, "", tableMetaInfo.getRowKeyFormat().split(","), 0);
+        if (!conditions.isEmpty() && !isEmpty(tableMetaInfo.getRowKeyFormat()) && !generator.isPresent()) {
+            notSaltyPartStartKeyList = getScanStartKey(conditions, "",
+                    tableMetaInfo.getRowKeyFields().toArray(new String[0]), 0);
         } else {
             notSaltyPartStartKeyList = new ArrayList<>();
         }
@@ -248,7 +372,7 @@ public class HBaseSplitManager implements ConnectorSplitManager {
         if (!notSaltyPartStartKeyList.isEmpty()) {
             // whether this table has seperate salty part at the start of rowKey
             // after version dev_0.1.5 salt value part can only have one single character
-            if (config.isSeperateSaltPart()) {
+            if (tableMetaInfo.hasSaltPart(config.isSeperateSaltPart())) {
                 // each possible value within the range of salt value must form a finalStartKey separately with startKey
                 // otherwise, duplicate data will appear in scan operation
                 // therefore, the number of splits should be controlled within 100 to avoid too much performance degradation
@@ -290,7 +414,8 @@ public class HBaseSplitManager implements ConnectorSplitManager {
             log.info("conditions-----" + conditions.toString());
             //过滤 条件中的全部的rowkey
             List<ConditionInfo> rowkeyConditions = conditions.stream()
-                    .filter(key -> key.getColName().equals(tableMetaInfo.getRowKeyColName())).collect(Collectors.toList());
+                    .filter(key -> key.getColName().equals(tableMetaInfo.getRowKeyColName()) && !key.isPattern())
+                    .collect(Collectors.toList());
 
 
             //处理value值
@@ -336,6 +461,64 @@ public class HBaseSplitManager implements ConnectorSplitManager {
         return splits;
     }
 
+    /**
+     * Row ranges of a table with generated rowKeys, made of the leading columns of rowKeyFormat in EQ conditions.
+     * Condition values are padded and reversed as INSERT writes them, and every salt is tried
+     * unless all the columns are in conditions and the salt can be computed.
+     *
+     * @param conditions conditions
+     * @param generator  rowKey generator of the table
+     * @return pairs of startKey and stopKey, empty if a full scan is needed
+     */
+    static List<Pair<String, String>> getGeneratedKeyRanges(List<ConditionInfo> conditions,
+                                                            HBaseRowKeyGenerator generator) {
+        List<Pair<String, String>> ranges = new ArrayList<>();
+        if (!generator.isGenerated()) {
+            return ranges;
+        }
+        List<String> fields = generator.getInputColumns();
+        List<String> prefixes = ImmutableList.of("");
+        int fieldCount = 0;
+        for (String field : fields) {
+            // values that can't be encoded are in no rowKey
+            List<String> values = conditions.stream()
+                    .filter(cond -> cond.getColName().equals(field) && cond.getOperator() == CONDITION_OPER.EQ)
+                    .map(generator::encodeField)
+                    .flatMap(Optional::stream)
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (values.isEmpty() || prefixes.size() * values.size() > MAX_SPLIT_COUNT) {
+                break;
+            }
+            List<String> next = new ArrayList<>();
+            for (String prefix : prefixes) {
+                values.forEach(value -> next.add(prefix.isEmpty() ? value : prefix + generator.getSeparator() + value));
+            }
+            prefixes = next;
+            fieldCount++;
+        }
+        if (fieldCount == 0) {
+            return ranges;
+        }
+        if (fieldCount == fields.size()) {
+            // the whole rowKey, scan the single row
+            for (String rowKey : prefixes) {
+                String saltedKey = generator.addSalt(rowKey);
+                ranges.add(new Pair<>(saltedKey, saltedKey + "\0"));
+            }
+        } else {
+            for (String prefix : prefixes) {
+                for (String saltedPrefix : generator.addAllSalts(prefix + generator.getSeparator())) {
+                    // the next of prefix
+                    int last = saltedPrefix.length() - 1;
+                    ranges.add(new Pair<>(saltedPrefix,
+                            saltedPrefix.substring(0, last) + (char) (saltedPrefix.charAt(last) + 1)));
+                }
+            }
+        }
+        return ranges.size() <= MAX_SPLIT_COUNT ? ranges : new ArrayList<>();
+    }
+
     public ConcurrentHashMap<String, String> getRow(List<ConditionInfo> rowkeyConditions) {
         ConcurrentHashMap<String, String> hashMap = new ConcurrentHashMap<String, String>();
 
@@ -378,11 +561,13 @@ public class HBaseSplitManager implements ConnectorSplitManager {
         List<StartAndEnd> startAndEndRowKeys =
                 getSaltyParts(rowKeyFirstCharRange, ROWKEY_PREFIX_SPLIT_COUNT);
        if(conditions!=null&&!conditions.isEmpty()){
-           //过滤 rowkey
-            conditions = conditions.stream().filter(key -> key.getColName().equals(rowKeyColName)).collect(Collectors.toList());
-           if(conditions!=null&&!conditions.isEmpty()){
+           //过滤 rowkey, text searches on rowKey are row filters of every split
+            List<ConditionInfo> rowKeyConditions = conditions.stream()
+                    .filter(key -> key.getColName().equals(rowKeyColName) && !key.isPattern())
+                    .collect(Collectors.toList());
+           if(!rowKeyConditions.isEmpty()){
                // 剪辑分片
-               startAndEndRowKeys = this.uniteSplit(conditions, startAndEndRowKeys);
+               startAndEndRowKeys = this.uniteSplit(rowKeyConditions, startAndEndRowKeys);
                log.info("剪辑分片后---"+startAndEndRowKeys.toString());
            }
        }
@@ -631,7 +816,8 @@ public class HBaseSplitManager implements ConnectorSplitManager {
     private List<HostAddress> getHostAddresses(int index) {
         List<HostAddress> addresses = new ArrayList<>();
         // If split-remotely-accessible is true, presto-workers-ip may be null
-        if (config.isRandomScheduleRedundantSplit()) {
+        // no workers can be resolved
+        if (config.isRandomScheduleRedundantSplit() && !isEmpty(config.getPrestoWorkersIp())) {
             String[] workers = config.getPrestoWorkersIp().split(Constant.COMMA);
             String workerIp = workers[index % workers.length];
             addresses.add(HostAddress.fromParts(workerIp, config.getPrestoServerPort()));
@@ -659,7 +845,11 @@ public class HBaseSplitManager implements ConnectorSplitManager {
         for (ColumnHandle ch : keySet) {
             HBaseColumnHandle hch = (HBaseColumnHandle) ch;
             Domain domain = domainMap.get(hch);
-            if (domain == null) {
+            // _timestamp is not a column in HBase, it's the latest timestamp of the cells read in the row,
+            // it's pushed down as the time range of cells by session property cell_time_range_pushdown
+            // multi-version columns and map columns can't be compared by single cell value
+            if (domain == null || hch.isCellTimestamp() || hch.isVersioned() || hch.isDynamic()
+                    || !canPushDown(domain)) {
                 continue;
             }
 
@@ -676,6 +866,8 @@ public class HBaseSplitManager implements ConnectorSplitManager {
                 }
             } else {
                 log.info("-------else for");
+                // ranges are in order and the low bound of a range is added right before its high bound,
+                // HBaseRecordSet groups them back to ranges by that order
                 for (Range range : domain.getValues().getRanges().getOrderedRanges()) {
 
                     log.info("range -------" + range.toString());
@@ -718,10 +910,10 @@ public class HBaseSplitManager implements ConnectorSplitManager {
                         }
                         if (!range.isHighUnbounded()) {
                             if (range.isHighInclusive()) {
-                                handles.add(new ConditionInfo(hch.getColumnName(), CONDITION_OPER.LT,
+                                handles.add(new ConditionInfo(hch.getColumnName(), CONDITION_OPER.LE,
                                         range.getHighBoundedValue(), domain.getType()));
                             } else {
-                                handles.add(new ConditionInfo(hch.getColumnName(), CONDITION_OPER.LE,
+                                handles.add(new ConditionInfo(hch.getColumnName(), CONDITION_OPER.LT,
                                         range.getHighBoundedValue(), domain.getType()));
                             }
 
@@ -753,4 +945,25 @@ public class HBaseSplitManager implements ConnectorSplitManager {
         return handles;
     }
 
+    /**
+     * Long decimal values (Int128) can't be compared by BigDecimalComparator nor sent to workers in json,
+     * and raw bits of NaN don't sort like other doubles, presto checks those domains itself.
+     * Conditions on the same column are alternatives, so the whole domain is skipped, not only some values.
+     */
+    static boolean canPushDown(Domain domain) {
+        Type type = domain.getType();
+        if (type instanceof DecimalType && !((DecimalType) type).isShort()) {
+            return false;
+        }
+        if (type.equals(DoubleType.DOUBLE) && !domain.isNone()) {
+            return domain.getValues().getRanges().getOrderedRanges().stream()
+                    .noneMatch(range -> isNaN(range.getLowValue()) || isNaN(range.getHighValue()));
+        }
+        return true;
+    }
+
+    private static boolean isNaN(Optional<Object> value) {
+        return value.isPresent() && Double.isNaN((Double) value.get());
+    }
+
 }
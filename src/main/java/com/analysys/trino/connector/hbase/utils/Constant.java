@@ -30,10 +30,34 @@ public interface Constant {
     public final String ARRAY_STRING_SPLITTER = "\001";
     public final String COMMA = ",";
     public final String ROWKEY_SPLITER = "\001";
+    /**
+     * Splits the name and width of a fixed-width rowKey column in rowKeyFormat, like 'date:8'
+     */
+    public final String ROWKEY_FIELD_WIDTH_SPLITER = ":";
+    /**
+     * Max fuzzy keys made of the values of rowKey columns in IN conditions
+     */
+    public final int FUZZY_ROW_KEY_MAX_COUNT = 100;
+
+    /**
+     * Rows scanned before getting the rows of the table joined by rowKey
+     */
+    public final int JOIN_BATCH_SIZE = 1000;
 
     public final int BATCHGET_SPLIT_RECORD_COUNT = 20;
     public final int BATCHGET_SPLIT_MAX_COUNT = 30;
 
+    /**
+     * Bytes read for each get of batch get, it's one HFile block read randomly.
+     * The access planner compares gets with scanning the regions between the smallest and largest rowKeys.
+     */
+    public final long BATCHGET_COST_BYTES = 64 * 1024;
+
+    /**
+     * How long the region metrics of a table are kept before reading them from region servers again
+     */
+    public final long REGION_STATS_EXPIRE_MILLIS = 60 * 1000;
+
     /**
      * DecimalType(DECIMAL_DEFAULT_PRECISION, DECIMAL_DEFAULT_SCALE)
      */
@@ -54,7 +78,13 @@ public interface Constant {
         // greater than or equal to
         GE,
         // less than or equal to
-        LE
+        LE,
+        // starts with, from LIKE 'x%'
+        PREFIX,
+        // contains, from LIKE '%x%'
+        SUBSTRING,
+        // java regular expression, from LIKE, regexp_like and contains(array, x)
+        REGEX
     }
 
     static final Class VARCHAR_CLASS = VARCHAR.getClass();
@@ -66,12 +96,48 @@ public interface Constant {
 
     static final String DEFAULT_HBASE_NAMESPACE_NAME = "default";
     static final String TABLE_META_FILE_TAIL = ".json";
+    /**
+     * Column statistics collected by ANALYZE are kept beside the table json, like table_A.stats
+     */
+    static final String TABLE_STATS_FILE_TAIL = ".stats";
+    /**
+     * Regions read by ANALYZE at least, if the table has so many regions
+     */
+    static final int ANALYZE_MIN_REGIONS = 3;
+
+    /**
+     * Registry table of table json: row 'schema:table' keeps the json in f:json and the registry version
+     * it was written at in f:version, row '#version' keeps the registry version increased by each registration.
+     * '#' is not allowed in table names.
+     */
+    static final String META_REGISTRY_FAMILY = "f";
+    static final String META_REGISTRY_JSON = "json";
+    static final String META_REGISTRY_VERSION = "version";
+    static final String META_REGISTRY_VERSION_ROW = "#version";
+    /**
+     * Json of the latest registrations kept in the registry table as cell versions
+     */
+    static final int META_REGISTRY_MAX_VERSIONS = 10;
+
+    /**
+     * Values of each qualifier and qualifiers of a table kept by schema inference
+     */
+    static final int INFER_MAX_VALUES_PER_QUALIFIER = 100;
+    static final int INFER_MAX_COLUMNS = 500;
 
     static final String JSON_TABLEMETA_COLUMNES = "columns";
     static final String JSON_TABLEMETA_FAMILY = "family";
     static final String JSON_TABLEMETA_COLUMNNAME = "columnName";
     static final String JSON_TABLEMETA_TYPE = "type";
     static final String JSON_TABLEMETA_ISROWKEY = "isRowKey";
+    static final String JSON_TABLEMETA_MAXVERSIONS = "maxVersions";
+    static final String JSON_TABLEMETA_QUALIFIERPREFIX = "qualifierPrefix";
+
+    /**
+     * Field names of the ROW type of multi-version columns: ARRAY(ROW(ts, value))
+     */
+    static final String VERSION_TIMESTAMP_FIELD = "ts";
+    static final String VERSION_VALUE_FIELD = "value";
 
     static final String JSON_ENCODING_UTF8 = "UTF-8";
 
@@ -83,4 +149,10 @@ public interface Constant {
 
     public static final String HBASE_NAMESPACE_DEFAULT = "default";
 
+    /**
+     * Hidden column that exposes the write timestamp of the cells, in mill seconds.
+     * Conditions on it are pushed down as the time range of Scan / Get.
+     */
+    public static final String CELL_TIMESTAMP_COLUMN_NAME = "_timestamp";
+
 }
@@ -13,6 +13,7 @@
  */
 package com.analysys.trino.connector.hbase.utils;
 
+import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
 import com.analysys.trino.connector.hbase.meta.HBaseColumnMetadata;
 import com.analysys.trino.connector.hbase.meta.TableMetaInfo;
 import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
@@ -22,7 +23,12 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import io.airlift.log.Logger;
+import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ColumnMetadata;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.Ranges;
+import io.trino.spi.predicate.TupleDomain;
 import io.trino.spi.type.*;
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -30,6 +36,7 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.io.TimeRange;
 import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
 import org.apache.hadoop.hbase.shaded.protobuf.generated.SnapshotProtos;
 import org.apache.hadoop.hbase.snapshot.SnapshotDescriptionUtils;
@@ -43,7 +50,10 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 /**
@@ -56,28 +66,98 @@ public class Utils {
 
     public static final Logger logger = Logger.get(Utils.class);
 
+    private static final String MAP_TYPE_PREFIX = "map<string,";
+    private static final ObjectMapper TABLE_META_MAPPER = new ObjectMapper();
+
+    /**
+     * Parsed table json keyed by file path, read again when the file is modified
+     */
+    private static final Map<String, CachedTableJson<TableMetaInfo>> TABLE_META_INFOS = new ConcurrentHashMap<>();
+    private static final Map<String, CachedTableJson<ImmutableList<ColumnMetadata>>> COLUMN_METAS =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Get the table json file from metaDir by schema name and table name
+     *
+     * @param schemaName schema name
+     * @param tableName  table name
+     * @param metaDir    meta dir
+     * @return json file
+     */
+    private static File getTableJsonFile(String schemaName, String tableName, String metaDir) {
+        return new File(metaDir + File.separator
+                + (schemaName == null || "".equals(schemaName) ? Constant.DEFAULT_HBASE_NAMESPACE_NAME : schemaName)
+                + File.separator + tableName + Constant.TABLE_META_FILE_TAIL);
+    }
+
     /**
      * Read table json from metaDir by schema name and table name
      *
      * @param schemaName schema name
      * @param tableName  table name
      * @param metaDir    meta dir
+     * @return json file content, empty if the file can't be read
+     */
+    public static String readTableJson(String schemaName, String tableName, String metaDir) {
+        return readTableJson(getTableJsonFile(schemaName, tableName, metaDir));
+    }
+
+    /**
+     * @return whether the table json exists in metaDir
+     */
+    public static boolean existsTableJson(String schemaName, String tableName, String metaDir) {
+        return getTableJsonFile(schemaName, tableName, metaDir).isFile();
+    }
+
+    /**
+     * Read table json file
+     *
+     * @param file json file
      * @return json file content
      */
-    private static String readTableJson(String schemaName, String tableName, String metaDir) {
+    private static String readTableJson(File file) {
         try {
-
-            String tableMetaPath = metaDir + File.separator
-                    + (schemaName == null || "".equals(schemaName) ? Constant.DEFAULT_HBASE_NAMESPACE_NAME : schemaName)
-                    + File.separator + tableName + Constant.TABLE_META_FILE_TAIL;
-//           logger.info("tableMetaPath-------->{"+tableMetaPath.toString()+"}");
-            return FileUtils.readFileToString(new File(tableMetaPath), Constant.JSON_ENCODING_UTF8);
+            return FileUtils.readFileToString(file, Constant.JSON_ENCODING_UTF8);
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
         }
         return "";
     }
 
+    /**
+     * Get the value parsed from a table json, parse it again only when the file is modified,
+     * so schema changes are seen without restarting and planning doesn't read the disk.
+     * A table json failed to parse as TableMetaInfo is parsed again by the next call.
+     */
+    private static <T> T getCachedTableJson(Map<String, CachedTableJson<T>> cache, File file,
+                                            Function<String, T> parser) {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        CachedTableJson<T> cached = cache.get(file.getPath());
+        if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+            return cached.value;
+        }
+        T value = parser.apply(readTableJson(file));
+        if (value != null) {
+            cache.put(file.getPath(), new CachedTableJson<>(lastModified, length, value));
+        } else {
+            cache.remove(file.getPath());
+        }
+        return value;
+    }
+
+    private static final class CachedTableJson<T> {
+        private final long lastModified;
+        private final long length;
+        private final T value;
+
+        private CachedTableJson(long lastModified, long length, T value) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.value = value;
+        }
+    }
+
     /**
      * Read table json from metaDir by schema name and table name.
      * And convert it to an Object of TableMetaInfo.
@@ -88,12 +168,18 @@ public class Utils {
      * @return Object of TableMetaInfo
      */
     public static TableMetaInfo getTableMetaInfoFromJson(String schemaName, String tableName, String metaDir) {
+        return getCachedTableJson(TABLE_META_INFOS, getTableJsonFile(schemaName, tableName, metaDir),
+                jsonString -> parseTableMetaInfo(schemaName, tableName, jsonString));
+    }
+
+    /**
+     * @return Object of TableMetaInfo parsed from table json, null if the json is invalid
+     */
+    public static TableMetaInfo parseTableMetaInfo(String schemaName, String tableName, String jsonString) {
         long startTime = System.currentTimeMillis();
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            String jsonString = readTableJson(schemaName, tableName, metaDir);
 //            logger.info("jsonString------>{"+jsonString+"}");
-            return mapper.readValue(jsonString, TableMetaInfo.class);
+            return TABLE_META_MAPPER.readValue(jsonString, TableMetaInfo.class);
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
         } finally {
@@ -106,16 +192,26 @@ public class Utils {
     /**
      * Fetch column meta info from json file
      *
-     * @param schemaName schema name
-     * @param tableName  table name
-     * @param metaDir    meta dir
+     * @param schemaName  schema name
+     * @param tableName   table name
+     * @param metaDir     meta dir
+     * @param typeManager type manager of the server, map types are got from it
      * @return list of column meta info
      */
-    public static ImmutableList<ColumnMetadata> getColumnMetaFromJson(String schemaName, String tableName, String metaDir) {
+    public static ImmutableList<ColumnMetadata> getColumnMetaFromJson(String schemaName, String tableName, String metaDir,
+                                                                      TypeManager typeManager) {
+        return getCachedTableJson(COLUMN_METAS, getTableJsonFile(schemaName, tableName, metaDir),
+                jsonStr -> parseColumnMeta(schemaName, tableName, jsonStr, typeManager));
+    }
+
+    /**
+     * @return columns of the table json
+     */
+    public static ImmutableList<ColumnMetadata> parseColumnMeta(String schemaName, String tableName, String jsonStr,
+                                                                TypeManager typeManager) {
         long startTime = System.currentTimeMillis();
         ImmutableList.Builder<ColumnMetadata> columnsMetadata = ImmutableList.builder();
         try {
-            String jsonStr = readTableJson(schemaName, tableName, metaDir);
 
 //            logger.info("getColumnMetaFromJson-jsonStr----------->{"+jsonStr.toString()+"}");
             JSONObject obj = new JSONObject(jsonStr);
@@ -132,8 +228,11 @@ public class Utils {
 
 //                logger.info("temp----------->{"+type.toString()+"}");
                 boolean isRowKey = temp.getBoolean(Constant.JSON_TABLEMETA_ISROWKEY);
+                int maxVersions = temp.optInt(Constant.JSON_TABLEMETA_MAXVERSIONS, 1);
+                String qualifierPrefix = temp.optString(Constant.JSON_TABLEMETA_QUALIFIERPREFIX, "");
 
-                columnsMetadata.add(new HBaseColumnMetadata(family, columnName, matchType(type), isRowKey));
+                columnsMetadata.add(new HBaseColumnMetadata(family, columnName,
+                        matchType(type, maxVersions, typeManager), isRowKey, maxVersions, qualifierPrefix));
                 if (isRowKey) {
                     hasRowKey = true;
                 }
@@ -167,14 +266,22 @@ public class Utils {
     /**
      * Find the presto type of column you configured in json file by type flag.
      *
-     * @param type The type value that configured in json file.
+     * @param type        The type value that configured in json file.
+     * @param typeManager type manager of the server, map types are got from it
      * @return type in presto
      */
-    public static Type matchType(String type) {
+    public static Type matchType(String type, TypeManager typeManager) {
         if (type == null) {
             return VarcharType.VARCHAR;
         }
 //        logger.info("数据类型  type-------------》{"+type.toString()+"}");
+        // map<string,T>: dynamic-qualifier column keyed by qualifier
+        String lowerType = type.toLowerCase().replace(" ", "");
+        if (lowerType.startsWith(MAP_TYPE_PREFIX) && lowerType.endsWith(">")) {
+            Type valueType = matchType(lowerType.substring(MAP_TYPE_PREFIX.length(), lowerType.length() - 1), typeManager);
+            return typeManager.getType(TypeSignature.mapType(VarcharType.VARCHAR.getTypeSignature(),
+                    valueType.getTypeSignature()));
+        }
         switch (type.toLowerCase()) {
             /*case "string":
                 return VarcharType.VARCHAR;*/
@@ -199,6 +306,42 @@ public class Utils {
         }
     }
 
+    /**
+     * Find the presto type of column that reads multiple versions.
+     * Column reads more than one version is ARRAY(ROW(ts BIGINT, value T)), versions are in the order of ts desc.
+     * Only scalar types can be read with multiple versions, array and map columns ignore maxVersions.
+     *
+     * @param type        The type value that configured in json file.
+     * @param maxVersions max versions configured in json file.
+     * @param typeManager type manager of the server, map types are got from it
+     * @return type in presto
+     */
+    public static Type matchType(String type, int maxVersions, TypeManager typeManager) {
+        Type valueType = matchType(type, typeManager);
+        if (maxVersions <= 1 || valueType instanceof ArrayType || valueType instanceof MapType) {
+            return valueType;
+        }
+        return new ArrayType(RowType.rowType(
+                RowType.field(Constant.VERSION_TIMESTAMP_FIELD, BigintType.BIGINT),
+                RowType.field(Constant.VERSION_VALUE_FIELD, valueType)));
+    }
+
+    /**
+     * Whether this is the type of column that reads multiple versions
+     *
+     * @param type type
+     * @return true if type is ARRAY(ROW(ts, value))
+     */
+    public static boolean isVersionedType(Type type) {
+        if (!(type instanceof ArrayType) || !(((ArrayType) type).getElementType() instanceof RowType)) {
+            return false;
+        }
+        List<RowType.Field> fields = ((RowType) ((ArrayType) type).getElementType()).getFields();
+        return fields.size() == 2
+                && fields.get(0).getName().equals(Optional.of(Constant.VERSION_TIMESTAMP_FIELD))
+                && fields.get(1).getName().equals(Optional.of(Constant.VERSION_VALUE_FIELD));
+    }
+
     /**
      * Whether sql constraint contains conditions like "rowKey='xxx'" or "rowKey in ('xxx','xxx')"
      *
@@ -217,6 +360,92 @@ public class Utils {
         return false;
     }
 
+    /**
+     * Find the time range of cells from the conditions on _timestamp column.
+     * Disjoint ranges like "_timestamp in (1, 100)" are merged into one span [1, 101),
+     * presto checks the exact conditions again after reading.
+     *
+     * @param constraint constraint of table handle
+     * @return time range, all time if there is no condition on _timestamp
+     */
+    public static TimeRange getCellTimeRange(TupleDomain<ColumnHandle> constraint) {
+        if (!constraint.getDomains().isPresent()) {
+            return TimeRange.allTime();
+        }
+        for (Map.Entry<ColumnHandle, Domain> entry : constraint.getDomains().get().entrySet()) {
+            if (!((HBaseColumnHandle) entry.getKey()).isCellTimestamp()) {
+                continue;
+            }
+            Ranges ranges = entry.getValue().getValues().getRanges();
+            if (ranges.getRangeCount() == 0) {
+                return TimeRange.allTime();
+            }
+            Range span = ranges.getSpan();
+            long min = 0L;
+            long max = Long.MAX_VALUE;
+            if (!span.isLowUnbounded()) {
+                long low = (Long) span.getLowBoundedValue();
+                min = Math.max(0L, span.isLowInclusive() ? low : low + 1);
+            }
+            if (!span.isHighUnbounded()) {
+                long high = (Long) span.getHighBoundedValue();
+                // the max of TimeRange is exclusive
+                max = span.isHighInclusive() && high < Long.MAX_VALUE ? high + 1 : high;
+            }
+            return TimeRange.between(min, Math.max(min, max));
+        }
+        return TimeRange.allTime();
+    }
+
+    /**
+     * PREFIX conditions on rowKey in a list are alternatives, like the values of IN, workers seek to them
+     * by one MultiRowRangeFilter. Prefixes which must pass together are merged into the longer of each pair
+     * starting one with the other, so the prefixes of the result are still alternatives.
+     * If no pair matches, no rowKey passes, the prefixes of left are kept and presto filters the rows out.
+     *
+     * @param left       conditions
+     * @param right      conditions which must pass together with left
+     * @param rowKeyName rowKey column name
+     * @return conditions of both
+     */
+    public static List<ConditionInfo> andRowKeyConditions(List<ConditionInfo> left, List<ConditionInfo> right,
+                                                          String rowKeyName) {
+        List<ConditionInfo> leftPrefixes = getRowKeyPrefixes(left, rowKeyName);
+        List<ConditionInfo> rightPrefixes = getRowKeyPrefixes(right, rowKeyName);
+        List<ConditionInfo> prefixes = new ArrayList<>();
+        for (ConditionInfo leftPrefix : leftPrefixes) {
+            for (ConditionInfo rightPrefix : rightPrefixes) {
+                String leftValue = String.valueOf(leftPrefix.getValue());
+                String rightValue = String.valueOf(rightPrefix.getValue());
+                ConditionInfo longer = leftValue.startsWith(rightValue) ? leftPrefix
+                        : rightValue.startsWith(leftValue) ? rightPrefix : null;
+                if (longer != null && !prefixes.contains(longer)) {
+                    prefixes.add(longer);
+                }
+            }
+        }
+        if (prefixes.isEmpty()) {
+            prefixes = leftPrefixes.isEmpty() ? rightPrefixes : leftPrefixes;
+        }
+
+        List<ConditionInfo> conditions = new ArrayList<>();
+        left.stream().filter(cond -> !leftPrefixes.contains(cond)).forEach(conditions::add);
+        prefixes.stream().filter(cond -> !conditions.contains(cond)).forEach(conditions::add);
+        right.stream().filter(cond -> !rightPrefixes.contains(cond) && !conditions.contains(cond))
+                .forEach(conditions::add);
+        return conditions;
+    }
+
+    private static List<ConditionInfo> getRowKeyPrefixes(List<ConditionInfo> conditions, String rowKeyName) {
+        List<ConditionInfo> prefixes = new ArrayList<>();
+        for (ConditionInfo cond : conditions) {
+            if (rowKeyName.equals(cond.getColName()) && cond.getOperator() == Constant.CONDITION_OPER.PREFIX) {
+                prefixes.add(cond);
+            }
+        }
+        return prefixes;
+    }
+
     /**
      * Copy contents in ${srcAry} from position ${srcPos} for ${length} bytes.
      *
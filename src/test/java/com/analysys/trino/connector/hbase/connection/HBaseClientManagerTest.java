@@ -0,0 +1,130 @@
+package com.analysys.trino.connector.hbase.connection;
+
+import com.analysys.trino.connector.hbase.meta.HBaseConfig;
+import com.analysys.trino.connector.hbase.meta.HBaseTable;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.Node;
+import io.trino.spi.NodeManager;
+import io.trino.spi.connector.ColumnMetadata;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static io.trino.type.InternalTypeManager.TESTING_TYPE_MANAGER;
+
+public class HBaseClientManagerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGetTables() throws IOException {
+        File dir = folder.newFolder("db");
+        for (String table : ImmutableList.of("t1", "t2", "t3")) {
+            Files.write(new File(dir, table + ".json").toPath(), ("{\"columns\": [{\"family\": \"\","
+                    + " \"columnName\": \"rowkey\", \"type\": \"varchar\", \"isRowKey\": true}]}")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        HBaseConfig config = new HBaseConfig();
+        config.setMetaDir(folder.getRoot().getPath());
+        AtomicInteger listCalls = new AtomicInteger();
+        Admin admin = (Admin) Proxy.newProxyInstance(Admin.class.getClassLoader(), new Class[]{Admin.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("listTableDescriptors")) {
+                        listCalls.incrementAndGet();
+                        // t3 doesn't exist in HBase
+                        return ((List<?>) args[0]).stream().map(name -> (TableName) name)
+                                .filter(name -> !name.getQualifierAsString().equals("t3"))
+                                .map(name -> (TableDescriptor) TableDescriptorBuilder.newBuilder(name).build())
+                                .collect(Collectors.toList());
+                    }
+                    return null;
+                });
+        HBaseClientManager clientManager = new HBaseClientManager(config, TESTING_TYPE_MANAGER) {
+            @Override
+            public Admin getAdmin() {
+                return admin;
+            }
+        };
+
+        Map<String, HBaseTable> tables = clientManager.getTables("db", ImmutableList.of("t1", "t2", "t3"));
+        Assert.assertEquals(ImmutableList.of("t1", "t2"), tables.keySet().stream().sorted().collect(Collectors.toList()));
+        Assert.assertEquals(1, listCalls.get());
+
+        // cached
+        Assert.assertSame(tables.get("t1"), clientManager.getTables("db", ImmutableList.of("t1")).get("t1"));
+        Assert.assertSame(tables.get("t2"), clientManager.getTable("db", "t2"));
+        Assert.assertEquals(1, listCalls.get());
+    }
+
+    @Test
+    public void testWorkersDontInfer() {
+        HBaseConfig config = new HBaseConfig();
+        config.setMetaDir(folder.getRoot().getPath());
+        config.setMetaInferenceEnabled(true);
+        Node worker = (Node) Proxy.newProxyInstance(Node.class.getClassLoader(), new Class[]{Node.class},
+                (proxy, method, args) -> method.getName().equals("isCoordinator") ? false : null);
+        NodeManager nodeManager = (NodeManager) Proxy.newProxyInstance(NodeManager.class.getClassLoader(),
+                new Class[]{NodeManager.class},
+                (proxy, method, args) -> method.getName().equals("getCurrentNode") ? worker : null);
+        AtomicInteger connections = new AtomicInteger();
+        HBaseClientManager clientManager = new HBaseClientManager(config, nodeManager, TESTING_TYPE_MANAGER) {
+            @Override
+            public Connection createConnection() {
+                connections.incrementAndGet();
+                throw new IllegalStateException("Workers don't sample tables");
+            }
+        };
+
+        Assert.assertNull(clientManager.getTableMetaInfo("db", "t"));
+        Assert.assertEquals(0, connections.get());
+    }
+
+    @Test
+    public void testGetTablesSkipsBrokenTables() {
+        Admin admin = (Admin) Proxy.newProxyInstance(Admin.class.getClassLoader(), new Class[]{Admin.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("listTableDescriptors")) {
+                        return ((List<?>) args[0]).stream()
+                                .map(name -> (TableDescriptor) TableDescriptorBuilder.newBuilder((TableName) name).build())
+                                .collect(Collectors.toList());
+                    }
+                    return null;
+                });
+        HBaseClientManager clientManager = new HBaseClientManager(new HBaseConfig(), TESTING_TYPE_MANAGER) {
+            @Override
+            public Admin getAdmin() {
+                return admin;
+            }
+
+            @Override
+            public ImmutableList<ColumnMetadata> getColumnMeta(String schema, String tableName) {
+                if (tableName.equals("broken")) {
+                    throw new IllegalArgumentException("Invalid table json");
+                }
+                return ImmutableList.of(new ColumnMetadata("rowkey", VarcharType.VARCHAR));
+            }
+        };
+
+        Map<String, HBaseTable> tables = clientManager.getTables("db", ImmutableList.of("t1", "broken", "t2"));
+        Assert.assertEquals(ImmutableList.of("t1", "t2"), tables.keySet().stream().sorted().collect(Collectors.toList()));
+        clientManager.stop();
+    }
+}
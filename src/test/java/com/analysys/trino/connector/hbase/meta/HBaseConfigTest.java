@@ -0,0 +1,21 @@
+package com.analysys.trino.connector.hbase.meta;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HBaseConfigTest {
+
+    @Test
+    public void testWorkersNotResolved() {
+        HBaseConfig config = new HBaseConfig();
+        config.setRandomScheduleRedundantSplit(true);
+        config.setPrestoWorkersName("no-such-worker.invalid");
+        Assert.assertNull(config.getPrestoWorkersIp());
+
+        // workers failed are not resolved again before the backoff
+        config.setPrestoWorkersName("localhost");
+        Assert.assertNull(config.getPrestoWorkersIp());
+        config.init();
+        Assert.assertNull(config.getPrestoWorkersIp());
+    }
+}
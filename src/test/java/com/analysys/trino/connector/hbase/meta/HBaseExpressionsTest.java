@@ -0,0 +1,143 @@
+package com.analysys.trino.connector.hbase.meta;
+
+import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.analysys.trino.connector.hbase.utils.Constant.CONDITION_OPER;
+import com.analysys.trino.connector.hbase.utils.Utils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slices;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.expression.Call;
+import io.trino.spi.expression.ConnectorExpression;
+import io.trino.spi.expression.Constant;
+import io.trino.spi.expression.FunctionName;
+import io.trino.spi.expression.Variable;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.ValueSet;
+import io.trino.spi.type.ArrayType;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.BooleanType;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static io.trino.spi.expression.StandardFunctions.AND_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.ARRAY_CONSTRUCTOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.EQUAL_OPERATOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.GREATER_THAN_OPERATOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.IN_PREDICATE_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.LIKE_FUNCTION_NAME;
+import static io.trino.type.InternalTypeManager.TESTING_TYPE_MANAGER;
+
+public class HBaseExpressionsTest {
+
+    private static final Type MAP_TYPE = Utils.matchType("map<string,bigint>", TESTING_TYPE_MANAGER);
+    private static final HBaseColumnHandle DAYS = new HBaseColumnHandle("hbase", "f", "days",
+            MAP_TYPE, 1, false, 1, "d_", ImmutableList.of());
+    private static final Map<String, ColumnHandle> ASSIGNMENTS = ImmutableMap.of("days", DAYS);
+
+    @Test
+    public void testFindMapKeys() {
+        ConnectorExpression day1 = elementAt("0101");
+        ConnectorExpression day2 = elementAt("0102");
+        Assert.assertEquals(ImmutableMap.of("days", ImmutableSet.of("0101", "0102")),
+                HBaseExpressions.findMapKeys(ImmutableList.of(day1, day2), ASSIGNMENTS));
+
+        // The whole map is queried
+        Variable days = new Variable("days", MAP_TYPE);
+        Assert.assertTrue(HBaseExpressions.findMapKeys(ImmutableList.of(day1, days), ASSIGNMENTS).isEmpty());
+    }
+
+    @Test
+    public void testFindMapElementDomains() {
+        ConnectorExpression filter = new Call(BooleanType.BOOLEAN, GREATER_THAN_OPERATOR_FUNCTION_NAME,
+                ImmutableList.of(new Constant(10L, BigintType.BIGINT), elementAt("0101")));
+        HBaseColumnHandle qualifier = new HBaseColumnHandle("hbase", "f", "d_0101", BigintType.BIGINT, -1, false);
+        Assert.assertEquals(
+                ImmutableMap.of(qualifier, Domain.create(ValueSet.ofRanges(Range.lessThan(BigintType.BIGINT, 10L)), false)),
+                HBaseExpressions.findMapElementDomains(filter, ASSIGNMENTS).getDomains().get());
+    }
+
+    @Test
+    public void testFindPatternConditions() {
+        HBaseColumnHandle url = new HBaseColumnHandle("hbase", "f", "url", VarcharType.VARCHAR, 2, false);
+        HBaseColumnHandle tags = new HBaseColumnHandle("hbase", "f", "tags",
+                new ArrayType(VarcharType.VARCHAR), 3, false);
+        Map<String, ColumnHandle> assignments = ImmutableMap.of("url", url, "tags", tags);
+
+        Assert.assertEquals(ImmutableList.of(
+                        new ConditionInfo("url", CONDITION_OPER.PREFIX, "/api", VarcharType.VARCHAR),
+                        new ConditionInfo("url", CONDITION_OPER.SUBSTRING, "login", VarcharType.VARCHAR),
+                        new ConditionInfo("url", CONDITION_OPER.REGEX, "^\\Q/a\\E.\\Qi\\E.*$", VarcharType.VARCHAR),
+                        new ConditionInfo("tags", CONDITION_OPER.REGEX, "(^|\001)\\Qvip\\E(\001|$)",
+                                new ArrayType(VarcharType.VARCHAR))),
+                HBaseExpressions.findPatternConditions(new Call(BooleanType.BOOLEAN, AND_FUNCTION_NAME, ImmutableList.of(
+                        call(LIKE_FUNCTION_NAME, "url", "/api%"),
+                        call(LIKE_FUNCTION_NAME, "url", "%login%"),
+                        call(LIKE_FUNCTION_NAME, "url", "/a_i%"),
+                        call(LIKE_FUNCTION_NAME, "url", "%"),
+                        call(new FunctionName("contains"), "tags", "vip"))), assignments));
+    }
+
+    @Test
+    public void testFindRowKeyConditions() {
+        HBaseColumnHandle rowKey = new HBaseColumnHandle("hbase", "", "rowkey", VarcharType.VARCHAR, 0, true);
+        Map<String, ColumnHandle> assignments = ImmutableMap.of("rowkey", rowKey);
+        Variable row = new Variable("rowkey", VarcharType.VARCHAR);
+
+        ConnectorExpression day = new Call(BooleanType.BOOLEAN, EQUAL_OPERATOR_FUNCTION_NAME, ImmutableList.of(
+                substr(row, 1L, 8L), varchar("20260101")));
+        ConnectorExpression days = new Call(BooleanType.BOOLEAN, IN_PREDICATE_FUNCTION_NAME, ImmutableList.of(
+                substr(row, 1L, 2L), new Call(new ArrayType(VarcharType.VARCHAR), ARRAY_CONSTRUCTOR_FUNCTION_NAME,
+                        ImmutableList.of(varchar("0a"), varchar("0b")))));
+        ConnectorExpression middle = new Call(BooleanType.BOOLEAN, EQUAL_OPERATOR_FUNCTION_NAME, ImmutableList.of(
+                substr(row, 3L, 2L), varchar("ab")));
+        // prefixes of IN are alternatives, prefixes of conjuncts must all pass
+        Assert.assertEquals(ImmutableList.of(
+                        new ConditionInfo("rowkey", CONDITION_OPER.PREFIX, "0a", VarcharType.VARCHAR),
+                        new ConditionInfo("rowkey", CONDITION_OPER.PREFIX, "0b", VarcharType.VARCHAR),
+                        new ConditionInfo("rowkey", CONDITION_OPER.REGEX, "^.{2}\\Qab\\E", VarcharType.VARCHAR)),
+                HBaseExpressions.findRowKeyConditions(new Call(BooleanType.BOOLEAN, AND_FUNCTION_NAME, ImmutableList.of(
+                        call(new FunctionName("starts_with"), "rowkey", "0"), days, middle)), assignments));
+        // no rowKey starts with both, presto filters the rows of the first prefix out
+        Assert.assertEquals(ImmutableList.of(
+                        new ConditionInfo("rowkey", CONDITION_OPER.REGEX, "^.{2}\\Qab\\E", VarcharType.VARCHAR),
+                        new ConditionInfo("rowkey", CONDITION_OPER.PREFIX, "20260101", VarcharType.VARCHAR)),
+                HBaseExpressions.findRowKeyConditions(new Call(BooleanType.BOOLEAN, AND_FUNCTION_NAME, ImmutableList.of(
+                        day, days, middle, call(new FunctionName("starts_with"), "rowkey", "x"))), assignments));
+
+        ConnectorExpression part = new Call(BooleanType.BOOLEAN, EQUAL_OPERATOR_FUNCTION_NAME, ImmutableList.of(
+                new Call(VarcharType.VARCHAR, new FunctionName("split_part"), ImmutableList.of(
+                        row, varchar("|"), new Constant(2L, BigintType.BIGINT))), varchar("x")));
+        String regex = (String) HBaseExpressions.findRowKeyConditions(part, assignments).get(0).getValue();
+        Assert.assertTrue(Pattern.compile(regex).matcher("a|x|b").find());
+        Assert.assertTrue(Pattern.compile(regex).matcher("a|x").find());
+        Assert.assertFalse(Pattern.compile(regex).matcher("a|xy|b").find());
+        Assert.assertFalse(Pattern.compile(regex).matcher("a|b|x").find());
+    }
+
+    private static ConnectorExpression substr(Variable row, long start, long length) {
+        return new Call(VarcharType.VARCHAR, new FunctionName("substr"), ImmutableList.of(
+                row, new Constant(start, BigintType.BIGINT), new Constant(length, BigintType.BIGINT)));
+    }
+
+    private static Constant varchar(String value) {
+        return new Constant(Slices.utf8Slice(value), VarcharType.VARCHAR);
+    }
+
+    private static ConnectorExpression call(FunctionName function, String variable, String value) {
+        return new Call(BooleanType.BOOLEAN, function, ImmutableList.of(
+                new Variable(variable, VarcharType.VARCHAR), new Constant(Slices.utf8Slice(value), VarcharType.VARCHAR)));
+    }
+
+    private static ConnectorExpression elementAt(String key) {
+        return new Call(BigintType.BIGINT, new FunctionName("element_at"), ImmutableList.of(
+                new Variable("days", MAP_TYPE), new Constant(Slices.utf8Slice(key), VarcharType.VARCHAR)));
+    }
+}
@@ -0,0 +1,137 @@
+package com.analysys.trino.connector.hbase.meta;
+
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Table;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.trino.type.InternalTypeManager.TESTING_TYPE_MANAGER;
+
+public class HBaseMetaRegistryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, String> registered = new HashMap<>();
+    private long version;
+    private int reads;
+
+    @Test
+    public void testCachedUntilVersionChanged() throws IOException {
+        HBaseConfig config = new HBaseConfig();
+        config.setMetaDir(folder.getRoot().getPath());
+        config.setMetaRegistryCheckIntervalMillis(0);
+        HBaseMetaRegistry registry = newRegistry(config);
+
+        registered.put("db:t", tableJson("id"));
+        version = 1;
+        Assert.assertEquals("id", registry.getTableMetaInfo("db", "t").getRowKeyFormat());
+        Assert.assertEquals("id", registry.getTableMetaInfo("db", "t").getRowKeyFormat());
+        Assert.assertEquals(1, reads);
+
+        // registered by another node
+        registered.put("db:t", tableJson("uid"));
+        version = 2;
+        Assert.assertEquals("uid", registry.getTableMetaInfo("db", "t").getRowKeyFormat());
+        Assert.assertEquals(2, registry.getColumnMeta("db", "t").size());
+
+        // tables not registered are read from metaDir
+        File json = new File(folder.newFolder("db"), "t2.json");
+        Files.write(json.toPath(), tableJson("file").getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("file", registry.getTableMetaInfo("db", "t2").getRowKeyFormat());
+    }
+
+    @Test
+    public void testRegisteredWhileReading() throws IOException {
+        HBaseConfig config = new HBaseConfig();
+        config.setMetaDir(folder.getRoot().getPath());
+        config.setMetaRegistryCheckIntervalMillis(0);
+        registered.put("db:t", tableJson("id"));
+        version = 1;
+        HBaseMetaRegistry registry = new HBaseMetaRegistry(() -> null, config, TESTING_TYPE_MANAGER) {
+            @Override
+            long readVersion() {
+                return version;
+            }
+
+            @Override
+            Optional<String> readJson(String schemaName, String tableName) {
+                reads++;
+                String json = registered.get(schemaName + ":" + tableName);
+                if (reads == 1) {
+                    // registered and seen by another query before the json read is cached
+                    registered.put("db:t", tableJson("uid"));
+                    version = 2;
+                    checkVersion();
+                }
+                return Optional.ofNullable(json);
+            }
+        };
+
+        Assert.assertEquals("id", registry.getTableMetaInfo("db", "t").getRowKeyFormat());
+        Assert.assertEquals("uid", registry.getTableMetaInfo("db", "t").getRowKeyFormat());
+        Assert.assertEquals("uid", registry.getTableMetaInfo("db", "t").getRowKeyFormat());
+        Assert.assertEquals(2, reads);
+    }
+
+    @Test
+    public void testRegistryTableNotExists() throws IOException {
+        HBaseConfig config = new HBaseConfig();
+        config.setMetaDir(folder.getRoot().getPath());
+        config.setMetaRegistryCheckIntervalMillis(60_000);
+        AtomicInteger gets = new AtomicInteger();
+        Table table = (Table) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Table.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("get")) {
+                        gets.incrementAndGet();
+                        throw new TableNotFoundException(config.getMetaRegistryTable());
+                    }
+                    return null;
+                });
+        Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> method.getName().equals("getTable") ? table : null);
+        HBaseMetaRegistry registry = new HBaseMetaRegistry(() -> connection, config, TESTING_TYPE_MANAGER);
+
+        File json = new File(folder.newFolder("db"), "t.json");
+        Files.write(json.toPath(), tableJson("file").getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("file", registry.getTableMetaInfo("db", "t").getRowKeyFormat());
+        Assert.assertEquals("file", registry.getTableMetaInfo("db", "t").getRowKeyFormat());
+        Assert.assertFalse(registry.isRegistered("db", "t2"));
+        // only the version is read, until the next check
+        Assert.assertEquals(1, gets.get());
+    }
+
+    private HBaseMetaRegistry newRegistry(HBaseConfig config) {
+        return new HBaseMetaRegistry(() -> null, config, TESTING_TYPE_MANAGER) {
+            @Override
+            long readVersion() {
+                return version;
+            }
+
+            @Override
+            Optional<String> readJson(String schemaName, String tableName) {
+                reads++;
+                return Optional.ofNullable(registered.get(schemaName + ":" + tableName));
+            }
+        };
+    }
+
+    private static String tableJson(String column) {
+        return "{\"tableName\": \"t\", \"schemaName\": \"db\", \"rowKeyFormat\": \"" + column + "\", \"columns\": ["
+                + "{\"family\": \"\", \"columnName\": \"rowkey\", \"type\": \"varchar\", \"isRowKey\": true},"
+                + " {\"family\": \"f\", \"columnName\": \"" + column + "\", \"type\": \"varchar\", \"isRowKey\": false}]}";
+    }
+}
@@ -0,0 +1,61 @@
+package com.analysys.trino.connector.hbase.meta;
+
+import com.analysys.trino.connector.hbase.utils.Constant;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.connector.ColumnMetadata;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class HBaseMetadataTest {
+
+    private static final byte[] EMPTY = HConstants.EMPTY_BYTE_ARRAY;
+
+    @Test
+    public void testEstimateRowsAndBytes() {
+        List<HBaseRegionStats> regions = ImmutableList.of(
+                new HBaseRegionStats(EMPTY, Bytes.toBytes("m"), 1000, 0, 0, 400),
+                new HBaseRegionStats(Bytes.toBytes("m"), EMPTY, 3000, 1000, 0, 0));
+
+        // region [m, ) is never compacted, so its cells are unknown
+        double[] estimate = HBaseMetadata.estimateRowsAndBytes(regions, EMPTY, EMPTY, 4, 0);
+        Assert.assertEquals(100, estimate[0], 0);
+        Assert.assertEquals(5000, estimate[1], 0);
+
+        estimate = HBaseMetadata.estimateRowsAndBytes(regions, Bytes.toBytes("n"), EMPTY, 4, 0);
+        Assert.assertTrue(Double.isNaN(estimate[0]));
+        Assert.assertEquals(4000, estimate[1], 0);
+
+        // batch get of 10 rowKeys
+        estimate = HBaseMetadata.estimateRowsAndBytes(regions, Bytes.toBytes("a"), Bytes.toBytes("b"), 4, 10);
+        Assert.assertEquals(10, estimate[0], 0);
+        Assert.assertEquals(100, estimate[1], 0);
+    }
+
+    @Test
+    public void testCellTimestampColumn() {
+        TableDescriptor descriptor = TableDescriptorBuilder.newBuilder(TableName.valueOf("db:t")).build();
+        HBaseTable table = new HBaseTable(descriptor, ImmutableList.of(
+                new HBaseColumnMetadata("", "rowkey", VarcharType.VARCHAR, true),
+                new HBaseColumnMetadata("f", "name", VarcharType.VARCHAR, false)));
+        List<ColumnMetadata> columns = HBaseMetadata.getColumnsMetadata(table);
+        Assert.assertEquals(3, columns.size());
+        Assert.assertTrue(columns.get(2).isHidden());
+
+        // the column of table json takes the place of the hidden one
+        table = new HBaseTable(descriptor, ImmutableList.of(
+                new HBaseColumnMetadata("", "rowkey", VarcharType.VARCHAR, true),
+                new HBaseColumnMetadata("f", Constant.CELL_TIMESTAMP_COLUMN_NAME, BigintType.BIGINT, false)));
+        columns = HBaseMetadata.getColumnsMetadata(table);
+        Assert.assertEquals(2, columns.size());
+        Assert.assertFalse(columns.get(1).isHidden());
+    }
+}
@@ -0,0 +1,97 @@
+package com.analysys.trino.connector.hbase.meta;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.Page;
+import io.trino.spi.TrinoException;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+
+public class HBaseRowKeyGeneratorTest {
+
+    private static final int[] CHANNELS = {0, 1, 2};
+
+    @Test
+    public void testSalt() {
+        TableMetaInfo tableMetaInfo = tableMetaInfo();
+        Assert.assertFalse(HBaseRowKeyGenerator.create(tableMetaInfo).isPresent());
+
+        tableMetaInfo.setRowKeySaltBuckets(16);
+        HBaseRowKeyGenerator generator = HBaseRowKeyGenerator.create(tableMetaInfo).get();
+        Assert.assertEquals(ImmutableList.of("rowkey"), generator.getInputColumns());
+        String rowKey = Bytes.toString(generator.generate(page("20260101|u001"), 0, CHANNELS,
+                ImmutableList.of(VARCHAR)));
+        char salt = HBaseRowKeyGenerator.getSalt("20260101|u001", 16);
+        Assert.assertEquals(salt + "|20260101|u001", rowKey);
+        Assert.assertTrue(Character.digit(salt, 16) >= 0);
+        // queries read and get the rowKey as it is inserted
+        Assert.assertEquals("20260101|u001", generator.removeSalt(rowKey));
+        Assert.assertEquals(rowKey, generator.addSalt(generator.removeSalt(rowKey)));
+        Assert.assertEquals("x", generator.removeSalt("x"));
+        // scans split by the salts
+        Assert.assertEquals("0~9,a~f", tableMetaInfo.getRowKeyFirstCharRange());
+        tableMetaInfo.setRowKeySaltBuckets(4);
+        Assert.assertEquals("0~3", tableMetaInfo.getRowKeyFirstCharRange());
+    }
+
+    @Test
+    public void testGenerated() {
+        TableMetaInfo tableMetaInfo = tableMetaInfo();
+        tableMetaInfo.setRowKeyFormat("date:8,userId:4,xwhen:19");
+        tableMetaInfo.setRowKeyGenerated(true);
+        tableMetaInfo.setRowKeyReversedFields("xwhen");
+        HBaseRowKeyGenerator generator = HBaseRowKeyGenerator.create(tableMetaInfo).get();
+        Assert.assertEquals(ImmutableList.of("date", "userId", "xwhen"), generator.getInputColumns());
+
+        Page page = page("20260101", "u001", 1000L);
+        String rowKey = Bytes.toString(generator.generate(page, 0, CHANNELS, ImmutableList.of(VARCHAR, VARCHAR, BIGINT)));
+        Assert.assertEquals("20260101|u001|" + (Long.MAX_VALUE - 1000), rowKey);
+
+        try {
+            generator.generate(page("20260101", "u12", 1000L), 0, CHANNELS, ImmutableList.of(VARCHAR, VARCHAR, BIGINT));
+            Assert.fail();
+        } catch (TrinoException e) {
+            Assert.assertTrue(e.getMessage().contains("userId"));
+        }
+
+        // widths are required
+        tableMetaInfo.setRowKeyFormat("date,userId");
+        try {
+            HBaseRowKeyGenerator.create(tableMetaInfo);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("width"));
+        }
+    }
+
+    private static TableMetaInfo tableMetaInfo() {
+        ColumnMetaInfo rowKey = new ColumnMetaInfo();
+        rowKey.setColumnName("rowkey");
+        rowKey.setRowKey(true);
+        TableMetaInfo tableMetaInfo = new TableMetaInfo();
+        tableMetaInfo.setColumns(ImmutableList.of(rowKey));
+        tableMetaInfo.setRowKeySeparator("|");
+        return tableMetaInfo;
+    }
+
+    private static Page page(Object... values) {
+        BlockBuilder[] builders = new BlockBuilder[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof String) {
+                builders[i] = VARCHAR.createBlockBuilder(null, 1);
+                VARCHAR.writeString(builders[i], (String) values[i]);
+            } else {
+                builders[i] = BIGINT.createBlockBuilder(null, 1);
+                BIGINT.writeLong(builders[i], (Long) values[i]);
+            }
+        }
+        return new Page(Arrays.stream(builders).map(BlockBuilder::build).toArray(Block[]::new));
+    }
+}
@@ -0,0 +1,58 @@
+package com.analysys.trino.connector.hbase.meta;
+
+import com.analysys.trino.connector.hbase.utils.Utils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.spi.connector.ColumnMetadata;
+import io.trino.spi.type.DoubleType;
+import io.trino.spi.type.IntegerType;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.trino.type.InternalTypeManager.TESTING_TYPE_MANAGER;
+
+public class HBaseSchemaInferenceTest {
+
+    @Test
+    public void testInferType() {
+        Assert.assertEquals(HBaseSchemaInference.INT,
+                HBaseSchemaInference.inferType(ImmutableList.of(Bytes.toBytes(0), Bytes.toBytes(-7), new byte[0])));
+        Assert.assertEquals(HBaseSchemaInference.BIGINT,
+                HBaseSchemaInference.inferType(ImmutableList.of(Bytes.toBytes(1760000000000L), Bytes.toBytes(-1L))));
+        Assert.assertEquals(HBaseSchemaInference.DOUBLE,
+                HBaseSchemaInference.inferType(ImmutableList.of(Bytes.toBytes(0.5), Bytes.toBytes(-1024.25))));
+        // numbers written as text are read as text
+        Assert.assertEquals(HBaseSchemaInference.STRING,
+                HBaseSchemaInference.inferType(ImmutableList.of(Bytes.toBytes("20260101"), Bytes.toBytes("用户1"))));
+        // mixed encodings
+        Assert.assertEquals(HBaseSchemaInference.STRING,
+                HBaseSchemaInference.inferType(ImmutableList.of(Bytes.toBytes(1), Bytes.toBytes(1L))));
+    }
+
+    @Test
+    public void testToTableJson() {
+        Map<String, Map<String, List<byte[]>>> samples = ImmutableMap.of(
+                "f", ImmutableMap.of(
+                        "age", ImmutableList.of(Bytes.toBytes(18)),
+                        "name", ImmutableList.of(Bytes.toBytes("bob")),
+                        "Upper", ImmutableList.of(Bytes.toBytes("x"))),
+                "g", ImmutableMap.of(
+                        "amount", ImmutableList.of(Bytes.toBytes(9.5)),
+                        "name", ImmutableList.of(Bytes.toBytes(1L))));
+        String json = HBaseSchemaInference.toTableJson("db", "t", samples);
+        List<ColumnMetadata> columns = Utils.parseColumnMeta("db", "t", json, TESTING_TYPE_MANAGER);
+        // rowkey, f:age, f:name, g:amount, the qualifier of upper case and the name of g are left out
+        Assert.assertEquals(4, columns.size());
+        Assert.assertEquals(VarcharType.VARCHAR, columns.get(0).getType());
+        Assert.assertEquals(IntegerType.INTEGER, columns.get(1).getType());
+        Assert.assertEquals("name", columns.get(2).getName());
+        Assert.assertEquals(VarcharType.VARCHAR, columns.get(2).getType());
+        Assert.assertEquals(DoubleType.DOUBLE, columns.get(3).getType());
+        Assert.assertEquals("rowkey", Utils.parseTableMetaInfo("db", "t", json).getRowKeyColName());
+    }
+}
@@ -0,0 +1,80 @@
+package com.analysys.trino.connector.hbase.meta;
+
+import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.analysys.trino.connector.hbase.schedule.HBaseAccessPlan;
+import com.analysys.trino.connector.hbase.utils.Constant.CONDITION_OPER;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.connector.JoinType;
+import io.trino.spi.connector.SampleType;
+import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.type.VarcharType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HBaseTableHandleTest {
+
+    @Test
+    public void testSample() {
+        HBaseTableHandle table = new HBaseTableHandle(new SchemaTableName("db", "t"), TupleDomain.all());
+        Assert.assertEquals(1, table.getRowSampleRatio(), 0);
+        Assert.assertEquals(1, table.getSplitSampleRatio(), 0);
+
+        HBaseTableHandle system = table.withSample(SampleType.SYSTEM, 0.05)
+                .withConstraint(TupleDomain.none(), ImmutableList.of());
+        Assert.assertEquals(0.05, system.getSplitSampleRatio(), 0);
+        Assert.assertEquals(1, system.getRowSampleRatio(), 0);
+
+        HBaseTableHandle bernoulli = table.withSample(SampleType.BERNOULLI, 0.05);
+        Assert.assertEquals(0.05, bernoulli.getRowSampleRatio(), 0);
+        Assert.assertEquals(1, bernoulli.getSplitSampleRatio(), 0);
+
+        Assert.assertNotEquals(table, bernoulli);
+        Assert.assertNotEquals(bernoulli, table.withSample(SampleType.BERNOULLI, 0.5));
+        Assert.assertNotEquals(bernoulli, table.withSample(SampleType.SYSTEM, 0.05));
+        Assert.assertEquals(bernoulli, table.withSample(SampleType.BERNOULLI, 0.05));
+    }
+
+    @Test
+    public void testJoin() {
+        HBaseColumnHandle rowKey = new HBaseColumnHandle("hbase", "", "rowkey", VarcharType.VARCHAR, 0, true);
+        HBaseColumnHandle joinedRowKey = new HBaseColumnHandle("hbase", "", "id", VarcharType.VARCHAR, 0, true);
+        HBaseJoin join = new HBaseJoin(new SchemaTableName("db", "stats"), JoinType.LEFT_OUTER, rowKey, joinedRowKey);
+        HBaseTableHandle table = new HBaseTableHandle(new SchemaTableName("db", "profile"), TupleDomain.all())
+                .withJoin(join)
+                .withConstraint(TupleDomain.none(), ImmutableList.of());
+        Assert.assertEquals(join, table.getJoin());
+        Assert.assertNotEquals(table, table.withJoin(null));
+
+        HBaseColumnHandle joined = joinedRowKey.withJoinedTable(join.getJoinedTableName());
+        Assert.assertTrue(joined.isJoined());
+        Assert.assertFalse(joinedRowKey.isJoined());
+        Assert.assertNotEquals(joinedRowKey, joined);
+        Assert.assertEquals("db:stats", joined.withMaxVersions(3).getJoinedTable());
+    }
+
+    @Test
+    public void testRawScan() {
+        HBaseRawScan rawScan = new HBaseRawScan("PrefixFilter('2026')", "2026", null);
+        HBaseTableHandle table = new HBaseTableHandle(new SchemaTableName("db", "t"), TupleDomain.all());
+        HBaseTableHandle scan = table.withRawScan(rawScan).withConstraint(TupleDomain.none(), ImmutableList.of());
+        Assert.assertEquals(rawScan, scan.getRawScan());
+        Assert.assertNotEquals(table, scan);
+        Assert.assertEquals(scan, table.withRawScan(new HBaseRawScan("PrefixFilter('2026')", "2026", null))
+                .withConstraint(TupleDomain.none(), ImmutableList.of()));
+    }
+
+    @Test
+    public void testFilterInEquals() {
+        HBaseTableHandle table = new HBaseTableHandle(new SchemaTableName("db", "t"), TupleDomain.all());
+        HBaseTableHandle filtered = table.withConstraint(TupleDomain.none(), ImmutableList.of());
+        Assert.assertNotEquals(table, filtered);
+        Assert.assertEquals(filtered, table.withConstraint(TupleDomain.none(), ImmutableList.of()));
+        Assert.assertEquals(filtered.hashCode(), table.withConstraint(TupleDomain.none(), ImmutableList.of()).hashCode());
+
+        ConditionInfo like = new ConditionInfo("url", CONDITION_OPER.PREFIX, "/api", VarcharType.VARCHAR);
+        Assert.assertNotEquals(table, table.withConstraint(TupleDomain.all(), ImmutableList.of(like)));
+        Assert.assertNotEquals(table, table.withAccessPlan(
+                new HBaseAccessPlan(HBaseAccessPlan.Path.SCAN, "no rowKey conditions")));
+    }
+}
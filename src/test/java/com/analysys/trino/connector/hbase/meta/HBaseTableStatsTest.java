@@ -0,0 +1,54 @@
+package com.analysys.trino.connector.hbase.meta;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.spi.statistics.ColumnStatistics;
+import io.trino.spi.statistics.DoubleRange;
+import io.trino.spi.statistics.TableStatistics;
+import io.trino.spi.type.VarcharType;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Optional;
+
+public class HBaseTableStatsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        String metaDir = folder.getRoot().getAbsolutePath();
+        Assert.assertFalse(HBaseTableStats.read(metaDir, "db", "t").isPresent());
+        Assert.assertTrue(new File(metaDir, "db").mkdirs());
+
+        new HBaseTableStats(1000, ImmutableMap.of(
+                "age", new HBaseTableStats.ColumnStats(50.0, 0.1, 1.0, 99.0, null))).write(metaDir, "db", "t");
+        Optional<HBaseTableStats> stats = HBaseTableStats.read(metaDir, "db", "t");
+        Assert.assertTrue(stats.isPresent());
+        Assert.assertEquals(1000, stats.get().getRowCount(), 0);
+        HBaseTableStats.ColumnStats age = stats.get().getColumns().get("age");
+        Assert.assertEquals(50, age.getDistinctValuesCount(), 0);
+        Assert.assertEquals(99, age.getMax(), 0);
+        Assert.assertNull(age.getDataSize());
+    }
+
+    @Test
+    public void testToTableStatistics() {
+        HBaseColumnHandle name = new HBaseColumnHandle("hbase", "f", "name", VarcharType.VARCHAR, 1, false);
+        HBaseTableStats analyzed = new HBaseTableStats(1000, ImmutableMap.of(
+                "name", new HBaseTableStats.ColumnStats(800.0, 0.2, null, null, 10000.0)));
+
+        // a tenth of table is read
+        TableStatistics statistics = HBaseMetadata.toTableStatistics(analyzed, ImmutableList.of(name), 100);
+        Assert.assertEquals(100, statistics.getRowCount().getValue(), 0);
+        ColumnStatistics column = statistics.getColumnStatistics().get(name);
+        Assert.assertEquals(100, column.getDistinctValuesCount().getValue(), 0);
+        Assert.assertEquals(0.2, column.getNullsFraction().getValue(), 0);
+        Assert.assertEquals(1000, column.getDataSize().getValue(), 0);
+        Assert.assertEquals(Optional.empty(), column.getRange().map(DoubleRange::getMin));
+    }
+}
@@ -0,0 +1,89 @@
+package com.analysys.trino.connector.hbase.meta;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.connector.SchemaTableName;
+import org.apache.hadoop.hbase.NamespaceDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.trino.type.InternalTypeManager.TESTING_TYPE_MANAGER;
+
+public class HBaseTablesTest {
+
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    @Test
+    public void testCache() {
+        HBaseTables tables = new HBaseTables(newClientManager(new HBaseConfig()));
+        SchemaTableName table = new SchemaTableName("db", "t");
+        Assert.assertTrue(tables.getTables("db").containsKey(table));
+        Assert.assertTrue(tables.getTables("db").containsKey(table));
+        Assert.assertEquals(ImmutableList.of("db"), ImmutableList.copyOf(tables.getSchemaNames()));
+        tables.getSchemaNames();
+        Assert.assertEquals(1, calls.get("listTableDescriptorsByNamespace").get());
+        Assert.assertEquals(1, calls.get("listNamespaceDescriptors").get());
+
+        // drop table lists the namespace again
+        tables.dropTable("db", "t");
+        tables.getTables("db");
+        Assert.assertEquals(2, calls.get("listTableDescriptorsByNamespace").get());
+    }
+
+    @Test
+    public void testTableCreatedAfterListed() {
+        HBaseTables tables = new HBaseTables(newClientManager(new HBaseConfig()));
+        Assert.assertNotNull(tables.getTable(new SchemaTableName("db", "t")));
+        Assert.assertNull(calls.get("tableExists"));
+
+        // created by another node after the namespace is cached
+        Assert.assertNotNull(tables.getTable(new SchemaTableName("db", "created")));
+        Assert.assertNull(tables.getTable(new SchemaTableName("db", "missing")));
+        Assert.assertEquals(2, calls.get("tableExists").get());
+        // listed again to see the new table
+        tables.getTables("db");
+        Assert.assertEquals(2, calls.get("listTableDescriptorsByNamespace").get());
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        HBaseConfig config = new HBaseConfig();
+        config.setMetadataCacheTtlMillis(0);
+        HBaseTables tables = new HBaseTables(newClientManager(config));
+        tables.getTables("db");
+        tables.getTables("db");
+        Assert.assertEquals(2, calls.get("listTableDescriptorsByNamespace").get());
+    }
+
+    private HBaseClientManager newClientManager(HBaseConfig config) {
+        Admin admin = (Admin) Proxy.newProxyInstance(Admin.class.getClassLoader(), new Class[]{Admin.class},
+                (proxy, method, args) -> {
+                    calls.computeIfAbsent(method.getName(), name -> new AtomicInteger()).incrementAndGet();
+                    switch (method.getName()) {
+                        case "listTableDescriptorsByNamespace":
+                            return ImmutableList.of(TableDescriptorBuilder.newBuilder(TableName.valueOf("db", "t"))
+                                    .build());
+                        case "tableExists":
+                            return args[0].equals(TableName.valueOf("db", "created"));
+                        case "listNamespaceDescriptors":
+                            return new NamespaceDescriptor[]{NamespaceDescriptor.create("db").build()};
+                        default:
+                            return null;
+                    }
+                });
+        return new HBaseClientManager(config, TESTING_TYPE_MANAGER) {
+            @Override
+            public Admin getAdmin() {
+                return admin;
+            }
+        };
+    }
+}
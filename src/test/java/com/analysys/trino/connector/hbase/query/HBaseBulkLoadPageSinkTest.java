@@ -0,0 +1,164 @@
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.meta.HBaseInsertTableHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import io.trino.spi.Page;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.connector.SchemaTableName;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
+import org.apache.hadoop.hbase.io.hfile.HFile;
+import org.apache.hadoop.hbase.io.hfile.HFileScanner;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+
+public class HBaseBulkLoadPageSinkTest {
+
+    private static final byte[][] START_KEYS = {new byte[0], Bytes.toBytes("m")};
+    private static final TableDescriptor DESCRIPTOR = TableDescriptorBuilder.newBuilder(TableName.valueOf("db:t"))
+            .setColumnFamily(ColumnFamilyDescriptorBuilder.newBuilder(Bytes.toBytes("f"))
+                    .setDataBlockEncoding(DataBlockEncoding.FAST_DIFF)
+                    .setBlocksize(4096)
+                    .setBloomFilterType(BloomType.ROWCOL)
+                    .build())
+            .build();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testHFilesOfRegions() throws Exception {
+        File dir = new File(folder.getRoot(), "insert");
+        HBaseBulkLoadPageSink sink = new HBaseBulkLoadPageSink(handle(dir), Optional.empty(), START_KEYS, DESCRIPTOR, new Configuration(), 1 << 20);
+        sink.appendPage(page("z", "a", "n"));
+        Assert.assertTrue(sink.getMemoryUsage() > 0);
+        sink.appendPage(page("b"));
+        Collection<Slice> fragments = sink.finish().get();
+        Assert.assertEquals(0, sink.getMemoryUsage());
+
+        // a file for each region of the family
+        File[] files = new File(dir, "f").listFiles((file, name) -> !name.endsWith(".crc"));
+        Assert.assertNotNull(files);
+        Arrays.sort(files);
+        Assert.assertEquals(2, files.length);
+        Assert.assertEquals(ImmutableList.of("a", "b"), readRows(files[0]));
+        Assert.assertEquals(ImmutableList.of("n", "z"), readRows(files[1]));
+        // the files to load
+        Assert.assertEquals(Arrays.stream(files).map(file -> new Path(file.toURI()).toString()).collect(Collectors.toSet()),
+                fragments.stream().map(fragment -> new Path(fragment.toStringUtf8()).toString()).collect(Collectors.toSet()));
+
+        // by the settings of the family
+        Configuration conf = new Configuration();
+        try (HFile.Reader reader = HFile.createReader(FileSystem.getLocal(conf), new Path(files[0].toURI()), conf)) {
+            Assert.assertEquals(DataBlockEncoding.FAST_DIFF, reader.getDataBlockEncoding());
+            Assert.assertEquals(BloomType.ROWCOL.toString(),
+                    Bytes.toString(reader.loadFileInfo().get(HStoreFile.BLOOM_FILTER_TYPE_KEY)));
+        }
+    }
+
+    @Test
+    public void testLastValueWins() throws Exception {
+        File dir = new File(folder.getRoot(), "insert");
+        HBaseBulkLoadPageSink sink = new HBaseBulkLoadPageSink(handle(dir), Optional.empty(), START_KEYS, DESCRIPTOR, new Configuration(), 1 << 20);
+        // amounts are 0, 1, 2
+        sink.appendPage(page("a", "a", "b"));
+        sink.finish().get();
+        File[] files = new File(dir, "f").listFiles((file, name) -> !name.endsWith(".crc"));
+        Assert.assertEquals(1, files.length);
+        Assert.assertEquals(ImmutableList.of("a", "b"), readRows(files[0]));
+        Assert.assertEquals(ImmutableList.of(1L, 2L), readAmounts(files[0]));
+
+        // rows of a later flush are newer
+        dir = new File(folder.getRoot(), "insert2");
+        sink = new HBaseBulkLoadPageSink(handle(dir), Optional.empty(), START_KEYS, DESCRIPTOR, new Configuration(), 1);
+        sink.appendPage(page("a"));
+        sink.appendPage(page("b", "a"));
+        sink.finish().get();
+        files = new File(dir, "f").listFiles((file, name) -> !name.endsWith(".crc"));
+        Arrays.sort(files);
+        Assert.assertEquals(2, files.length);
+        Assert.assertTrue(readTimestamps(files[1]).get(0) > readTimestamps(files[0]).get(0));
+        Assert.assertEquals(ImmutableList.of("a", "b"), readRows(files[1]));
+        Assert.assertEquals(ImmutableList.of(1L, 0L), readAmounts(files[1]));
+    }
+
+    @Test
+    public void testAbort() throws Exception {
+        File dir = new File(folder.getRoot(), "insert");
+        // every page is written when buffer is 1 byte
+        HBaseBulkLoadPageSink sink = new HBaseBulkLoadPageSink(handle(dir), Optional.empty(), START_KEYS, DESCRIPTOR, new Configuration(), 1);
+        sink.appendPage(page("a"));
+        sink.appendPage(page("b"));
+        Assert.assertEquals(2, new File(dir, "f").listFiles((file, name) -> !name.endsWith(".crc")).length);
+        sink.abort();
+        Assert.assertEquals(0, new File(dir, "f").listFiles((file, name) -> !name.endsWith(".crc")).length);
+    }
+
+    private static HBaseInsertTableHandle handle(File dir) {
+        return new HBaseInsertTableHandle("hbase", new SchemaTableName("db", "t"),
+                ImmutableList.of("rowkey", "amount"), ImmutableList.of(VARCHAR, BIGINT), 0,
+                ImmutableMap.of("amount", "f"), dir.toURI().toString());
+    }
+
+    private static List<String> readRows(File file) throws Exception {
+        return readCells(file).stream().map(cell -> Bytes.toString(CellUtil.cloneRow(cell))).collect(Collectors.toList());
+    }
+
+    private static List<Long> readAmounts(File file) throws Exception {
+        return readCells(file).stream().map(cell -> Bytes.toLong(CellUtil.cloneValue(cell))).collect(Collectors.toList());
+    }
+
+    private static List<Long> readTimestamps(File file) throws Exception {
+        return readCells(file).stream().map(Cell::getTimestamp).collect(Collectors.toList());
+    }
+
+    private static List<Cell> readCells(File file) throws Exception {
+        Configuration conf = new Configuration();
+        List<Cell> cells = new ArrayList<>();
+        try (HFile.Reader reader = HFile.createReader(FileSystem.getLocal(conf), new Path(file.toURI()), conf)) {
+            HFileScanner scanner = reader.getScanner(false, false);
+            if (scanner.seekTo()) {
+                do {
+                    cells.add(scanner.getCell());
+                } while (scanner.next());
+            }
+        }
+        return cells;
+    }
+
+    private static Page page(String... rowKeys) {
+        BlockBuilder keys = VARCHAR.createBlockBuilder(null, rowKeys.length);
+        BlockBuilder amounts = BIGINT.createBlockBuilder(null, rowKeys.length);
+        for (int i = 0; i < rowKeys.length; i++) {
+            VARCHAR.writeString(keys, rowKeys[i]);
+            BIGINT.writeLong(amounts, i);
+        }
+        return new Page(keys.build(), amounts.build());
+    }
+}
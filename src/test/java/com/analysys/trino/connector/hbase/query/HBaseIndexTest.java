@@ -0,0 +1,152 @@
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.meta.ColumnMetaInfo;
+import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseConfig;
+import com.analysys.trino.connector.hbase.meta.HBaseIndexHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
+import com.analysys.trino.connector.hbase.meta.HBaseTableHandle;
+import com.analysys.trino.connector.hbase.meta.TableMetaInfo;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.spi.Page;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.InMemoryRecordSet;
+import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.predicate.TupleDomain;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static io.trino.type.InternalTypeManager.TESTING_TYPE_MANAGER;
+
+public class HBaseIndexTest {
+
+    private static final byte[] FAMILY = Bytes.toBytes("f");
+    private static final byte[] QUALIFIER = Bytes.toBytes("name");
+
+    @Test
+    public void testLookup() throws IOException {
+        // rows of the table
+        Map<String, String> rows = new HashMap<>();
+        rows.put("a", "Alice");
+        rows.put("c", "Carol");
+        List<Integer> getCounts = new ArrayList<>();
+        List<String> connectionCalls = new ArrayList<>();
+        HBaseIndex index = newIndex(rows, getCounts, connectionCalls, null);
+
+        // keys given twice are returned once, and keys not found are not returned
+        ConnectorPageSource pageSource = index.lookup(new InMemoryRecordSet(ImmutableList.of(VARCHAR), ImmutableList.of(
+                ImmutableList.of("a"), ImmutableList.of("b"), ImmutableList.of("a"), ImmutableList.of("c"))));
+        Assert.assertEquals(rows, read(pageSource));
+        Assert.assertEquals(ImmutableList.of(3), getCounts);
+        pageSource.close();
+
+        // no keys, no gets
+        pageSource = index.lookup(new InMemoryRecordSet(ImmutableList.of(VARCHAR), ImmutableList.of()));
+        Assert.assertNull(pageSource.getNextPage());
+        Assert.assertTrue(pageSource.isFinished());
+        Assert.assertEquals(ImmutableList.of(3), getCounts);
+
+        // lookups share one connection and don't close it
+        index.lookup(new InMemoryRecordSet(ImmutableList.of(VARCHAR), ImmutableList.of(ImmutableList.of("c")))).close();
+        Assert.assertEquals(ImmutableList.of("createConnection"), connectionCalls);
+    }
+
+    @Test
+    public void testLookupSalted() {
+        TableMetaInfo tableMetaInfo = new TableMetaInfo();
+        ColumnMetaInfo rowKeyMeta = new ColumnMetaInfo();
+        rowKeyMeta.setColumnName("rowkey");
+        rowKeyMeta.setRowKey(true);
+        tableMetaInfo.setColumns(ImmutableList.of(rowKeyMeta));
+        tableMetaInfo.setRowKeySeparator("|");
+        tableMetaInfo.setRowKeySaltBuckets(16);
+        HBaseRowKeyGenerator generator = HBaseRowKeyGenerator.create(tableMetaInfo).get();
+
+        // rows are stored with the salt INSERT puts before the rowKey
+        Map<String, String> rows = new HashMap<>();
+        rows.put(generator.addSalt("a"), "Alice");
+        rows.put(generator.addSalt("c"), "Carol");
+        HBaseIndex index = newIndex(rows, new ArrayList<>(), new ArrayList<>(), tableMetaInfo);
+
+        // rowKeys are got and returned as they are inserted
+        ConnectorPageSource pageSource = index.lookup(new InMemoryRecordSet(ImmutableList.of(VARCHAR), ImmutableList.of(
+                ImmutableList.of("a"), ImmutableList.of("b"), ImmutableList.of("c"))));
+        Assert.assertEquals(ImmutableMap.of("a", "Alice", "c", "Carol"), read(pageSource));
+    }
+
+    private static HBaseIndex newIndex(Map<String, String> rows, List<Integer> getCounts, List<String> connectionCalls,
+                                       TableMetaInfo tableMetaInfo) {
+        Table table = (Table) Proxy.newProxyInstance(Table.class.getClassLoader(), new Class[]{Table.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("get") && args[0] instanceof List) {
+                        List<?> gets = (List<?>) args[0];
+                        getCounts.add(gets.size());
+                        return gets.stream().map(get -> {
+                            String row = Bytes.toString(((Get) get).getRow());
+                            // rowKeys not found get empty results
+                            return rows.containsKey(row) ? Result.create(new Cell[]{new KeyValue(Bytes.toBytes(row),
+                                    FAMILY, QUALIFIER, Bytes.toBytes(rows.get(row)))}) : Result.EMPTY_RESULT;
+                        }).toArray(Result[]::new);
+                    }
+                    return null;
+                });
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        connectionCalls.add("close");
+                    }
+                    return method.getName().equals("getTable") ? table : null;
+                });
+        HBaseClientManager clientManager = new HBaseClientManager(new HBaseConfig(), TESTING_TYPE_MANAGER) {
+            @Override
+            public Connection createConnection() {
+                connectionCalls.add("createConnection");
+                return connection;
+            }
+
+            @Override
+            public TableMetaInfo getTableMetaInfo(String schema, String tableName) {
+                return tableMetaInfo;
+            }
+        };
+
+        HBaseColumnHandle rowKey = new HBaseColumnHandle("hbase", "", "rowkey", VARCHAR, 0, true);
+        HBaseColumnHandle name = new HBaseColumnHandle("hbase", "f", "name", VARCHAR, 1, false);
+        HBaseTableHandle tableHandle = new HBaseTableHandle(new SchemaTableName("db", "t"), TupleDomain.all());
+        return new HBaseIndex("hbase", new HBaseIndexHandle(tableHandle, "rowkey"),
+                ImmutableList.<ColumnHandle>of(rowKey, name), 0, clientManager);
+    }
+
+    private static Map<String, String> read(ConnectorPageSource pageSource) {
+        Map<String, String> found = new HashMap<>();
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page == null) {
+                continue;
+            }
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                found.put(VARCHAR.getSlice(page.getBlock(0), position).toStringUtf8(),
+                        VARCHAR.getSlice(page.getBlock(1), position).toStringUtf8());
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,140 @@
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.meta.HBaseInsertTableHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.spi.Page;
+import io.trino.spi.TrinoException;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.connector.SchemaTableName;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InterruptedIOException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+
+public class HBasePageSinkTest {
+
+    private static final HBaseInsertTableHandle HANDLE = new HBaseInsertTableHandle("hbase",
+            new SchemaTableName("db", "t"), ImmutableList.of("rowkey", "amount"), ImmutableList.of(VARCHAR, BIGINT),
+            0, ImmutableMap.of("amount", "f"), null);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final List<Mutation> mutations = new CopyOnWriteArrayList<>();
+    private final CountDownLatch mutating = new CountDownLatch(1);
+    private final CountDownLatch mutateCalled = new CountDownLatch(1);
+    private volatile boolean failing;
+    private volatile boolean closed;
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        HBasePageSink sink = new HBasePageSink(HANDLE, Optional.empty(), mutator(), 1, Durability.SKIP_WAL, executor);
+        CompletableFuture<?> blocked = sink.appendPage(page("r1", "r2"));
+        // the puts of the page are over the write buffer and the mutator is busy
+        Assert.assertFalse(blocked.isDone());
+        Assert.assertTrue(sink.getMemoryUsage() > 1);
+
+        mutating.countDown();
+        blocked.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(1, sink.getMemoryUsage());
+        sink.finish().get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(closed);
+
+        Assert.assertEquals(2, mutations.size());
+        Put put = (Put) mutations.get(1);
+        Assert.assertEquals("r2", Bytes.toString(put.getRow()));
+        Assert.assertEquals(Durability.SKIP_WAL, put.getDurability());
+        Cell cell = put.get(Bytes.toBytes("f"), Bytes.toBytes("amount")).get(0);
+        Assert.assertEquals(2L, Bytes.toLong(CellUtil.cloneValue(cell)));
+    }
+
+    @Test
+    public void testWriteFailure() throws Exception {
+        failing = true;
+        mutating.countDown();
+        HBasePageSink sink = new HBasePageSink(HANDLE, Optional.empty(), mutator(), 1 << 20, Durability.USE_DEFAULT, executor);
+        Assert.assertTrue(sink.appendPage(page("r1")).isDone());
+        try {
+            sink.finish().join();
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertTrue(e.getCause() instanceof TrinoException);
+            Assert.assertTrue(e.getCause().getCause() instanceof InterruptedIOException);
+        }
+        // closing would flush the write buffer
+        Assert.assertFalse(closed);
+    }
+
+    @Test
+    public void testAbort() throws Exception {
+        HBasePageSink sink = new HBasePageSink(HANDLE, Optional.empty(), mutator(), 1, Durability.USE_DEFAULT, executor);
+        CompletableFuture<?> blocked = sink.appendPage(page("r1"));
+        sink.appendPage(page("r2"));
+        // the first page is being written
+        Assert.assertTrue(mutateCalled.await(10, TimeUnit.SECONDS));
+        sink.abort();
+        mutating.countDown();
+        blocked.get(10, TimeUnit.SECONDS);
+        executor.submit(() -> null).get(10, TimeUnit.SECONDS);
+        // the page waiting is dropped, and the mutator is not flushed by close
+        Assert.assertEquals(1, mutations.size());
+        Assert.assertFalse(closed);
+        Assert.assertEquals(1, sink.getMemoryUsage());
+    }
+
+    private static Page page(String... rowKeys) {
+        BlockBuilder keys = VARCHAR.createBlockBuilder(null, rowKeys.length);
+        BlockBuilder amounts = BIGINT.createBlockBuilder(null, rowKeys.length);
+        for (int i = 0; i < rowKeys.length; i++) {
+            VARCHAR.writeString(keys, rowKeys[i]);
+            BIGINT.writeLong(amounts, i + 1);
+        }
+        return new Page(keys.build(), amounts.build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private BufferedMutator mutator() {
+        return (BufferedMutator) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{BufferedMutator.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "mutate":
+                            mutateCalled.countDown();
+                            mutating.await();
+                            if (failing) {
+                                throw new InterruptedIOException("region server is busy");
+                            }
+                            mutations.addAll((List<Mutation>) args[0]);
+                            return null;
+                        case "close":
+                            closed = true;
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,110 @@
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.utils.Utils;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.ColumnarRow;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.MapType;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static io.trino.type.InternalTypeManager.TESTING_TYPE_MANAGER;
+
+public class HBaseRecordCursorTest {
+
+    private static final byte[] ROW = Bytes.toBytes("row");
+    private static final byte[] FAMILY = Bytes.toBytes("f");
+
+    @Test
+    public void testVersionedColumn() {
+        HBaseColumnHandle name = new HBaseColumnHandle("hbase", "f", "name",
+                Utils.matchType("string", 2, TESTING_TYPE_MANAGER), 0, false, 2);
+        HBaseColumnHandle age = new HBaseColumnHandle("hbase", "f", "age",
+                BigintType.BIGINT, 1, false);
+        HBaseRecordCursor cursor = new HBaseRecordCursor();
+        cursor.columnHandles = Arrays.asList(name, age);
+        cursor.fieldIndexMap = new HashMap<>();
+        cursor.fields = new Object[2];
+
+        // Cells of one column are sorted by timestamp desc
+        int fieldIndex = 0;
+        fieldIndex = cursor.setCellValue2FieldsAry(cell("age", 30L, Bytes.toBytes(3L)), age, fieldIndex);
+        fieldIndex = cursor.setCellValue2FieldsAry(cell("age", 20L, Bytes.toBytes(2L)), age, fieldIndex);
+        fieldIndex = cursor.setCellValue2FieldsAry(cell("name", 30L, Bytes.toBytes("c")), name, fieldIndex);
+        fieldIndex = cursor.setCellValue2FieldsAry(cell("name", 20L, Bytes.toBytes("b")), name, fieldIndex);
+        fieldIndex = cursor.setCellValue2FieldsAry(cell("name", 10L, Bytes.toBytes("a")), name, fieldIndex);
+        Assert.assertEquals(2, fieldIndex);
+
+        // Only the latest version of single-version columns
+        Assert.assertEquals(3L, cursor.getLong(1));
+
+        ColumnarRow versions = ColumnarRow.toColumnarRow((Block) cursor.getObject(0));
+        Assert.assertEquals(2, versions.getPositionCount());
+        Assert.assertEquals(30L, BigintType.BIGINT.getLong(versions.getField(0), 0));
+        Assert.assertEquals(20L, BigintType.BIGINT.getLong(versions.getField(0), 1));
+        Assert.assertEquals("c", VarcharType.VARCHAR.getSlice(versions.getField(1), 0).toStringUtf8());
+        Assert.assertEquals("b", VarcharType.VARCHAR.getSlice(versions.getField(1), 1).toStringUtf8());
+    }
+
+    @Test
+    public void testDynamicColumn() {
+        HBaseColumnHandle name = new HBaseColumnHandle("hbase", "f", "name",
+                VarcharType.VARCHAR, 0, false);
+        HBaseColumnHandle days = new HBaseColumnHandle("hbase", "f", "days",
+                Utils.matchType("map<string,bigint>", TESTING_TYPE_MANAGER), 1, false, 1, "d_", ImmutableList.of());
+        HBaseRecordCursor cursor = new HBaseRecordCursor();
+        cursor.columnHandles = Arrays.asList(name, days);
+        cursor.fieldIndexMap = new HashMap<>();
+        cursor.fieldIndexMap.put("name".hashCode(), name);
+        cursor.fieldIndexMap.put("days".hashCode(), days);
+        cursor.fields = new Object[2];
+
+        int fieldIndex = 0;
+        for (KeyValue cell : Arrays.asList(cell("d_0101", 1L, Bytes.toBytes(5L)),
+                cell("d_0102", 1L, Bytes.toBytes(7L)), cell("name", 1L, Bytes.toBytes("n")),
+                cell("other", 1L, Bytes.toBytes("x")))) {
+            HBaseColumnHandle hch = cursor.getColumnHandle(cell, Bytes.toString(CellUtil.cloneQualifier(cell)));
+            if (hch != null) {
+                fieldIndex = cursor.setCellValue2FieldsAry(cell, hch, fieldIndex);
+            }
+        }
+        Assert.assertEquals(2, fieldIndex);
+        Assert.assertEquals("n", cursor.getSlice(0).toStringUtf8());
+
+        MapType type = (MapType) days.getColumnType();
+        Block map = (Block) cursor.getObject(1);
+        Assert.assertEquals(4, map.getPositionCount());
+        Assert.assertEquals("0101", VarcharType.VARCHAR.getSlice(map, 0).toStringUtf8());
+        Assert.assertEquals(5L, type.getValueType().getLong(map, 1));
+        Assert.assertEquals("0102", VarcharType.VARCHAR.getSlice(map, 2).toStringUtf8());
+        Assert.assertEquals(7L, type.getValueType().getLong(map, 3));
+    }
+
+    @Test
+    public void testColumnFamily() {
+        HBaseColumnHandle name = new HBaseColumnHandle("hbase", "f", "name", VarcharType.VARCHAR, 0, false);
+        HBaseRecordCursor cursor = new HBaseRecordCursor();
+        cursor.columnHandles = Arrays.asList(name);
+        cursor.fieldIndexMap = new HashMap<>();
+        cursor.fieldIndexMap.put("name".hashCode(), name);
+
+        // The same qualifier of another family is not the column
+        KeyValue cell = cell("name", 1L, Bytes.toBytes("n"));
+        Assert.assertEquals(name, cursor.getColumnHandle(cell, "name"));
+        cell = new KeyValue(ROW, Bytes.toBytes("g"), Bytes.toBytes("name"), 1L, Bytes.toBytes("x"));
+        Assert.assertNull(cursor.getColumnHandle(cell, "name"));
+    }
+
+    private static KeyValue cell(String qualifier, long timestamp, byte[] value) {
+        return new KeyValue(ROW, FAMILY, Bytes.toBytes(qualifier), timestamp, value);
+    }
+}
@@ -0,0 +1,229 @@
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.connection.HBaseClientManager;
+import com.analysys.trino.connector.hbase.meta.ColumnMetaInfo;
+import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseConfig;
+import com.analysys.trino.connector.hbase.meta.HBaseTableHandle;
+import com.analysys.trino.connector.hbase.meta.TableMetaInfo;
+import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.analysys.trino.connector.hbase.schedule.HBaseSplit;
+import com.analysys.trino.connector.hbase.utils.Constant;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slices;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.SampleType;
+import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FuzzyRowFilter;
+import org.apache.hadoop.hbase.filter.RandomRowFilter;
+import org.apache.hadoop.hbase.io.TimeRange;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static io.trino.type.InternalTypeManager.TESTING_TYPE_MANAGER;
+
+public class HBaseRecordSetTest {
+
+    private static final HBaseColumnHandle ROW_KEY = column("", "rowkey", true);
+    private static final HBaseColumnHandle A = column("f", "a", false);
+    private static final HBaseColumnHandle B = column("f", "b", false);
+    private static final HBaseColumnHandle C = column("f", "c", false);
+    private static final HBaseColumnHandle X = column("g", "x", false);
+    private static final HBaseColumnHandle USER_ID = column("g", "userid", false);
+
+    @Test
+    public void testWideProjectionReadsFamily() {
+        Scan scan = getScan(ImmutableList.of(ROW_KEY, A, B, C), tableHandle(),
+                ImmutableList.of(eq(X, "v")));
+        // 3 of 4 columns of f are queried, so f is read whole, the column in condition is added alone
+        Assert.assertTrue(isWholeFamily(scan, "f"));
+        Assert.assertEquals(ImmutableList.of("x"), qualifiers(scan, "g"));
+        Assert.assertTrue(scan.doLoadColumnFamiliesOnDemand());
+    }
+
+    @Test
+    public void testNarrowProjectionReadsColumns() {
+        Scan scan = getScan(ImmutableList.of(ROW_KEY, A), tableHandle(), ImmutableList.of(eq(X, "v")));
+        Assert.assertEquals(ImmutableList.of("a"), qualifiers(scan, "f"));
+        Assert.assertEquals(ImmutableList.of("x"), qualifiers(scan, "g"));
+    }
+
+    @Test
+    public void testProjectionWithRowFilters() {
+        HBaseTableHandle tableHandle = tableHandle().withSample(SampleType.BERNOULLI, 0.1);
+        Scan scan = getScan(ImmutableList.of(ROW_KEY, A, B, C), tableHandle, ImmutableList.of(
+                eq(X, "v"),
+                eq(USER_ID, "u001"),
+                new ConditionInfo("rowkey", Constant.CONDITION_OPER.REGEX, "^.{9}\\Qu0\\E", VarcharType.VARCHAR)));
+        // row filters don't change the columns read, columns in conditions are still essential
+        Assert.assertTrue(isWholeFamily(scan, "f"));
+        Assert.assertEquals(ImmutableList.of("userid", "x"), qualifiers(scan, "g"));
+        Assert.assertTrue(scan.doLoadColumnFamiliesOnDemand());
+
+        List<Class<?>> filters = ((FilterList) scan.getFilter()).getFilters().stream()
+                .map(Object::getClass).collect(Collectors.toList());
+        Assert.assertTrue(filters.contains(RandomRowFilter.class));
+        Assert.assertTrue(filters.contains(FuzzyRowFilter.class));
+        // rowKey filter and the value filters of x and userid
+        Assert.assertEquals(3, filters.stream().filter(filter -> !filter.equals(RandomRowFilter.class)
+                && !filter.equals(FuzzyRowFilter.class)).count());
+    }
+
+    @Test
+    public void testRangeFilters() {
+        // x BETWEEN 'a' AND 'c': both bounds must pass
+        Scan scan = getScan(ImmutableList.of(ROW_KEY, A), tableHandle(), ImmutableList.of(
+                condition(X, Constant.CONDITION_OPER.GE, "a"), condition(X, Constant.CONDITION_OPER.LE, "c")));
+        FilterList range = (FilterList) ((FilterList) scan.getFilter()).getFilters().get(0);
+        Assert.assertEquals(FilterList.Operator.MUST_PASS_ALL, range.getOperator());
+        Assert.assertEquals(2, range.getFilters().size());
+
+        // x < 'a' OR 'c' < x < 'e' OR x >= 'g': one of the ranges must pass
+        scan = getScan(ImmutableList.of(ROW_KEY, A), tableHandle(), ImmutableList.of(
+                condition(X, Constant.CONDITION_OPER.LT, "a"),
+                condition(X, Constant.CONDITION_OPER.GT, "c"), condition(X, Constant.CONDITION_OPER.LT, "e"),
+                condition(X, Constant.CONDITION_OPER.GE, "g")));
+        FilterList ranges = (FilterList) ((FilterList) scan.getFilter()).getFilters().get(0);
+        Assert.assertEquals(FilterList.Operator.MUST_PASS_ONE, ranges.getOperator());
+        Assert.assertEquals(3, ranges.getFilters().size());
+        Assert.assertFalse(ranges.getFilters().get(0) instanceof FilterList);
+        Assert.assertEquals(FilterList.Operator.MUST_PASS_ALL, ((FilterList) ranges.getFilters().get(1)).getOperator());
+        Assert.assertFalse(ranges.getFilters().get(2) instanceof FilterList);
+    }
+
+    @Test
+    public void testGroupByRange() {
+        ConditionInfo lt = condition(X, Constant.CONDITION_OPER.LT, "a");
+        ConditionInfo ge = condition(X, Constant.CONDITION_OPER.GE, "c");
+        ConditionInfo le = condition(X, Constant.CONDITION_OPER.LE, "e");
+        ConditionInfo eq = eq(X, "f");
+        ConditionInfo gt = condition(X, Constant.CONDITION_OPER.GT, "g");
+        Assert.assertEquals(ImmutableList.of(ImmutableList.of(lt), ImmutableList.of(ge, le), ImmutableList.of(eq),
+                        ImmutableList.of(gt)),
+                HBaseRecordSet.groupByRange(ImmutableList.of(lt, ge, le, eq, gt)));
+    }
+
+    @Test
+    public void testCellTimeRange() {
+        Scan scan = getScan(ImmutableList.of(ROW_KEY, A), tableHandle(), ImmutableList.of(eq(X, "v")));
+        Assert.assertTrue(scan.getTimeRange().isAllTime());
+
+        scan = newRecordSet(split(ImmutableList.of(eq(X, "v"))), ImmutableList.of(ROW_KEY, A), tableHandle(),
+                TimeRange.from(100L)).getScanFromPrestoConstraint();
+        Assert.assertEquals(100L, scan.getTimeRange().getMin());
+        Assert.assertEquals(Long.MAX_VALUE, scan.getTimeRange().getMax());
+    }
+
+    @Test
+    public void testSplitNotChanged() {
+        List<ConditionInfo> constraint = ImmutableList.of(eq(X, "v"),
+                new ConditionInfo("rowkey", Constant.CONDITION_OPER.PREFIX, "2026", VarcharType.VARCHAR));
+        HBaseSplit split = split(constraint);
+        newRecordSet(split, ImmutableList.of(ROW_KEY, A), tableHandle()).getScanFromPrestoConstraint();
+        Assert.assertEquals(constraint, split.getConstraint());
+    }
+
+    private static Scan getScan(List<ColumnHandle> columns, HBaseTableHandle tableHandle,
+                                List<ConditionInfo> constraint) {
+        return newRecordSet(split(constraint), columns, tableHandle).getScanFromPrestoConstraint();
+    }
+
+    private static HBaseRecordSet newRecordSet(HBaseSplit split, List<ColumnHandle> columns,
+                                               HBaseTableHandle tableHandle) {
+        return newRecordSet(split, columns, tableHandle, TimeRange.allTime());
+    }
+
+    private static HBaseRecordSet newRecordSet(HBaseSplit split, List<ColumnHandle> columns,
+                                               HBaseTableHandle tableHandle, TimeRange cellTimeRange) {
+        HBaseClientManager clientManager = new HBaseClientManager(new HBaseConfig(), TESTING_TYPE_MANAGER) {
+            @Override
+            public Connection createConnection() {
+                return null;
+            }
+
+            @Override
+            public TableMetaInfo getTableMetaInfo(String schema, String tableName) {
+                return tableMetaInfo();
+            }
+        };
+        return new HBaseRecordSet(split, tableHandle, columns, 0, cellTimeRange, clientManager);
+    }
+
+    private static HBaseSplit split(List<ConditionInfo> constraint) {
+        return new HBaseSplit("hbase", "db", "t", "rowkey", ImmutableList.of(), null, null,
+                new ArrayList<>(constraint), false, -1, null, null);
+    }
+
+    private static HBaseTableHandle tableHandle() {
+        return new HBaseTableHandle(new SchemaTableName("db", "t"), TupleDomain.withColumnDomains(ImmutableMap.of(
+                X, Domain.singleValue(VarcharType.VARCHAR, Slices.utf8Slice("v")),
+                USER_ID, Domain.singleValue(VarcharType.VARCHAR, Slices.utf8Slice("u001")))));
+    }
+
+    /**
+     * rowkey date|userid, family f has 4 columns and g has 2
+     */
+    private static TableMetaInfo tableMetaInfo() {
+        List<ColumnMetaInfo> columns = new ArrayList<>();
+        columns.add(columnMeta("", "rowkey", true));
+        for (String name : ImmutableList.of("a", "b", "c", "d")) {
+            columns.add(columnMeta("f", name, false));
+        }
+        columns.add(columnMeta("g", "x", false));
+        columns.add(columnMeta("g", "userid", false));
+        TableMetaInfo tableMetaInfo = new TableMetaInfo();
+        tableMetaInfo.setColumns(columns);
+        tableMetaInfo.setRowKeyFormat("date:8,userid:4");
+        tableMetaInfo.setRowKeySeparator("|");
+        return tableMetaInfo;
+    }
+
+    private static ColumnMetaInfo columnMeta(String family, String name, boolean rowKey) {
+        ColumnMetaInfo column = new ColumnMetaInfo();
+        column.setFamily(family);
+        column.setColumnName(name);
+        column.setType("string");
+        column.setRowKey(rowKey);
+        return column;
+    }
+
+    private static HBaseColumnHandle column(String family, String name, boolean rowKey) {
+        return new HBaseColumnHandle("hbase", family, name, VarcharType.VARCHAR, 0, rowKey);
+    }
+
+    private static ConditionInfo eq(HBaseColumnHandle column, String value) {
+        return new ConditionInfo(column.getColumnName(), Constant.CONDITION_OPER.EQ, Slices.utf8Slice(value),
+                VarcharType.VARCHAR);
+    }
+
+    private static ConditionInfo condition(HBaseColumnHandle column, Constant.CONDITION_OPER operator, String value) {
+        return new ConditionInfo(column.getColumnName(), operator, Slices.utf8Slice(value), VarcharType.VARCHAR);
+    }
+
+    private static boolean isWholeFamily(Scan scan, String family) {
+        byte[] name = Bytes.toBytes(family);
+        return scan.getFamilyMap().containsKey(name) && scan.getFamilyMap().get(name) == null;
+    }
+
+    private static List<String> qualifiers(Scan scan, String family) {
+        NavigableSet<byte[]> qualifiers = scan.getFamilyMap().get(Bytes.toBytes(family));
+        Set<String> names = new TreeSet<>();
+        qualifiers.forEach(qualifier -> names.add(Bytes.toString(qualifier)));
+        return ImmutableList.copyOf(names);
+    }
+}
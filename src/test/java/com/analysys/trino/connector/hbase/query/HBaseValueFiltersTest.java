@@ -0,0 +1,218 @@
+package com.analysys.trino.connector.hbase.query;
+
+import com.analysys.trino.connector.hbase.meta.ColumnMetaInfo;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
+import com.analysys.trino.connector.hbase.meta.TableMetaInfo;
+import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.analysys.trino.connector.hbase.utils.Constant;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slices;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.DecimalType;
+import io.trino.spi.type.DoubleType;
+import io.trino.spi.type.IntegerType;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+public class HBaseValueFiltersTest {
+
+    private static final byte[] ROW = Bytes.toBytes("row");
+    private static final byte[] FAMILY = Bytes.toBytes("f");
+    private static final byte[] QUALIFIER = Bytes.toBytes("c");
+
+    private static final int[] INTS = {Integer.MIN_VALUE, -100, -1, 0, 1, 100, Integer.MAX_VALUE};
+    private static final double[] DOUBLES = {Double.NEGATIVE_INFINITY, -100.5, -1.0, -0.0, 0.0, 1.0, 100.5,
+            Double.POSITIVE_INFINITY};
+    private static final long[] LONGS = {Long.MIN_VALUE, -100L, -1L, 0L, 1L, 100L, Long.MAX_VALUE};
+    private static final Constant.CONDITION_OPER[] COMPARISONS = {Constant.CONDITION_OPER.GT,
+            Constant.CONDITION_OPER.LT, Constant.CONDITION_OPER.EQ, Constant.CONDITION_OPER.GE,
+            Constant.CONDITION_OPER.LE};
+
+    @Test
+    public void testIntRanges() throws IOException {
+        for (Constant.CONDITION_OPER operator : COMPARISONS) {
+            for (int bound : INTS) {
+                Filter filter = create(IntegerType.INTEGER, operator, bound);
+                for (int value : INTS) {
+                    Assert.assertEquals(value + " " + operator + " " + bound,
+                            matches(Integer.compare(value, bound), operator), accept(filter, Bytes.toBytes(value)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDoubleRanges() throws IOException {
+        for (Constant.CONDITION_OPER operator : COMPARISONS) {
+            for (double bound : DOUBLES) {
+                Filter filter = create(DoubleType.DOUBLE, operator, bound);
+                for (double value : DOUBLES) {
+                    // -0.0 == 0.0 in sql
+                    int compare = value == bound ? 0 : Double.compare(value, bound);
+                    Assert.assertEquals(value + " " + operator + " " + bound,
+                            matches(compare, operator), accept(filter, Bytes.toBytes(value)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBigintRanges() throws IOException {
+        for (Constant.CONDITION_OPER operator : COMPARISONS) {
+            for (long bound : LONGS) {
+                Filter filter = create(BigintType.BIGINT, operator, bound);
+                for (long value : LONGS) {
+                    Assert.assertEquals(value + " " + operator + " " + bound,
+                            matches(Long.compare(value, bound), operator), accept(filter, Bytes.toBytes(value)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecimalRanges() throws IOException {
+        Type type = DecimalType.createDecimalType(Constant.DECIMAL_DEFAULT_PRECISION, Constant.DECIMAL_DEFAULT_SCALE);
+        // -1.5 > -10.25 although its encoded bytes are not greater
+        Filter filter = create(type, Constant.CONDITION_OPER.GT, -10250L);
+        Assert.assertTrue(accept(filter, Bytes.toBytes(new BigDecimal("-1.5"))));
+        Assert.assertFalse(accept(filter, Bytes.toBytes(new BigDecimal("-20"))));
+    }
+
+    @Test
+    public void testPatterns() throws IOException {
+        Filter prefix = create(VarcharType.VARCHAR, Constant.CONDITION_OPER.PREFIX, "GET /api");
+        Assert.assertTrue(accept(prefix, Bytes.toBytes("GET /api/users")));
+        Assert.assertFalse(accept(prefix, Bytes.toBytes("POST /api/users")));
+
+        Filter substring = create(VarcharType.VARCHAR, Constant.CONDITION_OPER.SUBSTRING, "error");
+        Assert.assertTrue(accept(substring, Bytes.toBytes("2019 ERROR timeout")));
+        Assert.assertFalse(accept(substring, Bytes.toBytes("2019 INFO ok")));
+
+        Filter regex = create(VarcharType.VARCHAR, Constant.CONDITION_OPER.REGEX, "^\\Q用户\\E.*1$");
+        Assert.assertTrue(accept(regex, Bytes.toBytes("用户 00\n1")));
+        Assert.assertFalse(accept(regex, Bytes.toBytes("用户 002")));
+    }
+
+    @Test
+    public void testRowKeyFilter() throws IOException {
+        Filter filter = HBaseValueFilters.createRowKeyFilter(ImmutableList.of(
+                new ConditionInfo("rowkey", Constant.CONDITION_OPER.PREFIX, "20260101", VarcharType.VARCHAR),
+                new ConditionInfo("rowkey", Constant.CONDITION_OPER.PREFIX, "20260103", VarcharType.VARCHAR),
+                new ConditionInfo("rowkey", Constant.CONDITION_OPER.REGEX, "^.{9}\\Qab\\E", VarcharType.VARCHAR)));
+        Assert.assertTrue(acceptRow(filter, "20260101|ab"));
+        Assert.assertTrue(acceptRow(filter, "20260103|ab"));
+        Assert.assertFalse(acceptRow(filter, "20260102|ab"));
+        Assert.assertFalse(acceptRow(filter, "20260101|cd"));
+    }
+
+    @Test
+    public void testFuzzyKeys() {
+        TableMetaInfo tableMetaInfo = new TableMetaInfo();
+        tableMetaInfo.setRowKeyFormat("date:8,userId:4,type:1");
+        tableMetaInfo.setRowKeySeparator("|");
+        List<Pair<byte[], byte[]>> fuzzyKeys = HBaseValueFilters.getFuzzyKeys(tableMetaInfo, true, ImmutableList.of(
+                new ConditionInfo("userId", Constant.CONDITION_OPER.EQ, Slices.utf8Slice("u001"), VarcharType.VARCHAR),
+                new ConditionInfo("userId", Constant.CONDITION_OPER.EQ, Slices.utf8Slice("u002"), VarcharType.VARCHAR),
+                new ConditionInfo("userId", Constant.CONDITION_OPER.EQ, Slices.utf8Slice("u12"), VarcharType.VARCHAR)));
+        // salt|date|userId, the any bytes of type are not in fuzzy keys
+        Assert.assertEquals(2, fuzzyKeys.size());
+        Assert.assertEquals("\\x00|\\x00\\x00\\x00\\x00\\x00\\x00\\x00\\x00|u001",
+                Bytes.toStringBinary(fuzzyKeys.get(0).getFirst()));
+        Assert.assertArrayEquals(new byte[]{1, 0, 1, 1, 1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 0}, fuzzyKeys.get(0).getSecond());
+        Assert.assertEquals("u002", Bytes.toString(fuzzyKeys.get(1).getFirst(), 11, 4));
+
+        // startKeys are made by the split manager when all columns of rowKey are in conditions
+        tableMetaInfo.setRowKeyFormat("userId:4");
+        Assert.assertTrue(HBaseValueFilters.getFuzzyKeys(tableMetaInfo, true, ImmutableList.of(
+                new ConditionInfo("userId", Constant.CONDITION_OPER.EQ, Slices.utf8Slice("u001"), VarcharType.VARCHAR)))
+                .isEmpty());
+        // rowKey without widths
+        tableMetaInfo.setRowKeyFormat("date,userId");
+        Assert.assertTrue(HBaseValueFilters.getFuzzyKeys(tableMetaInfo, true, ImmutableList.of(
+                new ConditionInfo("userId", Constant.CONDITION_OPER.EQ, Slices.utf8Slice("u001"), VarcharType.VARCHAR)))
+                .isEmpty());
+    }
+
+    @Test
+    public void testFuzzyKeysOfGeneratedRowKeys() {
+        ColumnMetaInfo rowKey = new ColumnMetaInfo();
+        rowKey.setColumnName("rowkey");
+        rowKey.setRowKey(true);
+        TableMetaInfo tableMetaInfo = new TableMetaInfo();
+        tableMetaInfo.setColumns(ImmutableList.of(rowKey));
+        tableMetaInfo.setRowKeyFormat("date:8,userId:4,xwhen:19");
+        tableMetaInfo.setRowKeySeparator("|");
+        tableMetaInfo.setRowKeyGenerated(true);
+        tableMetaInfo.setRowKeyReversedFields("xwhen");
+        tableMetaInfo.setRowKeySaltBuckets(4);
+        HBaseRowKeyGenerator generator = HBaseRowKeyGenerator.create(tableMetaInfo).get();
+        // salted tables have a salt part even if the catalog says not
+        Assert.assertTrue(tableMetaInfo.hasSaltPart(false));
+        List<Pair<byte[], byte[]>> fuzzyKeys = HBaseValueFilters.getFuzzyKeys(tableMetaInfo,
+                tableMetaInfo.hasSaltPart(false),
+                ImmutableList.of(new ConditionInfo("xwhen", Constant.CONDITION_OPER.EQ, 1000L, BigintType.BIGINT)));
+        // values are reversed as INSERT writes them
+        Assert.assertTrue(fuzzyMatches(fuzzyKeys, generator.addSalt("20260101|u001|" + (Long.MAX_VALUE - 1000))));
+        Assert.assertTrue(fuzzyMatches(fuzzyKeys, generator.addSalt("20260102|u002|" + (Long.MAX_VALUE - 1000))));
+        Assert.assertFalse(fuzzyMatches(fuzzyKeys, generator.addSalt("20260101|u001|" + (Long.MAX_VALUE - 1001))));
+    }
+
+    private static boolean fuzzyMatches(List<Pair<byte[], byte[]>> fuzzyKeys, String rowKey) {
+        byte[] row = Bytes.toBytes(rowKey);
+        return fuzzyKeys.stream().anyMatch(key -> {
+            for (int i = 0; i < key.getFirst().length; i++) {
+                if (key.getSecond()[i] == 0 && (i >= row.length || key.getFirst()[i] != row[i])) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    private static boolean acceptRow(Filter filter, String row) throws IOException {
+        Cell cell = new KeyValue(Bytes.toBytes(row), FAMILY, QUALIFIER, Bytes.toBytes(1));
+        filter.reset();
+        return !filter.filterRowKey(cell) && filter.filterCell(cell) != Filter.ReturnCode.SEEK_NEXT_USING_HINT
+                && !filter.filterRow();
+    }
+
+    private static Filter create(Type type, Constant.CONDITION_OPER operator, Object value) {
+        return HBaseValueFilters.create(FAMILY, QUALIFIER, new ConditionInfo("c", operator, value, type));
+    }
+
+    private static boolean matches(int compare, Constant.CONDITION_OPER operator) {
+        switch (operator) {
+            case GT:
+                return compare > 0;
+            case GE:
+                return compare >= 0;
+            case LT:
+                return compare < 0;
+            case LE:
+                return compare <= 0;
+            default:
+                return compare == 0;
+        }
+    }
+
+    private static boolean accept(Filter filter, byte[] value) throws IOException {
+        Cell cell = new KeyValue(ROW, FAMILY, QUALIFIER, value);
+        filter.reset();
+        if (filter.filterRowKey(cell)) {
+            return false;
+        }
+        filter.filterCell(cell);
+        return !filter.filterRow();
+    }
+}
@@ -0,0 +1,82 @@
+package com.analysys.trino.connector.hbase.schedule;
+
+import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.HBaseRegionStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slices;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.predicate.ValueSet;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class HBaseAccessPlannerTest {
+
+    private static final long MB = 1024 * 1024;
+    private static final byte[] EMPTY = HConstants.EMPTY_BYTE_ARRAY;
+
+    // regions [, 1), [1, 2), [2, ) of 100MB each
+    private static final List<HBaseRegionStats> REGIONS = ImmutableList.of(
+            new HBaseRegionStats(EMPTY, Bytes.toBytes("1"), 100 * MB, 0, 0, 0),
+            new HBaseRegionStats(Bytes.toBytes("1"), Bytes.toBytes("2"), 100 * MB, 0, 0, 0),
+            new HBaseRegionStats(Bytes.toBytes("2"), EMPTY, 90 * MB, 10 * MB, 0, 0));
+
+    @Test
+    public void testChooseForRowKeys() {
+        Assert.assertEquals(HBaseAccessPlan.Path.BATCH_GET, HBaseAccessPlanner.choose(
+                ImmutableList.of("1a", "1b"), REGIONS, EMPTY, EMPTY, false, 0).getPath());
+        Assert.assertEquals(HBaseAccessPlan.Path.BATCH_GET, HBaseAccessPlanner.choose(
+                rowKeys("1", 10000), ImmutableList.of(), EMPTY, EMPTY, false, 0).getPath());
+        // 10000 gets read 625MB, more than the 100MB region holding them
+        Assert.assertEquals(HBaseAccessPlan.Path.RANGE_SCAN, HBaseAccessPlanner.choose(
+                rowKeys("1", 10000), REGIONS, EMPTY, EMPTY, false, 0).getPath());
+        // but not if they are spread over the whole table
+        List<String> spread = ImmutableList.<String>builder().addAll(rowKeys("0", 2000))
+                .addAll(rowKeys("2", 2000)).build();
+        Assert.assertEquals(HBaseAccessPlan.Path.BATCH_GET, HBaseAccessPlanner.choose(
+                spread, REGIONS, EMPTY, EMPTY, false, 0).getPath());
+    }
+
+    @Test
+    public void testChooseForScan() {
+        Assert.assertEquals(HBaseAccessPlan.Path.SCAN, HBaseAccessPlanner.choose(
+                ImmutableList.of(), REGIONS, EMPTY, EMPTY, false, 200 * MB).getPath());
+        Assert.assertEquals(HBaseAccessPlan.Path.SNAPSHOT_SCAN, HBaseAccessPlanner.choose(
+                ImmutableList.of(), REGIONS, EMPTY, EMPTY, true, 200 * MB).getPath());
+        Assert.assertEquals(HBaseAccessPlan.Path.SCAN, HBaseAccessPlanner.choose(
+                ImmutableList.of(), REGIONS, Bytes.toBytes("1"), Bytes.toBytes("2"), true, 200 * MB).getPath());
+    }
+
+    @Test
+    public void testRowKeyConditions() {
+        HBaseColumnHandle rowKey = new HBaseColumnHandle("hbase", "", "rowkey", VarcharType.VARCHAR, 0, true);
+        TupleDomain<ColumnHandle> in = TupleDomain.withColumnDomains(ImmutableMap.of(rowKey,
+                Domain.multipleValues(VarcharType.VARCHAR, ImmutableList.of(Slices.utf8Slice("b"), Slices.utf8Slice("a")))));
+        Assert.assertEquals(ImmutableList.of("a", "b"), HBaseAccessPlanner.getRowKeys(in));
+        byte[][] span = HBaseAccessPlanner.getRowKeySpan(in);
+        Assert.assertEquals("a", Bytes.toString(span[0]));
+        Assert.assertEquals("b\u0000", Bytes.toString(span[1]));
+
+        TupleDomain<ColumnHandle> greater = TupleDomain.withColumnDomains(ImmutableMap.of(rowKey, Domain.create(
+                ValueSet.ofRanges(Range.greaterThan(VarcharType.VARCHAR, Slices.utf8Slice("x"))), false)));
+        Assert.assertTrue(HBaseAccessPlanner.getRowKeys(greater).isEmpty());
+        span = HBaseAccessPlanner.getRowKeySpan(greater);
+        Assert.assertEquals("x", Bytes.toString(span[0]));
+        Assert.assertEquals(0, span[1].length);
+    }
+
+    private static List<String> rowKeys(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> prefix + String.format("%05d", i))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,52 @@
+package com.analysys.trino.connector.hbase.schedule;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.Page;
+import io.trino.spi.block.BlockBuilder;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+import static io.trino.spi.type.VarcharType.VARCHAR;
+
+public class HBaseBucketFunctionTest {
+
+    // salted table, regions split at the salt and at '1|m'
+    private static final List<String> START_KEYS = ImmutableList.of("", "1|", "1|m", "2|");
+
+    @Test
+    public void testRegions() {
+        HBaseBucketFunction function = new HBaseBucketFunction(START_KEYS, START_KEYS.size());
+        Assert.assertEquals(0, function.getRegion(Bytes.toBytes("0|z")));
+        Assert.assertEquals(1, function.getRegion(Bytes.toBytes("1|")));
+        Assert.assertEquals(1, function.getRegion(Bytes.toBytes("1|a")));
+        Assert.assertEquals(2, function.getRegion(Bytes.toBytes("1|m")));
+        Assert.assertEquals(3, function.getRegion(Bytes.toBytes("9|a")));
+        Assert.assertEquals(0, function.getRegion(new byte[0]));
+    }
+
+    @Test
+    public void testBuckets() {
+        Page page = page("0|a", "1|b", "1|x", "2|c");
+        HBaseBucketFunction function = new HBaseBucketFunction(START_KEYS, START_KEYS.size());
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            Assert.assertEquals(position, function.getBucket(page, position));
+        }
+        // neighbouring regions share a bucket
+        HBaseBucketFunction twoBuckets = new HBaseBucketFunction(START_KEYS, 2);
+        Assert.assertEquals(0, twoBuckets.getBucket(page, 0));
+        Assert.assertEquals(0, twoBuckets.getBucket(page, 1));
+        Assert.assertEquals(1, twoBuckets.getBucket(page, 2));
+        Assert.assertEquals(1, twoBuckets.getBucket(page, 3));
+    }
+
+    private static Page page(String... rowKeys) {
+        BlockBuilder builder = VARCHAR.createBlockBuilder(null, rowKeys.length);
+        for (String rowKey : rowKeys) {
+            VARCHAR.writeString(builder, rowKey);
+        }
+        return new Page(builder.build());
+    }
+}
@@ -1,7 +1,28 @@
 package com.analysys.trino.connector.hbase.schedule;
 
+import com.analysys.trino.connector.hbase.meta.ColumnMetaInfo;
+import com.analysys.trino.connector.hbase.meta.HBaseRowKeyGenerator;
+import com.analysys.trino.connector.hbase.meta.TableMetaInfo;
+import com.analysys.trino.connector.hbase.utils.Constant;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slices;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.ValueSet;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.DecimalType;
+import io.trino.spi.type.DoubleType;
+import io.trino.spi.type.Int128;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
 
 public class HBaseSplitManagerTest {
 
@@ -18,12 +39,75 @@ public class HBaseSplitManagerTest {
         System.out.println("startAndEnds.size=" + startAndEnds.size());
         System.out.println(Arrays.toString(startAndEnds.toArray()));*/
     }
-}
-
 
+    @Test
+    public void testSampleSplits() {
+        List<HBaseSplit> splits = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            splits.add(new HBaseSplit("hbase", "db", "t", "rowkey", ImmutableList.of(), String.valueOf(i),
+                    String.valueOf(i + 1), ImmutableList.of(), false, -1, null, null));
+        }
+        // ANALYZE reads 3 of 7 regions, its statistics are scaled by 3 / 7
+        for (int i = 0; i < 20; i++) {
+            List<HBaseSplit> sampled = HBaseSplitManager.sampleSplits(splits, 3 / 7.0);
+            Assert.assertEquals(3, sampled.size());
+            Assert.assertEquals(3, new HashSet<>(sampled).size());
+        }
+        Assert.assertEquals(7, HBaseSplitManager.sampleSplits(splits, 1).size());
+    }
 
+    @Test
+    public void testCanPushDown() {
+        Assert.assertTrue(HBaseSplitManager.canPushDown(
+                Domain.singleValue(DecimalType.createDecimalType(10, 2), 12345L)));
+        Assert.assertFalse(HBaseSplitManager.canPushDown(
+                Domain.singleValue(DecimalType.createDecimalType(20, 2), Int128.valueOf(12345L))));
+        Assert.assertTrue(HBaseSplitManager.canPushDown(
+                Domain.create(ValueSet.ofRanges(Range.greaterThan(DoubleType.DOUBLE, 1.5d)), false)));
+    }
 
+    @Test
+    public void testGeneratedKeyRanges() {
+        ColumnMetaInfo rowKey = new ColumnMetaInfo();
+        rowKey.setColumnName("rowkey");
+        rowKey.setRowKey(true);
+        TableMetaInfo tableMetaInfo = new TableMetaInfo();
+        tableMetaInfo.setColumns(ImmutableList.of(rowKey));
+        tableMetaInfo.setRowKeySeparator("|");
+        tableMetaInfo.setRowKeyFormat("date:8,userId:4,xwhen:19");
+        tableMetaInfo.setRowKeyGenerated(true);
+        tableMetaInfo.setRowKeyReversedFields("xwhen");
+        tableMetaInfo.setRowKeySaltBuckets(4);
+        HBaseRowKeyGenerator generator = HBaseRowKeyGenerator.create(tableMetaInfo).get();
+        // as written by INSERT
+        String written = generator.addSalt("20260101|u001|" + (Long.MAX_VALUE - 1000));
+        ConditionInfo date = new ConditionInfo("date", Constant.CONDITION_OPER.EQ,
+                Slices.utf8Slice("20260101"), VarcharType.VARCHAR);
+        ConditionInfo userId = new ConditionInfo("userId", Constant.CONDITION_OPER.EQ,
+                Slices.utf8Slice("u001"), VarcharType.VARCHAR);
+        ConditionInfo xwhen = new ConditionInfo("xwhen", Constant.CONDITION_OPER.EQ, 1000L, BigintType.BIGINT);
 
+        // the whole rowKey with its salt
+        List<Pair<String, String>> ranges = HBaseSplitManager.getGeneratedKeyRanges(
+                ImmutableList.of(date, userId, xwhen), generator);
+        Assert.assertEquals(1, ranges.size());
+        Assert.assertTrue(contains(ranges.get(0), written));
 
+        // a prefix with every salt
+        ranges = HBaseSplitManager.getGeneratedKeyRanges(ImmutableList.of(date, xwhen), generator);
+        Assert.assertEquals(4, ranges.size());
+        Assert.assertEquals(1, ranges.stream().filter(range -> contains(range, written)).count());
+        Assert.assertFalse(ranges.stream().anyMatch(range -> contains(range, generator.addSalt("20260102|u001|1"))));
 
+        // a full scan when the first column is not in conditions or can't be in rowKey
+        Assert.assertTrue(HBaseSplitManager.getGeneratedKeyRanges(ImmutableList.of(userId), generator).isEmpty());
+        Assert.assertTrue(HBaseSplitManager.getGeneratedKeyRanges(ImmutableList.of(new ConditionInfo("date",
+                Constant.CONDITION_OPER.EQ, Slices.utf8Slice("2026"), VarcharType.VARCHAR)), generator).isEmpty());
+    }
 
+    private static boolean contains(Pair<String, String> range, String rowKey) {
+        byte[] row = Bytes.toBytes(rowKey);
+        return Bytes.compareTo(Bytes.toBytes(range.getFirst()), row) <= 0
+                && Bytes.compareTo(row, Bytes.toBytes(range.getSecond())) < 0;
+    }
+}
@@ -1,13 +1,37 @@
 package com.analysys.trino.connector.hbase.utils;
 
+import com.analysys.trino.connector.hbase.meta.HBaseColumnHandle;
+import com.analysys.trino.connector.hbase.meta.TableMetaInfo;
 import com.analysys.trino.connector.hbase.schedule.ConditionInfo;
+import com.google.common.collect.ImmutableMap;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.predicate.ValueSet;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.TypeSignature;
+import io.trino.spi.type.VarcharType;
+import org.apache.hadoop.hbase.io.TimeRange;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 
+import static io.trino.type.InternalTypeManager.TESTING_TYPE_MANAGER;
+
 public class UtilsTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testAddZeroPrefix() {
         Assert.assertEquals("fooBar", Utils.addZeroPrefix("fooBar", 0));
@@ -37,6 +61,23 @@ public class UtilsTest {
         Assert.assertTrue(Utils.isBatchGet(conditions, "fooBar"));
     }
 
+    @Test
+    public void testGetCellTimeRange() {
+        ColumnHandle timestamp = new HBaseColumnHandle("hbase", "", Constant.CELL_TIMESTAMP_COLUMN_NAME,
+                BigintType.BIGINT, 3, false);
+        Assert.assertTrue(Utils.getCellTimeRange(TupleDomain.all()).isAllTime());
+
+        TimeRange range = Utils.getCellTimeRange(TupleDomain.withColumnDomains(ImmutableMap.of(timestamp,
+                Domain.create(ValueSet.ofRanges(Range.greaterThan(BigintType.BIGINT, 100L)), false))));
+        Assert.assertEquals(101L, range.getMin());
+        Assert.assertEquals(Long.MAX_VALUE, range.getMax());
+
+        range = Utils.getCellTimeRange(TupleDomain.withColumnDomains(ImmutableMap.of(timestamp,
+                Domain.create(ValueSet.of(BigintType.BIGINT, 10L, 20L), false))));
+        Assert.assertEquals(10L, range.getMin());
+        Assert.assertEquals(21L, range.getMax());
+    }
+
   /*@PrepareForTest({FileUtils.class, Utils.class})
   @Test
   public void testGetColumnMetaFromJson() throws Exception {
@@ -66,6 +107,52 @@ public class UtilsTest {
             new HBaseColumnMetadata("foo", "Bar", TimestampType.TIMESTAMP, false),
             new HBaseColumnMetadata("foo", "Bar", TimestampType.TIMESTAMP, false),
             new HBaseColumnMetadata("foo", "Bar", DecimalType.createDecimalType(DECIMAL_DEFAULT_PRECISION, DECIMAL_DEFAULT_SCALE), false)
-    }, Utils.getColumnMetaFromJson("a","b","c").toArray());
+    }, Utils.getColumnMetaFromJson("a","b","c", TESTING_TYPE_MANAGER).toArray());
   }*/
+
+    @Test
+    public void testMatchVersionedType() {
+        Assert.assertEquals(BigintType.BIGINT, Utils.matchType("bigint", 1, TESTING_TYPE_MANAGER));
+        Assert.assertFalse(Utils.isVersionedType(Utils.matchType("bigint", 1, TESTING_TYPE_MANAGER)));
+
+        Type type = Utils.matchType("varchar", 3, TESTING_TYPE_MANAGER);
+        Assert.assertTrue(Utils.isVersionedType(type));
+        Assert.assertEquals("array(row(ts bigint, value varchar))", type.getDisplayName());
+        // array columns are stored as one string, they can't be read by versions
+        Assert.assertFalse(Utils.isVersionedType(Utils.matchType("array<string>", 3, TESTING_TYPE_MANAGER)));
+    }
+
+    @Test
+    public void testMatchMapType() {
+        Type type = Utils.matchType("map<string, bigint>", TESTING_TYPE_MANAGER);
+        Assert.assertEquals(TESTING_TYPE_MANAGER.getType(TypeSignature.mapType(VarcharType.VARCHAR.getTypeSignature(),
+                BigintType.BIGINT.getTypeSignature())), type);
+        // map columns ignore maxVersions
+        Assert.assertFalse(Utils.isVersionedType(Utils.matchType("map<string,bigint>", 3, TESTING_TYPE_MANAGER)));
+    }
+
+    @Test
+    public void testTableJsonCache() throws IOException {
+        File dir = folder.newFolder("db");
+        File json = new File(dir, "t.json");
+        writeTableJson(json, "id", 1000L);
+        String metaDir = folder.getRoot().getPath();
+        TableMetaInfo tableMetaInfo = Utils.getTableMetaInfoFromJson("db", "t", metaDir);
+        Assert.assertEquals("id", tableMetaInfo.getRowKeyFormat());
+        Assert.assertSame(tableMetaInfo, Utils.getTableMetaInfoFromJson("db", "t", metaDir));
+        Assert.assertEquals(2, Utils.getColumnMetaFromJson("db", "t", metaDir, TESTING_TYPE_MANAGER).size());
+
+        // modified json is read again
+        writeTableJson(json, "uid", 2000L);
+        Assert.assertEquals("uid", Utils.getTableMetaInfoFromJson("db", "t", metaDir).getRowKeyFormat());
+        Assert.assertEquals("uid", Utils.getColumnMetaFromJson("db", "t", metaDir, TESTING_TYPE_MANAGER).get(1).getName());
+    }
+
+    private static void writeTableJson(File json, String column, long lastModified) throws IOException {
+        Files.write(json.toPath(), ("{\"tableName\": \"t\", \"schemaName\": \"db\", \"rowKeyFormat\": \"" + column
+                + "\", \"columns\": [{\"family\": \"\", \"columnName\": \"rowkey\", \"type\": \"varchar\","
+                + " \"isRowKey\": true}, {\"family\": \"f\", \"columnName\": \"" + column
+                + "\", \"type\": \"varchar\", \"isRowKey\": false}]}").getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(json.setLastModified(lastModified));
+    }
 }